@@ -0,0 +1,11 @@
+#!/usr/bin/python
+
+import os
+import sys
+import env
+
+classpath = env.getClassPath()
+cmd = ""
+for arg in sys.argv[1:]:
+    cmd += "'" + arg + "' "
+os.system ("java -Xmx4096M -classpath %s org.mskcc.netbox.script.BatchNetAnalyze %s" % (classpath, cmd))
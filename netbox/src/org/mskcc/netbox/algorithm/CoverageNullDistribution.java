@@ -0,0 +1,102 @@
+package org.mskcc.netbox.algorithm;
+
+import org.mskcc.netbox.genomic.ProfileDataSummary;
+import org.mskcc.netbox.util.ConfiguredCallable;
+import org.mskcc.netbox.util.ParallelUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Empirical Null Distribution of the Percent of Cases Altered in Random Gene Sets.
+ * <p/>
+ * Modules with the same gene set size share the same null distribution, so it is sampled
+ * once per distinct size, rather than once per module.  Each distribution is stored as a
+ * sorted array of random scores, and p-values are answered via binary search.  The random
+ * stream of each size is derived from the seed and the size, so results do not depend on
+ * the order or number of threads in which distributions are sampled.
+ */
+final class CoverageNullDistribution {
+    private HashMap<Integer, double[]> distributionMap = new HashMap<Integer, double[]>();
+
+    /**
+     * Constructor.
+     *
+     * @param p         Profile Data Summary Object.
+     * @param sizes     Distinct gene set sizes.
+     * @param numTrials Number of random gene sets per size.
+     * @param seed      Random seed.
+     * @param executor  ExecutorService used to sample sizes in parallel, or null to sample
+     *                  them in the calling thread.
+     */
+    CoverageNullDistribution(final ProfileDataSummary p, Set<Integer> sizes,
+            final int numTrials, final long seed, ExecutorService executor) {
+        HashMap<Integer, Future<double[]>> futureMap = new HashMap<Integer, Future<double[]>>();
+        for (final Integer size : sizes) {
+            if (executor == null) {
+                distributionMap.put(size, sample(p, size, numTrials, seed));
+            } else {
+                futureMap.put(size, executor.submit(new ConfiguredCallable<double[]>() {
+                    protected double[] execute() {
+                        return sample(p, size, numTrials, seed);
+                    }
+                }));
+            }
+        }
+        for (Integer size : futureMap.keySet()) {
+            distributionMap.put(size, ParallelUtil.getUncheckedResult(futureMap.get(size)));
+        }
+    }
+
+    /**
+     * Gets the Fraction of Random Gene Sets of the Specified Size, which score at least as
+     * high as the Observed Score.
+     *
+     * @param size          Gene set size.
+     * @param observedScore Observed percent of cases altered.
+     * @return p-value.
+     */
+    double getPValue(int size, double observedScore) {
+        double[] scores = distributionMap.get(size);
+        if (scores == null) {
+            throw new IllegalArgumentException("No null distribution for size:  " + size);
+        }
+
+        //  Find the first score >= observedScore
+        int low = 0;
+        int high = scores.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (scores[mid] < observedScore) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return (scores.length - low) / (double) scores.length;
+    }
+
+    private static double[] sample(ProfileDataSummary p, int size, int numTrials, long seed) {
+        ArrayList<String> observedGeneList = p.getObservedGeneList();
+        Random randomGenerator = new Random(ParallelUtil.deriveSeed(seed, size));
+        double[] scores = new double[numTrials];
+        ArrayList<String> randomGeneList = new ArrayList<String>(size);
+        for (int i = 0; i < numTrials; i++) {
+
+            //  Pick random gene set of size N.
+            randomGeneList.clear();
+            for (int j = 0; j < size; j++) {
+                int index = randomGenerator.nextInt(observedGeneList.size());
+                randomGeneList.add(observedGeneList.get(index));
+            }
+            scores[i] = p.getPercentCasesWhereGeneSetisAltered(randomGeneList);
+        }
+        Arrays.sort(scores);
+        return scores;
+    }
+}
@@ -51,7 +51,7 @@ public final class GeneConnector {
     private ArrayList<LinkerGene> linkerList;
     private HashSet<String> alteredGenesInNetwork = new HashSet<String>();
     private NetworkStatsUtil networkStatsUtil;
-    private static NumberFormat numberFormat = Formatter.getPValueFormat();
+    private NumberFormat numberFormat = Formatter.getPValueFormat();
     private double pValueCutOff;
     private int shortestPathThreshold;
     private static Logger log = Logger.getLogger(GeneConnector.class);
@@ -185,11 +185,8 @@ public final class GeneConnector {
                         //  Get the global degree for this linker
                         int globalDegree = networkStatsUtil.getGeneDegree(label);
 
-                        //  Calculate the Hypergeometric distribution for the linker
-                        //  (population size, number of successes, sample size)
-                        HypergeometricDistribution hyper = new HypergeometricDistributionImpl(
-                                totalNumGenes, globalDegree, numAlteredGenesInNetwork);
-                        double pValue = hyper.probability(counter);
+                        double pValue = calculateLinkerPValue(totalNumGenes, globalDegree,
+                                numAlteredGenesInNetwork, counter);
                         log.info("Gene: " + label + " Local:  " + counter
                                 + " global:  " + globalDegree + ", pvalue:  " + pValue);
                         log.info("new HypergeometricDistributionImpl("
@@ -206,17 +203,7 @@ public final class GeneConnector {
             }
 
             //  FDR Adjustment for Linkers
-            Collections.sort(linkerList, new LinkerGeneComparator());
-            double[] pValues = new double[linkerList.size()];
-            for (int i = 0; i < linkerList.size(); i++) {
-                pValues[i] = linkerList.get(i).getUnadjustedPValue();
-            }
-            BenjaminiHochbergFDR fdr = new BenjaminiHochbergFDR(pValues);
-            fdr.calculate();
-            double[] adjustedPValues = fdr.getAdjustedPvalues();
-            for (int i = 0; i < linkerList.size(); i++) {
-                linkerList.get(i).setFdrAdjustedPValue(adjustedPValues[i]);
-            }
+            adjustLinkerPValues(linkerList);
 
             for (LinkerGene linker : linkerList) {
                 if (linker.getFdrAdjustedPValue() > pValueCutOff) {
@@ -293,6 +280,41 @@ public final class GeneConnector {
         return numLinkerGenes;
     }
 
+    /**
+     * Calculates the P-Value of a Linker, based on the Hypergeometric distribution.
+     *
+     * @param totalNumGenes Total number of genes in the reference network.
+     * @param globalDegree  Degree of the linker in the reference network.
+     * @param numAltered    Number of altered genes in the reference network.
+     * @param localDegree   Number of altered genes connected to the linker.
+     * @return p-value.
+     */
+    static double calculateLinkerPValue(int totalNumGenes, int globalDegree, int numAltered,
+            int localDegree) {
+        //  (population size, number of successes, sample size)
+        HypergeometricDistribution hyper = new HypergeometricDistributionImpl(
+                totalNumGenes, globalDegree, numAltered);
+        return hyper.probability(localDegree);
+    }
+
+    /**
+     * Sorts the Linkers by P-Value, and sets their FDR Adjusted P-Values.
+     * Adjusted p-values are non-decreasing in the sorted order.
+     *
+     * @param linkerList ArrayList of LinkerGene Objects.
+     */
+    static void adjustLinkerPValues(ArrayList<LinkerGene> linkerList) {
+        Collections.sort(linkerList, new LinkerGeneComparator());
+        double[] pValues = new double[linkerList.size()];
+        for (int i = 0; i < linkerList.size(); i++) {
+            pValues[i] = linkerList.get(i).getUnadjustedPValue();
+        }
+        double[] adjustedPValues = BenjaminiHochbergFDR.adjust(pValues);
+        for (int i = 0; i < linkerList.size(); i++) {
+            linkerList.get(i).setFdrAdjustedPValue(adjustedPValues[i]);
+        }
+    }
+
     private void removeVertex(ArrayList<Vertex> removalList, Vertex vertex) {
         //  Remove Incident Edges
         Set<Edge> edgeSet = vertex.getIncidentEdges();
@@ -3,7 +3,9 @@ package org.mskcc.netbox.algorithm;
 import org.mskcc.netbox.graph.GraphCreationException;
 import org.mskcc.netbox.graph.NetworkStatsUtil;
 import org.mskcc.netbox.util.CommandLineUtil;
+import org.mskcc.netbox.util.ConfiguredCallable;
 import org.mskcc.netbox.util.GlobalConfig;
+import org.mskcc.netbox.util.ParallelUtil;
 import org.mskcc.netbox.util.ProgressMonitor;
 
 import java.io.File;
@@ -11,6 +13,8 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Global Random Null Model.
@@ -24,6 +28,10 @@ public final class GlobalRandomNullModel {
 
     /**
      * Constructor.
+     * <p/>
+     * Trials are executed in parallel, using GlobalConfig.getNumThreads() threads.  Each trial
+     * uses its own random stream, derived from GlobalConfig.getRandomSeed() and the trial
+     * number, so results are reproducible regardless of the number of threads.
      *
      * @param geneConnector     Gene Connector Object.
      * @param numTrials         Number of Trials to Execute.
@@ -34,54 +42,75 @@ public final class GlobalRandomNullModel {
      * @throws IOException  IO Error.
      */
     public GlobalRandomNullModel(GeneConnector geneConnector, int numTrials,
-                                 int shortestPathThreshold, double pValueCutOff,
+                                 final int shortestPathThreshold, final double pValueCutOff,
                                  VertexEdgePair largestComponentInfo)
             throws GraphCreationException, IOException {
         ProgressMonitor pMonitor = ProgressMonitor.getInstance();
-        Random randomGenerator = new Random();
-        int size = geneConnector.getAlteredGeneList().size();
-        ArrayList<String> genesInNetwork = NetworkStatsUtil.getInstance().getGenesInNetwork();
+        final int size = geneConnector.getAlteredGeneList().size();
+        final ArrayList<String> genesInNetwork
+                = NetworkStatsUtil.getInstance().getGenesInNetwork();
 
-        file = new File("global_null.txt");
+        GlobalConfig config = GlobalConfig.getInstance();
+        final long seed = config.getRandomSeed();
+        file = config.getOutputFile("global_null.txt");
         FileWriter writer = new FileWriter(file);
 
-        GlobalConfig config = GlobalConfig.getInstance();
+        //  Suppress progress messages of this thread only;  trials are quiet via their tasks
         boolean originalQuiet = config.isVeryQuiet();
-        config.setBeVeryQuiet(true);
+        if (!originalQuiet) {
+            GlobalConfig.setThreadQuiet(true);
+        }
 
         int nodeCounter = 0;
         int edgeCounter = 0;
         pMonitor.setCurrentMessage("Executing Global Null Model");
         pMonitor.setMaxValue(numTrials);
-        for (int i = 0; i < numTrials; i++) {
-            ArrayList<String> randomGeneList = new ArrayList<String>();
-            for (int j = 0; j < size; j++) {
-                int randomIndex = randomGenerator.nextInt(genesInNetwork.size());
-                String gene = genesInNetwork.get(randomIndex);
-                randomGeneList.add(gene);
+        ExecutorService executor = ParallelUtil.createExecutor(config.getNumThreads());
+        try {
+            ArrayList<Future<VertexEdgePair>> futureList
+                    = new ArrayList<Future<VertexEdgePair>>();
+            for (int i = 0; i < numTrials; i++) {
+                final int trial = i;
+                futureList.add(executor.submit(new ConfiguredCallable<VertexEdgePair>(true) {
+                    protected VertexEdgePair execute() throws GraphCreationException {
+                        Random randomGenerator = new Random(ParallelUtil.deriveSeed(seed, trial));
+                        ArrayList<String> randomGeneList = new ArrayList<String>(size);
+                        for (int j = 0; j < size; j++) {
+                            int randomIndex = randomGenerator.nextInt(genesInNetwork.size());
+                            randomGeneList.add(genesInNetwork.get(randomIndex));
+                        }
+                        GeneConnector geneConnector2 = new GeneConnector(randomGeneList,
+                                shortestPathThreshold, pValueCutOff);
+                        return LargestComponentUtil.determineSizeOfLargestComponent(
+                                geneConnector2.getGraph());
+                    }
+                }));
             }
-            GeneConnector geneConnector2 = new GeneConnector(randomGeneList,
-                    shortestPathThreshold, pValueCutOff);
-            VertexEdgePair randomPair =
-                    LargestComponentUtil.determineSizeOfLargestComponent(
-                            geneConnector2.getGraph());
-            if (randomPair.getNumVertices() >= largestComponentInfo.getNumVertices()) {
-                nodeCounter++;
+
+            //  Merge results in trial order
+            for (Future<VertexEdgePair> future : futureList) {
+                VertexEdgePair randomPair = ParallelUtil.getResult(future);
+                if (randomPair.getNumVertices() >= largestComponentInfo.getNumVertices()) {
+                    nodeCounter++;
+                }
+                if (randomPair.getNumEdges() >= largestComponentInfo.getNumEdges()) {
+                    edgeCounter++;
+                }
+                writer.write(randomPair.getNumVertices() + "\t" + randomPair.getNumEdges()
+                        + "\n");
+                pMonitor.incrementCurValue();
+                pMonitor.setCurrentMessage("Executing Global Null Model");
+                CommandLineUtil.showProgress(pMonitor);
             }
-            if (randomPair.getNumEdges() >= largestComponentInfo.getNumEdges()) {
-                edgeCounter++;
+        } finally {
+            executor.shutdownNow();
+            writer.close();
+            if (!originalQuiet) {
+                GlobalConfig.setThreadQuiet(false);
             }
-            writer.write(randomPair.getNumVertices() + "\t" + randomPair.getNumEdges() + "\n");
-            writer.flush();
-            pMonitor.incrementCurValue();
-            pMonitor.setCurrentMessage("Executing Global Null Model");
-            CommandLineUtil.showProgress(pMonitor);
         }
         pValueNodes = nodeCounter / (double) numTrials;
         pValueEdges = edgeCounter / (double) numTrials;
-        writer.close();
-
-        config.setBeVeryQuiet(originalQuiet);
     }
 
     /**
@@ -2,9 +2,11 @@ package org.mskcc.netbox.algorithm;
 
 import edu.uci.ics.jung.algorithms.cluster.ClusterSet;
 import edu.uci.ics.jung.algorithms.cluster.WeakComponentClusterer;
+import edu.uci.ics.jung.graph.Edge;
 import edu.uci.ics.jung.graph.Graph;
 import edu.uci.ics.jung.graph.Vertex;
 
+import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -18,7 +20,12 @@ public final class LargestComponentUtil {
     }
 
     /**
-     * Determines the Size of the Largest Component within a Network.
+     * Determines the Size of the Largest Component within a Network.  If several components
+     * have the same number of vertices, the one with the most edges is reported.
+     * <p/>
+     * Edges are counted directly, rather than via a new sub-graph, so no JUNG elements are
+     * created, and the method may be called by several threads at once.
+     *
      * @param g Graph.
      * @return VertexEdgePair Object.
      */
@@ -30,10 +37,18 @@ public final class LargestComponentUtil {
         int numEdges = 0;
         for (int i = 0; i < clusterSet.size(); i++) {
             Set<Vertex> set = clusterSet.getCluster(i);
-            Graph subGraph = clusterSet.getClusterAsNewSubGraph(i);
-            if (set.size() > numVertices) {
+            if (set.size() < numVertices) {
+                continue;
+            }
+
+            //  A component is closed under incidence, so all incident edges belong to it
+            HashSet<Edge> edgeSet = new HashSet<Edge>();
+            for (Vertex vertex : set) {
+                edgeSet.addAll(vertex.getIncidentEdges());
+            }
+            if (set.size() > numVertices || edgeSet.size() > numEdges) {
                 numVertices = set.size();
-                numEdges = subGraph.numEdges();
+                numEdges = edgeSet.size();
             }
         }
         VertexEdgePair p = new VertexEdgePair();
@@ -0,0 +1,138 @@
+package org.mskcc.netbox.algorithm;
+
+import org.mskcc.netbox.genomic.GeneSetCoverage;
+import org.mskcc.netbox.genomic.GeneWithScore;
+import org.mskcc.netbox.genomic.ProfileDataSummary;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Lazy Greedy (CELF) Selection of the Next Gene to Add to a Growing SubNet.
+ * <p/>
+ * The number of cases covered by a gene set is submodular:  the number of new cases a
+ * candidate gene adds can only shrink as the subnet grows.  Candidates are therefore kept in
+ * a priority queue, ordered by the number of new cases at the time they were last scored.
+ * These stale scores are upper bounds, so only candidates whose bound could still match the
+ * best fresh score are re-scored at each step;  all others are skipped.
+ * <p/>
+ * The result is identical to scoring all candidates:  ties are broken in favor of the first
+ * candidate in the iteration order of the neighbor set, as in an exhaustive scan.
+ */
+public final class LazyGreedyFrontier {
+    private GeneSetCoverage coverage;
+    private HashSet<String> subNet = new HashSet<String>();
+    private HashMap<String, Candidate> candidateMap = new HashMap<String, Candidate>();
+    private PriorityQueue<Candidate> queue;
+    private int step;
+
+    /**
+     * Constructor, for an empty subnet.
+     *
+     * @param p Profile Data Summary Object.
+     */
+    public LazyGreedyFrontier(ProfileDataSummary p) {
+        coverage = new GeneSetCoverage(p);
+        queue = new PriorityQueue<Candidate>(11, new Comparator<Candidate>() {
+            public int compare(Candidate c0, Candidate c1) {
+                return c1.numNewCases < c0.numNewCases ? -1
+                        : (c1.numNewCases == c0.numNewCases ? 0 : 1);
+            }
+        });
+    }
+
+    /**
+     * Adds the Specified Gene to the SubNet.
+     *
+     * @param gene gene symbol.
+     */
+    public void addToSubNet(String gene) {
+        if (subNet.add(gene)) {
+            coverage.addGene(gene);
+            step++;
+        }
+    }
+
+    /**
+     * Gets the Percent of Cases Altered in the SubNet.
+     *
+     * @return percentage value.
+     */
+    public double getScore() {
+        return coverage.getPercentCases(coverage.getNumCasesCovered());
+    }
+
+    /**
+     * Gets the Neighbor which Results in the Best Frequency of Alteration Improvement.
+     *
+     * @param neighborSet Current Neighbor Set;  genes already in the subnet are ignored.
+     * @return best addition, with its frequency of alteration as score, or null if none of
+     *         the neighbors improve the frequency of alteration.
+     */
+    public GeneWithScore getBestAddition(Set<String> neighborSet) {
+
+        //  Queue new neighbors, without scoring them, and record the iteration order
+        HashMap<String, Integer> position = new HashMap<String, Integer>();
+        for (String gene : neighborSet) {
+            position.put(gene, position.size());
+            if (!subNet.contains(gene) && !candidateMap.containsKey(gene)) {
+                Candidate candidate = new Candidate(gene);
+                candidateMap.put(gene, candidate);
+                queue.add(candidate);
+            }
+        }
+
+        Candidate best = null;
+        ArrayList<Candidate> scoredList = new ArrayList<Candidate>();
+        while (!queue.isEmpty()) {
+            Candidate candidate = queue.peek();
+            if (best != null && candidate.numNewCases < best.numNewCases) {
+                //  No remaining candidate can match the best one
+                break;
+            }
+            queue.poll();
+            if (subNet.contains(candidate.gene)) {
+                candidateMap.remove(candidate.gene);
+            } else if (candidate.step != step) {
+                //  Stale score, re-score and re-queue
+                candidate.numNewCases = coverage.getNumNewCases(candidate.gene);
+                candidate.step = step;
+                queue.add(candidate);
+            } else {
+                if (best == null || candidate.numNewCases > best.numNewCases
+                        || (candidate.numNewCases == best.numNewCases
+                        && position.get(candidate.gene) < position.get(best.gene))) {
+                    best = candidate;
+                }
+                scoredList.add(candidate);
+            }
+        }
+        queue.addAll(scoredList);
+
+        if (best == null || best.numNewCases == 0) {
+            return null;
+        }
+        GeneWithScore geneWithScore = new GeneWithScore();
+        geneWithScore.setGene(best.gene);
+        geneWithScore.setScore(coverage.getPercentCases(coverage.getNumCasesCovered()
+                + best.numNewCases));
+        return geneWithScore;
+    }
+
+    /**
+     * A Candidate Gene, with the Number of New Cases as of the Specified Step.
+     */
+    private static class Candidate {
+        private String gene;
+        private int numNewCases = Integer.MAX_VALUE;
+        private int step = -1;
+
+        Candidate(String g) {
+            this.gene = g;
+        }
+    }
+}
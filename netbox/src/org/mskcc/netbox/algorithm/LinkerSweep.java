@@ -0,0 +1,283 @@
+package org.mskcc.netbox.algorithm;
+
+import org.mskcc.netbox.graph.CompactNetwork;
+import org.mskcc.netbox.graph.GraphCreationException;
+import org.mskcc.netbox.model.Interaction;
+import org.mskcc.netbox.query.InteractionQuery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Connects a list of Genes at a Shortest Path Threshold of 2, for Many P-Value Cut-Offs.
+ * <p/>
+ * The linker statistics (hypergeometric p-values and FDR adjusted p-values) do not depend
+ * on the p-value cut-off, and are therefore calculated once.  For each cut-off, the resulting
+ * network is identical to the network created by
+ * <code>new GeneConnector(list, 2, pValueCutOff)</code>.
+ * <p/>
+ * Because FDR adjusted p-values are non-decreasing in p-value order, the linkers which pass
+ * a cut-off are always a prefix of the sorted linker list.  The sweep therefore processes
+ * cut-offs in ascending order, and adds linkers (and their interactions) one at a time, while
+ * incrementally tracking connected components.  No graph is rebuilt between cut-offs.
+ */
+public final class LinkerSweep {
+    private CompactNetwork network;
+    private ArrayList<String> alteredGeneList = new ArrayList<String>();
+    private ArrayList<LinkerGene> linkerList = new ArrayList<LinkerGene>();
+    private boolean[] altered;
+    private int[] alteredIds;
+
+    /**
+     * Constructor.  Uses the global reference network.
+     *
+     * @param list Gene List.
+     * @throws GraphCreationException Graph Creation Error.
+     */
+    public LinkerSweep(ArrayList<String> list) throws GraphCreationException {
+        this(InteractionQuery.getReferenceNetwork(), list);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param n    Reference Network.
+     * @param list Gene List.
+     */
+    public LinkerSweep(CompactNetwork n, ArrayList<String> list) {
+        this.network = n;
+        int numGenes = network.getNumGenes();
+        altered = new boolean[numGenes];
+        int[] ids = new int[list.size()];
+        int numAltered = 0;
+        for (String gene : list) {
+            int index = network.getGeneIndex(gene);
+            if (index >= 0 && network.getDegree(index) > 0) {
+                alteredGeneList.add(gene);
+                if (!altered[index]) {
+                    altered[index] = true;
+                    ids[numAltered++] = index;
+                }
+            }
+        }
+        alteredIds = Arrays.copyOf(ids, numAltered);
+
+        //  Count number of altered neighbors for all candidate linkers
+        int[] localDegree = new int[numGenes];
+        for (int a : alteredIds) {
+            int end = network.getNeighborEnd(a);
+            for (int i = network.getNeighborStart(a); i < end; i++) {
+                int other = network.getNeighbor(i);
+                if (!altered[other]) {
+                    localDegree[other]++;
+                }
+            }
+        }
+        for (int i = 0; i < numGenes; i++) {
+            if (localDegree[i] > 1) {
+                int globalDegree = network.getDegree(i);
+                double pValue = GeneConnector.calculateLinkerPValue(numGenes, globalDegree,
+                        numAltered, localDegree[i]);
+                linkerList.add(new LinkerGene(network.getGeneSymbol(i), localDegree[i],
+                        globalDegree, pValue));
+            }
+        }
+        GeneConnector.adjustLinkerPValues(linkerList);
+    }
+
+    /**
+     * Gets the altered genes, which are part of the reference network.
+     *
+     * @return ArrayList of Gene Symbols.
+     */
+    public ArrayList<String> getAlteredGeneList() {
+        return alteredGeneList;
+    }
+
+    /**
+     * Gets all candidate linkers, sorted by p-value.
+     *
+     * @return ArrayList of LinkerGene Objects.
+     */
+    public ArrayList<LinkerGene> getLinkerList() {
+        return linkerList;
+    }
+
+    /**
+     * Creates the Networks for all the Specified P-Value Cut-Offs.
+     *
+     * @param pValueCutOffs P-Value Cut-Offs, in any order.
+     * @return ArrayList of Results, in the same order as the cut-offs.
+     */
+    public ArrayList<LinkerSweepResult> sweep(double[] pValueCutOffs) {
+        Integer[] order = new Integer[pValueCutOffs.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        final double[] cutOffs = pValueCutOffs;
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer i1, Integer i2) {
+                return Double.compare(cutOffs[i1], cutOffs[i2]);
+            }
+        });
+
+        ArrayList<Interaction> edgeList = new ArrayList<Interaction>();
+        ComponentTracker tracker = new ComponentTracker(network.getNumGenes(), altered);
+
+        //  Start out with all interactions between altered genes
+        for (int a : alteredIds) {
+            int end = network.getNeighborEnd(a);
+            for (int i = network.getNeighborStart(a); i < end; i++) {
+                int other = network.getNeighbor(i);
+                if (altered[other] && other > a) {
+                    edgeList.add(network.createInteraction(a, i));
+                    tracker.addEdge(a, other);
+                }
+            }
+        }
+
+        //  Add linkers in FDR order
+        boolean[] kept = new boolean[network.getNumGenes()];
+        LinkerSweepResult[] results = new LinkerSweepResult[pValueCutOffs.length];
+        int numLinkers = 0;
+        for (Integer index : order) {
+            double pValueCutOff = pValueCutOffs[index];
+            while (numLinkers < linkerList.size()
+                    && linkerList.get(numLinkers).getFdrAdjustedPValue() <= pValueCutOff) {
+                int linker = network.getGeneIndex(linkerList.get(numLinkers).getGene());
+                kept[linker] = true;
+                int end = network.getNeighborEnd(linker);
+                for (int i = network.getNeighborStart(linker); i < end; i++) {
+                    int other = network.getNeighbor(i);
+                    if (altered[other] || kept[other]) {
+                        edgeList.add(network.createInteraction(linker, i));
+                        tracker.addEdge(linker, other);
+                    }
+                }
+                numLinkers++;
+            }
+            VertexEdgePair largestComponent = new VertexEdgePair();
+            largestComponent.setNumVertices(tracker.getLargestNumVertices());
+            largestComponent.setNumEdges(tracker.getLargestNumEdges());
+            List<LinkerGene> linkersInNetwork = Collections.unmodifiableList(
+                    linkerList.subList(0, numLinkers));
+            results[index] = new LinkerSweepResult(pValueCutOff,
+                    tracker.getNumAlteredGenes(), linkersInNetwork,
+                    edgeList, edgeList.size(), largestComponent);
+        }
+        return new ArrayList<LinkerSweepResult>(Arrays.asList(results));
+    }
+}
+
+/**
+ * Incrementally Tracks Connected Components, via Union-Find.  Only genes with at least one
+ * edge are part of a component.
+ */
+class ComponentTracker {
+    private int[] parent;
+    private int[] numVertices;
+    private int[] numEdges;
+    private boolean[] altered;
+    private int numAlteredGenes;
+    private int largestNumVertices;
+    private int largestNumEdges;
+
+    /**
+     * Constructor.
+     *
+     * @param numGenes Number of genes in the reference network.
+     * @param a        Altered gene flags.
+     */
+    ComponentTracker(int numGenes, boolean[] a) {
+        parent = new int[numGenes];
+        Arrays.fill(parent, -1);
+        numVertices = new int[numGenes];
+        numEdges = new int[numGenes];
+        altered = a;
+    }
+
+    /**
+     * Adds an Edge between the two Specified Genes.
+     *
+     * @param a Gene ID A.
+     * @param b Gene ID B.
+     */
+    void addEdge(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        int root;
+        if (rootA == rootB) {
+            root = rootA;
+            numEdges[root]++;
+        } else {
+            if (numVertices[rootA] < numVertices[rootB]) {
+                int temp = rootA;
+                rootA = rootB;
+                rootB = temp;
+            }
+            parent[rootB] = rootA;
+            numVertices[rootA] += numVertices[rootB];
+            numEdges[rootA] += numEdges[rootB] + 1;
+            root = rootA;
+        }
+
+        //  Components only grow, so the largest component can be updated in place
+        if (numVertices[root] > largestNumVertices
+                || (numVertices[root] == largestNumVertices
+                && numEdges[root] > largestNumEdges)) {
+            largestNumVertices = numVertices[root];
+            largestNumEdges = numEdges[root];
+        }
+    }
+
+    private int find(int gene) {
+        if (parent[gene] < 0) {
+            parent[gene] = gene;
+            numVertices[gene] = 1;
+            if (altered[gene]) {
+                numAlteredGenes++;
+            }
+            return gene;
+        }
+        int root = gene;
+        while (parent[root] != root) {
+            root = parent[root];
+        }
+        while (parent[gene] != root) {
+            int next = parent[gene];
+            parent[gene] = root;
+            gene = next;
+        }
+        return root;
+    }
+
+    /**
+     * Gets the number of altered genes with at least one edge.
+     *
+     * @return number of altered genes.
+     */
+    int getNumAlteredGenes() {
+        return numAlteredGenes;
+    }
+
+    /**
+     * Gets the number of vertices in the largest component.
+     *
+     * @return number of vertices.
+     */
+    int getLargestNumVertices() {
+        return largestNumVertices;
+    }
+
+    /**
+     * Gets the number of edges in the largest component.
+     *
+     * @return number of edges.
+     */
+    int getLargestNumEdges() {
+        return largestNumEdges;
+    }
+}
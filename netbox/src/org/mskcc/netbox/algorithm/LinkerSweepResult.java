@@ -0,0 +1,135 @@
+package org.mskcc.netbox.algorithm;
+
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.Vertex;
+import edu.uci.ics.jung.graph.decorators.StringLabeller;
+import edu.uci.ics.jung.utils.UserDataContainer;
+import org.mskcc.netbox.graph.GraphCreationException;
+import org.mskcc.netbox.graph.InteractionToJung;
+import org.mskcc.netbox.model.Interaction;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Network Created by a LinkerSweep, for a Single P-Value Cut-Off.
+ */
+public final class LinkerSweepResult {
+    private double pValueCutOff;
+    private int numAlteredGenes;
+    private List<LinkerGene> linkerList;
+    private ArrayList<Interaction> sweepInteractionList;
+    private int numEdges;
+    private VertexEdgePair largestComponent;
+
+    /**
+     * Constructor.
+     *
+     * @param p            P-Value Cut-Off.
+     * @param numAltered   Number of altered genes in the network.
+     * @param linkers      Linkers in the network.
+     * @param interactions Interactions added by the sweep;  the first n belong to this network.
+     * @param n            Number of interactions in the network.
+     * @param largest      Size of the largest component.
+     */
+    LinkerSweepResult(double p, int numAltered, List<LinkerGene> linkers,
+            ArrayList<Interaction> interactions, int n, VertexEdgePair largest) {
+        this.pValueCutOff = p;
+        this.numAlteredGenes = numAltered;
+        this.linkerList = linkers;
+        this.sweepInteractionList = interactions;
+        this.numEdges = n;
+        this.largestComponent = largest;
+    }
+
+    /**
+     * Gets the P-Value Cut-Off.
+     *
+     * @return p-value cut-off.
+     */
+    public double getPValueCutOff() {
+        return pValueCutOff;
+    }
+
+    /**
+     * Gets Number of Altered Genes within the Network.
+     *
+     * @return number of altered genes.
+     */
+    public int getNumAlteredGenes() {
+        return numAlteredGenes;
+    }
+
+    /**
+     * Gets Number of Linker Genes within the Network.
+     *
+     * @return number of linker genes.
+     */
+    public int getNumLinkerGenes() {
+        return linkerList.size();
+    }
+
+    /**
+     * Gets Number of Edges within the Network.
+     *
+     * @return number of edges.
+     */
+    public int getNumEdges() {
+        return numEdges;
+    }
+
+    /**
+     * Gets the Linkers within the Network, sorted by p-value.
+     *
+     * @return List of LinkerGene Objects.
+     */
+    public List<LinkerGene> getLinkerList() {
+        return linkerList;
+    }
+
+    /**
+     * Gets the Size of the Largest Connected Component.
+     *
+     * @return VertexEdgePair Object.
+     */
+    public VertexEdgePair getLargestComponent() {
+        return largestComponent;
+    }
+
+    /**
+     * Gets all Interactions within the Network.
+     *
+     * @return ArrayList of Interaction Objects.
+     */
+    public ArrayList<Interaction> getInteractionList() {
+        return new ArrayList<Interaction>(sweepInteractionList.subList(0, numEdges));
+    }
+
+    /**
+     * Creates the JUNG Graph for the Network.  Vertices are marked as
+     * GeneConnector.ALTERED or GeneConnector.LINKER, via the GeneConnector.STATUS key.
+     *
+     * @return Graph Object.
+     * @throws GraphCreationException Graph Creation Error.
+     */
+    public Graph createGraph() throws GraphCreationException {
+        Graph g = InteractionToJung.createGraph(getInteractionList());
+        HashSet<String> linkerSet = new HashSet<String>();
+        for (LinkerGene linker : linkerList) {
+            linkerSet.add(linker.getGene());
+        }
+        StringLabeller labeller = StringLabeller.getLabeller(g);
+        Set<Vertex> vertexSet = g.getVertices();
+        for (Vertex vertex : vertexSet) {
+            String status = GeneConnector.ALTERED;
+            if (linkerSet.contains(labeller.getLabel(vertex))) {
+                status = GeneConnector.LINKER;
+            }
+            vertex.setUserDatum(GeneConnector.STATUS, status,
+                    new UserDataContainer.CopyAction.Shared());
+        }
+        return g;
+    }
+}
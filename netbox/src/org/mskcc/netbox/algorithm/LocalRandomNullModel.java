@@ -2,17 +2,23 @@ package org.mskcc.netbox.algorithm;
 
 import edu.uci.ics.jung.graph.Graph;
 import org.apache.commons.math.stat.descriptive.moment.StandardDeviation;
+import org.mskcc.netbox.graph.GraphCreationException;
 import org.mskcc.netbox.graph.GraphPermute;
-import org.mskcc.netbox.graph.NetworkPartitionState;
+import org.mskcc.netbox.graph.IndexedGraph;
 import org.mskcc.netbox.graph.NewmanGirvanModuleDetector;
+import org.mskcc.netbox.util.ConfiguredCallable;
 import org.mskcc.netbox.util.Formatter;
 import org.mskcc.netbox.util.GlobalConfig;
+import org.mskcc.netbox.util.ParallelUtil;
 import org.mskcc.netbox.util.ProgressMonitor;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Utility Class for Creating a Normalized Z-Score for Network Modularity.
@@ -20,7 +26,7 @@ import java.text.NumberFormat;
  * @author Ethan Cerami.
  */
 public final class LocalRandomNullModel {
-    private static NumberFormat formatter = Formatter.getDecimalFormat();
+    private NumberFormat formatter = Formatter.getDecimalFormat();
     private double zScore;
     private StandardDeviation sd;
     private double randomMean = 0;
@@ -28,48 +34,66 @@ public final class LocalRandomNullModel {
 
     /**
      * Constructor.
+     * <p/>
+     * Trials are executed in parallel, using GlobalConfig.getNumThreads() threads.  The
+     * original graph is indexed once;  each trial then permutes its own copy of the int-indexed
+     * wiring, using a random stream derived from GlobalConfig.getRandomSeed() and the trial
+     * number, and scores it without creating JUNG objects.  Results are therefore reproducible
+     * regardless of the number of threads.
      *
      * @param g         Graph Original Graph.
      * @param qObserved Observed Modularity Score.
      * @param numTrials Number of Random Trials.
      * @throws IOException IO Error.
+     * @throws GraphCreationException Graph Creation Error.
      */
     public LocalRandomNullModel(Graph g, double qObserved, int numTrials)
-            throws IOException {
+            throws IOException, GraphCreationException {
 
         sd = new StandardDeviation();
-        file = new File("local_null.txt");
+        GlobalConfig config = GlobalConfig.getInstance();
+        final long seed = config.getRandomSeed();
+        file = config.getOutputFile("local_null.txt");
         FileWriter writer = new FileWriter(file);
-        GraphPermute graphPermute = new GraphPermute(g);
-
-        // Perform N Random Trials
-        for (int i = 0; i < numTrials; i++) {
-
-            //  At Each Random Trial, Permute the Local Wiring of the Graph
-            Graph randomGraph = graphPermute.next();
-            ProgressMonitor.getInstance().setCurrentMessage("Random Network #" + i
-                    + " (Number of Nodes:  " + randomGraph.getVertices().size()
-                    + ", Number of Edges:  " + randomGraph.getEdges().size() + ").");
-
-            //  And, then calculate network modularity
-            GlobalConfig config = GlobalConfig.getInstance();
-            boolean originalQuiet = config.isVeryQuiet();
-            config.setBeVeryQuiet(true);
-
-            NewmanGirvanModuleDetector moduleDetector = new NewmanGirvanModuleDetector(randomGraph);
-            NetworkPartitionState optimalState = moduleDetector.getOptimalPartitionState();
-
-            config.setBeVeryQuiet(originalQuiet);
-            ProgressMonitor.getInstance().setCurrentMessage("Random Network #"
-                    + i + ": unscaled modularity score:  "
-                    + formatter.format(optimalState.getNetworkModularity()));
-            writer.write(optimalState.getNetworkModularity() + "\n");
-            writer.flush();
-
-            randomMean += optimalState.getNetworkModularity();
-            sd.increment(optimalState.getNetworkModularity());
+        int numVertices = g.getVertices().size();
+        int numEdges = g.getEdges().size();
+        final GraphPermute template = new GraphPermute(g);
+
+        ExecutorService executor = ParallelUtil.createExecutor(config.getNumThreads());
+        try {
+            ArrayList<Future<Double>> futureList = new ArrayList<Future<Double>>();
+            for (int i = 0; i < numTrials; i++) {
+                final int trial = i;
+                futureList.add(executor.submit(new ConfiguredCallable<Double>(true) {
+                    protected Double execute() {
+
+                        //  Permute the Local Wiring of a private copy of the Graph
+                        GraphPermute graphPermute = new GraphPermute(template,
+                                ParallelUtil.deriveSeed(seed, trial));
+                        IndexedGraph randomGraph = graphPermute.nextIndexedGraph();
+
+                        //  And, then calculate network modularity
+                        return NewmanGirvanModuleDetector.getMaxNetworkModularity(randomGraph);
+                    }
+                }));
+            }
+
+            //  Merge results in trial order
+            for (int i = 0; i < numTrials; i++) {
+                double modularity = ParallelUtil.getResult(futureList.get(i));
+                ProgressMonitor.getInstance().setCurrentMessage("Random Network #" + i
+                        + " (Number of Nodes:  " + numVertices
+                        + ", Number of Edges:  " + numEdges + "): unscaled modularity score:  "
+                        + formatter.format(modularity));
+                writer.write(modularity + "\n");
+
+                randomMean += modularity;
+                sd.increment(modularity);
+            }
+        } finally {
+            executor.shutdownNow();
+            writer.close();
         }
-        writer.close();
 
         //  Finally, calculate standard Z-Score
         randomMean = randomMean / numTrials;
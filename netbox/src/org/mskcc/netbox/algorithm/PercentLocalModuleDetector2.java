@@ -9,22 +9,30 @@ import org.mskcc.netbox.genomic.ProfileDataSummary;
 import org.mskcc.netbox.graph.Module;
 import org.mskcc.netbox.stats.BenjaminiHochbergFDR;
 import org.mskcc.netbox.util.CommandLineUtil;
+import org.mskcc.netbox.util.ConfiguredCallable;
+import org.mskcc.netbox.util.GlobalConfig;
+import org.mskcc.netbox.util.ParallelUtil;
 import org.mskcc.netbox.util.ProgressMonitor;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 
 /**
  * Detects Modules, based on Percent Alteration Values.
+ * <p/>
+ * Neighborhoods are scored, and random background trials are executed, in parallel, using
+ * GlobalConfig.getNumThreads() threads.  Results are reproducible for a given
+ * GlobalConfig.getRandomSeed(), regardless of the number of threads.
  *
  * @author Ethan Cerami.
  */
 public final class PercentLocalModuleDetector2 implements ModuleDetector {
+    private static final int VERTICES_PER_TASK = 64;
     private Graph graph;
     private ProfileDataSummary pSummary;
     private StringLabeller labeller;
@@ -68,99 +76,121 @@ public final class PercentLocalModuleDetector2 implements ModuleDetector {
     }
 
     private void execute() {
-
-        int currentModuleId = 0;
-        ArrayList<GeneWithScore> geneScoreList = pSummary.getGeneFrequencyList();
-        HashMap<String, GeneWithScore> geneScoreMap = new HashMap<String, GeneWithScore>();
-        for (GeneWithScore geneScore : geneScoreList) {
-            geneScoreMap.put(geneScore.getGene(), geneScore);
+        GlobalConfig config = GlobalConfig.getInstance();
+        ExecutorService executor = ParallelUtil.createExecutor(config.getNumThreads());
+        try {
+            scoreNeighborhoods(executor);
+            executeRandomBackgroundModel(executor, config.getRandomSeed());
+        } finally {
+            executor.shutdownNow();
         }
+    }
 
-
-        //  Iterate through all genes, beginning with most frequenly altered.
-
+    /**
+     * Scores the closed neighborhood of each vertex.  Neighborhoods are scored in parallel,
+     * in chunks of vertices, and modules are then numbered in vertex order, as in a
+     * single-threaded run.
+     */
+    private void scoreNeighborhoods(ExecutorService executor) {
         pMonitor.setCurrentMessage("Examining All Subnetworks");
         pMonitor.setMaxValue(graph.numVertices());
         Set<Vertex> vertexSet = graph.getVertices();
+        final Vertex[] vertices = vertexSet.toArray(new Vertex[vertexSet.size()]);
 
         //  Examine each local neighborhood
-        for (Vertex vertex : vertexSet) {
-
-            String label = labeller.getLabel(vertex);
-
-            System.out.println("Examining neighborhood centered at:  " + label);
+        ArrayList<Future<Module[]>> futureList = new ArrayList<Future<Module[]>>();
+        for (int i = 0; i < vertices.length; i += VERTICES_PER_TASK) {
+            final int from = i;
+            final int to = Math.min(vertices.length, i + VERTICES_PER_TASK);
+            futureList.add(executor.submit(new ConfiguredCallable<Module[]>() {
+                protected Module[] execute() {
+                    Module[] modules = new Module[to - from];
+                    for (int j = from; j < to; j++) {
+                        modules[j - from] = scoreNeighborhood(vertices[j]);
+                    }
+                    return modules;
+                }
+            }));
+        }
 
-            ArrayList<GeneWithScore> genesInModuleList = new ArrayList<GeneWithScore>();
+        int currentModuleId = 0;
+        for (Future<Module[]> future : futureList) {
+            for (Module module : ParallelUtil.getUncheckedResult(future)) {
+                if (module != null) {
+                    module.setModuleId(currentModuleId);
+                    moduleList.add(module);
+                    currentModuleId++;
+                }
+                pMonitor.incrementCurValue();
+            }
+            CommandLineUtil.showProgress(pMonitor);
+        }
+    }
 
-            GeneWithScore currentGene = new GeneWithScore();
-            currentGene.setGene(label);
+    /**
+     * Scores the Closed Neighborhood of the Specified Vertex.
+     *
+     * @return Module, without module ID, or null if the neighborhood is not frequently
+     *         altered.
+     */
+    private Module scoreNeighborhood(Vertex vertex) {
+        String label = labeller.getLabel(vertex);
+        logger.info("Examining neighborhood centered at:  " + label);
 
-            ArrayList<String> subNet = new ArrayList<String>();
-            subNet.add(currentGene.getGene());
+        ArrayList<GeneWithScore> genesInModuleList = new ArrayList<GeneWithScore>();
 
-            Set<Vertex> neighborSet = vertex.getNeighbors();
-            for (Vertex v : neighborSet) {
-                String s = labeller.getLabel(v);
-                subNet.add(s);
-            }
+        ArrayList<String> subNet = new ArrayList<String>();
+        subNet.add(label);
 
+        Set<Vertex> neighborSet = vertex.getNeighbors();
+        for (Vertex v : neighborSet) {
+            String s = labeller.getLabel(v);
+            subNet.add(s);
+        }
 
-            double frequency = pSummary.getPercentCasesWhereGeneSetisAltered(subNet);
+        double frequency = pSummary.getPercentCasesWhereGeneSetisAltered(subNet);
 
-            HashSet<String> genesExploredSet = new HashSet<String>();
-            for (String gene : subNet) {
-                GeneWithScore tempGene = new GeneWithScore();
-                tempGene.setGene(gene);
-                tempGene.setScore(frequency);
-                genesInModuleList.add(tempGene);
-                genesExploredSet.add(gene);
-            }
+        HashSet<String> genesExploredSet = new HashSet<String>();
+        for (String gene : subNet) {
+            GeneWithScore tempGene = new GeneWithScore();
+            tempGene.setGene(gene);
+            tempGene.setScore(frequency);
+            genesInModuleList.add(tempGene);
+            genesExploredSet.add(gene);
+        }
 
-            //  Only Store Modules of Size > 1
-            if (frequency > moduleFrequencyThreshold) {
-                Module module = new Module();
-                module.setModuleId(currentModuleId);
-                module.setGeneList(genesInModuleList);
-                module.setScore(frequency);
-                module.setGenesExplored(genesExploredSet);
-                moduleList.add(module);
-                currentModuleId++;
-            }
-            pMonitor.incrementCurValue();
-            CommandLineUtil.showProgress(pMonitor);
+        if (frequency > moduleFrequencyThreshold) {
+            Module module = new Module();
+            module.setGeneList(genesInModuleList);
+            module.setScore(frequency);
+            module.setGenesExplored(genesExploredSet);
+            return module;
         }
-        executeRandomBackgroundModel();
+        return null;
     }
 
-    private void executeRandomBackgroundModel() {
-        Random randomGenerator = new Random();
-        ArrayList<String> observedGeneList = pSummary.getObservedGeneList();
-
+    /**
+     * Executes the random background model.  Null distributions of different gene set sizes
+     * are sampled in parallel.
+     */
+    private void executeRandomBackgroundModel(ExecutorService executor, long seed) {
         pMonitor.setCurrentMessage("Executing Random Background Model");
         pMonitor.setMaxValue(moduleList.size());
 
+        //  Sample the null distribution once per distinct gene set size
+        HashSet<Integer> sizeSet = new HashSet<Integer>();
         for (Module module : moduleList) {
+            sizeSet.add(module.getGenesExplored().size() + 1);
+        }
+        CoverageNullDistribution nullDistribution = new CoverageNullDistribution(pSummary,
+                sizeSet, numRandomTrials, seed, executor);
 
-            int counter = 0;
-            for (int i = 0; i < numRandomTrials; i++) {
-
-                //  Get Observed Frequency Score
-                double observedScore = module.getScore();
-
-                //  Pick random gene set of size N.
-                int geneSetSize = module.getGenesExplored().size() + 1;
-                ArrayList<String> randomGeneList = new ArrayList<String>();
-                for (int j = 0; j < geneSetSize; j++) {
-                    int index = randomGenerator.nextInt(observedGeneList.size());
-                    randomGeneList.add(observedGeneList.get(index));
-                }
+        for (Module module : moduleList) {
 
-                double randomScore = pSummary.getPercentCasesWhereGeneSetisAltered(randomGeneList);
-                if (randomScore >= observedScore) {
-                    counter++;
-                }
-            }
-            double pValue = counter / (double) numRandomTrials;
+            //  Get Observed Frequency Score
+            double observedScore = module.getScore();
+            int geneSetSize = module.getGenesExplored().size() + 1;
+            double pValue = nullDistribution.getPValue(geneSetSize, observedScore);
             module.setPValueUnAdjusted(pValue);
             logger.info("Module:  " + module.getModuleId() + ", "
                     + module.getLabel() + ", frequency:  " + module.getScore() + ", "
@@ -180,9 +210,7 @@ public final class PercentLocalModuleDetector2 implements ModuleDetector {
 
         //  Adjust for multiple hypothesis via Benjamani Hochberg FDR
         pMonitor.setCurrentMessage("Calculating Benjamini Hochberg FDR Adjustment");
-        BenjaminiHochbergFDR fdr = new BenjaminiHochbergFDR(pValues);
-        fdr.calculate();
-        double[] adjustedPValues = fdr.getAdjustedPvalues();
+        double[] adjustedPValues = BenjaminiHochbergFDR.adjust(pValues);
 
         //  Reset the IDs.
         for (int i = 0; i < moduleList.size(); i++) {
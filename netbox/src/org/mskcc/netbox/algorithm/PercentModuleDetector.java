@@ -1,6 +1,5 @@
 package org.mskcc.netbox.algorithm;
 
-import edu.uci.ics.jung.algorithms.shortestpath.DijkstraShortestPath;
 import edu.uci.ics.jung.graph.Graph;
 import edu.uci.ics.jung.graph.Vertex;
 import edu.uci.ics.jung.graph.decorators.StringLabeller;
@@ -10,6 +9,7 @@ import org.mskcc.netbox.genomic.ProfileDataSummary;
 import org.mskcc.netbox.graph.Module;
 import org.mskcc.netbox.stats.BenjaminiHochbergFDR;
 import org.mskcc.netbox.util.CommandLineUtil;
+import org.mskcc.netbox.util.GlobalConfig;
 import org.mskcc.netbox.util.ProgressMonitor;
 
 import java.util.ArrayList;
@@ -17,8 +17,6 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
-import java.util.Random;
 import java.util.Set;
 
 /**
@@ -31,6 +29,7 @@ public final class PercentModuleDetector implements ModuleDetector {
     private ProfileDataSummary pSummary;
     private StringLabeller labeller;
     private int maxD;
+    private SeedDistanceMap seedDistanceMap;
     private ArrayList<Module> moduleList = new ArrayList<Module>();
     private HashMap<String, Integer> moduleMap;
     private ProgressMonitor pMonitor = ProgressMonitor.getInstance();
@@ -73,6 +72,9 @@ public final class PercentModuleDetector implements ModuleDetector {
     private void execute() {
 
         int currentModuleId = 0;
+
+        //  Genes within maxD distance of a seed are at most maxD - 1 hops away
+        seedDistanceMap = new SeedDistanceMap(graph, maxD - 1);
         moduleMap = new HashMap<String, Integer>();
         ArrayList<GeneWithScore> geneScoreList = pSummary.getGeneFrequencyList();
 
@@ -90,16 +92,17 @@ public final class PercentModuleDetector implements ModuleDetector {
 
                 ArrayList<GeneWithScore> genesInModuleList = new ArrayList<GeneWithScore>();
                 HashSet<String> neighborSet = new HashSet<String>();
-                HashSet<String> subNet = new HashSet<String>();
+                LazyGreedyFrontier frontier = new LazyGreedyFrontier(pSummary);
 
                 GeneWithScore currentGene = seed;
+                seedDistanceMap.setSeed(seed.getGene());
 
                 //  Continue Greedy Exploration of Frontier
                 while (currentGene != null) {
-                    subNet.add(currentGene.getGene());
+                    frontier.addToSubNet(currentGene.getGene());
                     genesInModuleList.add(currentGene);
-                    addNeighbors(seed, currentGene, neighborSet);
-                    currentGene = getBestAddition(subNet, neighborSet);
+                    addNeighbors(currentGene, neighborSet);
+                    currentGene = getBestAddition(frontier, neighborSet);
                 }
 
                 //  Only Store Modules of Size > 1
@@ -125,34 +128,23 @@ public final class PercentModuleDetector implements ModuleDetector {
     }
 
     private void executeRandomBackgroundModel() {
-        Random randomGenerator = new Random();
-        ArrayList<String> observedGeneList = pSummary.getObservedGeneList();
-
         pMonitor.setCurrentMessage("Executing Random Background Model");
         pMonitor.setMaxValue(moduleList.size());
 
+        //  Sample the null distribution once per distinct gene set size
+        HashSet<Integer> sizeSet = new HashSet<Integer>();
         for (Module module : moduleList) {
+            sizeSet.add(module.getGenesExplored().size() + 1);
+        }
+        CoverageNullDistribution nullDistribution = new CoverageNullDistribution(pSummary,
+                sizeSet, numRandomTrials, GlobalConfig.getInstance().getRandomSeed(), null);
 
-            int counter = 0;
-            for (int i = 0; i < numRandomTrials; i++) {
-
-                //  Get Observed Frequency Score
-                double observedScore = module.getScore();
-
-                //  Pick random gene set of size N.
-                int geneSetSize = module.getGenesExplored().size() + 1;
-                ArrayList<String> randomGeneList = new ArrayList<String>();
-                for (int j = 0; j < geneSetSize; j++) {
-                    int index = randomGenerator.nextInt(observedGeneList.size());
-                    randomGeneList.add(observedGeneList.get(index));
-                }
+        for (Module module : moduleList) {
 
-                double randomScore = pSummary.getPercentCasesWhereGeneSetisAltered(randomGeneList);
-                if (randomScore >= observedScore) {
-                    counter++;
-                }
-            }
-            double pValue = counter / (double) numRandomTrials;
+            //  Get Observed Frequency Score
+            double observedScore = module.getScore();
+            int geneSetSize = module.getGenesExplored().size() + 1;
+            double pValue = nullDistribution.getPValue(geneSetSize, observedScore);
             module.setPValueUnAdjusted(pValue);
             logger.info("Module:  " + module.getModuleId() + ", "
                     + module.getLabel() + ", frequency:  " + module.getScore() + ", "
@@ -172,9 +164,7 @@ public final class PercentModuleDetector implements ModuleDetector {
 
         //  Adjust for multiple hypothesis via Benjamani Hochberg FDR
         pMonitor.setCurrentMessage("Calculating Benjamini Hochberg FDR Adjustment");
-        BenjaminiHochbergFDR fdr = new BenjaminiHochbergFDR(pValues);
-        fdr.calculate();
-        double[] adjustedPValues = fdr.getAdjustedPvalues();
+        double[] adjustedPValues = BenjaminiHochbergFDR.adjust(pValues);
 
         //  Reset the IDs.
         for (int i = 0; i < moduleList.size(); i++) {
@@ -187,21 +177,14 @@ public final class PercentModuleDetector implements ModuleDetector {
     /**
      * Conditionally adds neighbors to the neighbor set.
      *
-     * @param seed        Original Seed Gene.
      * @param currentGene Current Gene.
      * @param neighborSet Current Neighbor Set.
      */
-    private void addNeighbors(GeneWithScore seed, GeneWithScore currentGene,
-                              HashSet<String> neighborSet) {
+    private void addNeighbors(GeneWithScore currentGene, HashSet<String> neighborSet) {
 
         //  Only add new neighbors if we are within maxD distance of the original seed
-        DijkstraShortestPath sp = new DijkstraShortestPath(graph);
-
-        Vertex sourceVertex = labeller.getVertex(seed.getGene());
         Vertex targetVertex = labeller.getVertex(currentGene.getGene());
-        List list = sp.getPath(sourceVertex, targetVertex);
-
-        if (list.size() <= maxD - 1) {
+        if (seedDistanceMap.isWithinMaxDepth(currentGene.getGene())) {
 
             Set<Vertex> vertexSet = targetVertex.getNeighbors();
 
@@ -219,38 +202,20 @@ public final class PercentModuleDetector implements ModuleDetector {
      * Returns the Gene that Results in the Best Frequency of Alteration Improvement,
      * or null if none of them do.
      *
-     * @param subNet      Current SubNet.
+     * @param frontier    Lazy Greedy Frontier of the Current SubNet.
      * @param neighborSet Current Neighbor Set.
      * @return Best Addition.
      */
-    private GeneWithScore getBestAddition(HashSet<String> subNet, HashSet<String> neighborSet) {
+    private GeneWithScore getBestAddition(LazyGreedyFrontier frontier,
+                                          HashSet<String> neighborSet) {
 
         //  First, determine base line frequency score.
-        ArrayList<String> subListList = convertHashSetToArrayList(subNet);
-        double baseScore = pSummary.getPercentCasesWhereGeneSetisAltered(subListList);
+        double baseScore = frontier.getScore();
         logger.info("Base line frequency is:  " + baseScore);
 
-        //  Evaluate all neighbor candidates
-        double maxScore = baseScore;
-        String maxCandidate = null;
-        for (String candidate : neighborSet) {
-            ArrayList<String> neighborList = convertHashSetToArrayList(subNet);
-            neighborList.add(candidate);
-            double candidateFrequency = pSummary.getPercentCasesWhereGeneSetisAltered(neighborList);
-            logger.info("Adding gene:  " + candidate + " would result in frequency:  "
-                    + candidateFrequency);
-            if (Math.abs(candidateFrequency - maxScore) < .0001) {
-                System.out.println("Conflict:  " + candidate + ", " + candidateFrequency);
-            }
-            if (candidateFrequency > maxScore) {
-                maxScore = candidateFrequency;
-                maxCandidate = candidate;
-            }
-        }
-        if (maxCandidate != null && (maxScore - baseScore) > deltaThreshold) {
-            GeneWithScore geneWithScore = new GeneWithScore();
-            geneWithScore.setGene(maxCandidate);
-            geneWithScore.setScore(maxScore);
+        //  Find the best neighbor candidate, re-scoring only candidates which could be best
+        GeneWithScore geneWithScore = frontier.getBestAddition(neighborSet);
+        if (geneWithScore != null && (geneWithScore.getScore() - baseScore) > deltaThreshold) {
             System.out.println("Candidate:  " + geneWithScore);
             logger.info("Best candidate to add is:  " + geneWithScore);
             return geneWithScore;
@@ -260,20 +225,6 @@ public final class PercentModuleDetector implements ModuleDetector {
         }
     }
 
-    /**
-     * Converts a HashSet to an ArrayList.
-     *
-     * @param set HashSet.
-     * @return ArrayList.
-     */
-    private ArrayList<String> convertHashSetToArrayList(HashSet<String> set) {
-        ArrayList<String> list = new ArrayList<String>();
-        for (String s : set) {
-            list.add(s);
-        }
-        return list;
-    }
-
     /**
      * Determines if the specified gene exists in the graph.
      *
@@ -0,0 +1,87 @@
+package org.mskcc.netbox.algorithm;
+
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.decorators.StringLabeller;
+import org.mskcc.netbox.graph.IndexedGraph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Hop Distances from a Seed Gene, up to a Maximum Depth.
+ * <p/>
+ * Distances are calculated once per seed, via breadth first search bounded by the maximum
+ * depth, and stored in a primitive array indexed by vertex ID.  Checking whether a gene lies
+ * within the maximum depth of the seed is then a single lookup.  The distance and queue
+ * arrays are reused across seeds;  only the entries visited for the previous seed are reset.
+ */
+public final class SeedDistanceMap {
+    private IndexedGraph graph;
+    private HashMap<String, Integer> vertexIndex = new HashMap<String, Integer>();
+    private int maxDepth;
+    private int[] distance;
+    private int[] queue;
+    private int numVisited;
+
+    /**
+     * Constructor.
+     *
+     * @param g     Graph Object.
+     * @param depth Maximum Depth;  if negative, no gene is within the maximum depth.
+     */
+    public SeedDistanceMap(Graph g, int depth) {
+        this.graph = new IndexedGraph(g);
+        this.maxDepth = depth;
+        StringLabeller labeller = StringLabeller.getLabeller(g);
+        for (int v = 0; v < graph.getNumVertices(); v++) {
+            vertexIndex.put(labeller.getLabel(graph.getVertex(v)), v);
+        }
+        distance = new int[graph.getNumVertices()];
+        queue = new int[graph.getNumVertices()];
+        Arrays.fill(distance, -1);
+    }
+
+    /**
+     * Calculates Distances from the Specified Seed Gene.
+     *
+     * @param seed Seed Gene Symbol.
+     */
+    public void setSeed(String seed) {
+        for (int i = 0; i < numVisited; i++) {
+            distance[queue[i]] = -1;
+        }
+        numVisited = 0;
+        Integer s = vertexIndex.get(seed);
+        if (s == null || maxDepth < 0) {
+            return;
+        }
+        int head = 0;
+        queue[numVisited++] = s;
+        distance[s] = 0;
+        while (head < numVisited) {
+            int v = queue[head++];
+            if (distance[v] == maxDepth) {
+                continue;
+            }
+            int end = graph.getNeighborEnd(v);
+            for (int pos = graph.getNeighborStart(v); pos < end; pos++) {
+                int w = graph.getNeighbor(pos);
+                if (distance[w] < 0) {
+                    distance[w] = distance[v] + 1;
+                    queue[numVisited++] = w;
+                }
+            }
+        }
+    }
+
+    /**
+     * Determines if the Specified Gene is within the Maximum Depth of the Current Seed.
+     *
+     * @param gene Gene Symbol.
+     * @return true or false.
+     */
+    public boolean isWithinMaxDepth(String gene) {
+        Integer v = vertexIndex.get(gene);
+        return v != null && distance[v] >= 0;
+    }
+}
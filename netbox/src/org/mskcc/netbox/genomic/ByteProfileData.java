@@ -89,13 +89,12 @@ public final class ByteProfileData {
      * @return byte value.
      */
     public byte getValue(String gene, String caseId) {
-        try {
-            int row = geneRowMap.get(gene);
-            int col = caseColMap.get(caseId);
-            return matrix[row][col];
-        } catch (NullPointerException e) {
+        Integer row = geneRowMap.get(gene);
+        Integer col = caseColMap.get(caseId);
+        if (row == null || col == null) {
             return 0;
         }
+        return matrix[row][col];
     }
 
     /**
@@ -111,6 +110,38 @@ public final class ByteProfileData {
         matrix[row][col] = b;
     }
 
+    /**
+     * Gets the Row of the Specified Gene.
+     *
+     * @param gene Gene Symbol.
+     * @return row index, or -1 if the gene is not in the profile.
+     */
+    int getGeneRow(String gene) {
+        Integer row = geneRowMap.get(gene);
+        return row == null ? -1 : row;
+    }
+
+    /**
+     * Gets the Column of the Specified Case ID.
+     *
+     * @param caseId Case ID.
+     * @return column index, or -1 if the case is not in the profile.
+     */
+    int getCaseColumn(String caseId) {
+        Integer col = caseColMap.get(caseId);
+        return col == null ? -1 : col;
+    }
+
+    /**
+     * Gets the Specified Row of the Data Matrix;  the array is not copied.
+     *
+     * @param row Row Index.
+     * @return byte values, one per case.
+     */
+    byte[] getRow(int row) {
+        return matrix[row];
+    }
+
     /**
      * Gets the Genetic Alteration Type.
      *
@@ -1,17 +1,25 @@
 package org.mskcc.netbox.genomic;
 
-import org.mskcc.netbox.util.CommandLineUtil;
 import org.mskcc.netbox.util.GlobalConfig;
+import org.mskcc.netbox.util.ParallelUtil;
 import org.mskcc.netbox.util.ProgressMonitor;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 
 /**
  * Merges Multiple ByteProfiles Into One.
+ * <p/>
+ * The rows and columns of each profile are translated into rows and columns of the merged
+ * profile once, and the alteration rule of each profile is compiled into a lookup table of
+ * all 256 byte values.  Gene rows are then merged in parallel chunks, via
+ * ParallelUtil.forEachChunk().
  *
  * @author Ethan Cerami.
  */
 public final class ByteProfileMerger {
+    private static final int GENES_PER_TASK = 256;
+    private static final int NUM_BYTE_VALUES = 256;
     private ByteProfileData mergedProfile;
     private ProgressMonitor pMonitor;
 
@@ -30,9 +38,9 @@ public final class ByteProfileMerger {
         createUnion(profileList, caseList, geneList);
 
         //  Perform the actual merge
+        byte[][] matrix = mergeProfiles(profileList, caseList, geneList);
         mergedProfile = new ByteProfileData(GeneticAlterationType.MERGED_PROFILE,
-                geneList, caseList);
-        mergeProfiles(profileList, caseList, geneList);
+                geneList, caseList, matrix);
     }
 
     /**
@@ -47,62 +55,87 @@ public final class ByteProfileMerger {
     /**
      * Perform the merge.
      */
-    private void mergeProfiles(ArrayList<ByteProfileData> profileList,
-                               ArrayList<String> caseList, ArrayList<String> geneList) {
-        //  Iterate through all genes
-        pMonitor.setMaxValue(geneList.size());
-
-        for (String gene : geneList) {
-
-            //  Iterate through all cases
-            for (String caseId : caseList) {
+    private byte[][] mergeProfiles(ArrayList<ByteProfileData> profileList,
+                                   ArrayList<String> caseList, ArrayList<String> geneList) {
+        final int numProfiles = profileList.size();
+        final ByteProfileData[] profiles = profileList.toArray(new ByteProfileData[numProfiles]);
+        final int[][] rowIndex = new int[numProfiles][];
+        final int[][] colIndex = new int[numProfiles][];
+        final byte[][] alteredTable = new byte[numProfiles][];
+        for (int p = 0; p < numProfiles; p++) {
+            rowIndex[p] = new int[geneList.size()];
+            for (int g = 0; g < geneList.size(); g++) {
+                rowIndex[p][g] = profiles[p].getGeneRow(geneList.get(g));
+            }
+            colIndex[p] = new int[caseList.size()];
+            for (int c = 0; c < caseList.size(); c++) {
+                colIndex[p][c] = profiles[p].getCaseColumn(caseList.get(c));
+            }
+            alteredTable[p] = createAlteredTable(profiles[p].getAlterationType());
+        }
 
-                //  Determine status of gene X in caseId Y.
-                byte status = isAltered(profileList, gene, caseId);
+        //  Iterate through all genes, in chunks of rows
+        final byte[][] matrix = new byte[geneList.size()][caseList.size()];
+        pMonitor.setMaxValue(geneList.size());
+        ParallelUtil.forEachChunk(matrix.length, GENES_PER_TASK, new ParallelUtil.ChunkTask() {
+            public void execute(int from, int to) {
+                for (int g = from; g < to; g++) {
+                    for (int p = 0; p < numProfiles; p++) {
+                        mergeRow(profiles[p], rowIndex[p][g], colIndex[p], alteredTable[p],
+                                matrix[g]);
+                    }
+                }
+            }
+        }, pMonitor);
+        return matrix;
+    }
 
-                mergedProfile.setValue(gene, caseId, status);
+    /**
+     * Marks cases in which the specified gene is altered in the specified profile.  Genes and
+     * cases which are not in the profile have the value 0.
+     */
+    private static void mergeRow(ByteProfileData profile, int row, int[] col,
+                                 byte[] alteredTable, byte[] target) {
+        if (row < 0) {
+            if (alteredTable[0] != 0) {
+                for (int c = 0; c < target.length; c++) {
+                    target[c] = 1;
+                }
             }
-            CommandLineUtil.showProgress(pMonitor);
-            pMonitor.incrementCurValue();
+            return;
+        }
+        byte[] source = profile.getRow(row);
+        for (int c = 0; c < target.length; c++) {
+            byte value = col[c] < 0 ? 0 : source[col[c]];
+            target[c] |= alteredTable[value & 0xff];
         }
     }
 
     /**
-     * Determines the alteration status of gene X in case Y.
+     * Determines the alteration status of each byte value, for the specified alteration type.
      */
-    private byte isAltered(ArrayList<ByteProfileData> profileList,
-                           String gene, String caseId) {
-
-        //  Iterate through all profiles
-        byte isAltered = 0;
-        for (ByteProfileData data : profileList) {
-
-            //  Get the data value and alteration type for gene X in caseId Y in profile Z
-            byte value = data.getValue(gene, caseId);
-            GeneticAlterationType alterationType = data.getAlterationType();
+    private static byte[] createAlteredTable(GeneticAlterationType alterationType) {
+        boolean includeLowLevelCnaChanges = GlobalConfig.getInstance().includeLowLevelCnaChanges();
+        byte[] table = new byte[NUM_BYTE_VALUES];
+        for (int i = 0; i < NUM_BYTE_VALUES; i++) {
+            byte value = (byte) i;
+            boolean isAltered = false;
 
             //  Handle Copy Number Changes
             if (alterationType.equals(GeneticAlterationType.COPY_NUMBER_ALTERATION)) {
-                if (GlobalConfig.getInstance().includeLowLevelCnaChanges()) {
-                    if (value != 0) {
-                        isAltered = 1;
-                    }
+                if (includeLowLevelCnaChanges) {
+                    isAltered = value != 0;
                 } else {
-                    if (value == -2 || value == 2) {
-                        isAltered = 1;
-                    }
+                    isAltered = value == -2 || value == 2;
                 }
             } else if (alterationType.equals(GeneticAlterationType.MUTATION)) {
-                if (value == 1) {
-                    isAltered = 1;
-                }
+                isAltered = value == 1;
             } else if (alterationType.equals(GeneticAlterationType.MRNA_EXPRESSION)) {
-                if (value == 1) {
-                    isAltered = 1;
-                }
+                isAltered = value == 1;
             }
+            table[i] = isAltered ? (byte) 1 : (byte) 0;
         }
-        return isAltered;
+        return table;
     }
 
     /**
@@ -110,6 +143,8 @@ public final class ByteProfileMerger {
      */
     private void createUnion(ArrayList<ByteProfileData> profileList,
                              ArrayList<String> caseIdList, ArrayList<String> geneList) {
+        HashSet<String> caseIdSet = new HashSet<String>();
+        HashSet<String> geneSet = new HashSet<String>();
 
         //  Iterate through all profiles
         for (ByteProfileData data : profileList) {
@@ -120,14 +155,14 @@ public final class ByteProfileMerger {
 
             //  Conditionally add each new case to the global case list
             for (String currentCaseId : currentCaseList) {
-                if (!caseIdList.contains(currentCaseId)) {
+                if (caseIdSet.add(currentCaseId)) {
                     caseIdList.add(currentCaseId);
                 }
             }
 
             //  Conditionally add each new gene to the global gene list
             for (String currentGene : currentGeneList) {
-                if (!geneList.contains(currentGene)) {
+                if (geneSet.add(currentGene)) {
                     geneList.add(currentGene);
                 }
             }
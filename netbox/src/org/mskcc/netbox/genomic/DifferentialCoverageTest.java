@@ -0,0 +1,202 @@
+package org.mskcc.netbox.genomic;
+
+import org.mskcc.netbox.stats.BenjaminiHochbergFDR;
+import org.mskcc.netbox.util.ParallelUtil;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests the Difference in Coverage of Gene Sets between two Case Groups, via Permutation of
+ * Group Labels.
+ * <p/>
+ * The coverage of a gene set in a case group is the fraction of cases where at least one gene
+ * in the set is altered.  In each permutation, the cases of both groups are pooled, and
+ * randomly re-assigned to two groups of the original sizes.  The same permuted case masks are
+ * shared by all gene sets:  they are drawn once, and each gene set is then scored against all
+ * of them, via a masked popcount of its altered cases.  With nA and nB cases per group, a
+ * gene set altered in c cases of group A and in t cases of both groups has a coverage
+ * difference of (c * (nA + nB) - t * nA) / (nA * nB), where t does not depend on the
+ * permutation;  the two-sided test therefore compares the integers |c * (nA + nB) - t * nA|,
+ * and p = (exceedances + 1) / (permutations + 1).  Gene sets are tested in parallel chunks,
+ * via ParallelUtil.forEachChunk(), and p-values are adjusted for multiple hypotheses via
+ * Benjamini Hochberg FDR.
+ */
+public final class DifferentialCoverageTest {
+    private static final int SETS_PER_TASK = 256;
+    private GeneSetCoverageEngine engine;
+    private int numCasesA;
+    private int numCasesB;
+    private long[] pooledMask;
+    private long[][] permutedMasks;
+    private double[] differences;
+    private double[] pValues;
+    private double[] adjustedPValues;
+
+    /**
+     * Constructor.  Tests all gene sets.  The two case groups must not share any case;
+     * callers should remove shared cases first, see AnalyzeGeneSets.
+     *
+     * @param engine      Gene Set Coverage Engine.
+     * @param geneSetList List of Gene Sets, each a list of Gene Symbols.
+     * @param groupA      Index of Case Group A, within the case groups of the engine.
+     * @param groupB      Index of Case Group B, within the case groups of the engine.
+     * @param n           Number of Permutations.
+     * @param seed        Random Seed.
+     * @throws IllegalArgumentException if the case groups overlap.
+     */
+    public DifferentialCoverageTest(GeneSetCoverageEngine engine,
+            List<? extends List<String>> geneSetList, int groupA, int groupB, int n, long seed) {
+        this.engine = engine;
+        numCasesA = engine.getNumCases(groupA);
+        numCasesB = engine.getNumCases(groupB);
+        final long[] maskA = engine.getCaseMask(groupA);
+        long[] maskB = engine.getCaseMask(groupB);
+        pooledMask = new long[engine.getNumWords()];
+        for (int i = 0; i < pooledMask.length; i++) {
+            if ((maskA[i] & maskB[i]) != 0) {
+                throw new IllegalArgumentException("Case groups " + groupA + " and " + groupB
+                        + " overlap.");
+            }
+            pooledMask[i] = maskA[i] | maskB[i];
+        }
+        permutedMasks = createPermutedMasks(n, seed);
+
+        //  Resolve each gene set to gene rows, and test all gene sets
+        final int[][] geneSetRows = new int[geneSetList.size()][];
+        for (int i = 0; i < geneSetRows.length; i++) {
+            geneSetRows[i] = engine.getGeneRows(geneSetList.get(i));
+        }
+        differences = new double[geneSetRows.length];
+        pValues = new double[geneSetRows.length];
+        ParallelUtil.forEachChunk(geneSetRows.length, SETS_PER_TASK, new ParallelUtil.ChunkTask() {
+            public void execute(int from, int to) {
+                testGeneSets(geneSetRows, from, to, maskA);
+            }
+        });
+
+        //  Adjust for multiple hypotheses via Benjamini Hochberg FDR
+        adjustedPValues = BenjaminiHochbergFDR.adjust(pValues);
+    }
+
+    /**
+     * Gets the Difference in Coverage of each Gene Set, i.e. the percent of cases altered in
+     * group A, minus the percent of cases altered in group B.
+     *
+     * @return coverage differences.
+     */
+    public double[] getDifferences() {
+        return differences;
+    }
+
+    /**
+     * Gets the Unadjusted, Two-Sided P-Value of each Gene Set.
+     *
+     * @return p-values.
+     */
+    public double[] getPValues() {
+        return pValues;
+    }
+
+    /**
+     * Gets the Benjamini Hochberg FDR Adjusted P-Value of each Gene Set.
+     *
+     * @return adjusted p-values, in the order of the gene sets.
+     */
+    public double[] getAdjustedPValues() {
+        return adjustedPValues;
+    }
+
+    /**
+     * Draws the Case Masks of Group A, for all Permutations.  The pooled cases include cases
+     * which were not observed;  these are never altered, and have no bit in the masks.
+     */
+    private long[][] createPermutedMasks(int n, long seed) {
+        int numObserved = 0;
+        for (long word : pooledMask) {
+            numObserved += Long.bitCount(word);
+        }
+        int numPooled = numCasesA + numCasesB;
+        if (numObserved > numPooled) {
+            throw new IllegalArgumentException("Case groups contain duplicate cases.");
+        }
+        int[] pooledCases = new int[numPooled];
+        int k = 0;
+        for (int i = 0; i < pooledMask.length; i++) {
+            long word = pooledMask[i];
+            while (word != 0) {
+                pooledCases[k++] = i * Long.SIZE + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        for (; k < numPooled; k++) {
+            pooledCases[k] = -1;
+        }
+
+        //  Each permutation assigns the first numCasesA cases of a partial shuffle to group A
+        long[][] masks = new long[n][pooledMask.length];
+        for (int r = 0; r < n; r++) {
+            Random random = new Random(ParallelUtil.deriveSeed(seed, r));
+            for (int i = 0; i < numCasesA; i++) {
+                int j = i + random.nextInt(numPooled - i);
+                int t = pooledCases[i];
+                pooledCases[i] = pooledCases[j];
+                pooledCases[j] = t;
+                if (pooledCases[i] >= 0) {
+                    masks[r][pooledCases[i] / Long.SIZE] |= 1L << pooledCases[i];
+                }
+            }
+        }
+        return masks;
+    }
+
+    /**
+     * Tests the Gene Sets in [from, to).  Each permuted mask is applied to all gene sets of
+     * the chunk, before moving on to the next mask.
+     */
+    private void testGeneSets(int[][] geneSetRows, int from, int to, long[] maskA) {
+        int numWords = pooledMask.length;
+        long numPooled = numCasesA + numCasesB;
+        long[][] unions = new long[to - from][numWords];
+        long[] numTotal = new long[to - from];
+        long[] observed = new long[to - from];
+        int[] numExceedances = new int[to - from];
+        for (int j = from; j < to; j++) {
+            long[] union = unions[j - from];
+            engine.getAlteredCases(geneSetRows[j], union);
+            int numA = 0;
+            int numTotalCases = 0;
+            for (int i = 0; i < numWords; i++) {
+                numA += Long.bitCount(union[i] & maskA[i]);
+                numTotalCases += Long.bitCount(union[i] & pooledMask[i]);
+            }
+            numTotal[j - from] = numTotalCases;
+            observed[j - from] = Math.abs(numA * numPooled - numTotalCases * (long) numCasesA);
+            differences[j] = numA / (double) numCasesA
+                    - (numTotalCases - numA) / (double) numCasesB;
+        }
+        for (long[] mask : permutedMasks) {
+            for (int j = 0; j < unions.length; j++) {
+                if (numTotal[j] == 0) {
+                    continue;
+                }
+                long[] union = unions[j];
+                int numA = 0;
+                for (int i = 0; i < numWords; i++) {
+                    numA += Long.bitCount(union[i] & mask[i]);
+                }
+                if (Math.abs(numA * numPooled - numTotal[j] * numCasesA) >= observed[j]) {
+                    numExceedances[j]++;
+                }
+            }
+        }
+        for (int j = from; j < to; j++) {
+            if (numTotal[j - from] == 0) {
+                pValues[j] = 1.0;
+            } else {
+                pValues[j] = (numExceedances[j - from] + 1)
+                        / (double) (permutedMasks.length + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.mskcc.netbox.genomic;
+
+/**
+ * Running Case Coverage of a Growing Gene Set.
+ * <p/>
+ * Keeps a bitset of the cases altered in at least one gene of the set, so that the number of
+ * new cases covered by a candidate gene is a single pass over the bitset of that gene,
+ * independent of the number of genes already in the set.
+ */
+public final class GeneSetCoverage {
+    private ProfileDataSummary pSummary;
+    private long[] coveredCases;
+    private int numCasesCovered;
+
+    /**
+     * Constructor, for an empty gene set.
+     *
+     * @param p Profile Data Summary Object.
+     */
+    public GeneSetCoverage(ProfileDataSummary p) {
+        this.pSummary = p;
+        coveredCases = new long[p.getNumWords()];
+    }
+
+    /**
+     * Adds the Specified Gene to the Set.
+     *
+     * @param gene gene symbol.
+     */
+    public void addGene(String gene) {
+        long[] alteredCases = pSummary.getAlteredCases(gene);
+        if (alteredCases != null) {
+            for (int i = 0; i < coveredCases.length; i++) {
+                numCasesCovered += Long.bitCount(alteredCases[i] & ~coveredCases[i]);
+                coveredCases[i] |= alteredCases[i];
+            }
+        }
+    }
+
+    /**
+     * Gets the Number of Cases which the Specified Gene would add to the Coverage.
+     *
+     * @param gene gene symbol.
+     * @return number of cases.
+     */
+    public int getNumNewCases(String gene) {
+        long[] alteredCases = pSummary.getAlteredCases(gene);
+        int numNewCases = 0;
+        if (alteredCases != null) {
+            for (int i = 0; i < coveredCases.length; i++) {
+                numNewCases += Long.bitCount(alteredCases[i] & ~coveredCases[i]);
+            }
+        }
+        return numNewCases;
+    }
+
+    /**
+     * Gets the Number of Cases Altered in at least one Gene of the Set.
+     *
+     * @return number of cases.
+     */
+    public int getNumCasesCovered() {
+        return numCasesCovered;
+    }
+
+    /**
+     * Gets the Percent of Cases for the Specified Number of Cases, on the same scale as
+     * ProfileDataSummary.getPercentCasesWhereGeneSetisAltered().
+     *
+     * @param numCases number of cases.
+     * @return percentage value.
+     */
+    public double getPercentCases(int numCases) {
+        return numCases / (double) pSummary.getObservedCaseList().size();
+    }
+}
@@ -0,0 +1,158 @@
+package org.mskcc.netbox.genomic;
+
+import org.mskcc.netbox.util.ParallelUtil;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Calculates the Percent of Cases Altered in Many Gene Sets, for Several Case Groups at Once.
+ * <p/>
+ * The case bitsets of all observed genes are indexed by row, and each gene set is resolved to
+ * an array of rows once.  The altered cases of a gene set are then the bitwise OR of its
+ * rows, and are counted for each case group via a masked popcount.  Gene sets are processed
+ * in parallel chunks, via ParallelUtil.forEachChunk().
+ */
+public final class GeneSetCoverageEngine {
+    private static final int SETS_PER_TASK = 256;
+    private int numWords;
+    private HashMap<String, Integer> geneRowMap = new HashMap<String, Integer>();
+    private long[][] alteredCases;
+    private long[][] caseMasks;
+    private int[] numCases;
+
+    /**
+     * Constructor.
+     *
+     * @param p             Profile Data Summary Object.
+     * @param caseGroupList List of Case Groups, each a list of Case IDs.
+     */
+    public GeneSetCoverageEngine(ProfileDataSummary p, List<ArrayList<String>> caseGroupList) {
+        numWords = p.getNumWords();
+        ArrayList<String> observedGeneList = p.getObservedGeneList();
+        alteredCases = new long[observedGeneList.size()][];
+        for (int i = 0; i < observedGeneList.size(); i++) {
+            String gene = observedGeneList.get(i);
+            geneRowMap.put(gene, i);
+            alteredCases[i] = p.getAlteredCases(gene);
+        }
+        caseMasks = new long[caseGroupList.size()][];
+        numCases = new int[caseGroupList.size()];
+        for (int i = 0; i < caseGroupList.size(); i++) {
+            caseMasks[i] = p.getCaseMask(caseGroupList.get(i));
+            numCases[i] = caseGroupList.get(i).size();
+        }
+    }
+
+    /**
+     * Gets the Percent of Cases Altered in each Gene Set, for each Case Group.
+     *
+     * @param geneSetList List of Gene Sets, each a list of Gene Symbols.
+     * @return percentage values, indexed by gene set, and then by case group.
+     */
+    public double[][] getPercentCasesAltered(List<? extends List<String>> geneSetList) {
+
+        //  Resolve each gene set to gene rows;  genes which were not observed are never altered
+        final int[][] geneSetRows = new int[geneSetList.size()][];
+        for (int i = 0; i < geneSetRows.length; i++) {
+            geneSetRows[i] = getGeneRows(geneSetList.get(i));
+        }
+
+        final double[][] percentCases = new double[geneSetRows.length][];
+        ParallelUtil.forEachChunk(geneSetRows.length, SETS_PER_TASK, new ParallelUtil.ChunkTask() {
+            public void execute(int from, int to) {
+                long[] union = new long[numWords];
+                for (int j = from; j < to; j++) {
+                    percentCases[j] = getPercentCasesAltered(geneSetRows[j], union);
+                }
+            }
+        });
+        return percentCases;
+    }
+
+    /**
+     * Resolves the Gene Set to Gene Rows;  genes which were not observed are left out.
+     *
+     * @param geneSet Gene Set, a list of Gene Symbols.
+     * @return gene rows.
+     */
+    int[] getGeneRows(List<String> geneSet) {
+        int[] rows = new int[geneSet.size()];
+        int numRows = 0;
+        for (String gene : geneSet) {
+            Integer row = geneRowMap.get(gene);
+            if (row != null) {
+                rows[numRows++] = row;
+            }
+        }
+        int[] result = new int[numRows];
+        System.arraycopy(rows, 0, result, 0, numRows);
+        return result;
+    }
+
+    /**
+     * Gets the Cases where the Gene Set is Altered, i.e. the bitwise OR of its gene rows.
+     *
+     * @param rows  Gene Rows, as returned by getGeneRows().
+     * @param union Bitset to be filled with the altered cases of the gene set.
+     */
+    void getAlteredCases(int[] rows, long[] union) {
+        for (int i = 0; i < numWords; i++) {
+            union[i] = 0;
+        }
+        for (int row : rows) {
+            long[] cases = alteredCases[row];
+            for (int i = 0; i < numWords; i++) {
+                union[i] |= cases[i];
+            }
+        }
+    }
+
+    /**
+     * Gets the Case Mask of the Specified Case Group.  The array must not be modified.
+     *
+     * @param group Index of the Case Group.
+     * @return case mask, with one bit per observed case.
+     */
+    long[] getCaseMask(int group) {
+        return caseMasks[group];
+    }
+
+    /**
+     * Gets the Number of Cases in the Specified Case Group, including unobserved cases.
+     *
+     * @param group Index of the Case Group.
+     * @return number of cases.
+     */
+    int getNumCases(int group) {
+        return numCases[group];
+    }
+
+    /**
+     * Gets the Number of 64-bit Words in each Case Bitset.
+     *
+     * @return number of words.
+     */
+    int getNumWords() {
+        return numWords;
+    }
+
+    /**
+     * Gets the Percent of Cases Altered in the Gene Set, for each Case Group.
+     *
+     * @param union Buffer for the altered cases of the gene set.
+     */
+    private double[] getPercentCasesAltered(int[] rows, long[] union) {
+        getAlteredCases(rows, union);
+        double[] percentCases = new double[caseMasks.length];
+        for (int g = 0; g < caseMasks.length; g++) {
+            int numCasesAffected = 0;
+            for (int i = 0; i < numWords; i++) {
+                numCasesAffected += Long.bitCount(union[i] & caseMasks[g][i]);
+            }
+            percentCases[g] = numCasesAffected / (double) numCases[g];
+        }
+        return percentCases;
+    }
+}
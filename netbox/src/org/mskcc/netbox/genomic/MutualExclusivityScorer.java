@@ -0,0 +1,139 @@
+package org.mskcc.netbox.genomic;
+
+import org.apache.commons.math.distribution.HypergeometricDistributionImpl;
+import org.mskcc.netbox.util.ParallelUtil;
+
+import java.util.List;
+
+/**
+ * Scores the Mutual Exclusivity of Gene Pairs, via Kendall's Tau.
+ * <p/>
+ * Tau is calculated over all cases in which at least one of the two genes is altered.  For
+ * such binary vectors, tau-b has a closed form in the 2x2 contingency counts:  with a cases
+ * where only gene A is altered, b cases where only gene B is altered, and c cases where both
+ * are altered, all a * b pairs are discordant, no pair is concordant, and
+ * tau = -sqrt(a * b / ((a + c) * (b + c))).  The counts are derived from three popcounts
+ * of the case bitsets of the ProfileDataSummary.
+ * <p/>
+ * For fixed gene frequencies, tau only depends on c, and decreases with it.  If the altered
+ * cases of one gene are a random set of cases of the same size, c follows a hypergeometric
+ * distribution;  the p-value of a pair is therefore the exact lower tail P(X <= c).  Unlike
+ * a permutation p-value, it is not bounded below by the number of permutations, so it
+ * remains significant after adjustment for many pairs.
+ */
+public final class MutualExclusivityScorer {
+    private static final int PAIRS_PER_TASK = 1024;
+    private ProfileDataSummary pSummary;
+
+    /**
+     * Constructor.
+     *
+     * @param p Profile Data Summary Object.
+     */
+    public MutualExclusivityScorer(ProfileDataSummary p) {
+        this.pSummary = p;
+    }
+
+    /**
+     * Gets Kendall's Tau for the Specified Gene Pair.
+     *
+     * @param geneA Gene Symbol A.
+     * @param geneB Gene Symbol B.
+     * @return tau, or NaN if either gene is altered in all cases where one of them is, i.e.
+     *         if tau is undefined.
+     */
+    public double getKendallTau(String geneA, String geneB) {
+        int[] counts = getCounts(geneA, geneB);
+        int numA = counts[0];
+        int numB = counts[1];
+        int onlyA = numA - counts[2];
+        int onlyB = numB - counts[2];
+        if (onlyA == 0 || onlyB == 0) {
+            return Double.NaN;
+        }
+        return -Math.sqrt((double) onlyA * onlyB / ((double) numA * numB));
+    }
+
+    /**
+     * Gets the Exact One-Sided P-Value of Mutual Exclusivity for the Specified Gene Pair, i.e.
+     * the hypergeometric probability of an overlap no larger than the observed one.
+     *
+     * @param geneA Gene Symbol A.
+     * @param geneB Gene Symbol B.
+     * @return p-value, or 1.0 if either gene is never altered.
+     */
+    public double getPValue(String geneA, String geneB) {
+        int[] counts = getCounts(geneA, geneB);
+        if (counts[0] == 0 || counts[1] == 0) {
+            return 1.0;
+        }
+        HypergeometricDistributionImpl hyper = new HypergeometricDistributionImpl(
+                pSummary.getObservedCaseList().size(), counts[0], counts[1]);
+        return Math.min(1.0, hyper.cumulativeProbability(counts[2]));
+    }
+
+    /**
+     * Gets the Exact P-Value for Each of the Specified Gene Pairs.  Pairs are scored in
+     * parallel chunks, via ParallelUtil.forEachChunk().
+     *
+     * @param geneAList List of Gene Symbols A.
+     * @param geneBList List of Gene Symbols B, of the same length.
+     * @return p-value of each pair, not adjusted for multiple hypotheses.
+     */
+    public double[] getPValues(final List<String> geneAList, final List<String> geneBList) {
+        if (geneAList.size() != geneBList.size()) {
+            throw new IllegalArgumentException("Gene lists differ in length:  "
+                    + geneAList.size() + " vs. " + geneBList.size());
+        }
+        final double[] pValues = new double[geneAList.size()];
+        ParallelUtil.forEachChunk(pValues.length, PAIRS_PER_TASK, new ParallelUtil.ChunkTask() {
+            public void execute(int from, int to) {
+                for (int j = from; j < to; j++) {
+                    pValues[j] = getPValue(geneAList.get(j), geneBList.get(j));
+                }
+            }
+        });
+        return pValues;
+    }
+
+    /**
+     * Gets Kendall's Tau for Each of the Specified Gene Pairs.  Pairs are scored in parallel
+     * chunks, via ParallelUtil.forEachChunk().
+     *
+     * @param geneAList List of Gene Symbols A.
+     * @param geneBList List of Gene Symbols B, of the same length.
+     * @return tau of each pair.
+     */
+    public double[] getKendallTau(final List<String> geneAList, final List<String> geneBList) {
+        if (geneAList.size() != geneBList.size()) {
+            throw new IllegalArgumentException("Gene lists differ in length:  "
+                    + geneAList.size() + " vs. " + geneBList.size());
+        }
+        final double[] tau = new double[geneAList.size()];
+        ParallelUtil.forEachChunk(tau.length, PAIRS_PER_TASK, new ParallelUtil.ChunkTask() {
+            public void execute(int from, int to) {
+                for (int j = from; j < to; j++) {
+                    tau[j] = getKendallTau(geneAList.get(j), geneBList.get(j));
+                }
+            }
+        });
+        return tau;
+    }
+
+    /**
+     * Counts the Cases in which Gene A, Gene B, and both Genes are Altered.
+     */
+    private int[] getCounts(String geneA, String geneB) {
+        long[] casesA = pSummary.getAlteredCases(geneA);
+        long[] casesB = pSummary.getAlteredCases(geneB);
+        int[] counts = new int[3];
+        for (int i = 0; i < pSummary.getNumWords(); i++) {
+            long wordA = casesA == null ? 0 : casesA[i];
+            long wordB = casesB == null ? 0 : casesB[i];
+            counts[0] += Long.bitCount(wordA);
+            counts[1] += Long.bitCount(wordB);
+            counts[2] += Long.bitCount(wordA & wordB);
+        }
+        return counts;
+    }
+}
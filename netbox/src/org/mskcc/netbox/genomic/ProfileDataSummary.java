@@ -10,9 +10,16 @@ import java.util.HashMap;
 
 /**
  * Utility Class for Summarizing Profile Data.
+ * <p/>
+ * Alterations are stored as one bitset per gene, with one bit per observed case, so that the
+ * cases altered in a gene set are the bitwise OR of the gene bitsets, and can be counted
+ * via Long.bitCount().
  */
 public final class ProfileDataSummary {
     private HashMap<String, Double> geneAlteredMap = new HashMap<String, Double>();
+    private HashMap<String, long[]> alteredCasesMap = new HashMap<String, long[]>();
+    private HashMap<String, Integer> caseIndexMap = new HashMap<String, Integer>();
+    private int numWords;
     private ArrayList<GeneWithScore> geneAlteredList = new ArrayList<GeneWithScore>();
     private HashMap<String, Boolean> caseAlteredMap = new HashMap<String, Boolean>();
     private ArrayList<String> observedCaseList;
@@ -30,6 +37,10 @@ public final class ProfileDataSummary {
         this.profileData = data;
         observedGeneList = data.getGeneList();
         observedCaseList = data.getCaseIdList();
+        numWords = (observedCaseList.size() + Long.SIZE - 1) / Long.SIZE;
+        for (int i = 0; i < observedCaseList.size(); i++) {
+            caseIndexMap.put(observedCaseList.get(i), i);
+        }
         geneAlteredList = determineFrequencyOfGeneAlteration();
     }
 
@@ -86,22 +97,10 @@ public final class ProfileDataSummary {
      * @return percentage value.
      */
     public double getPercentCasesWhereGeneSetisAltered(ArrayList<String> gList) {
+        long[] alteredCases = getCasesWhereGeneSetisAltered(gList);
         int numCasesAffected = 0;
-
-        //  Iterate through all cases
-        for (String caseId : observedCaseList) {
-            boolean caseIsAltered = false;
-
-            //  Iterate through all gene lists
-            for (String gene : gList) {
-                boolean isAltered = isGeneAltered(gene, caseId);
-                if (isAltered) {
-                    caseIsAltered = true;
-                }
-            }
-            if (caseIsAltered) {
-                numCasesAffected++;
-            }
+        for (int i = 0; i < numWords; i++) {
+            numCasesAffected += Long.bitCount(alteredCases[i]);
         }
         return numCasesAffected / (double) observedCaseList.size();
     }
@@ -115,24 +114,45 @@ public final class ProfileDataSummary {
      */
     public double getPercentCasesWhereGeneSetisAltered(ArrayList<String> gList,
                                                        ArrayList<String> caseSet) {
+        return getPercentCasesWhereGeneSetisAltered(gList, getCaseMask(caseSet),
+                caseSet.size());
+    }
+
+    /**
+     * Gets percent of cases where gene set X is altered, within the cases of the specified
+     * case mask.
+     *
+     * @param gList    Gene List.
+     * @param caseMask Case Mask, as returned by getCaseMask().
+     * @param numCases Number of cases to divide by, usually the size of the case set.
+     * @return percentage value.
+     */
+    public double getPercentCasesWhereGeneSetisAltered(ArrayList<String> gList,
+                                                       long[] caseMask, int numCases) {
+        long[] alteredCases = getCasesWhereGeneSetisAltered(gList);
         int numCasesAffected = 0;
+        for (int i = 0; i < numWords; i++) {
+            numCasesAffected += Long.bitCount(alteredCases[i] & caseMask[i]);
+        }
+        return numCasesAffected / (double) numCases;
+    }
 
-        //  Iterate through all cases
+    /**
+     * Gets a Case Mask for the Specified Cases, with one bit per observed case.  Cases which
+     * were not observed are never altered, and are therefore left out.
+     *
+     * @param caseSet Case Set.
+     * @return case mask.
+     */
+    public long[] getCaseMask(ArrayList<String> caseSet) {
+        long[] caseMask = new long[numWords];
         for (String caseId : caseSet) {
-            boolean caseIsAltered = false;
-
-            //  Iterate through all gene lists
-            for (String gene : gList) {
-                boolean isAltered = isGeneAltered(gene, caseId);
-                if (isAltered) {
-                    caseIsAltered = true;
-                }
-            }
-            if (caseIsAltered) {
-                numCasesAffected++;
+            Integer index = caseIndexMap.get(caseId);
+            if (index != null) {
+                caseMask[index / Long.SIZE] |= 1L << index;
             }
         }
-        return numCasesAffected / (double) caseSet.size();
+        return caseMask;
     }
 
     /**
@@ -153,12 +173,49 @@ public final class ProfileDataSummary {
      * @return true or false.
      */
     public boolean isGeneAltered(String gene, String caseId) {
-        byte value = profileData.getValue(gene, caseId);
-        if (value == 0) {
+        long[] alteredCases = alteredCasesMap.get(gene);
+        Integer index = caseIndexMap.get(caseId);
+        if (alteredCases == null || index == null) {
             return false;
         } else {
-            return true;
+            return (alteredCases[index / Long.SIZE] & (1L << index)) != 0;
+        }
+    }
+
+    /**
+     * Gets the Cases where the Specified Gene is Altered, as a bitset with one bit per
+     * observed case.  The array must not be modified.
+     *
+     * @param gene gene symbol.
+     * @return bitset, or null if the gene was not observed.
+     */
+    long[] getAlteredCases(String gene) {
+        return alteredCasesMap.get(gene);
+    }
+
+    /**
+     * Gets the Number of 64-bit Words in each Case Bitset.
+     *
+     * @return number of words.
+     */
+    int getNumWords() {
+        return numWords;
+    }
+
+    /**
+     * Gets the bitwise OR of the altered cases of all genes in the set.
+     */
+    private long[] getCasesWhereGeneSetisAltered(ArrayList<String> gList) {
+        long[] alteredCases = new long[numWords];
+        for (String gene : gList) {
+            long[] geneAlteredCases = alteredCasesMap.get(gene);
+            if (geneAlteredCases != null) {
+                for (int i = 0; i < numWords; i++) {
+                    alteredCases[i] |= geneAlteredCases[i];
+                }
+            }
         }
+        return alteredCases;
     }
 
 
@@ -173,18 +230,21 @@ public final class ProfileDataSummary {
         pMonitor.setCurrentMessage("Determining frequency of alteration for each observed gene.");
         for (String gene : observedGeneList) {
             int numSamplesWhereGeneIsAltered = 0;
+            long[] alteredCases = new long[numWords];
 
             //  Iterate through all cases.
-            for (String caseId : observedCaseList) {
+            for (int i = 0; i < observedCaseList.size(); i++) {
 
                 //  Determine if gene is altered in this case
-                boolean isAltered = isGeneAltered(gene, caseId);
+                byte value = profileData.getValue(gene, observedCaseList.get(i));
 
-                //  If gene is altered in this case, increment counter.
-                if (isAltered) {
+                //  If gene is altered in this case, set its bit, and increment counter.
+                if (value != 0) {
+                    alteredCases[i / Long.SIZE] |= 1L << i;
                     numSamplesWhereGeneIsAltered++;
                 }
             }
+            alteredCasesMap.put(gene, alteredCases);
             CommandLineUtil.showProgress(pMonitor);
             pMonitor.incrementCurValue();
             double percent = numSamplesWhereGeneIsAltered / (double) observedCaseList.size();
@@ -0,0 +1,216 @@
+package org.mskcc.netbox.genomic.util;
+
+import org.mskcc.netbox.util.CommandLineUtil;
+import org.mskcc.netbox.util.ConfiguredCallable;
+import org.mskcc.netbox.util.GlobalConfig;
+import org.mskcc.netbox.util.ParallelUtil;
+import org.mskcc.netbox.util.ProgressMonitor;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Parses a Tab Delimited File in a Single Pass, in Parallel.
+ * <p/>
+ * The first line is read as the header.  The remainder of the file is split into byte range
+ * chunks, which are parsed in parallel, using GlobalConfig.getNumThreads() threads.  Each
+ * line belongs to the chunk in which it starts;  a chunk reads past its end to complete its
+ * last line.  Subclasses parse each line into a buffer, one per chunk, and buffers are
+ * returned in file order, so results do not depend on the number of threads.
+ *
+ * @param <T> Chunk Buffer Type.
+ */
+abstract class ChunkedTabDelimParser<T> {
+    private static final int CHUNK_SIZE = 1 << 22;
+    private static final int READ_AHEAD = 1 << 12;
+    private File file;
+
+    /**
+     * Constructor.
+     *
+     * @param f Input File.
+     */
+    ChunkedTabDelimParser(File f) {
+        this.file = f;
+    }
+
+    /**
+     * Parses the Header Line.  Called once, before any other line is parsed.
+     *
+     * @param header Header Fields, or an empty array if the file is empty.
+     */
+    protected abstract void parseHeader(String[] header);
+
+    /**
+     * Creates an Empty Buffer for a New Chunk.
+     *
+     * @return chunk buffer.
+     */
+    protected abstract T createChunk();
+
+    /**
+     * Parses a Single Line, after the Header, into the Specified Chunk Buffer.  Called
+     * concurrently for different chunks.
+     *
+     * @param line  Tokenized Line;  only valid for the duration of the call.
+     * @param chunk Chunk Buffer.
+     */
+    protected abstract void parseLine(TabDelimLine line, T chunk);
+
+    /**
+     * Parses the File.
+     *
+     * @return chunk buffers, in file order.
+     * @throws IOException IO Error.
+     */
+    final ArrayList<T> parse() throws IOException {
+        ProgressMonitor pMonitor = ProgressMonitor.getInstance();
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        ExecutorService executor = null;
+        try {
+            final FileChannel channel = raf.getChannel();
+            final long length = channel.size();
+            final long dataStart = readHeader(channel, length);
+
+            executor = ParallelUtil.createExecutor(GlobalConfig.getInstance().getNumThreads());
+            ArrayList<Future<T>> futureList = new ArrayList<Future<T>>();
+            for (long start = dataStart; start < length; start += CHUNK_SIZE) {
+                final long from = start;
+                final long to = Math.min(length, start + CHUNK_SIZE);
+                futureList.add(executor.submit(new ConfiguredCallable<T>() {
+                    protected T execute() throws IOException {
+                        return parseChunk(channel, from, to, from == dataStart, length);
+                    }
+                }));
+            }
+
+            pMonitor.setMaxValue(futureList.size());
+            ArrayList<T> chunkList = new ArrayList<T>();
+            for (Future<T> future : futureList) {
+                chunkList.add(ParallelUtil.getIOResult(future));
+                pMonitor.incrementCurValue();
+                CommandLineUtil.showProgress(pMonitor);
+            }
+            return chunkList;
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            raf.close();
+        }
+    }
+
+    /**
+     * Reads and Parses the Header Line.
+     *
+     * @return offset of the first byte after the header line.
+     */
+    private long readHeader(FileChannel channel, long length) throws IOException {
+        byte[] buf = new byte[READ_AHEAD];
+        int len = 0;
+        while (len < length) {
+            int n = (int) Math.min(READ_AHEAD, length - len);
+            if (len + n > buf.length) {
+                byte[] newBuf = new byte[Math.max(buf.length * 2, len + n)];
+                System.arraycopy(buf, 0, newBuf, 0, len);
+                buf = newBuf;
+            }
+            readFully(channel, buf, len, n, len);
+            for (int i = len; i < len + n; i++) {
+                if (buf[i] == '\n') {
+                    setHeader(buf, i);
+                    return i + 1;
+                }
+            }
+            len += n;
+        }
+        setHeader(buf, len);
+        return len;
+    }
+
+    private void setHeader(byte[] buf, int end) {
+        if (end == 0) {
+            parseHeader(new String[0]);
+        } else {
+            TabDelimLine line = new TabDelimLine();
+            line.set(buf, 0, end);
+            parseHeader(line.getFields());
+        }
+    }
+
+    /**
+     * Parses all Lines which start in the Specified Byte Range.
+     */
+    private T parseChunk(FileChannel channel, long start, long end, boolean atLineStart,
+            long length) throws IOException {
+        T chunk = createChunk();
+
+        //  Include the preceding byte, to determine whether a line starts at the first byte
+        long from = atLineStart ? start : start - 1;
+        int size = (int) (end - from);
+        byte[] buf = new byte[size + READ_AHEAD];
+        readFully(channel, buf, 0, size, from);
+        int first = 0;
+        if (!atLineStart) {
+            while (first < size && buf[first] != '\n') {
+                first++;
+            }
+            first++;
+        }
+        if (first >= size) {
+            return chunk;
+        }
+
+        //  Read past the end of the range, to complete the last line
+        int len = size;
+        long pos = end;
+        while (buf[len - 1] != '\n' && pos < length) {
+            int n = (int) Math.min(READ_AHEAD, length - pos);
+            if (len + n > buf.length) {
+                byte[] newBuf = new byte[Math.max(buf.length * 2, len + n)];
+                System.arraycopy(buf, 0, newBuf, 0, len);
+                buf = newBuf;
+            }
+            readFully(channel, buf, len, n, pos);
+            int newLen = len + n;
+            for (int i = len; i < len + n; i++) {
+                if (buf[i] == '\n') {
+                    newLen = i + 1;
+                    break;
+                }
+            }
+            len = newLen;
+            pos += n;
+        }
+
+        TabDelimLine line = new TabDelimLine();
+        int lineStart = first;
+        while (lineStart < len) {
+            int lineEnd = lineStart;
+            while (lineEnd < len && buf[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            line.set(buf, lineStart, lineEnd);
+            parseLine(line, chunk);
+            lineStart = lineEnd + 1;
+        }
+        return chunk;
+    }
+
+    private static void readFully(FileChannel channel, byte[] buf, int off, int len,
+            long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(buf, off, len);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position() - off) < 0) {
+                throw new EOFException("Unexpected end of file:  " + position);
+            }
+        }
+    }
+}
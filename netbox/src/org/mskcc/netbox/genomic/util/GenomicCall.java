@@ -26,6 +26,22 @@ public final class GenomicCall {
         return byteValue;
     }
 
+    /**
+     * Translates the Specified Field of a Tab Delimited Line into a Mutation Call, without
+     * creating a String.
+     *
+     * @param line Tab Delimited Line.
+     * @param i    Field Index.
+     * @return 0 or 1.
+     */
+    static byte getMutationCall(TabDelimLine line, int i) {
+        if (line.fieldEquals(i, "0") || line.fieldEquals(i, "NA")) {
+            return 0;
+        } else {
+            return 1;
+        }
+    }
+
     /**
      * Translates an Expression Value into a Byte Call.
      *
@@ -33,9 +49,19 @@ public final class GenomicCall {
      * @return 0 or 1.
      */
     public static byte getExpressionCall(String s) {
+        return getExpressionCall(s, GlobalConfig.getInstance().getMRNAZScoreThreshold());
+    }
+
+    /**
+     * Translates an Expression Value into a Byte Call, using the Specified Z-Score Threshold.
+     *
+     * @param s         a value, such as:  0.0001
+     * @param threshold mRNA Z-Score Threshold, e.g. from GlobalConfig.
+     * @return 0 or 1.
+     */
+    public static byte getExpressionCall(String s, double threshold) {
         double value = Math.abs(Double.parseDouble(s));
-        GlobalConfig config = GlobalConfig.getInstance();
-        if (value > config.getMRNAZScoreThreshold()) {
+        if (value > threshold) {
             return 1;
         } else {
             return 0;
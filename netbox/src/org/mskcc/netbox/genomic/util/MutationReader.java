@@ -2,19 +2,18 @@ package org.mskcc.netbox.genomic.util;
 
 import org.mskcc.netbox.genomic.ByteProfileData;
 import org.mskcc.netbox.genomic.GeneticAlterationType;
-import org.mskcc.netbox.util.CommandLineUtil;
-import org.mskcc.netbox.util.FileUtil;
 import org.mskcc.netbox.util.ProgressMonitor;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
 
 /**
  * Reads Mutation Data into a ByteProfile Data Object.
+ * <p/>
+ * The file is read in a single pass, and parsed in parallel, in byte range chunks.  Each
+ * non-blank line must contain at least three fields:  gene, case ID, and mutation call.
  *
  * @author Ethan Cerami
  */
@@ -29,6 +28,7 @@ public final class MutationReader {
      * @param caseIdSet     Case ID Set.
      * @param validateGenes Flag to Validate Genes.
      * @throws IOException IO Error.
+     * @throws IllegalArgumentException A non-blank line contains fewer than three fields.
      */
     public MutationReader(File file, HashSet<String> caseIdSet, boolean validateGenes)
             throws IOException {
@@ -45,34 +45,48 @@ public final class MutationReader {
         return byteProfile;
     }
 
-    private void execute(File file, HashSet<String> caseIdSet, boolean validateGenes)
+    private void execute(final File file, HashSet<String> caseIdSet, boolean validateGenes)
             throws IOException {
-        int numLines = FileUtil.getNumLines(file);
-
-        //  Pass #1:  Determine Number of Genes
         //  We assume first line contains the header info and ignore it
-        pMonitor.setCurrentMessage("Reading data from:  " + file.getAbsolutePath()
-                + ", Pass #1");
-        pMonitor.setMaxValue(numLines);
-        FileReader reader = new FileReader(file);
-        BufferedReader buf = new BufferedReader(reader);
-        buf.readLine();
+        pMonitor.setCurrentMessage("Reading data from:  " + file.getAbsolutePath());
+        ChunkedTabDelimParser<ArrayList<MutationCall>> parser =
+                new ChunkedTabDelimParser<ArrayList<MutationCall>>(file) {
+                    protected void parseHeader(String[] header) {
+                    }
 
-        HashSet<String> geneSet = new HashSet<String>();
+                    protected ArrayList<MutationCall> createChunk() {
+                        return new ArrayList<MutationCall>();
+                    }
+
+                    protected void parseLine(TabDelimLine line, ArrayList<MutationCall> chunk) {
+                        if (!line.isBlank()) {
+                            if (line.getNumFields() < 3) {
+                                throw new IllegalArgumentException("Mutation file "
+                                        + file.getAbsolutePath() + " contains a line with "
+                                        + "fewer than three fields:  " + line.getField(0));
+                            }
+                            MutationCall call = new MutationCall();
+                            call.entrezGeneId = line.getField(0);
+                            call.caseId = line.getField(1);
+                            call.mutCall = GenomicCall.getMutationCall(line, 2);
+                            chunk.add(call);
+                        }
+                    }
+                };
 
-        String line = buf.readLine();
-        while (line != null) {
-            if (line.trim().length() > 0) {
-                String[] parts = line.split("\t");
-                String entrezGeneId = parts[0];
-                String id = ReaderUtil.getGeneId(entrezGeneId, validateGenes, pMonitor);
+        //  Determine the genes, in file order
+        HashSet<String> geneSet = new HashSet<String>();
+        ArrayList<String> idList = new ArrayList<String>();
+        ArrayList<MutationCall> callList = new ArrayList<MutationCall>();
+        for (ArrayList<MutationCall> chunk : parser.parse()) {
+            for (MutationCall call : chunk) {
+                String id = ReaderUtil.getGeneId(call.entrezGeneId, validateGenes, pMonitor);
                 if (id != null) {
                     geneSet.add(id);
+                    idList.add(id);
+                    callList.add(call);
                 }
             }
-            line = buf.readLine();
-            pMonitor.incrementCurValue();
-            CommandLineUtil.showProgress(pMonitor);
         }
 
         //  At this point, we can create the ByteProfile Data Object
@@ -82,33 +96,22 @@ public final class MutationReader {
         caseIdList.addAll(caseIdSet);
         byteProfile = new ByteProfileData(GeneticAlterationType.MUTATION, geneList, caseIdList);
 
-        //  Pass #2:  Read in the Actual Data
-        pMonitor.setCurrentMessage("Reading data from:  " + file.getAbsolutePath()
-                + ", Pass #2");
-        pMonitor.setMaxValue(numLines);
-
-        reader = new FileReader(file);
-        buf = new BufferedReader(reader);
-
-        buf.readLine();
-        line = buf.readLine();
-        while (line != null) {
-            if (line.trim().length() > 0) {
-                String[] parts = line.split("\t");
-                String entrezGeneId = parts[0];
-                String caseId = parts[1];
-                String mutationCall = parts[2];
-                byte mutCall = GenomicCall.getMutationCall(mutationCall);
-                String id = ReaderUtil.getGeneId(entrezGeneId, validateGenes, pMonitor);
+        for (int i = 0; i < callList.size(); i++) {
+            MutationCall call = callList.get(i);
 
-                //  Only include values that are from the selected case set.
-                if (id != null && caseIdSet.contains(caseId)) {
-                    byteProfile.setValue(id, caseId, mutCall);
-                }
+            //  Only include values that are from the selected case set.
+            if (caseIdSet.contains(call.caseId)) {
+                byteProfile.setValue(idList.get(i), call.caseId, call.mutCall);
             }
-            line = buf.readLine();
-            pMonitor.incrementCurValue();
-            CommandLineUtil.showProgress(pMonitor);
         }
     }
+
+    /**
+     * A Single Line of the Mutation File.
+     */
+    private static class MutationCall {
+        private String entrezGeneId;
+        private String caseId;
+        private byte mutCall;
+    }
 }
@@ -1,6 +1,6 @@
 package org.mskcc.netbox.genomic.util;
 
-import org.mskcc.netbox.model.Gene;
+import org.mskcc.netbox.query.EntrezGeneDictionary;
 import org.mskcc.netbox.query.GeneQuery;
 import org.mskcc.netbox.util.ProgressMonitor;
 
@@ -18,7 +18,8 @@ public final class ReaderUtil {
     }
 
     /**
-     * Given an Entrez Gene ID, Returns the Corresponding Gene Symbol.
+     * Given an Entrez Gene ID, Returns the Corresponding Gene Symbol, from the preloaded
+     * Entrez Gene Dictionary.
      * However, when validation of genes is turned off, this method simply returns the
      * entrez gene ID.
      *
@@ -29,21 +30,17 @@ public final class ReaderUtil {
      */
     public static String getGeneId(String entrezGeneId, boolean validateGenes,
                                    ProgressMonitor pMonitor) {
-        Gene gene;
-        String id = null;
         if (validateGenes) {
-            try {
-                gene = GeneQuery.getGeneByEntrezGeneId(Long.parseLong(entrezGeneId));
-            } catch (NumberFormatException e) {
-                pMonitor.logWarning("Cannot parse Entrez Gene ID:  " + id);
+            long id = EntrezGeneDictionary.parseEntrezGeneId(entrezGeneId);
+            if (id < 0) {
+                pMonitor.logWarning("Cannot parse Entrez Gene ID:  " + entrezGeneId);
                 return null;
             }
-            if (gene == null) {
+            String geneSymbol = GeneQuery.getEntrezGeneDictionary().getGeneSymbol(id);
+            if (geneSymbol == null) {
                 pMonitor.logWarning("Do not know gene with Entrez Gene ID:  " + entrezGeneId);
-                return null;
-            } else {
-                return gene.getGeneSymbol();
             }
+            return geneSymbol;
         } else {
             return entrezGeneId;
         }
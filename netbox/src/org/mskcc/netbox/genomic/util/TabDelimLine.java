@@ -0,0 +1,189 @@
+package org.mskcc.netbox.genomic.util;
+
+import java.nio.charset.Charset;
+
+/**
+ * A Single Line of Tab Delimited Text, Tokenized in Place.
+ * <p/>
+ * Fields are recorded as offsets into the underlying byte buffer, rather than copied into
+ * separate Strings;  Strings are only created for fields which are explicitly requested.
+ * As with String.split("\t"), trailing empty fields are dropped.  The object is reused from
+ * one line to the next.
+ */
+final class TabDelimLine {
+    private static final Charset CHARSET = Charset.defaultCharset();
+    private static final int RADIX = 10;
+    private static final int INITIAL_CAPACITY = 16;
+    private byte[] buf;
+    private int lineStart;
+    private int lineEnd;
+    private int[] fieldStart = new int[INITIAL_CAPACITY];
+    private int[] fieldEnd = new int[INITIAL_CAPACITY];
+    private int numFields;
+
+    /**
+     * Tokenizes the Specified Line.
+     *
+     * @param b     Byte Buffer.
+     * @param start Offset of the first byte of the line.
+     * @param end   Offset of the line terminator, or the end of the data.
+     */
+    void set(byte[] b, int start, int end) {
+        this.buf = b;
+        this.lineStart = start;
+        this.lineEnd = end;
+        if (lineEnd > lineStart && b[lineEnd - 1] == '\r') {
+            lineEnd--;
+        }
+        numFields = 0;
+        int from = start;
+        for (int i = start; i <= lineEnd; i++) {
+            if (i == lineEnd || b[i] == '\t') {
+                addField(from, i);
+                from = i + 1;
+            }
+        }
+
+        //  Drop trailing empty fields, unless the line contains no tabs at all
+        if (numFields > 1) {
+            while (numFields > 0 && fieldStart[numFields - 1] == fieldEnd[numFields - 1]) {
+                numFields--;
+            }
+        }
+    }
+
+    /**
+     * Gets the Number of Fields.
+     *
+     * @return number of fields.
+     */
+    int getNumFields() {
+        return numFields;
+    }
+
+    /**
+     * Gets the Specified Field.
+     *
+     * @param i Field Index.
+     * @return field value.
+     */
+    String getField(int i) {
+        checkIndex(i);
+        return new String(buf, fieldStart[i], fieldEnd[i] - fieldStart[i], CHARSET);
+    }
+
+    /**
+     * Gets All Fields.
+     *
+     * @return array of field values.
+     */
+    String[] getFields() {
+        String[] fields = new String[numFields];
+        for (int i = 0; i < numFields; i++) {
+            fields[i] = getField(i);
+        }
+        return fields;
+    }
+
+    /**
+     * Determines if the Specified Field is equal to the Specified ASCII String.
+     *
+     * @param i     Field Index.
+     * @param value ASCII String.
+     * @return true or false.
+     */
+    boolean fieldEquals(int i, String value) {
+        checkIndex(i);
+        int len = fieldEnd[i] - fieldStart[i];
+        if (len != value.length()) {
+            return false;
+        }
+        for (int j = 0; j < len; j++) {
+            if (buf[fieldStart[i] + j] != value.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses the Specified Field as a Signed Decimal Byte, as Byte.parseByte() does.
+     *
+     * @param i            Field Index.
+     * @param defaultValue Value returned if the field is not a valid byte.
+     * @return byte value.
+     */
+    byte parseByte(int i, byte defaultValue) {
+        checkIndex(i);
+        int pos = fieldStart[i];
+        int end = fieldEnd[i];
+        boolean negative = false;
+        if (pos < end && (buf[pos] == '-' || buf[pos] == '+')) {
+            negative = buf[pos] == '-';
+            pos++;
+        }
+        if (pos == end) {
+            return defaultValue;
+        }
+        int value = 0;
+        for (; pos < end; pos++) {
+            int digit = buf[pos] - '0';
+            if (digit < 0 || digit >= RADIX) {
+                return defaultValue;
+            }
+            value = value * RADIX + digit;
+            if (value > -Byte.MIN_VALUE) {
+                return defaultValue;
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Byte.MAX_VALUE) {
+            return defaultValue;
+        }
+        return (byte) value;
+    }
+
+    /**
+     * Determines if the Line Starts with the Specified ASCII Character.
+     *
+     * @param c ASCII Character.
+     * @return true or false.
+     */
+    boolean startsWith(char c) {
+        return lineEnd > lineStart && buf[lineStart] == c;
+    }
+
+    /**
+     * Determines if the Line is Empty, or consists of White Space Only.
+     *
+     * @return true or false.
+     */
+    boolean isBlank() {
+        for (int i = lineStart; i < lineEnd; i++) {
+            if ((buf[i] & 0xff) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addField(int start, int end) {
+        if (numFields == fieldStart.length) {
+            int[] newStart = new int[numFields * 2];
+            int[] newEnd = new int[numFields * 2];
+            System.arraycopy(fieldStart, 0, newStart, 0, numFields);
+            System.arraycopy(fieldEnd, 0, newEnd, 0, numFields);
+            fieldStart = newStart;
+            fieldEnd = newEnd;
+        }
+        fieldStart[numFields] = start;
+        fieldEnd[numFields] = end;
+        numFields++;
+    }
+
+    private void checkIndex(int i) {
+        if (i >= numFields) {
+            throw new ArrayIndexOutOfBoundsException(i);
+        }
+    }
+}
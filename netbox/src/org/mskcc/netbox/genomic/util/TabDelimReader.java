@@ -2,19 +2,20 @@ package org.mskcc.netbox.genomic.util;
 
 import org.mskcc.netbox.genomic.ByteProfileData;
 import org.mskcc.netbox.genomic.GeneticAlterationType;
-import org.mskcc.netbox.util.CommandLineUtil;
-import org.mskcc.netbox.util.FileUtil;
+import org.mskcc.netbox.util.GlobalConfig;
 import org.mskcc.netbox.util.ProgressMonitor;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 
 /**
  * Reads Tab Delimited Data into a ByteProfile Data Object.
+ * <p/>
+ * The file is read in a single pass, and parsed in parallel, in byte range chunks.  Rows are
+ * buffered per chunk, and assembled into the ByteProfile Data Object in file order.
  *
  * @author Ethan Cerami
  */
@@ -25,8 +26,9 @@ public final class TabDelimReader {
     private HashSet<String> caseIdSet;
     private File file;
     private boolean validateGenes;
-    private int numLines;
     private int startDataColumn;
+    private ArrayList<String> caseIdList;
+    private int[] caseColumn;
 
     /**
      * Constructor.
@@ -55,39 +57,44 @@ public final class TabDelimReader {
     }
 
     private void execute() throws IOException {
-        numLines = FileUtil.getNumLines(file);
-
-        ArrayList<String> geneList = getGeneList();
-        ArrayList<String> caseIdList = new ArrayList<String>();
+        caseIdList = new ArrayList<String>();
         caseIdList.addAll(caseIdSet);
 
-        byteProfile = new ByteProfileData(alterationType, geneList, caseIdList);
+        //  Read the threshold once, rather than from the shared GlobalConfig for each value
+        final double zScoreThreshold = GlobalConfig.getInstance().getMRNAZScoreThreshold();
 
-        pMonitor.setCurrentMessage("Reading data from:  " + file.getAbsolutePath()
-                + ", Pass #2");
+        pMonitor.setCurrentMessage("Reading data from:  " + file.getAbsolutePath());
+        ChunkedTabDelimParser<ArrayList<Row>> parser =
+                new ChunkedTabDelimParser<ArrayList<Row>>(file) {
+                    protected void parseHeader(String[] header) {
+                        setCaseColumns(header);
+                    }
 
-        pMonitor.setMaxValue(numLines);
-        FileReader reader = new FileReader(file);
-        BufferedReader buf = new BufferedReader(reader);
-        String line = buf.readLine();
+                    protected ArrayList<Row> createChunk() {
+                        return new ArrayList<Row>();
+                    }
 
-        //  We assume first line contains the header info with case IDs.
-        String[] caseIds = line.split("\t");
+                    protected void parseLine(TabDelimLine line, ArrayList<Row> chunk) {
+                        if (!line.startsWith('#') && !line.isBlank()) {
+                            chunk.add(parseRow(line, zScoreThreshold));
+                        }
+                    }
+                };
 
-        line = buf.readLine();
-        while (line != null) {
-            if (!line.startsWith("#")) {
-                String[] parts = line.split("\t");
-                String entrezGeneId = getEntrezGeneId(parts);
-                String id = ReaderUtil.getGeneId(entrezGeneId, validateGenes, pMonitor);
+        //  Look up genes in file order
+        ArrayList<String> geneList = new ArrayList<String>();
+        ArrayList<Row> rowList = new ArrayList<Row>();
+        for (ArrayList<Row> chunk : parser.parse()) {
+            for (Row row : chunk) {
+                String id = ReaderUtil.getGeneId(row.entrezGeneId, validateGenes, pMonitor);
                 if (id != null) {
-                    addRow(id, caseIds, parts);
+                    geneList.add(id);
+                    rowList.add(row);
                 }
             }
-            line = buf.readLine();
-            pMonitor.incrementCurValue();
-            CommandLineUtil.showProgress(pMonitor);
         }
+        byteProfile = new ByteProfileData(alterationType, geneList, caseIdList,
+                createMatrix(geneList, rowList));
     }
 
     /**
@@ -99,65 +106,95 @@ public final class TabDelimReader {
         return byteProfile;
     }
 
-    private String getEntrezGeneId(String[] parts) {
-        if (alterationType.equals(GeneticAlterationType.COPY_NUMBER_ALTERATION)) {
-            return parts[1];
-        } else {
-            return parts[0];
+    /**
+     * Maps each column of the header to the index of its case ID, or -1, if the column does
+     * not contain data, or the case is not selected.
+     */
+    private void setCaseColumns(String[] caseIds) {
+        HashMap<String, Integer> caseIndex = new HashMap<String, Integer>();
+        for (int i = 0; i < caseIdList.size(); i++) {
+            caseIndex.put(caseIdList.get(i), i);
+        }
+        caseColumn = new int[caseIds.length];
+        for (int i = 0; i < caseIds.length; i++) {
+            Integer index = caseIndex.get(caseIds[i]);
+            caseColumn[i] = (i >= startDataColumn && index != null) ? index : -1;
         }
     }
 
-    /**
-     * Conducts First Pass at Data File to Determine Gene List.
-     */
-    private ArrayList<String> getGeneList()
-            throws IOException {
-        pMonitor.setCurrentMessage("Reading data from:  " + file.getAbsolutePath()
-                + ", Pass #1");
-        pMonitor.setMaxValue(numLines);
+    private Row parseRow(TabDelimLine line, double zScoreThreshold) {
+        int geneColumn;
+        if (alterationType.equals(GeneticAlterationType.COPY_NUMBER_ALTERATION)) {
+            geneColumn = 1;
+        } else {
+            geneColumn = 0;
+        }
+        Row row = new Row();
+        row.entrezGeneId = line.getField(geneColumn);
+        row.values = new byte[caseIdList.size()];
+        row.numFields = Math.min(line.getNumFields(), caseColumn.length);
+        for (int i = startDataColumn; i < row.numFields; i++) {
 
-        ArrayList<String> geneList = new ArrayList<String>();
-        FileReader reader = new FileReader(file);
-        BufferedReader buf = new BufferedReader(reader);
-        buf.readLine();
-        String line = buf.readLine();
-        while (line != null) {
-            if (!line.startsWith("#")) {
-                String[] parts = line.split("\t");
-                String entrezGeneId = getEntrezGeneId(parts);
-                String id = ReaderUtil.getGeneId(entrezGeneId, validateGenes, pMonitor);
-                if (id != null) {
-                    geneList.add(id);
+            //  Only add values for select cases
+            int col = caseColumn[i];
+            if (col >= 0) {
+                byte byteValue;
+                if (alterationType.equals(GeneticAlterationType.MUTATION)) {
+                    byteValue = GenomicCall.getMutationCall(line, i);
+                } else if (alterationType.equals(GeneticAlterationType.MRNA_EXPRESSION)) {
+                    byteValue = GenomicCall.getExpressionCall(line.getField(i),
+                            zScoreThreshold);
+                } else {
+                    byteValue = line.parseByte(i, Byte.MIN_VALUE);
                 }
+                row.values[col] = byteValue;
             }
-            line = buf.readLine();
-            pMonitor.incrementCurValue();
-            CommandLineUtil.showProgress(pMonitor);
         }
-        return geneList;
+        return row;
     }
 
-    private void addRow(String geneId, String[] caseIds, String[] parts) {
-        for (int i = startDataColumn; i < parts.length; i++) {
-            String value = parts[i];
-            byte byteValue = Byte.MIN_VALUE;
-            if (alterationType.equals(GeneticAlterationType.MUTATION)) {
-                byteValue = GenomicCall.getMutationCall(value);
-            } else if (alterationType.equals(GeneticAlterationType.MRNA_EXPRESSION)) {
-                byteValue = GenomicCall.getExpressionCall(value);
+    /**
+     * Creates the Data Matrix.  Rows are used as is, unless a gene occurs more than once, in
+     * which case all of its rows are written, in file order, into the row of its last
+     * occurrence.
+     */
+    private byte[][] createMatrix(ArrayList<String> geneList, ArrayList<Row> rowList) {
+        HashMap<String, Integer> geneRowMap = new HashMap<String, Integer>();
+        for (int i = 0; i < geneList.size(); i++) {
+            geneRowMap.put(geneList.get(i), i);
+        }
+        byte[][] matrix = new byte[geneList.size()][];
+        for (int i = 0; i < geneList.size(); i++) {
+            int target = geneRowMap.get(geneList.get(i));
+            Row row = rowList.get(i);
+            if (target == i && matrix[target] == null) {
+                matrix[target] = row.values;
             } else {
-                try {
-                    byteValue = Byte.parseByte(value);
-                } catch (NumberFormatException e) {
-                    byteValue = Byte.MIN_VALUE;
+                if (matrix[target] == null) {
+                    matrix[target] = new byte[caseIdList.size()];
+                }
+                for (int j = startDataColumn; j < row.numFields; j++) {
+                    int col = caseColumn[j];
+                    if (col >= 0) {
+                        matrix[target][col] = row.values[col];
+                    }
                 }
             }
-
-            //  Only add values for select cases
-            String caseId = caseIds[i];
-            if (caseIdSet.contains(caseId)) {
-                byteProfile.setValue(geneId, caseId, byteValue);
+        }
+        for (int i = 0; i < matrix.length; i++) {
+            if (matrix[i] == null) {
+                matrix[i] = new byte[caseIdList.size()];
             }
         }
+        return matrix;
+    }
+
+    /**
+     * A Single Row of Data, with Values Ordered as the Case ID List.
+     */
+    private static class Row {
+        private String entrezGeneId;
+        private byte[] values;
+        private int numFields;
     }
 }
@@ -0,0 +1,263 @@
+package org.mskcc.netbox.graph;
+
+import org.mskcc.netbox.model.Interaction;
+
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Compact, Read-Only Representation of an Interaction Network.
+ * <p/>
+ * Genes are mapped to dense integer IDs, and the adjacency lists of all genes are stored
+ * back to back in one neighbor array (compressed sparse row format).  The neighbors of gene i
+ * are stored in positions getNeighborStart(i) ... getNeighborEnd(i) - 1, sorted by gene ID.
+ * Each undirected edge is therefore stored twice, once for each of its end points.
+ * <p/>
+ * Iterating through the neighbors of a gene is a linear scan of an int buffer, and does not
+ * require any per-edge objects.  The buffers are either backed by heap arrays (see
+ * CompactNetworkBuilder), or by a memory-mapped snapshot file (see CompactNetworkIO).
+ */
+public final class CompactNetwork {
+    private String[] geneSymbols;
+    private HashMap<String, Integer> geneIndexMap;
+    private IntBuffer offsets;
+    private IntBuffer neighbors;
+    private ShortBuffer edgeTypes;
+    private String[] interactionTypes;
+    private String source;
+
+    /**
+     * Constructor.  Use CompactNetworkBuilder or CompactNetworkIO to create new networks.
+     *
+     * @param symbols    Gene Symbols, indexed by gene ID.
+     * @param o          Offsets into the neighbor array, of length numGenes + 1.
+     * @param n          Neighbor array.
+     * @param types      Interaction type index for each entry in the neighbor array.
+     * @param typeNames  Interaction type names.
+     * @param s          Data source.
+     */
+    CompactNetwork(String[] symbols, IntBuffer o, IntBuffer n, ShortBuffer types,
+            String[] typeNames, String s) {
+        this.geneSymbols = symbols;
+        this.offsets = o;
+        this.neighbors = n;
+        this.edgeTypes = types;
+        this.interactionTypes = typeNames;
+        this.source = s;
+        this.geneIndexMap = new HashMap<String, Integer>(symbols.length * 2);
+        for (int i = 0; i < symbols.length; i++) {
+            geneIndexMap.put(symbols[i], i);
+        }
+    }
+
+    /**
+     * Gets the Number of Genes in the Network.
+     *
+     * @return number of genes.
+     */
+    public int getNumGenes() {
+        return geneSymbols.length;
+    }
+
+    /**
+     * Gets the Number of (Undirected) Edges in the Network.
+     *
+     * @return number of edges.
+     */
+    public int getNumEdges() {
+        return neighbors.limit() / 2;
+    }
+
+    /**
+     * Gets the ID of the Specified Gene.
+     *
+     * @param geneSymbol Gene Symbol.
+     * @return gene ID, or -1 if the gene is not in the network.
+     */
+    public int getGeneIndex(String geneSymbol) {
+        Integer index = geneIndexMap.get(geneSymbol);
+        if (index == null) {
+            return -1;
+        }
+        return index;
+    }
+
+    /**
+     * Gets the Symbol of the Specified Gene.
+     *
+     * @param geneIndex Gene ID.
+     * @return gene symbol.
+     */
+    public String getGeneSymbol(int geneIndex) {
+        return geneSymbols[geneIndex];
+    }
+
+    /**
+     * Gets the Degree of the Specified Gene.
+     *
+     * @param geneIndex Gene ID.
+     * @return degree.
+     */
+    public int getDegree(int geneIndex) {
+        return offsets.get(geneIndex + 1) - offsets.get(geneIndex);
+    }
+
+    /**
+     * Gets the Degree of the Specified Gene.
+     *
+     * @param geneSymbol Gene Symbol.
+     * @return degree, or 0 if the gene is not in the network.
+     */
+    public int getDegree(String geneSymbol) {
+        int index = getGeneIndex(geneSymbol);
+        if (index < 0) {
+            return 0;
+        }
+        return getDegree(index);
+    }
+
+    /**
+     * Gets the Position of the First Neighbor of the Specified Gene.
+     *
+     * @param geneIndex Gene ID.
+     * @return position in the neighbor array.
+     */
+    public int getNeighborStart(int geneIndex) {
+        return offsets.get(geneIndex);
+    }
+
+    /**
+     * Gets the Position Immediately After the Last Neighbor of the Specified Gene.
+     *
+     * @param geneIndex Gene ID.
+     * @return position in the neighbor array.
+     */
+    public int getNeighborEnd(int geneIndex) {
+        return offsets.get(geneIndex + 1);
+    }
+
+    /**
+     * Gets the Gene ID Stored at the Specified Position of the Neighbor Array.
+     *
+     * @param position Position in the neighbor array.
+     * @return gene ID.
+     */
+    public int getNeighbor(int position) {
+        return neighbors.get(position);
+    }
+
+    /**
+     * Gets the Interaction Type of the Edge Stored at the Specified Position.
+     *
+     * @param position Position in the neighbor array.
+     * @return interaction type.
+     */
+    public String getInteractionType(int position) {
+        return interactionTypes[edgeTypes.get(position) & 0xFFFF];
+    }
+
+    /**
+     * Determines if the two Specified Genes Interact.
+     *
+     * @param geneA Gene ID A.
+     * @param geneB Gene ID B.
+     * @return true or false.
+     */
+    public boolean isNeighbor(int geneA, int geneB) {
+        int low = offsets.get(geneA);
+        int high = offsets.get(geneA + 1) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = neighbors.get(mid);
+            if (value < geneB) {
+                low = mid + 1;
+            } else if (value > geneB) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the Data Source of this Network, e.g. DIP.
+     *
+     * @return data source.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Creates an Interaction Object for the Edge Stored at the Specified Position.
+     *
+     * @param geneIndex Gene ID of the first end point.
+     * @param position  Position of the second end point in the neighbor array.
+     * @return Interaction Object.
+     */
+    public Interaction createInteraction(int geneIndex, int position) {
+        Interaction interaction = new Interaction();
+        interaction.setGeneA(geneSymbols[geneIndex]);
+        interaction.setGeneB(geneSymbols[neighbors.get(position)]);
+        interaction.setInteractionType(getInteractionType(position));
+        interaction.setSource(source);
+        return interaction;
+    }
+
+    /**
+     * Creates Interaction Objects for all Edges in the Network.  Each edge is reported once.
+     *
+     * @return ArrayList of Interaction Objects.
+     */
+    public ArrayList<Interaction> createInteractionList() {
+        ArrayList<Interaction> interactionList = new ArrayList<Interaction>(getNumEdges());
+        for (int i = 0; i < geneSymbols.length; i++) {
+            int end = offsets.get(i + 1);
+            for (int j = offsets.get(i); j < end; j++) {
+                if (neighbors.get(j) > i) {
+                    interactionList.add(createInteraction(i, j));
+                }
+            }
+        }
+        return interactionList;
+    }
+
+    /**
+     * Gets the Interaction Type Names, indexed by type ID.
+     *
+     * @return array of interaction types.
+     */
+    String[] getInteractionTypes() {
+        return interactionTypes;
+    }
+
+    /**
+     * Gets the Offsets into the Neighbor Buffer.
+     *
+     * @return offsets buffer, of length numGenes + 1.
+     */
+    IntBuffer getOffsets() {
+        return offsets.duplicate();
+    }
+
+    /**
+     * Gets the Neighbor Buffer.
+     *
+     * @return neighbor buffer.
+     */
+    IntBuffer getNeighbors() {
+        return neighbors.duplicate();
+    }
+
+    /**
+     * Gets the Interaction Type ID Buffer.
+     *
+     * @return type buffer, parallel to the neighbor buffer.
+     */
+    ShortBuffer getEdgeTypes() {
+        return edgeTypes.duplicate();
+    }
+}
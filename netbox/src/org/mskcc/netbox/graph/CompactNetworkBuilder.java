@@ -0,0 +1,148 @@
+package org.mskcc.netbox.graph;
+
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Incrementally Builds a CompactNetwork.
+ * <p/>
+ * Interactions are accumulated in primitive arrays, so no per-interaction objects are created
+ * while a large network file is parsed.  Duplicate interactions (in either direction) and
+ * self-interactions are discarded.  If the same pair of genes is reported with several
+ * interaction types, the type which was first added to the builder is kept.
+ */
+public final class CompactNetworkBuilder {
+    private static final int MAX_GENES = 1 << 24;
+    private static final int MAX_TYPES = 1 << 16;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private HashMap<String, Integer> geneIndexMap = new HashMap<String, Integer>();
+    private ArrayList<String> geneSymbols = new ArrayList<String>();
+    private HashMap<String, Integer> typeIndexMap = new HashMap<String, Integer>();
+    private ArrayList<String> interactionTypes = new ArrayList<String>();
+    private long[] edgeKeys = new long[INITIAL_CAPACITY];
+    private int numEdgeKeys = 0;
+    private String source;
+
+    /**
+     * Constructor.
+     *
+     * @param s Data source, e.g. DIP.
+     */
+    public CompactNetworkBuilder(String s) {
+        this.source = s;
+    }
+
+    /**
+     * Registers a Gene with the Network.  Genes without any interactions are retained.
+     *
+     * @param geneSymbol Gene Symbol.
+     * @return gene ID.
+     */
+    public int addGene(String geneSymbol) {
+        Integer index = geneIndexMap.get(geneSymbol);
+        if (index == null) {
+            if (geneSymbols.size() == MAX_GENES) {
+                throw new IllegalStateException("Network may not exceed:  "
+                        + MAX_GENES + " genes.");
+            }
+            index = geneSymbols.size();
+            geneIndexMap.put(geneSymbol, index);
+            geneSymbols.add(geneSymbol);
+        }
+        return index;
+    }
+
+    /**
+     * Adds a new Interaction to the Network.
+     *
+     * @param geneA           Gene Symbol A.
+     * @param interactionType Interaction Type.
+     * @param geneB           Gene Symbol B.
+     */
+    public void addInteraction(String geneA, String interactionType, String geneB) {
+        int a = addGene(geneA);
+        int b = addGene(geneB);
+        if (a == b) {
+            return;
+        }
+        Integer type = typeIndexMap.get(interactionType);
+        if (type == null) {
+            if (interactionTypes.size() == MAX_TYPES) {
+                throw new IllegalStateException("Network may not exceed:  "
+                        + MAX_TYPES + " interaction types.");
+            }
+            type = interactionTypes.size();
+            typeIndexMap.put(interactionType, type);
+            interactionTypes.add(interactionType);
+        }
+        if (numEdgeKeys == edgeKeys.length) {
+            edgeKeys = Arrays.copyOf(edgeKeys, edgeKeys.length * 2);
+        }
+
+        //  Pack (low gene ID, high gene ID, type) into a single sortable key
+        long low = Math.min(a, b);
+        long high = Math.max(a, b);
+        edgeKeys[numEdgeKeys++] = (low << 40) | (high << 16) | type;
+    }
+
+    /**
+     * Builds the CompactNetwork.
+     *
+     * @return CompactNetwork Object.
+     */
+    public CompactNetwork build() {
+        int numGenes = geneSymbols.size();
+        long[] keys = Arrays.copyOf(edgeKeys, numEdgeKeys);
+        Arrays.sort(keys);
+
+        //  Remove duplicate gene pairs;  keys are sorted by gene pair, then by type
+        int numUnique = 0;
+        long lastPair = -1;
+        for (int i = 0; i < keys.length; i++) {
+            long pair = keys[i] >>> 16;
+            if (pair != lastPair) {
+                keys[numUnique++] = keys[i];
+                lastPair = pair;
+            }
+        }
+
+        int[] offsets = new int[numGenes + 1];
+        for (int i = 0; i < numUnique; i++) {
+            offsets[getLow(keys[i]) + 1]++;
+            offsets[getHigh(keys[i]) + 1]++;
+        }
+        for (int i = 0; i < numGenes; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        //  Keys are sorted by low gene ID, so each adjacency list is filled in ascending order
+        int[] cursor = Arrays.copyOf(offsets, numGenes);
+        int[] neighbors = new int[numUnique * 2];
+        short[] types = new short[numUnique * 2];
+        for (int i = 0; i < numUnique; i++) {
+            int low = getLow(keys[i]);
+            int high = getHigh(keys[i]);
+            short type = (short) (keys[i] & 0xFFFF);
+            neighbors[cursor[low]] = high;
+            types[cursor[low]++] = type;
+            neighbors[cursor[high]] = low;
+            types[cursor[high]++] = type;
+        }
+
+        return new CompactNetwork(geneSymbols.toArray(new String[numGenes]),
+                IntBuffer.wrap(offsets), IntBuffer.wrap(neighbors), ShortBuffer.wrap(types),
+                interactionTypes.toArray(new String[interactionTypes.size()]), source);
+    }
+
+    private static int getLow(long key) {
+        return (int) (key >>> 40);
+    }
+
+    private static int getHigh(long key) {
+        return (int) ((key >>> 16) & 0xFFFFFF);
+    }
+}
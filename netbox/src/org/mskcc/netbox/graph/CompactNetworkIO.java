@@ -0,0 +1,254 @@
+package org.mskcc.netbox.graph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads and Writes CompactNetworks.
+ * <p/>
+ * Networks can be read from SIF files, or from binary snapshots.  A snapshot stores the length
+ * and modification time of the SIF file it was compiled from, the gene and edge counts, the
+ * gene dictionary and the CSR adjacency buffers.  Snapshots are memory-mapped when read, so
+ * the adjacency buffers are served directly from the page cache and there is no parse step
+ * beyond decoding the gene dictionary.
+ * <p/>
+ * Snapshot layout (big-endian):  magic, version, SIF file length (long), SIF file modification
+ * time (long), number of genes, number of edges, number of interaction types, data source,
+ * interaction types, gene symbols (each string is an int length followed by UTF-8 bytes),
+ * padding to a four byte boundary, offsets (int[numGenes + 1]), neighbors (int[2 * numEdges])
+ * and interaction type IDs (short[2 * numEdges]).
+ */
+public final class CompactNetworkIO {
+    /**
+     * Default file suffix for network snapshots.
+     */
+    public static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+    private static final int MAGIC = 0x4E424F58;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 36;
+    private static final String ENCODING = "UTF-8";
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private CompactNetworkIO() {
+    }
+
+    /**
+     * Reads a Network in SIF Format.  Each line must contain three tab-delimited fields:
+     * gene A, interaction type and gene B.  All other lines are ignored.
+     *
+     * @param sifFile SIF File.
+     * @param source  Data source, e.g. DIP.
+     * @return CompactNetwork Object.
+     * @throws IOException IO Error.
+     */
+    public static CompactNetwork readSif(File sifFile, String source) throws IOException {
+        CompactNetworkBuilder builder = new CompactNetworkBuilder(source);
+        BufferedReader reader = new BufferedReader(new FileReader(sifFile));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.trim().split("\t");
+                if (parts.length == 3) {
+                    builder.addInteraction(parts[0], parts[1], parts[2]);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return builder.build();
+    }
+
+    /**
+     * Gets the Default Snapshot File for the Specified SIF File.
+     *
+     * @param sifFile SIF File.
+     * @return snapshot file.
+     */
+    public static File getSnapshotFile(File sifFile) {
+        return new File(sifFile.getPath() + SNAPSHOT_SUFFIX);
+    }
+
+    /**
+     * Determines if the snapshot file exists, has the current version, and was compiled from
+     * a SIF file of the same length and modification time as the specified SIF file.  Both
+     * are compared, so that a SIF file replaced by an older copy is also detected.  If the SIF
+     * file does not exist, any snapshot of the current version is considered current.
+     *
+     * @param sifFile      SIF File.
+     * @param snapshotFile Snapshot File.
+     * @return true or false.
+     */
+    public static boolean isSnapshotCurrent(File sifFile, File snapshotFile) {
+        if (!snapshotFile.isFile()) {
+            return false;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(snapshotFile)));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    return false;
+                }
+                long sifLength = in.readLong();
+                long sifLastModified = in.readLong();
+                return !sifFile.exists() || (sifLength == sifFile.length()
+                        && sifLastModified == sifFile.lastModified());
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes a Binary Snapshot of the Network.
+     *
+     * @param network      CompactNetwork Object.
+     * @param sifFile      SIF File the network was read from;  its length and modification
+     *                     time are recorded, see isSnapshotCurrent().
+     * @param snapshotFile Snapshot File.
+     * @throws IOException IO Error.
+     */
+    public static void writeSnapshot(CompactNetwork network, File sifFile, File snapshotFile)
+            throws IOException {
+        String[] interactionTypes = network.getInteractionTypes();
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(snapshotFile)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(sifFile.length());
+            out.writeLong(sifFile.lastModified());
+            out.writeInt(network.getNumGenes());
+            out.writeInt(network.getNumEdges());
+            out.writeInt(interactionTypes.length);
+            writeString(out, network.getSource());
+            for (String interactionType : interactionTypes) {
+                writeString(out, interactionType);
+            }
+            for (int i = 0; i < network.getNumGenes(); i++) {
+                writeString(out, network.getGeneSymbol(i));
+            }
+            while (out.size() % 4 != 0) {
+                out.writeByte(0);
+            }
+            IntBuffer offsets = network.getOffsets();
+            while (offsets.hasRemaining()) {
+                out.writeInt(offsets.get());
+            }
+            IntBuffer neighbors = network.getNeighbors();
+            while (neighbors.hasRemaining()) {
+                out.writeInt(neighbors.get());
+            }
+            ShortBuffer edgeTypes = network.getEdgeTypes();
+            while (edgeTypes.hasRemaining()) {
+                out.writeShort(edgeTypes.get());
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads a Binary Snapshot of the Network.  The adjacency buffers of the returned network
+     * are memory-mapped views of the snapshot file.
+     *
+     * @param snapshotFile Snapshot File.
+     * @return CompactNetwork Object.
+     * @throws IOException IO Error, or invalid snapshot file.
+     */
+    public static CompactNetwork readSnapshot(File snapshotFile) throws IOException {
+        MappedByteBuffer buffer;
+        RandomAccessFile raf = new RandomAccessFile(snapshotFile, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            raf.close();
+        }
+
+        checkRemaining(buffer, HEADER_SIZE, snapshotFile);
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a network snapshot:  " + snapshotFile);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported network snapshot version:  " + version
+                    + ".  Please re-compile the network.");
+        }
+
+        //  Skip the SIF file length and modification time, see isSnapshotCurrent()
+        buffer.getLong();
+        buffer.getLong();
+        int numGenes = buffer.getInt();
+        int numEdges = buffer.getInt();
+        int numTypes = buffer.getInt();
+        String source = readString(buffer, snapshotFile);
+        String[] interactionTypes = new String[numTypes];
+        for (int i = 0; i < numTypes; i++) {
+            interactionTypes[i] = readString(buffer, snapshotFile);
+        }
+        String[] geneSymbols = new String[numGenes];
+        for (int i = 0; i < numGenes; i++) {
+            geneSymbols[i] = readString(buffer, snapshotFile);
+        }
+        buffer.position((buffer.position() + 3) & ~3);
+
+        int numNeighbors = numEdges * 2;
+        checkRemaining(buffer, (numGenes + 1) * 4L + numNeighbors * 6L, snapshotFile);
+        IntBuffer offsets = sliceInts(buffer, numGenes + 1);
+        IntBuffer neighbors = sliceInts(buffer, numNeighbors);
+        ByteBuffer slice = buffer.slice();
+        slice.limit(numNeighbors * 2);
+        ShortBuffer edgeTypes = slice.asShortBuffer();
+        return new CompactNetwork(geneSymbols, offsets, neighbors, edgeTypes, interactionTypes,
+                source);
+    }
+
+    private static IntBuffer sliceInts(ByteBuffer buffer, int length) {
+        ByteBuffer slice = buffer.slice();
+        slice.limit(length * 4);
+        buffer.position(buffer.position() + length * 4);
+        return slice.asIntBuffer();
+    }
+
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        byte[] bytes = str.getBytes(ENCODING);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer, File snapshotFile) throws IOException {
+        checkRemaining(buffer, 4, snapshotFile);
+        int length = buffer.getInt();
+        checkRemaining(buffer, length, snapshotFile);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, ENCODING);
+    }
+
+    private static void checkRemaining(ByteBuffer buffer, long numBytes, File snapshotFile)
+            throws IOException {
+        if (numBytes < 0 || buffer.remaining() < numBytes) {
+            throw new IOException("Network snapshot is truncated:  " + snapshotFile);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package org.mskcc.netbox.graph;
+
+import org.mskcc.netbox.util.ParallelUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Calculates Edge Betweenness via Brandes' Algorithm, using Multiple Threads.
+ * <p/>
+ * Brandes' algorithm decomposes over source vertices:  the betweenness of an edge is the
+ * sum of its dependencies over all source vertices.  Source vertices are therefore split
+ * across worker threads.  Each worker owns its own scratch arrays and its own score
+ * accumulator, and the accumulators are summed into a single double[], indexed by edge ID,
+ * once all workers are done.  Scores count each shortest path once in each direction.
+ * <p/>
+ * A single EdgeBetweenness object must not be used by more than one thread at a time.
+ */
+public final class EdgeBetweenness {
+    /**
+     * Minimum number of source vertices per worker.  Smaller jobs are run in the calling
+     * thread, as they are not worth the hand-off.
+     */
+    private static final int MIN_SOURCES_PER_TASK = 64;
+    private IndexedGraph graph;
+    private ExecutorService executor;
+    private BrandesKernel[] kernels;
+
+    /**
+     * Constructor, for single-threaded use.
+     *
+     * @param g IndexedGraph Object.
+     */
+    public EdgeBetweenness(IndexedGraph g) {
+        this(g, null, 1);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param g          IndexedGraph Object.
+     * @param e          ExecutorService used to run the workers;  the caller remains responsible
+     *                   for shutting it down.  May be null, if numThreads is 1.
+     * @param numThreads Maximum number of workers per calculation.
+     */
+    public EdgeBetweenness(IndexedGraph g, ExecutorService e, int numThreads) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1.");
+        } else if (numThreads > 1 && e == null) {
+            throw new IllegalArgumentException("Multiple threads require an executor.");
+        }
+        this.graph = g;
+        this.executor = e;
+        kernels = new BrandesKernel[numThreads];
+    }
+
+    /**
+     * Calculates the Betweenness of all Edges in the Specified Graph.
+     *
+     * @param g          IndexedGraph Object.
+     * @param numThreads Number of threads.
+     * @return betweenness scores, indexed by edge ID.
+     */
+    public static double[] calculate(IndexedGraph g, int numThreads) {
+        ExecutorService executor = null;
+        if (numThreads > 1) {
+            executor = ParallelUtil.createExecutor(numThreads);
+        }
+        try {
+            return new EdgeBetweenness(g, executor, numThreads).calculate();
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Calculates the Betweenness of all Edges.
+     *
+     * @return betweenness scores, indexed by edge ID.
+     */
+    public double[] calculate() {
+        int[] sources = new int[graph.getNumVertices()];
+        for (int v = 0; v < sources.length; v++) {
+            sources[v] = v;
+        }
+        double[] scores = new double[graph.getNumEdges()];
+        accumulate(sources, 0, sources.length, null, scores);
+        return scores;
+    }
+
+    /**
+     * Adds the Dependencies of the Specified Source Vertices to the Specified Scores.
+     * Source vertices must make up complete connected components, so that every edge on
+     * their shortest paths is incident to one of the sources.
+     *
+     * @param sources Source vertex IDs.
+     * @param from    Index of the first source vertex.
+     * @param to      Index after the last source vertex.
+     * @param removed Edges to ignore, indexed by edge ID, or null.
+     * @param scores  Scores, indexed by edge ID.
+     */
+    public void accumulate(final int[] sources, final int from, final int to,
+            final boolean[] removed, double[] scores) {
+        int numTasks = Math.min(kernels.length, (to - from) / MIN_SOURCES_PER_TASK);
+        if (numTasks <= 1) {
+            getKernel(0).run(sources, from, to, 1, removed, scores);
+            return;
+        }
+
+        //  Split sources across workers;  each worker takes every numTasks-th source
+        final int step = numTasks;
+        ArrayList<Future<Object>> futureList = new ArrayList<Future<Object>>();
+        for (int i = 0; i < numTasks; i++) {
+            final BrandesKernel kernel = getKernel(i);
+            final int start = from + i;
+            futureList.add(executor.submit(new Runnable() {
+                public void run() {
+                    kernel.run(sources, start, to, step, removed, kernel.getScores());
+                }
+            }, null));
+        }
+        try {
+            for (Future<Object> future : futureList) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            for (Future<Object> future : futureList) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while calculating betweenness.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        }
+
+        //  Reduce the per-worker scores, and reset them for the next calculation
+        for (int i = from; i < to; i++) {
+            int v = sources[i];
+            int end = graph.getNeighborEnd(v);
+            for (int pos = graph.getNeighborStart(v); pos < end; pos++) {
+                int e = graph.getIncidentEdge(pos);
+                for (int k = 0; k < numTasks; k++) {
+                    double[] partial = kernels[k].getScores();
+                    scores[e] += partial[e];
+                    partial[e] = 0.0;
+                }
+            }
+        }
+    }
+
+    private BrandesKernel getKernel(int i) {
+        if (kernels[i] == null) {
+            kernels[i] = new BrandesKernel(graph);
+        }
+        return kernels[i];
+    }
+}
+
+/**
+ * Brandes' Algorithm for a Subset of Source Vertices, with its own Scratch Arrays.
+ */
+class BrandesKernel {
+    private IndexedGraph graph;
+    private int[] distance;
+    private double[] numPaths;
+    private double[] dependency;
+    private int[] queue;
+    private double[] scores;
+
+    /**
+     * Constructor.
+     *
+     * @param g IndexedGraph Object.
+     */
+    BrandesKernel(IndexedGraph g) {
+        this.graph = g;
+        int numVertices = graph.getNumVertices();
+        distance = new int[numVertices];
+        numPaths = new double[numVertices];
+        dependency = new double[numVertices];
+        queue = new int[numVertices];
+        Arrays.fill(distance, -1);
+    }
+
+    /**
+     * Gets the Private Score Accumulator of this Kernel, allocated on first use.
+     *
+     * @return scores, indexed by edge ID.
+     */
+    double[] getScores() {
+        if (scores == null) {
+            scores = new double[graph.getNumEdges()];
+        }
+        return scores;
+    }
+
+    /**
+     * Adds the dependencies of sources[from], sources[from + step], ... to the scores.
+     *
+     * @param sources Source vertex IDs.
+     * @param from    Index of the first source vertex.
+     * @param to      Index after the last source vertex.
+     * @param step    Step between source vertices.
+     * @param removed Edges to ignore, or null.
+     * @param target  Scores, indexed by edge ID.
+     */
+    void run(int[] sources, int from, int to, int step, boolean[] removed, double[] target) {
+        for (int i = from; i < to; i += step) {
+            int s = sources[i];
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = s;
+            distance[s] = 0;
+            numPaths[s] = 1.0;
+            while (head < tail) {
+                int v = queue[head++];
+                int end = graph.getNeighborEnd(v);
+                for (int pos = graph.getNeighborStart(v); pos < end; pos++) {
+                    if (removed != null && removed[graph.getIncidentEdge(pos)]) {
+                        continue;
+                    }
+                    int w = graph.getNeighbor(pos);
+                    if (distance[w] < 0) {
+                        distance[w] = distance[v] + 1;
+                        queue[tail++] = w;
+                    }
+                    if (distance[w] == distance[v] + 1) {
+                        numPaths[w] += numPaths[v];
+                    }
+                }
+            }
+
+            //  Back-propagate dependencies, in order of non-increasing distance
+            for (int j = tail - 1; j >= 0; j--) {
+                int w = queue[j];
+                int end = graph.getNeighborEnd(w);
+                for (int pos = graph.getNeighborStart(w); pos < end; pos++) {
+                    int e = graph.getIncidentEdge(pos);
+                    int v = graph.getNeighbor(pos);
+                    if ((removed == null || !removed[e]) && distance[v] == distance[w] - 1) {
+                        double c = numPaths[v] / numPaths[w] * (1.0 + dependency[w]);
+                        target[e] += c;
+                        dependency[v] += c;
+                    }
+                }
+            }
+            for (int j = 0; j < tail; j++) {
+                int v = queue[j];
+                distance[v] = -1;
+                numPaths[v] = 0.0;
+                dependency[v] = 0.0;
+            }
+        }
+    }
+}
@@ -3,18 +3,35 @@ package org.mskcc.netbox.graph;
 import edu.uci.ics.jung.graph.Edge;
 import edu.uci.ics.jung.graph.Graph;
 import edu.uci.ics.jung.graph.Vertex;
+import edu.uci.ics.jung.graph.decorators.StringLabeller;
+import edu.uci.ics.jung.graph.impl.SparseVertex;
 import edu.uci.ics.jung.graph.impl.UndirectedSparseEdge;
+import edu.uci.ics.jung.graph.impl.UndirectedSparseGraph;
+import edu.uci.ics.jung.utils.Pair;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Random;
-import java.util.Set;
 
 /**
  * Generates Locally Permuted Graphs.
+ * <p/>
+ * Each permutation performs as many successful edge swaps as there are edges:  two random
+ * edges A <--> B and C <--> D, the latter in random orientation, are rewired to A <--> D and
+ * C <--> B, provided that all four vertices are distinct, and that neither new edge already
+ * exists.  Vertex degrees are therefore preserved.
+ * <p/>
+ * Swaps are performed on int arrays, with vertices numbered in the order of their labels, and
+ * edges sorted by their endpoints.  The random graphs therefore only depend on the wiring of
+ * the original graph and on the random seed, and not on the iteration order of JUNG sets.
  */
 public final class GraphPermute {
-    private Graph graph;
+    private String[] labels;
+    private int[] edgeSource;
+    private int[] edgeTarget;
+    private HashSet<Long> edgeKeys;
     private Random randomGenerator;
 
     /**
@@ -23,83 +40,154 @@ public final class GraphPermute {
      * @param g Graph Object.
      */
     public GraphPermute(Graph g) {
-        randomGenerator = new Random(10);
-        this.graph = (Graph) g.copy();
+        this(g, 10);
     }
 
     /**
-     * Gets the Next Random Graph.
+     * Constructor.
      *
-     * @return Random Graph.
+     * @param g    Graph Object.
+     * @param seed Random Seed.
      */
-    public Graph next() {
-        //  Copy all Vertices
-        Set<Edge> edgeSet = graph.getEdges();
-        ArrayList<Edge> edgeList = new ArrayList<Edge>();
-        edgeList.addAll(edgeSet);
-
-        int i = 0;
-        while (i < edgeSet.size()) {
-
-            //  Randomly Pick two Edges
-            int randomIndex0 = randomGenerator.nextInt(edgeList.size());
-            int randomIndex1 = randomGenerator.nextInt(edgeList.size());
-
-            // Edge 0:  A <--> B
-            Edge edge0 = edgeList.get(randomIndex0);
+    public GraphPermute(Graph g, long seed) {
+        randomGenerator = new Random(seed);
+
+        //  Number vertices in the order of their labels
+        StringLabeller labeller = StringLabeller.getLabeller(g);
+        labels = new String[g.numVertices()];
+        int k = 0;
+        for (Iterator iterator = g.getVertices().iterator(); iterator.hasNext();) {
+            labels[k++] = GraphUtil.getVertexLabel(labeller, (Vertex) iterator.next());
+        }
+        Arrays.sort(labels);
+        HashMap<String, Integer> vertexIndex = new HashMap<String, Integer>();
+        for (int i = 0; i < labels.length; i++) {
+            vertexIndex.put(labels[i], i);
+        }
 
-            // Edge 1:  C <--> D
-            Edge edge1 = edgeList.get(randomIndex1);
+        //  Sort edges by their endpoints, lowest vertex ID first
+        long[] keys = new long[g.numEdges()];
+        k = 0;
+        for (Iterator iterator = g.getEdges().iterator(); iterator.hasNext();) {
+            Pair endpoints = ((Edge) iterator.next()).getEndpoints();
+            int a = vertexIndex.get(GraphUtil.getVertexLabel(labeller,
+                    (Vertex) endpoints.getFirst()));
+            int b = vertexIndex.get(GraphUtil.getVertexLabel(labeller,
+                    (Vertex) endpoints.getSecond()));
+            keys[k++] = createKey(a, b);
+        }
+        Arrays.sort(keys);
+        edgeSource = new int[keys.length];
+        edgeTarget = new int[keys.length];
+        edgeKeys = new HashSet<Long>();
+        for (int e = 0; e < keys.length; e++) {
+            edgeSource[e] = (int) (keys[e] / labels.length);
+            edgeTarget[e] = (int) (keys[e] % labels.length);
+            edgeKeys.add(keys[e]);
+        }
+    }
 
-            if (swapWillSucceed(edge0, edge1)) {
-                Vertex vertexA = (Vertex) edge0.getEndpoints().getFirst();
-                Vertex vertexB = (Vertex) edge0.getEndpoints().getSecond();
-                Vertex vertexC = (Vertex) edge1.getEndpoints().getFirst();
-                Vertex vertexD = (Vertex) edge1.getEndpoints().getSecond();
+    /**
+     * Constructor.  Starts from the current wiring of an existing GraphPermute object, so
+     * that the original graph is only indexed once for many random streams.
+     *
+     * @param template GraphPermute Object.
+     * @param seed     Random Seed.
+     */
+    public GraphPermute(GraphPermute template, long seed) {
+        randomGenerator = new Random(seed);
+        labels = template.labels;
+        edgeSource = template.edgeSource.clone();
+        edgeTarget = template.edgeTarget.clone();
+        edgeKeys = new HashSet<Long>(template.edgeKeys);
+    }
 
-                //  Rewire:  A <--> D
-                Edge newEdge0 = graph.addEdge(new UndirectedSparseEdge(vertexA, vertexD));
-                edgeList.add(newEdge0);
+    /**
+     * Gets the Next Random Graph.
+     *
+     * @return Random Graph, with the same vertex labels as the original graph.
+     * @throws GraphCreationException Graph Creation Error.
+     */
+    public Graph next() throws GraphCreationException {
+        permute();
+        synchronized (GraphUtil.getJungLock()) {
+            Graph g = new UndirectedSparseGraph();
+            StringLabeller labeller = StringLabeller.getLabeller(g);
+            Vertex[] vertices = new Vertex[labels.length];
+            try {
+                for (int i = 0; i < labels.length; i++) {
+                    vertices[i] = g.addVertex(new SparseVertex());
+                    labeller.setLabel(vertices[i], labels[i]);
+                }
+            } catch (StringLabeller.UniqueLabelException e) {
+                throw new GraphCreationException(e);
+            }
+            for (int e = 0; e < edgeSource.length; e++) {
+                g.addEdge(new UndirectedSparseEdge(vertices[edgeSource[e]],
+                        vertices[edgeTarget[e]]));
+            }
+            return g;
+        }
+    }
 
-                //  Rewire:  C <--> B
-                Edge newEdge1 = graph.addEdge(new UndirectedSparseEdge(vertexC, vertexB));
-                edgeList.add(newEdge1);
+    /**
+     * Gets the Next Random Graph, as an IndexedGraph.  Vertex IDs follow the order of the
+     * original vertex labels.  No JUNG objects are created, so this may be called by several
+     * threads at once, on different GraphPermute objects.
+     *
+     * @return Random IndexedGraph, without Vertex or Edge objects.
+     */
+    public IndexedGraph nextIndexedGraph() {
+        permute();
+        return new IndexedGraph(labels.length, edgeSource.clone(), edgeTarget.clone());
+    }
 
-                //  Remove the old edges
-                graph.removeEdge(edge0);
-                edgeList.remove(edge0);
+    private void permute() {
+        int i = 0;
+        while (i < edgeSource.length) {
+
+            //  Randomly Pick two Edges:  A <--> B, and C <--> D
+            int edge0 = randomGenerator.nextInt(edgeSource.length);
+            int edge1 = randomGenerator.nextInt(edgeSource.length);
+            int vertexA = edgeSource[edge0];
+            int vertexB = edgeTarget[edge0];
+            int vertexC = edgeSource[edge1];
+            int vertexD = edgeTarget[edge1];
+
+            //  Edges are stored with a fixed orientation, so pick the orientation of the
+            //  second edge at random;  otherwise, e.g. bipartite graphs could not be rewired
+            if (randomGenerator.nextBoolean()) {
+                vertexC = edgeTarget[edge1];
+                vertexD = edgeSource[edge1];
+            }
 
-                graph.removeEdge(edge1);
-                edgeList.remove(edge1);
+            if (swapWillSucceed(vertexA, vertexB, vertexC, vertexD)) {
 
+                //  Rewire:  A <--> D, and C <--> B
+                edgeKeys.remove(createKey(vertexA, vertexB));
+                edgeKeys.remove(createKey(vertexC, vertexD));
+                edgeKeys.add(createKey(vertexA, vertexD));
+                edgeKeys.add(createKey(vertexC, vertexB));
+                edgeTarget[edge0] = vertexD;
+                edgeSource[edge1] = vertexC;
+                edgeTarget[edge1] = vertexB;
                 i++;
             }
         }
-
-        return graph;
     }
 
-    private boolean swapWillSucceed(Edge edge0, Edge edge1) {
-        Vertex vertexA = (Vertex) edge0.getEndpoints().getFirst();
-        Vertex vertexB = (Vertex) edge0.getEndpoints().getSecond();
-        Vertex vertexC = (Vertex) edge1.getEndpoints().getFirst();
-        Vertex vertexD = (Vertex) edge1.getEndpoints().getSecond();
-
-        HashSet<Vertex> vertexSet = new HashSet<Vertex>();
-        vertexSet.add(vertexA);
-        vertexSet.add(vertexB);
-        vertexSet.add(vertexC);
-        vertexSet.add(vertexD);
-
-        if (vertexSet.size() == 4) {
-            //  If the edges that we want to create already exist, the swap will not succeed.
-            if (vertexA.isNeighborOf(vertexD) || vertexC.isNeighborOf(vertexB)) {
-                return false;
-            } else {
-                return true;
-            }
-        } else {
+    private boolean swapWillSucceed(int vertexA, int vertexB, int vertexC, int vertexD) {
+        if (vertexA == vertexB || vertexA == vertexC || vertexA == vertexD
+                || vertexB == vertexC || vertexB == vertexD || vertexC == vertexD) {
             return false;
         }
+
+        //  If the edges that we want to create already exist, the swap will not succeed.
+        return !edgeKeys.contains(createKey(vertexA, vertexD))
+                && !edgeKeys.contains(createKey(vertexC, vertexB));
+    }
+
+    private long createKey(int a, int b) {
+        return (long) Math.min(a, b) * labels.length + Math.max(a, b);
     }
 }
@@ -9,6 +9,7 @@ import edu.uci.ics.jung.graph.decorators.StringLabeller;
  * @author Ethan Cerami.
  */
 public final class GraphUtil {
+    private static final Object JUNG_LOCK = new Object();
 
     /**
      * Private constructor, prevents instantiation.
@@ -16,6 +17,18 @@ public final class GraphUtil {
     private GraphUtil() {
     }
 
+    /**
+     * Gets the Lock which must be held while creating JUNG vertices, edges or graphs, e.g. via
+     * Graph.copy() or ClusterSet.getClusterAsNewSubGraph().  JUNG assigns element IDs from
+     * unsynchronized static counters, so elements created in several threads at once, e.g. by
+     * parallel random trials or concurrent batch configurations, may get duplicate IDs.
+     *
+     * @return lock object.
+     */
+    public static Object getJungLock() {
+        return JUNG_LOCK;
+    }
+
     /**
      * Gets the Label of the Specified Vertex.
      *
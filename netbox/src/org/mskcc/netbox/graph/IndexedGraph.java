@@ -0,0 +1,214 @@
+package org.mskcc.netbox.graph;
+
+import edu.uci.ics.jung.graph.Edge;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.Vertex;
+import edu.uci.ics.jung.utils.Pair;
+
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * Int-Indexed, Read-Only View of an Undirected JUNG Graph.
+ * <p/>
+ * Vertices are numbered 0..n-1, and edges are numbered 0..m-1, in the iteration order of the
+ * JUNG graph.  Adjacency is stored in compressed sparse row (CSR) form:  the neighbors of
+ * vertex v are stored at positions getNeighborStart(v) to getNeighborEnd(v) - 1, together
+ * with the ID of the connecting edge.  This lets graph algorithms run on primitive arrays,
+ * while results can still be mapped back to the original Vertex and Edge objects.
+ */
+public final class IndexedGraph {
+    private Vertex[] vertices;
+    private Edge[] edges;
+    private int[] edgeSource;
+    private int[] edgeTarget;
+    private int[] offsets;
+    private int[] neighbors;
+    private int[] incidentEdges;
+
+    /**
+     * Constructor.
+     *
+     * @param g Graph Object.
+     */
+    public IndexedGraph(Graph g) {
+        int numVertices = g.numVertices();
+        int numEdges = g.numEdges();
+        vertices = new Vertex[numVertices];
+        edges = new Edge[numEdges];
+        edgeSource = new int[numEdges];
+        edgeTarget = new int[numEdges];
+
+        HashMap<Vertex, Integer> vertexIndex = new HashMap<Vertex, Integer>();
+        Iterator vertexIterator = g.getVertices().iterator();
+        for (int i = 0; i < numVertices; i++) {
+            vertices[i] = (Vertex) vertexIterator.next();
+            vertexIndex.put(vertices[i], i);
+        }
+        Iterator edgeIterator = g.getEdges().iterator();
+        for (int e = 0; e < numEdges; e++) {
+            edges[e] = (Edge) edgeIterator.next();
+            Pair endpoints = edges[e].getEndpoints();
+            edgeSource[e] = vertexIndex.get((Vertex) endpoints.getFirst());
+            edgeTarget[e] = vertexIndex.get((Vertex) endpoints.getSecond());
+        }
+        createAdjacency();
+    }
+
+    /**
+     * Constructor, for a Graph without JUNG Objects;  getVertex() and getEdge() return null.
+     *
+     * @param numVertices Number of Vertices.
+     * @param source      First Endpoint of each Edge.
+     * @param target      Second Endpoint of each Edge.
+     */
+    public IndexedGraph(int numVertices, int[] source, int[] target) {
+        vertices = new Vertex[numVertices];
+        edges = new Edge[source.length];
+        edgeSource = source;
+        edgeTarget = target;
+        createAdjacency();
+    }
+
+    private void createAdjacency() {
+        int numVertices = vertices.length;
+        int numEdges = edges.length;
+        offsets = new int[numVertices + 1];
+
+        //  Count degrees, self-loops are stored once
+        int[] degree = new int[numVertices];
+        for (int e = 0; e < numEdges; e++) {
+            degree[edgeSource[e]]++;
+            if (edgeTarget[e] != edgeSource[e]) {
+                degree[edgeTarget[e]]++;
+            }
+        }
+        for (int i = 0; i < numVertices; i++) {
+            offsets[i + 1] = offsets[i] + degree[i];
+        }
+
+        //  Fill in the adjacency arrays
+        neighbors = new int[offsets[numVertices]];
+        incidentEdges = new int[offsets[numVertices]];
+        int[] next = new int[numVertices];
+        System.arraycopy(offsets, 0, next, 0, numVertices);
+        for (int e = 0; e < numEdges; e++) {
+            int a = edgeSource[e];
+            int b = edgeTarget[e];
+            neighbors[next[a]] = b;
+            incidentEdges[next[a]++] = e;
+            if (a != b) {
+                neighbors[next[b]] = a;
+                incidentEdges[next[b]++] = e;
+            }
+        }
+    }
+
+    /**
+     * Gets the Number of Vertices.
+     *
+     * @return number of vertices.
+     */
+    public int getNumVertices() {
+        return vertices.length;
+    }
+
+    /**
+     * Gets the Number of Edges.
+     *
+     * @return number of edges.
+     */
+    public int getNumEdges() {
+        return edges.length;
+    }
+
+    /**
+     * Gets the Vertex with the Specified ID.
+     *
+     * @param v Vertex ID.
+     * @return Vertex Object.
+     */
+    public Vertex getVertex(int v) {
+        return vertices[v];
+    }
+
+    /**
+     * Gets the Edge with the Specified ID.
+     *
+     * @param e Edge ID.
+     * @return Edge Object.
+     */
+    public Edge getEdge(int e) {
+        return edges[e];
+    }
+
+    /**
+     * Gets the First Endpoint of the Specified Edge.
+     *
+     * @param e Edge ID.
+     * @return Vertex ID.
+     */
+    public int getEdgeSource(int e) {
+        return edgeSource[e];
+    }
+
+    /**
+     * Gets the Second Endpoint of the Specified Edge.
+     *
+     * @param e Edge ID.
+     * @return Vertex ID.
+     */
+    public int getEdgeTarget(int e) {
+        return edgeTarget[e];
+    }
+
+    /**
+     * Gets the Degree of the Specified Vertex.
+     *
+     * @param v Vertex ID.
+     * @return degree.
+     */
+    public int getDegree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    /**
+     * Gets the Position of the First Neighbor of the Specified Vertex.
+     *
+     * @param v Vertex ID.
+     * @return position in the adjacency arrays.
+     */
+    public int getNeighborStart(int v) {
+        return offsets[v];
+    }
+
+    /**
+     * Gets the Position after the Last Neighbor of the Specified Vertex.
+     *
+     * @param v Vertex ID.
+     * @return position in the adjacency arrays.
+     */
+    public int getNeighborEnd(int v) {
+        return offsets[v + 1];
+    }
+
+    /**
+     * Gets the Neighbor at the Specified Position.
+     *
+     * @param pos Position in the adjacency arrays.
+     * @return Vertex ID.
+     */
+    public int getNeighbor(int pos) {
+        return neighbors[pos];
+    }
+
+    /**
+     * Gets the Edge connecting to the Neighbor at the Specified Position.
+     *
+     * @param pos Position in the adjacency arrays.
+     * @return Edge ID.
+     */
+    public int getIncidentEdge(int pos) {
+        return incidentEdges[pos];
+    }
+}
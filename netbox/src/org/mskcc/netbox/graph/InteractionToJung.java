@@ -41,24 +41,26 @@ public final class InteractionToJung {
      */
     public static Graph createGraph(ArrayList<Interaction> interactionList)
             throws GraphCreationException {
-        Graph g = new UndirectedSparseGraph();
-        StringLabeller labeller = StringLabeller.getLabeller(g);
+        synchronized (GraphUtil.getJungLock()) {
+            Graph g = new UndirectedSparseGraph();
+            StringLabeller labeller = StringLabeller.getLabeller(g);
 
-        HashSet<String> edgeSet = new HashSet<String>();
-        for (Interaction interaction : interactionList) {
-            String geneA = interaction.getGeneA();
-            String geneB = interaction.getGeneB();
+            HashSet<String> edgeSet = new HashSet<String>();
+            for (Interaction interaction : interactionList) {
+                String geneA = interaction.getGeneA();
+                String geneB = interaction.getGeneB();
 
-            //  Do not add duplicate edges
-            String key = createKey(geneA, geneB);
-            if (!edgeSet.contains(key)) {
-                Vertex vertexA = getVertex(g, labeller, geneA);
-                Vertex vertexB = getVertex(g, labeller, geneB);
-                g.addEdge(new UndirectedSparseEdge(vertexA, vertexB));
-                edgeSet.add(key);
+                //  Do not add duplicate edges
+                String key = createKey(geneA, geneB);
+                if (!edgeSet.contains(key)) {
+                    Vertex vertexA = getVertex(g, labeller, geneA);
+                    Vertex vertexB = getVertex(g, labeller, geneB);
+                    g.addEdge(new UndirectedSparseEdge(vertexA, vertexB));
+                    edgeSet.add(key);
+                }
             }
+            return g;
         }
-        return g;
     }
 
     /**
@@ -85,17 +87,19 @@ public final class InteractionToJung {
             edgeSet.add(key);
         }
 
-        for (Interaction interaction : interactionList) {
-            String geneA = interaction.getGeneA();
-            String geneB = interaction.getGeneB();
+        synchronized (GraphUtil.getJungLock()) {
+            for (Interaction interaction : interactionList) {
+                String geneA = interaction.getGeneA();
+                String geneB = interaction.getGeneB();
 
-            //  Do not add duplicate edges
-            String key = createKey(geneA, geneB);
-            if (!edgeSet.contains(key)) {
-                Vertex vertexA = getVertex(g, labeller, geneA);
-                Vertex vertexB = getVertex(g, labeller, geneB);
-                g.addEdge(new UndirectedSparseEdge(vertexA, vertexB));
-                edgeSet.add(key);
+                //  Do not add duplicate edges
+                String key = createKey(geneA, geneB);
+                if (!edgeSet.contains(key)) {
+                    Vertex vertexA = getVertex(g, labeller, geneA);
+                    Vertex vertexB = getVertex(g, labeller, geneB);
+                    g.addEdge(new UndirectedSparseEdge(vertexA, vertexB));
+                    edgeSet.add(key);
+                }
             }
         }
         return g;
@@ -4,8 +4,6 @@ import org.mskcc.netbox.model.Interaction;
 import org.mskcc.netbox.query.InteractionQuery;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
 
 /**
  * Interaction Utility Class.
@@ -13,7 +11,9 @@ import java.util.HashSet;
  * @author Ethan Cerami.
  */
 public final class InteractionUtil {
-    private static HashMap<String, ArrayList<Interaction>> interactionMap;
+    private static final byte IN_LIST = 1;
+    private static final byte VISITED = 2;
+    private static final byte LINKER = 3;
 
     /**
      * Private constructor to prevent instantiation.
@@ -51,18 +51,21 @@ public final class InteractionUtil {
      */
     public static ArrayList<Interaction> getAllInteractions(ArrayList<String> geneList)
             throws GraphCreationException {
-        if (interactionMap == null) {
-            interactionMap = InteractionQuery.getAllInteractions();
-        }
+        return getAllInteractions(InteractionQuery.getReferenceNetwork(), geneList);
+    }
+
+    /**
+     * Gets all Interactions Associated with Gene List.  Each interaction is reported once.
+     *
+     * @param network  Reference Network.
+     * @param geneList Gene List.
+     * @return ArrayList of Interactions Objects.
+     */
+    public static ArrayList<Interaction> getAllInteractions(CompactNetwork network,
+            ArrayList<String> geneList) {
+        byte[] state = markGenes(network, geneList);
         ArrayList<Interaction> globalInteractionList = new ArrayList<Interaction>();
-        for (String gene : geneList) {
-            ArrayList<Interaction> interactionList = interactionMap.get(gene);
-            if (interactionList != null) {
-                for (Interaction interaction : interactionList) {
-                    globalInteractionList.add(interaction);
-                }
-            }
-        }
+        collectInteractions(network, geneList, state, true, null, globalInteractionList);
         return globalInteractionList;
     }
 
@@ -75,20 +78,21 @@ public final class InteractionUtil {
      */
     public static ArrayList<Interaction> connectGenesNoLinkers(ArrayList<String> geneList)
             throws GraphCreationException {
-        if (interactionMap == null) {
-            interactionMap = InteractionQuery.getAllInteractions();
-        }
+        return connectGenesNoLinkers(InteractionQuery.getReferenceNetwork(), geneList);
+    }
+
+    /**
+     * Connects the Genes into a Network, No Linkers.  Each interaction is reported once.
+     *
+     * @param network  Reference Network.
+     * @param geneList Gene List.
+     * @return ArrayList of Interactions Objects.
+     */
+    public static ArrayList<Interaction> connectGenesNoLinkers(CompactNetwork network,
+            ArrayList<String> geneList) {
+        byte[] state = markGenes(network, geneList);
         ArrayList<Interaction> globalInteractionList = new ArrayList<Interaction>();
-        for (String gene : geneList) {
-            ArrayList<Interaction> interactionList = interactionMap.get(gene);
-            if (interactionList != null) {
-                for (Interaction interaction : interactionList) {
-                    if (InteractionUtil.isDirectInteraction(interaction, gene, geneList)) {
-                        globalInteractionList.add(interaction);
-                    }
-                }
-            }
-        }
+        collectInteractions(network, geneList, state, false, null, globalInteractionList);
         return globalInteractionList;
     }
 
@@ -101,49 +105,83 @@ public final class InteractionUtil {
      */
     public static ArrayList<Interaction> connectsGenesWithLinkers(ArrayList<String> geneList)
             throws GraphCreationException {
-        if (interactionMap == null) {
-            interactionMap = InteractionQuery.getAllInteractions();
-        }
+        return connectsGenesWithLinkers(InteractionQuery.getReferenceNetwork(), geneList);
+    }
 
-        HashSet<String> linkerSet = new HashSet<String>();
+    /**
+     * Connects the Genes into a Network, With Linkers.  Each interaction is reported once.
+     *
+     * @param network  Reference Network.
+     * @param geneList Gene List.
+     * @return ArrayList of Interactions Objects.
+     */
+    public static ArrayList<Interaction> connectsGenesWithLinkers(CompactNetwork network,
+            ArrayList<String> geneList) {
+        byte[] state = markGenes(network, geneList);
 
         //  First pass: iterate through all genes in list.
-        //  For each gene X, get all interactions.
+        //  For each gene X, get all interactions, and track the new linkers separately.
+        ArrayList<Integer> linkerList = new ArrayList<Integer>();
         ArrayList<Interaction> globalInteractionList = new ArrayList<Interaction>();
-        for (String gene : geneList) {
-            ArrayList<Interaction> interactionList = interactionMap.get(gene);
-            if (interactionList != null) {
-                for (Interaction interaction : interactionList) {
-                    globalInteractionList.add(interaction);
-
-                    //  Track the new linkers separately
-                    String other = getOtherGene(gene, interaction);
-                    if (!geneList.contains(other)) {
-                        linkerSet.add(other);
-                    }
+        collectInteractions(network, geneList, state, true, linkerList, globalInteractionList);
+
+        //  Second pass: iterate through all the new linkers.
+        //  Interactions between linkers and genes in the original list were already reported
+        //  in the first pass, so only keep interactions between two linkers.
+        for (int linker : linkerList) {
+            int end = network.getNeighborEnd(linker);
+            for (int i = network.getNeighborStart(linker); i < end; i++) {
+                int other = network.getNeighbor(i);
+                if (state[other] == LINKER && other > linker) {
+                    globalInteractionList.add(network.createInteraction(linker, i));
                 }
             }
         }
+        return globalInteractionList;
+    }
 
-        //  Second pass: iterate through all the new linker.
-        //  For each linker X, get all interactions, but only keep those interactions that link to
-        //  genes in the original list or to genes in the linker set
-        ArrayList<String> globalGeneList = new ArrayList<String>();
-        globalGeneList.addAll(geneList);
-        globalGeneList.addAll(linkerSet);
-
-        for (String linker : linkerSet) {
-            ArrayList<Interaction> interactionList = interactionMap.get(linker);
-            if (interactionList != null) {
-                for (Interaction interaction : interactionList) {
-                    if (InteractionUtil.isDirectInteraction(interaction, linker, globalGeneList)) {
-                        globalInteractionList.add(interaction);
+    /**
+     * Marks all genes in the list which are part of the network.
+     */
+    private static byte[] markGenes(CompactNetwork network, ArrayList<String> geneList) {
+        byte[] state = new byte[network.getNumGenes()];
+        for (String gene : geneList) {
+            int index = network.getGeneIndex(gene);
+            if (index >= 0) {
+                state[index] = IN_LIST;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Collects interactions of all genes in the list.  An interaction between two genes in the
+     * list is reported when the first of the two genes is visited.
+     */
+    private static void collectInteractions(CompactNetwork network, ArrayList<String> geneList,
+            byte[] state, boolean includeOutsideGenes, ArrayList<Integer> linkerList,
+            ArrayList<Interaction> globalInteractionList) {
+        for (String gene : geneList) {
+            int index = network.getGeneIndex(gene);
+            if (index < 0 || state[index] == VISITED) {
+                continue;
+            }
+            state[index] = VISITED;
+            int end = network.getNeighborEnd(index);
+            for (int i = network.getNeighborStart(index); i < end; i++) {
+                int other = network.getNeighbor(i);
+                byte otherState = state[other];
+                if (otherState == IN_LIST) {
+                    globalInteractionList.add(network.createInteraction(index, i));
+                } else if (otherState != VISITED && includeOutsideGenes) {
+                    globalInteractionList.add(network.createInteraction(index, i));
+                    if (linkerList != null && otherState != LINKER) {
+                        state[other] = LINKER;
+                        linkerList.add(other);
                     }
                 }
             }
         }
-
-        return globalInteractionList;
     }
 
     /**
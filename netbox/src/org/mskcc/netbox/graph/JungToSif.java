@@ -6,6 +6,9 @@ import edu.uci.ics.jung.graph.Vertex;
 import edu.uci.ics.jung.graph.decorators.StringLabeller;
 import edu.uci.ics.jung.utils.Pair;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.Iterator;
 
 /**
@@ -28,7 +31,23 @@ public final class JungToSif {
      * @return SIF Format.
      */
     public static String convertToSif(Graph g) {
-        StringBuffer buf = new StringBuffer();
+        StringWriter writer = new StringWriter();
+        try {
+            writeSif(g, writer);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes the Specified JUNG Graph in Cytoscape SIF Format, one edge at a time.
+     *
+     * @param g      JUNG Graph.
+     * @param writer Writer;  not closed.
+     * @throws IOException IO Error.
+     */
+    public static void writeSif(Graph g, Writer writer) throws IOException {
         StringLabeller labeller = StringLabeller.getLabeller(g);
         Iterator edgeIterator = g.getEdges().iterator();
         while (edgeIterator.hasNext()) {
@@ -36,10 +55,10 @@ public final class JungToSif {
             Pair pair = edge.getEndpoints();
             Vertex vertexA = (Vertex) pair.getFirst();
             Vertex vertexB = (Vertex) pair.getSecond();
-            String geneA = GraphUtil.getVertexLabel(labeller, vertexA);
-            String geneB = GraphUtil.getVertexLabel(labeller, vertexB);
-            buf.append(geneA + " INTERACTS " + geneB + "\n");
+            writer.write(GraphUtil.getVertexLabel(labeller, vertexA));
+            writer.write(" INTERACTS ");
+            writer.write(GraphUtil.getVertexLabel(labeller, vertexB));
+            writer.write('\n');
         }
-        return buf.toString();
     }
 }
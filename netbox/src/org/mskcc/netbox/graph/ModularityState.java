@@ -0,0 +1,399 @@
+package org.mskcc.netbox.graph;
+
+import java.util.Arrays;
+
+/**
+ * Network Modularity of a Partition, Maintained Incrementally.
+ * <p/>
+ * The partition is held as an int module assignment per vertex, together with the number of
+ * internal edges and the sum of vertex degrees of each module.  The modularity change of
+ * moving a single vertex to another module is calculated in O(degree) time, without
+ * allocating any objects, and an accepted move is committed in O(degree) time.  Merging two
+ * modules, or moving a set of vertices out of a module (e.g. a split), is evaluated from the
+ * module aggregates and the adjacency of the vertices involved only.
+ * <p/>
+ * As in NetworkModularity, the modularity of module s is l_s / L - (d_s / 2L)^2, where l_s
+ * is the number of edges within the module, d_s is the sum of vertex degrees, and L is the
+ * total number of edges.  Vertices may be left unassigned (module -1), in which case they do
+ * not belong to any module, but their edges still count towards L.
+ */
+public final class ModularityState {
+    private IndexedGraph graph;
+    private int[] module;
+    private int[] moduleSize;
+    private int[] internalEdges;
+    private long[] degreeSum;
+    private int numModules;
+    private double modularity;
+
+    //  Members of each module, as doubly linked lists
+    private int[] firstMember;
+    private int[] nextMember;
+    private int[] previousMember;
+
+    //  Marks the vertices of a set move, without clearing between moves
+    private int[] mark;
+    private int currentMark;
+
+    /**
+     * Constructor.
+     *
+     * @param g          IndexedGraph Object.
+     * @param assignment Module of each vertex, between 0 and maxModules - 1, or -1 if the
+     *                   vertex is not assigned to any module.  The array is copied.
+     * @param maxModules Maximum number of module IDs.
+     */
+    public ModularityState(IndexedGraph g, int[] assignment, int maxModules) {
+        this.graph = g;
+        this.module = assignment.clone();
+        moduleSize = new int[maxModules];
+        internalEdges = new int[maxModules];
+        degreeSum = new long[maxModules];
+        firstMember = new int[maxModules];
+        nextMember = new int[module.length];
+        previousMember = new int[module.length];
+        mark = new int[module.length];
+        Arrays.fill(firstMember, -1);
+        for (int v = module.length - 1; v >= 0; v--) {
+            int c = module[v];
+            if (c >= 0) {
+                if (moduleSize[c]++ == 0) {
+                    numModules++;
+                }
+                degreeSum[c] += graph.getDegree(v);
+                addMember(c, v);
+            }
+        }
+        for (int e = 0; e < graph.getNumEdges(); e++) {
+            int c = module[graph.getEdgeSource(e)];
+            if (c >= 0 && c == module[graph.getEdgeTarget(e)]) {
+                internalEdges[c]++;
+            }
+        }
+        for (int c = 0; c < maxModules; c++) {
+            if (moduleSize[c] > 0) {
+                modularity += getModuleModularity(internalEdges[c], degreeSum[c]);
+            }
+        }
+    }
+
+    /**
+     * Gets the Current Network Modularity.
+     *
+     * @return network modularity.
+     */
+    public double getModularity() {
+        return modularity;
+    }
+
+    /**
+     * Gets the Module of the Specified Vertex.
+     *
+     * @param v Vertex ID.
+     * @return module ID, or -1.
+     */
+    public int getModule(int v) {
+        return module[v];
+    }
+
+    /**
+     * Gets the Number of Non-Empty Modules.
+     *
+     * @return number of modules.
+     */
+    public int getNumModules() {
+        return numModules;
+    }
+
+    /**
+     * Gets the Number of Vertices in the Specified Module.
+     *
+     * @param c Module ID.
+     * @return number of vertices.
+     */
+    public int getModuleSize(int c) {
+        return moduleSize[c];
+    }
+
+    /**
+     * Gets the First Vertex of the Specified Module.
+     *
+     * @param c Module ID.
+     * @return Vertex ID, or -1 if the module is empty.
+     */
+    public int getFirstMember(int c) {
+        return firstMember[c];
+    }
+
+    /**
+     * Gets the Next Vertex in the same Module as the Specified Vertex.
+     *
+     * @param v Vertex ID.
+     * @return Vertex ID, or -1 if v is the last vertex of its module.
+     */
+    public int getNextMember(int v) {
+        return nextMember[v];
+    }
+
+    /**
+     * Gets the Number of Edges within the Specified Module.
+     *
+     * @param c Module ID.
+     * @return number of internal edges.
+     */
+    public int getInternalEdges(int c) {
+        return internalEdges[c];
+    }
+
+    /**
+     * Gets the Sum of Vertex Degrees of the Specified Module.
+     *
+     * @param c Module ID.
+     * @return degree sum.
+     */
+    public long getDegreeSum(int c) {
+        return degreeSum[c];
+    }
+
+    /**
+     * Calculates the Change in Network Modularity, if the Specified Vertex were moved to the
+     * Specified Module.  The state itself is not changed.
+     *
+     * @param v      Vertex ID.
+     * @param target Target module ID.
+     * @return change in network modularity.
+     */
+    public double getDeltaOneNodeMove(int v, int target) {
+        int source = module[v];
+        if (source == target) {
+            return 0.0;
+        }
+        int edgesToSource = 0;
+        int edgesToTarget = 0;
+        int end = graph.getNeighborEnd(v);
+        for (int pos = graph.getNeighborStart(v); pos < end; pos++) {
+            int w = graph.getNeighbor(pos);
+            if (w == v) {
+                //  A self-loop moves along with its vertex
+                edgesToSource++;
+                edgesToTarget++;
+            } else {
+                int c = module[w];
+                if (c == source) {
+                    edgesToSource++;
+                } else if (c == target) {
+                    edgesToTarget++;
+                }
+            }
+        }
+        int degree = graph.getDegree(v);
+        double delta = 0.0;
+        if (source >= 0) {
+            delta += getModuleModularity(internalEdges[source] - edgesToSource,
+                    degreeSum[source] - degree)
+                    - getModuleModularity(internalEdges[source], degreeSum[source]);
+        }
+        if (target >= 0) {
+            delta += getModuleModularity(internalEdges[target] + edgesToTarget,
+                    degreeSum[target] + degree)
+                    - getModuleModularity(internalEdges[target], degreeSum[target]);
+        }
+        return delta;
+    }
+
+    /**
+     * Calculates the Change in Network Modularity, if the Two Specified Modules were merged.
+     * Runs in O(sum of degrees of the smaller module).  The state itself is not changed.
+     *
+     * @param a Module ID A.
+     * @param b Module ID B.
+     * @return change in network modularity.
+     */
+    public double getDeltaMerge(int a, int b) {
+        if (a == b) {
+            return 0.0;
+        }
+        int smaller = degreeSum[a] <= degreeSum[b] ? a : b;
+        int other = smaller == a ? b : a;
+        int edgesBetween = 0;
+        for (int v = firstMember[smaller]; v >= 0; v = nextMember[v]) {
+            int end = graph.getNeighborEnd(v);
+            for (int pos = graph.getNeighborStart(v); pos < end; pos++) {
+                if (module[graph.getNeighbor(pos)] == other) {
+                    edgesBetween++;
+                }
+            }
+        }
+        return getModuleModularity(internalEdges[a] + internalEdges[b] + edgesBetween,
+                degreeSum[a] + degreeSum[b])
+                - getModuleModularity(internalEdges[a], degreeSum[a])
+                - getModuleModularity(internalEdges[b], degreeSum[b]);
+    }
+
+    /**
+     * Merges Module B into Module A.  Module B is left empty.
+     *
+     * @param a Module ID A.
+     * @param b Module ID B.
+     */
+    public void mergeModules(int a, int b) {
+        int v = firstMember[b];
+        while (v >= 0) {
+            int next = nextMember[v];
+            moveNode(v, a);
+            v = next;
+        }
+    }
+
+    /**
+     * Calculates the Change in Network Modularity, if the Specified Vertices were moved
+     * together to the Specified Module.  All vertices must currently be in the same module,
+     * e.g. when splitting a module.  Runs in O(sum of degrees of the vertices).  The state
+     * itself is not changed.
+     *
+     * @param nodes  Vertex IDs.
+     * @param from   Index of the first vertex.
+     * @param to     Index after the last vertex.
+     * @param target Target module ID.
+     * @return change in network modularity.
+     */
+    public double getDeltaMove(int[] nodes, int from, int to, int target) {
+        if (from >= to) {
+            return 0.0;
+        }
+        int source = module[nodes[from]];
+        if (source == target) {
+            return 0.0;
+        }
+        currentMark++;
+        long degree = 0;
+        for (int i = from; i < to; i++) {
+            if (module[nodes[i]] != source) {
+                throw new IllegalArgumentException("All vertices must be in the same module.");
+            }
+            mark[nodes[i]] = currentMark;
+            degree += graph.getDegree(nodes[i]);
+        }
+
+        //  Edges within the set are seen from both endpoints, except for self-loops
+        int twiceEdgesWithin = 0;
+        int edgesToSource = 0;
+        int edgesToTarget = 0;
+        for (int i = from; i < to; i++) {
+            int v = nodes[i];
+            int end = graph.getNeighborEnd(v);
+            for (int pos = graph.getNeighborStart(v); pos < end; pos++) {
+                int w = graph.getNeighbor(pos);
+                if (mark[w] == currentMark) {
+                    twiceEdgesWithin += w == v ? 2 : 1;
+                } else if (module[w] == source) {
+                    edgesToSource++;
+                } else if (module[w] == target) {
+                    edgesToTarget++;
+                }
+            }
+        }
+        int edgesWithin = twiceEdgesWithin / 2;
+        double delta = 0.0;
+        if (source >= 0) {
+            delta += getModuleModularity(internalEdges[source] - edgesWithin - edgesToSource,
+                    degreeSum[source] - degree)
+                    - getModuleModularity(internalEdges[source], degreeSum[source]);
+        }
+        if (target >= 0) {
+            delta += getModuleModularity(internalEdges[target] + edgesWithin + edgesToTarget,
+                    degreeSum[target] + degree)
+                    - getModuleModularity(internalEdges[target], degreeSum[target]);
+        }
+        return delta;
+    }
+
+    /**
+     * Moves the Specified Vertices to the Specified Module.
+     *
+     * @param nodes  Vertex IDs.
+     * @param from   Index of the first vertex.
+     * @param to     Index after the last vertex.
+     * @param target Target module ID.
+     */
+    public void moveNodes(int[] nodes, int from, int to, int target) {
+        for (int i = from; i < to; i++) {
+            moveNode(nodes[i], target);
+        }
+    }
+
+    /**
+     * Moves the Specified Vertex to the Specified Module.
+     *
+     * @param v      Vertex ID.
+     * @param target Target module ID.
+     */
+    public void moveNode(int v, int target) {
+        double delta = getDeltaOneNodeMove(v, target);
+        int source = module[v];
+        if (source == target) {
+            return;
+        }
+        int end = graph.getNeighborEnd(v);
+        for (int pos = graph.getNeighborStart(v); pos < end; pos++) {
+            int w = graph.getNeighbor(pos);
+            int c = w == v ? source : module[w];
+            if (source >= 0 && c == source) {
+                internalEdges[source]--;
+            }
+            c = w == v ? target : module[w];
+            if (target >= 0 && c == target) {
+                internalEdges[target]++;
+            }
+        }
+        int degree = graph.getDegree(v);
+        if (source >= 0) {
+            degreeSum[source] -= degree;
+            if (--moduleSize[source] == 0) {
+                numModules--;
+            }
+            removeMember(source, v);
+        }
+        if (target >= 0) {
+            degreeSum[target] += degree;
+            if (moduleSize[target]++ == 0) {
+                numModules++;
+            }
+            addMember(target, v);
+        }
+        module[v] = target;
+        modularity += delta;
+    }
+
+    private void addMember(int c, int v) {
+        int first = firstMember[c];
+        nextMember[v] = first;
+        previousMember[v] = -1;
+        if (first >= 0) {
+            previousMember[first] = v;
+        }
+        firstMember[c] = v;
+    }
+
+    private void removeMember(int c, int v) {
+        int previous = previousMember[v];
+        int next = nextMember[v];
+        if (previous >= 0) {
+            nextMember[previous] = next;
+        } else {
+            firstMember[c] = next;
+        }
+        if (next >= 0) {
+            previousMember[next] = previous;
+        }
+    }
+
+    private double getModuleModularity(int l, long d) {
+        int totalNumEdges = graph.getNumEdges();
+        if (totalNumEdges == 0) {
+            return 0.0;
+        }
+        double fraction = d / ((double) 2 * totalNumEdges);
+        return (l / (double) totalNumEdges) - (fraction * fraction);
+    }
+}
@@ -45,7 +45,10 @@ public final class NetworkModularity {
 
         //  Iterate through all modules
         for (int i = 0; i < moduleSet.size(); i++) {
-            Graph g = moduleSet.getClusterAsNewSubGraph(i);
+            Graph g;
+            synchronized (GraphUtil.getJungLock()) {
+                g = moduleSet.getClusterAsNewSubGraph(i);
+            }
             int l = g.numEdges();
             int d = 0;
             Set<Vertex> vertexSet = g.getVertices();
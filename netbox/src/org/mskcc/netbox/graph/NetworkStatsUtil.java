@@ -1,22 +1,17 @@
 package org.mskcc.netbox.graph;
 
-import edu.uci.ics.jung.graph.Graph;
-import edu.uci.ics.jung.graph.Vertex;
-import edu.uci.ics.jung.graph.decorators.StringLabeller;
 import org.mskcc.netbox.model.NetworkStats;
 import org.mskcc.netbox.query.InteractionQuery;
 import org.mskcc.netbox.util.CommandLineUtil;
 import org.mskcc.netbox.util.ProgressMonitor;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Set;
 
 /**
  * Network Stats Utility Class.
  */
 public final class NetworkStatsUtil {
-    private HashMap<String, Integer> degreeMap = new HashMap<String, Integer>();
+    private CompactNetwork network;
     private ArrayList<String> genesInNetwork = new ArrayList<String>();
     private NetworkStats networkStats;
     private static NetworkStatsUtil util;
@@ -24,21 +19,16 @@ public final class NetworkStatsUtil {
     private NetworkStatsUtil() throws GraphCreationException {
         ProgressMonitor pMonitor = ProgressMonitor.getInstance();
         pMonitor.setCurrentMessage("Getting Network Stats");
-        Graph g = InteractionQuery.getGlobalGraph();
-        int numNodes = g.numVertices();
-        int numEdges = g.numEdges();
+        network = InteractionQuery.getReferenceNetwork();
+        int numGenes = network.getNumGenes();
         networkStats = new NetworkStats();
-        networkStats.setNumGenes(numNodes);
-        networkStats.setNumEdges(numEdges);
+        networkStats.setNumGenes(numGenes);
+        networkStats.setNumEdges(network.getNumEdges());
 
-        Set<Vertex> vertexSet = g.getVertices();
-        StringLabeller labeller = StringLabeller.getLabeller(g);
-
-        pMonitor.setMaxValue(vertexSet.size());
-        for (Vertex vertex : vertexSet) {
-            String geneSymbol = labeller.getLabel(vertex);
-            degreeMap.put(geneSymbol, vertex.degree());
-            genesInNetwork.add(geneSymbol);
+        pMonitor.setMaxValue(numGenes);
+        genesInNetwork.ensureCapacity(numGenes);
+        for (int i = 0; i < numGenes; i++) {
+            genesInNetwork.add(network.getGeneSymbol(i));
             pMonitor.incrementCurValue();
             CommandLineUtil.showProgress(pMonitor);
         }
@@ -50,7 +40,7 @@ public final class NetworkStatsUtil {
      * @return NetworkStatsUtil Object.
      * @throws GraphCreationException Graph Creation Error.
      */
-    public static NetworkStatsUtil getInstance() throws GraphCreationException {
+    public static synchronized NetworkStatsUtil getInstance() throws GraphCreationException {
         if (util == null) {
             util = new NetworkStatsUtil();
         }
@@ -64,11 +54,7 @@ public final class NetworkStatsUtil {
      * @return global degree.
      */
     public int getGeneDegree(String geneSymbol) {
-        if (degreeMap.containsKey(geneSymbol)) {
-            return degreeMap.get(geneSymbol);
-        } else {
-            return 0;
-        }
+        return network.getDegree(geneSymbol);
     }
 
     /**
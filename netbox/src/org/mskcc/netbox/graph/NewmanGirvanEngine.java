@@ -0,0 +1,275 @@
+package org.mskcc.netbox.graph;
+
+import java.util.Arrays;
+
+/**
+ * Newman-Girvan Edge Removal Engine.
+ * <p/>
+ * Repeatedly removes the edge with the highest betweenness score.  Edge betweenness is
+ * calculated by EdgeBetweenness, on the int-indexed adjacency arrays of an IndexedGraph.
+ * Betweenness only depends on shortest paths within a connected component, so after each
+ * removal, scores are recalculated only for the component which contained the removed edge
+ * (which may now be split into two components).  All other scores remain valid.
+ * <p/>
+ * Ties between edges with equal betweenness are broken in favor of the lowest edge ID.
+ */
+public final class NewmanGirvanEngine {
+    private static final double TIE_PRECISION = 1.0E-9;
+    private IndexedGraph graph;
+    private boolean[] removed;
+    private double[] betweenness;
+    private int[] component;
+    private int numComponents;
+    private int[] removedEdges;
+    private int numRemoved;
+    private EdgeBetweenness edgeBetweenness;
+
+    //  Scratch space for component searches
+    private boolean[] visited;
+    private int[] members;
+
+    /**
+     * Constructor, for single-threaded use.
+     *
+     * @param g IndexedGraph Object.
+     */
+    public NewmanGirvanEngine(IndexedGraph g) {
+        this(g, new EdgeBetweenness(g));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param g  IndexedGraph Object.
+     * @param eb EdgeBetweenness Object for the same graph, e.g. a multi-threaded one.
+     */
+    public NewmanGirvanEngine(IndexedGraph g, EdgeBetweenness eb) {
+        this.graph = g;
+        this.edgeBetweenness = eb;
+        int numVertices = graph.getNumVertices();
+        removed = new boolean[graph.getNumEdges()];
+        betweenness = new double[graph.getNumEdges()];
+        removedEdges = new int[graph.getNumEdges()];
+        component = new int[numVertices];
+        visited = new boolean[numVertices];
+        members = new int[numVertices];
+        Arrays.fill(component, -1);
+
+        //  Label all components, and calculate their betweenness scores
+        for (int v = 0; v < numVertices; v++) {
+            if (component[v] < 0) {
+                int size = labelComponent(v, numComponents, 0);
+                numComponents++;
+                edgeBetweenness.accumulate(members, 0, size, removed, betweenness);
+            }
+        }
+    }
+
+    /**
+     * Gets the Underlying IndexedGraph.
+     *
+     * @return IndexedGraph Object.
+     */
+    public IndexedGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Determines if there are any edges left to remove.
+     *
+     * @return true or false.
+     */
+    public boolean hasNextEdge() {
+        return numRemoved < removed.length;
+    }
+
+    /**
+     * Removes the Edge with the Highest Betweenness Score, and updates the betweenness scores
+     * of the affected component.
+     *
+     * @return ID of the removed edge.
+     */
+    public int removeNextEdge() {
+        if (!hasNextEdge()) {
+            throw new IllegalStateException("All edges have already been removed.");
+        }
+        int edge = -1;
+        double max = 0.0;
+        for (int e = 0; e < removed.length; e++) {
+            if (!removed[e] && (edge < 0
+                    || betweenness[e] > max + TIE_PRECISION * Math.max(1.0, max))) {
+                edge = e;
+                max = betweenness[e];
+            }
+        }
+        removed[edge] = true;
+        betweenness[edge] = 0.0;
+        removedEdges[numRemoved++] = edge;
+
+        //  Re-label the vertices reachable from the first endpoint;  if the second endpoint
+        //  is no longer reachable, the component has been split in two.
+        int source = graph.getEdgeSource(edge);
+        int target = graph.getEdgeTarget(edge);
+        int oldComponent = component[source];
+        int oldSize = numComponentMembers(oldComponent, source);
+        for (int i = 0; i < oldSize; i++) {
+            component[members[i]] = -1;
+        }
+        int size = labelComponent(source, oldComponent, 0);
+        if (component[target] < 0) {
+            size += labelComponent(target, numComponents, size);
+            numComponents++;
+        }
+
+        //  Recalculate betweenness for the affected vertices only
+        for (int i = 0; i < size; i++) {
+            int v = members[i];
+            int end = graph.getNeighborEnd(v);
+            for (int pos = graph.getNeighborStart(v); pos < end; pos++) {
+                betweenness[graph.getIncidentEdge(pos)] = 0.0;
+            }
+        }
+        edgeBetweenness.accumulate(members, 0, size, removed, betweenness);
+        return edge;
+    }
+
+    /**
+     * Gets the Number of Edges Removed so far.
+     *
+     * @return number of edges removed.
+     */
+    public int getNumEdgesRemoved() {
+        return numRemoved;
+    }
+
+    /**
+     * Gets the ID of the Edge Removed at the Specified Step.
+     *
+     * @param step Step, starting at 0.
+     * @return Edge ID.
+     */
+    public int getRemovedEdge(int step) {
+        return removedEdges[step];
+    }
+
+    /**
+     * Determines if the Specified Edge has been removed.
+     *
+     * @param e Edge ID.
+     * @return true or false.
+     */
+    public boolean isRemoved(int e) {
+        return removed[e];
+    }
+
+    /**
+     * Gets the Current Betweenness Score of the Specified Edge.  Each shortest path is
+     * counted once in each direction.
+     *
+     * @param e Edge ID.
+     * @return betweenness score.
+     */
+    public double getBetweenness(int e) {
+        return betweenness[e];
+    }
+
+    /**
+     * Gets the Current Number of Connected Components, including isolated vertices.
+     *
+     * @return number of components.
+     */
+    public int getNumComponents() {
+        return numComponents;
+    }
+
+    /**
+     * Gets the Current Component ID of the Specified Vertex.
+     *
+     * @param v Vertex ID.
+     * @return component ID, between 0 and getNumComponents() - 1.
+     */
+    public int getComponent(int v) {
+        return component[v];
+    }
+
+    /**
+     * Calculates Network Modularity of the Current Components.  As in
+     * NetworkModularity.calculateNetworkModularity(), the internal edges of each component are
+     * the edges which remain, while vertex degrees and the total number of edges are taken
+     * from the original graph.
+     *
+     * @return network modularity score.
+     */
+    public double getNetworkModularity() {
+        int numEdges = graph.getNumEdges();
+        int[] internalEdges = new int[numComponents];
+        long[] degreeSum = new long[numComponents];
+        for (int v = 0; v < component.length; v++) {
+            degreeSum[component[v]] += graph.getDegree(v);
+        }
+        for (int e = 0; e < numEdges; e++) {
+            if (!removed[e]) {
+                internalEdges[component[graph.getEdgeSource(e)]]++;
+            }
+        }
+        double q = 0.0;
+        for (int c = 0; c < numComponents; c++) {
+            double fraction = degreeSum[c] / ((double) 2 * numEdges);
+            q += (internalEdges[c] / (double) numEdges) - (fraction * fraction);
+        }
+        return q;
+    }
+
+    /**
+     * Collects all vertices of the specified component into the members array, via
+     * breadth first search restricted to vertices of that component.
+     *
+     * @return number of members.
+     */
+    private int numComponentMembers(int c, int start) {
+        int head = 0;
+        int tail = 0;
+        members[tail++] = start;
+        visited[start] = true;
+        while (head < tail) {
+            int v = members[head++];
+            int end = graph.getNeighborEnd(v);
+            for (int pos = graph.getNeighborStart(v); pos < end; pos++) {
+                int w = graph.getNeighbor(pos);
+                if (!visited[w] && component[w] == c) {
+                    visited[w] = true;
+                    members[tail++] = w;
+                }
+            }
+        }
+        for (int i = 0; i < tail; i++) {
+            visited[members[i]] = false;
+        }
+        return tail;
+    }
+
+    /**
+     * Assigns the specified component ID to all unlabelled vertices reachable from start,
+     * and appends them to the members array, starting at offset.
+     *
+     * @return number of vertices labelled.
+     */
+    private int labelComponent(int start, int c, int offset) {
+        int head = offset;
+        int tail = offset;
+        members[tail++] = start;
+        component[start] = c;
+        while (head < tail) {
+            int v = members[head++];
+            int end = graph.getNeighborEnd(v);
+            for (int pos = graph.getNeighborStart(v); pos < end; pos++) {
+                int w = graph.getNeighbor(pos);
+                if (component[w] < 0 && !removed[graph.getIncidentEdge(pos)]) {
+                    component[w] = c;
+                    members[tail++] = w;
+                }
+            }
+        }
+        return tail - offset;
+    }
+}
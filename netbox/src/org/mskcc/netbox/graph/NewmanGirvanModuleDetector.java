@@ -2,25 +2,29 @@ package org.mskcc.netbox.graph;
 
 import edu.uci.ics.jung.algorithms.cluster.ClusterSet;
 import edu.uci.ics.jung.algorithms.cluster.WeakComponentClusterer;
-import edu.uci.ics.jung.algorithms.importance.BetweennessCentrality;
-import edu.uci.ics.jung.algorithms.importance.EdgeRanking;
 import edu.uci.ics.jung.graph.ArchetypeGraph;
+import edu.uci.ics.jung.graph.Edge;
 import edu.uci.ics.jung.graph.Graph;
 import org.mskcc.netbox.util.CommandLineUtil;
 import org.mskcc.netbox.util.Formatter;
+import org.mskcc.netbox.util.GlobalConfig;
+import org.mskcc.netbox.util.ParallelUtil;
 import org.mskcc.netbox.util.ProgressMonitor;
 
 import java.text.NumberFormat;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Newman-Girvan Module Detector.
+ * <p/>
+ * Edges are removed in order of decreasing betweenness by the NewmanGirvanEngine, which only
+ * recalculates betweenness within the component affected by each removal.  Betweenness of
+ * large components is calculated with multiple threads.
  *
  * @author Ethan Cerami, and JUNG Community Authors.
  */
 public final class NewmanGirvanModuleDetector {
-    private List mEdgesRemoved;
     private ArrayList<NetworkPartitionState> networkPartionStateList =
             new ArrayList<NetworkPartitionState>();
     private double maxModularityScore = 0.0;
@@ -29,13 +33,26 @@ public final class NewmanGirvanModuleDetector {
     private Graph optimalGraph;
     private boolean initialStateRepresentsSingleConnectedComponent = false;
 
+    private int numThreads;
+
     /**
-     * Constructs a new clusterer for the specified graph.
+     * Constructs a new clusterer for the specified graph.  Edge betweenness is calculated
+     * with GlobalConfig.getNumThreads() threads.
      *
      * @param g Graph Object.
      */
     public NewmanGirvanModuleDetector(ArchetypeGraph g) {
-        mEdgesRemoved = new ArrayList();
+        this(g, GlobalConfig.getInstance().getNumThreads());
+    }
+
+    /**
+     * Constructs a new clusterer for the specified graph.
+     *
+     * @param g       Graph Object.
+     * @param threads Number of threads used to calculate edge betweenness.
+     */
+    public NewmanGirvanModuleDetector(ArchetypeGraph g, int threads) {
+        this.numThreads = threads;
         extract(g);
     }
 
@@ -54,7 +71,6 @@ public final class NewmanGirvanModuleDetector {
 
         //  First, init set to remove all edges
         int mNumEdgesToRemove = originalGraph.getEdges().size();
-        mEdgesRemoved.clear();
 
         //  Calculate Base Line Stats Before Any Partitioning
         WeakComponentClusterer wcSearch = new WeakComponentClusterer();
@@ -70,53 +86,99 @@ public final class NewmanGirvanModuleDetector {
         maxModularityScore = state.getNetworkModularity();
         optimalPartitionState = state;
         optimalClusterSet = clusterSet;
-        optimalGraph = (Graph) originalGraph.copy();
+        synchronized (GraphUtil.getJungLock()) {
+            optimalGraph = (Graph) originalGraph.copy();
+        }
 
         //  Execute algorithm, remove all edges
         executeAlgorithm(originalGraph, mNumEdgesToRemove, state.getNumModules());
-        mEdgesRemoved.clear();
+    }
+
+    /**
+     * Gets the Max Network Modularity Score of an IndexedGraph, over all partitions visited
+     * by the Newman-Girvan algorithm, including the initial one.  Unlike the constructor, no
+     * JUNG objects are created, and betweenness is calculated with a single thread, so that
+     * several graphs, e.g. random graphs, may be scored in parallel.
+     *
+     * @param g IndexedGraph Object.
+     * @return max network modularity score.
+     */
+    public static double getMaxNetworkModularity(IndexedGraph g) {
+        NewmanGirvanEngine engine = new NewmanGirvanEngine(g);
+        double maxModularity = engine.getNetworkModularity();
+        int currentNumModules = engine.getNumComponents();
+        while (engine.hasNextEdge()) {
+            engine.removeNextEdge();
+            if (currentNumModules != engine.getNumComponents()) {
+                currentNumModules = engine.getNumComponents();
+                maxModularity = Math.max(maxModularity, engine.getNetworkModularity());
+            }
+        }
+        return maxModularity;
     }
 
     private void executeAlgorithm(Graph originalGraph, int numEdgesToRemove,
                                   int currentNumModules) {
-        Graph graphCopy = (Graph) originalGraph.copy();
+        IndexedGraph indexedGraph = new IndexedGraph(originalGraph);
+        ExecutorService executor = null;
+        if (numThreads > 1) {
+            executor = ParallelUtil.createExecutor(numThreads);
+        }
+        try {
+            EdgeBetweenness edgeBetweenness = new EdgeBetweenness(indexedGraph, executor,
+                    numThreads);
+            removeEdges(originalGraph, new NewmanGirvanEngine(indexedGraph, edgeBetweenness),
+                    numEdgesToRemove, currentNumModules);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private void removeEdges(Graph originalGraph, NewmanGirvanEngine engine,
+            int numEdgesToRemove, int currentNumModules) {
+        int optimalNumEdgesRemoved = 0;
 
         ProgressMonitor pMonitor = ProgressMonitor.getInstance();
         pMonitor.setMaxValue(numEdgesToRemove);
         for (int k = 0; k < numEdgesToRemove; k++) {
-            BetweennessCentrality bc = new BetweennessCentrality(graphCopy, false);
-            bc.setRemoveRankScoresOnFinalize(false);
-            bc.evaluate();
-
-            //  Determine the edge with highest betweenness score and remove it
-            EdgeRanking highestBetweenness = (EdgeRanking) bc.getRankings().get(0);
 
-            //  Output the edge info.
-            mEdgesRemoved.add(highestBetweenness.edge.getEqualEdge(graphCopy));
-            graphCopy.removeEdge(highestBetweenness.edge);
+            //  Remove the edge with highest betweenness score
+            engine.removeNextEdge();
 
             //  After removal of so many edges, we have multiple weak components
-            WeakComponentClusterer wcSearch = new WeakComponentClusterer();
-            ClusterSet clusterSet = wcSearch.extract(graphCopy);
-            if (currentNumModules != clusterSet.size()) {
-                currentNumModules = clusterSet.size();
+            if (currentNumModules != engine.getNumComponents()) {
+                currentNumModules = engine.getNumComponents();
 
                 // Calculate Network Modularity using *Original Graph*,
                 // not the Newly Partitioned Graph!
-                NetworkPartitionState state = calculateNetworkModularity(originalGraph,
-                        clusterSet, k + 1);
+                NetworkPartitionState state = new NetworkPartitionState();
+                state.setNumEdgesRemoved(k + 1);
+                state.setNumModules(currentNumModules);
+                state.setNetworkModularity(engine.getNetworkModularity());
                 //  outputState(state);
                 networkPartionStateList.add(state);
                 if (state.getNetworkModularity() > maxModularityScore) {
                     maxModularityScore = state.getNetworkModularity();
                     optimalPartitionState = state;
-                    optimalClusterSet = clusterSet;
-                    optimalGraph = (Graph) graphCopy.copy();
+                    optimalNumEdgesRemoved = k + 1;
                 }
             }
             pMonitor.incrementCurValue();
             CommandLineUtil.showProgress(pMonitor);
         }
+
+        //  Re-create the optimal partition, from the original graph
+        if (optimalNumEdgesRemoved > 0) {
+            IndexedGraph indexedGraph = engine.getGraph();
+            for (int k = 0; k < optimalNumEdgesRemoved; k++) {
+                Edge edge = indexedGraph.getEdge(engine.getRemovedEdge(k));
+                optimalGraph.removeEdge((Edge) edge.getEqualEdge(optimalGraph));
+            }
+            WeakComponentClusterer wcSearch = new WeakComponentClusterer();
+            optimalClusterSet = wcSearch.extract(optimalGraph);
+        }
     }
 
     private NetworkPartitionState calculateNetworkModularity(Graph graph, ClusterSet clusterSet,
@@ -0,0 +1,422 @@
+package org.mskcc.netbox.louvain;
+
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.decorators.StringLabeller;
+import org.mskcc.netbox.graph.GraphUtil;
+import org.mskcc.netbox.graph.IndexedGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Implementation of the Multi-Level Louvain Modularity Optimization Algorithm.
+ * <p/>
+ * Based on algorithm description in:  Blondel VD, Guillaume JL, Lambiotte R, Lefebvre E.
+ * Fast unfolding of communities in large networks.  J. Stat. Mech. (2008) P10008.
+ * http://arxiv.org/abs/0803.0476
+ * <p/>
+ * Each level repeatedly moves single nodes to the neighboring module with the largest
+ * modularity gain, until no move improves modularity.  The modules are then aggregated into
+ * the nodes of the next level.  The algorithm stops once a level moves no nodes.  All
+ * levels are stored as int-indexed, weighted adjacency arrays, and the gain of a single move
+ * is evaluated in O(degree) time.  Nodes are visited in a fixed order, so results are
+ * deterministic.
+ */
+public final class LouvainModuleDetector {
+    private static final double MIN_GAIN = 1.0E-12;
+    private Graph graph;
+    private int numLevels;
+    private double finalModularity;
+    private ArrayList<String> finalModuleList;
+    private HashMap<String, ArrayList<String>> globalModuleMap;
+
+    /**
+     * Constructor.
+     *
+     * @param originalGraph Original Graph.
+     */
+    public LouvainModuleDetector(Graph originalGraph) {
+        this.graph = originalGraph;
+    }
+
+    /**
+     * Execute Louvain Algorithm.
+     */
+    public void execute() {
+        IndexedGraph indexedGraph = new IndexedGraph(graph);
+        LouvainLevel level = new LouvainLevel(indexedGraph);
+        int numNodes = indexedGraph.getNumVertices();
+
+        //  Module of each original node;  initially, each node is in its own module
+        int[] membership = new int[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            membership[i] = i;
+        }
+
+        numLevels = 0;
+        while (true) {
+            int[] community = new int[level.getNumNodes()];
+            boolean moved = moveNodes(level, community);
+            int numCommunities = renumber(community);
+            if (!moved) {
+                break;
+            }
+            numLevels++;
+            for (int i = 0; i < numNodes; i++) {
+                membership[i] = community[membership[i]];
+            }
+            level = level.aggregate(community, numCommunities);
+        }
+        finalModularity = level.getModularity();
+
+        //  Assemble the final modules, numbered in order of their first node
+        StringLabeller labeller = StringLabeller.getLabeller(graph);
+        finalModuleList = new ArrayList<String>();
+        globalModuleMap = new HashMap<String, ArrayList<String>>();
+        String[] moduleIds = new String[level.getNumNodes()];
+        for (int i = 0; i < numNodes; i++) {
+            int module = membership[i];
+            if (moduleIds[module] == null) {
+                moduleIds[module] = "" + finalModuleList.size();
+                finalModuleList.add(moduleIds[module]);
+                globalModuleMap.put(moduleIds[module], new ArrayList<String>());
+            }
+            globalModuleMap.get(moduleIds[module]).add(GraphUtil.getVertexLabel(labeller,
+                    indexedGraph.getVertex(i)));
+        }
+    }
+
+    /**
+     * Gets the Final Module List Identified By Louvain.
+     * @return List of Modules.
+     */
+    public ArrayList<String> getFinalModuleList() {
+        return finalModuleList;
+    }
+
+    /**
+     * Gets the Global Module Map.
+     * @return Module Map.
+     */
+    public HashMap<String, ArrayList<String>> getGlobalModuleMap() {
+        return globalModuleMap;
+    }
+
+    /**
+     * Gets the Final Network Modularity.
+     * @return Network Modularity.
+     */
+    public double getFinalModularity() {
+        return finalModularity;
+    }
+
+    /**
+     * Gets the Number of Levels which improved modularity.
+     * @return Number of Levels.
+     */
+    public int getNumLevels() {
+        return numLevels;
+    }
+
+    /**
+     * Local Moving Phase:  moves single nodes between modules, until no move improves
+     * modularity.
+     *
+     * @return true if any node was moved.
+     */
+    private boolean moveNodes(LouvainLevel level, int[] community) {
+        int numNodes = level.getNumNodes();
+        double totalWeight = level.getTotalWeight();
+        if (totalWeight == 0.0) {
+            for (int i = 0; i < numNodes; i++) {
+                community[i] = i;
+            }
+            return false;
+        }
+
+        //  Sum of node degrees, per module
+        double[] moduleDegree = new double[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            community[i] = i;
+            moduleDegree[i] = level.getDegree(i);
+        }
+
+        //  Weights from the current node to each neighboring module
+        double[] neighborWeight = new double[numNodes];
+        int[] neighborModules = new int[numNodes];
+        Arrays.fill(neighborWeight, -1.0);
+
+        boolean moved = false;
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int i = 0; i < numNodes; i++) {
+                int current = community[i];
+                double degree = level.getDegree(i);
+
+                //  Collect the weights to all neighboring modules
+                int numNeighborModules = 0;
+                neighborWeight[current] = 0.0;
+                neighborModules[numNeighborModules++] = current;
+                int end = level.getNeighborEnd(i);
+                for (int pos = level.getNeighborStart(i); pos < end; pos++) {
+                    int j = level.getNeighbor(pos);
+                    if (j == i) {
+                        continue;
+                    }
+                    int module = community[j];
+                    if (neighborWeight[module] < 0.0) {
+                        neighborWeight[module] = 0.0;
+                        neighborModules[numNeighborModules++] = module;
+                    }
+                    neighborWeight[module] += level.getWeight(pos);
+                }
+
+                //  Remove the node from its module, and find the best module to insert into;
+                //  the gain of inserting node i into module c is proportional to
+                //  w(i, c) - degree(i) * degree(c) / 2m
+                moduleDegree[current] -= degree;
+                int best = current;
+                double bestGain = neighborWeight[current]
+                        - degree * moduleDegree[current] / totalWeight;
+                for (int k = 1; k < numNeighborModules; k++) {
+                    int module = neighborModules[k];
+                    double gain = neighborWeight[module]
+                            - degree * moduleDegree[module] / totalWeight;
+                    if (gain > bestGain + MIN_GAIN) {
+                        best = module;
+                        bestGain = gain;
+                    }
+                }
+                moduleDegree[best] += degree;
+                community[i] = best;
+                if (best != current) {
+                    improved = true;
+                    moved = true;
+                }
+                for (int k = 0; k < numNeighborModules; k++) {
+                    neighborWeight[neighborModules[k]] = -1.0;
+                }
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Renumbers the modules to 0..n-1, in order of their first node.
+     *
+     * @return number of modules.
+     */
+    private int renumber(int[] community) {
+        int[] newId = new int[community.length];
+        Arrays.fill(newId, -1);
+        int numCommunities = 0;
+        for (int i = 0; i < community.length; i++) {
+            if (newId[community[i]] < 0) {
+                newId[community[i]] = numCommunities++;
+            }
+            community[i] = newId[community[i]];
+        }
+        return numCommunities;
+    }
+}
+
+/**
+ * A Single Level of the Louvain Algorithm:  an undirected, weighted graph, stored as
+ * int-indexed adjacency arrays.  A self-loop of weight w adds 2w to the degree of its node,
+ * so that modularity of the aggregated graph equals modularity of the original partition.
+ */
+class LouvainLevel {
+    private int[] offsets;
+    private int[] neighbors;
+    private double[] weights;
+    private double[] degree;
+    private double totalWeight;
+
+    /**
+     * Constructor, for the first level.  Each edge has a weight of 1.
+     *
+     * @param g IndexedGraph Object.
+     */
+    LouvainLevel(IndexedGraph g) {
+        int numNodes = g.getNumVertices();
+        offsets = new int[numNodes + 1];
+        for (int i = 0; i < numNodes; i++) {
+            offsets[i + 1] = g.getNeighborEnd(i);
+        }
+        neighbors = new int[offsets[numNodes]];
+        weights = new double[neighbors.length];
+        degree = new double[numNodes];
+        for (int pos = 0; pos < neighbors.length; pos++) {
+            neighbors[pos] = g.getNeighbor(pos);
+            weights[pos] = 1.0;
+        }
+        for (int i = 0; i < numNodes; i++) {
+            degree[i] = g.getDegree(i);
+            totalWeight += degree[i];
+        }
+    }
+
+    private LouvainLevel(int[] o, int[] n, double[] w, double[] d, double total) {
+        this.offsets = o;
+        this.neighbors = n;
+        this.weights = w;
+        this.degree = d;
+        this.totalWeight = total;
+    }
+
+    /**
+     * Aggregates the nodes of each module into a single node of the next level.  Edges
+     * within a module become a self-loop.
+     *
+     * @param community      Module of each node, between 0 and numCommunities - 1.
+     * @param numCommunities Number of modules.
+     * @return next level.
+     */
+    LouvainLevel aggregate(int[] community, int numCommunities) {
+        int numNodes = getNumNodes();
+
+        //  Group the nodes by module
+        int[] memberOffsets = new int[numCommunities + 1];
+        for (int i = 0; i < numNodes; i++) {
+            memberOffsets[community[i] + 1]++;
+        }
+        for (int c = 0; c < numCommunities; c++) {
+            memberOffsets[c + 1] += memberOffsets[c];
+        }
+        int[] members = new int[numNodes];
+        int[] next = Arrays.copyOf(memberOffsets, numCommunities);
+        for (int i = 0; i < numNodes; i++) {
+            members[next[community[i]]++] = i;
+        }
+
+        //  Sum the edge weights between each pair of modules
+        int[] newOffsets = new int[numCommunities + 1];
+        int[] newNeighbors = new int[neighbors.length];
+        double[] newWeights = new double[neighbors.length];
+        double[] newDegree = new double[numCommunities];
+        double[] pairWeight = new double[numCommunities];
+        int[] touched = new int[numCommunities];
+        Arrays.fill(pairWeight, -1.0);
+        int size = 0;
+        for (int c = 0; c < numCommunities; c++) {
+            int numTouched = 0;
+            for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+                int i = members[m];
+                newDegree[c] += degree[i];
+                for (int pos = offsets[i]; pos < offsets[i + 1]; pos++) {
+                    int other = community[neighbors[pos]];
+                    if (pairWeight[other] < 0.0) {
+                        pairWeight[other] = 0.0;
+                        touched[numTouched++] = other;
+                    }
+
+                    //  Self-loops are stored once, all other edges once per endpoint
+                    pairWeight[other] += neighbors[pos] == i ? 2.0 * weights[pos] : weights[pos];
+                }
+            }
+            for (int k = 0; k < numTouched; k++) {
+                int other = touched[k];
+                newNeighbors[size] = other;
+
+                //  Internal edges were counted from both of their endpoints
+                newWeights[size++] = other == c ? pairWeight[other] / 2.0 : pairWeight[other];
+                pairWeight[other] = -1.0;
+            }
+            newOffsets[c + 1] = size;
+        }
+        return new LouvainLevel(newOffsets, Arrays.copyOf(newNeighbors, size),
+                Arrays.copyOf(newWeights, size), newDegree, totalWeight);
+    }
+
+    /**
+     * Calculates Network Modularity, with each node in its own module.
+     *
+     * @return network modularity score.
+     */
+    double getModularity() {
+        if (totalWeight == 0.0) {
+            return 0.0;
+        }
+        double q = 0.0;
+        for (int i = 0; i < getNumNodes(); i++) {
+            for (int pos = offsets[i]; pos < offsets[i + 1]; pos++) {
+                if (neighbors[pos] == i) {
+                    q += 2.0 * weights[pos] / totalWeight;
+                }
+            }
+            double fraction = degree[i] / totalWeight;
+            q -= fraction * fraction;
+        }
+        return q;
+    }
+
+    /**
+     * Gets the Number of Nodes.
+     *
+     * @return number of nodes.
+     */
+    int getNumNodes() {
+        return degree.length;
+    }
+
+    /**
+     * Gets the Sum of all Node Degrees, i.e. twice the total edge weight.
+     *
+     * @return total weight.
+     */
+    double getTotalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * Gets the Weighted Degree of the Specified Node.
+     *
+     * @param i Node ID.
+     * @return weighted degree.
+     */
+    double getDegree(int i) {
+        return degree[i];
+    }
+
+    /**
+     * Gets the Position of the First Neighbor of the Specified Node.
+     *
+     * @param i Node ID.
+     * @return position.
+     */
+    int getNeighborStart(int i) {
+        return offsets[i];
+    }
+
+    /**
+     * Gets the Position after the Last Neighbor of the Specified Node.
+     *
+     * @param i Node ID.
+     * @return position.
+     */
+    int getNeighborEnd(int i) {
+        return offsets[i + 1];
+    }
+
+    /**
+     * Gets the Neighbor at the Specified Position.
+     *
+     * @param pos Position.
+     * @return Node ID.
+     */
+    int getNeighbor(int pos) {
+        return neighbors[pos];
+    }
+
+    /**
+     * Gets the Edge Weight at the Specified Position.
+     *
+     * @param pos Position.
+     * @return edge weight.
+     */
+    double getWeight(int pos) {
+        return weights[pos];
+    }
+}
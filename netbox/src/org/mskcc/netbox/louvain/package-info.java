@@ -0,0 +1,4 @@
+/**
+ * Louvain Modularity Optimization Implementation.
+ */
+package org.mskcc.netbox.louvain;
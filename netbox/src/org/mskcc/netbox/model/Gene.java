@@ -23,7 +23,9 @@ import java.io.Serializable;
 	@NamedQuery(name = "org.mskcc.netbox.deleteAllGenes",
 	query = "delete from Gene"),
 	@NamedQuery(name = "org.mskcc.netbox.getGeneByEntrezGeneId",
-	query = "from Gene as gene where gene.entrezGeneId = :geneId")
+	query = "from Gene as gene where gene.entrezGeneId = :geneId"),
+	@NamedQuery(name = "org.mskcc.netbox.getGeneSymbolsByEntrezGeneId",
+	query = "select gene.entrezGeneId, gene.geneSymbol from Gene as gene")
 })
 public final class Gene implements Serializable {
 
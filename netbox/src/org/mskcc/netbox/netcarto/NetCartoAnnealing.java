@@ -7,15 +7,20 @@ import edu.uci.ics.jung.graph.Vertex;
 import edu.uci.ics.jung.graph.decorators.StringLabeller;
 import org.apache.log4j.Logger;
 import org.mskcc.netbox.graph.GraphUtil;
+import org.mskcc.netbox.graph.IndexedGraph;
 import org.mskcc.netbox.graph.NetworkModularity;
-import org.mskcc.netbox.graph.NetworkModularityFast;
+import org.mskcc.netbox.util.ParallelUtil;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Implementation of the NetCarto Simulated Annealing Algorithm.
@@ -23,32 +28,68 @@ import java.util.Set;
  * Based on algorithm description in: Guimer R, Nunes Amaral LA.
  * Functional cartography of complex metabolic networks.  Nature. 2005 Feb 24;433(7028):895-900.
  * http://www.ncbi.nlm.nih.gov/pubmed/15729348
+ * <p/>
+ * Optionally, several annealing chains (replicas) are run in replica exchange mode, see:
+ * Earl DJ, Deem MW.  Parallel tempering:  theory, applications, and new perspectives.
+ * Phys Chem Chem Phys. 2005 Dec 7;7(23):3910-6.
  *
  * @author Ethan Cerami
  */
 public final class NetCartoAnnealing {
     private static Logger logger = Logger.getLogger(NetCartoAnnealing.class);
+    private static final long SEED = 500;
+    private static final double TEMPERATURE_RATIO = 1.25;
     private double c = 0.995;
-    private double f = 1;
-    private Random randomGenerator = new Random(500);
     private Graph graph;
-    private int currentId = 0;
+    private int numReplicas;
+    private int numThreads;
     private Set<String> ignoreSet = new HashSet<String>();
-    private NetworkModularityFast fastModularityUtil;
-    private NetCartoState currentState;
+    private IndexedGraph indexedGraph;
+    private String[] labels;
+    private HashMap<String, Integer> vertexIndex = new HashMap<String, Integer>();
+    private NetCartoState bestState;
     private double finalModularity;
     private ArrayList<String> finalModuleList;
     private HashMap<String, String> finalModuleMap;
     private HashMap<String, ArrayList<String>> globalModuleMap;
 
     /**
-     * Constructor.
+     * Constructor, for a single annealing chain.
      *
      * @param originalGraph Original Graph.
      */
     public NetCartoAnnealing(Graph originalGraph) {
+        this(originalGraph, 1, 1);
+    }
+
+    /**
+     * Constructor.
+     * <p/>
+     * With more than one replica, simulated annealing runs in replica exchange (parallel
+     * tempering) mode:  replicas are annealed at staggered temperatures, and after each
+     * temperature step, adjacent replicas may exchange their states.  The best partition
+     * found by any replica is kept.
+     *
+     * @param originalGraph Original Graph.
+     * @param replicas      Number of replicas.
+     * @param threads       Number of threads used to update the replicas.
+     */
+    public NetCartoAnnealing(Graph originalGraph, int replicas, int threads) {
+        if (replicas < 1) {
+            throw new IllegalArgumentException("Number of replicas must be at least 1.");
+        } else if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1.");
+        }
         this.graph = originalGraph;
-        this.fastModularityUtil = new NetworkModularityFast(graph);
+        this.numReplicas = replicas;
+        this.numThreads = threads;
+        this.indexedGraph = new IndexedGraph(graph);
+        StringLabeller labeller = StringLabeller.getLabeller(graph);
+        labels = new String[indexedGraph.getNumVertices()];
+        for (int v = 0; v < labels.length; v++) {
+            labels[v] = GraphUtil.getVertexLabel(labeller, indexedGraph.getVertex(v));
+            vertexIndex.put(labels[v], v);
+        }
     }
 
     /**
@@ -79,8 +120,8 @@ public final class NetCartoAnnealing {
         executeAnnealing();
 
         //  Assemble the final modules
-        ArrayList<String> moduleList = currentState.getModuleList();
-        HashMap<String, String> moduleMap = currentState.getModuleMap();
+        ArrayList<String> moduleList = bestState.getModuleList();
+        HashMap<String, String> moduleMap = bestState.getModuleMap();
         for (String moduleId : moduleList) {
             String newModuleId = "" + counter;
             counter++;
@@ -135,281 +176,159 @@ public final class NetCartoAnnealing {
     }
 
     private void executeAnnealing() {
-        int counter = 0;
-        boolean continueAnnealing = true;
+        int n = indexedGraph.getNumVertices();
+        NetCartoReplica[] replicas = new NetCartoReplica[numReplicas];
+        double[] temperatures = new double[numReplicas];
+        for (int k = 0; k < numReplicas; k++) {
+            long seed = k == 0 ? SEED : ParallelUtil.deriveSeed(SEED, k);
+            String prefix = k == 0 ? "MODULE_" : "MODULE_" + k + "_";
+            replicas[k] = new NetCartoReplica(indexedGraph, labels, vertexIndex, ignoreSet,
+                    seed, prefix);
+
+            //  Set start temperature;  additional replicas run at staggered, higher temperatures
+            temperatures[k] = k == 0 ? 2.0 / n : temperatures[k - 1] * TEMPERATURE_RATIO;
+        }
+        Random exchangeRandom = new Random(ParallelUtil.deriveSeed(SEED, numReplicas));
+        bestState = copyState(replicas[0].getState());
 
-        currentState = initState();
+        ExecutorService executor = null;
+        if (numThreads > 1 && numReplicas > 1) {
+            executor = ParallelUtil.createExecutor(Math.min(numThreads, numReplicas));
+        }
+        try {
+            int counter = 0;
+            int round = 0;
+            boolean continueAnnealing = true;
+
+            //  Execute Simulated Annealing
+            while (continueAnnealing) {
+                outputState(temperatures[0], replicas[0].getState());
+
+                //  Update the States
+                boolean[] unchanged = updateReplicas(replicas, temperatures, executor);
+
+                //  According to RGraph / NetCarto documentation, "program will stop when the
+                //  modularity remains unchanged during 25 different temperatures."
+                if (unchanged[0]) {
+                    counter++;
+                } else {
+                    counter = 0;
+                }
 
-        //  Set start temperature
-        double temperature = 2.0 / graph.numVertices();
+                if (counter == 100) {
+                    continueAnnealing = false;
+                }
 
-        //  Execute Simulated Annealing
-        while (continueAnnealing) {
-            outputState(temperature, currentState);
+                //  Keep track of the best partition found by any replica
+                for (NetCartoReplica replica : replicas) {
+                    if (replica.getState().getNetworkModularity()
+                            < bestState.getNetworkModularity()) {
+                        bestState = copyState(replica.getState());
+                    }
+                }
 
-            //  Update the State
-            NetCartoState updatedState = updateState(temperature, currentState);
+                //  Exchange states between adjacent replicas, alternating between even and
+                //  odd pairs.  If replica 0 receives a state of different modularity, the
+                //  modularity has changed, just as if it had been changed by an update.
+                double modularity = replicas[0].getState().getNetworkModularity();
+                for (int k = round % 2; k + 1 < numReplicas; k += 2) {
+                    exchangeStates(replicas[k], replicas[k + 1], temperatures[k],
+                            temperatures[k + 1], exchangeRandom);
+                }
+                if (Math.abs(replicas[0].getState().getNetworkModularity() - modularity)
+                        >= NetCartoReplica.MODULARITY_TOLERANCE) {
+                    counter = 0;
+                }
 
-            //  According to RGraph / NetCarto documentation, "program will stop when the
-            //  modularity remains unchanged during 25 different temperatures."
-            double currentModularity = currentState.getNetworkModularity();
-            double updatedModularity = updatedState.getNetworkModularity();
-            if (Math.abs(currentModularity - updatedModularity) < 1E-6) {
-                counter++;
-            } else {
-                counter = 0;
+                //  Cool down
+                for (int k = 0; k < numReplicas; k++) {
+                    temperatures[k] = temperatures[k] * c;
+                }
+                round++;
             }
-
-            if (counter == 100) {
-                continueAnnealing = false;
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
             }
-
-            //  Cool down
-            currentState = updatedState;
-            temperature = temperature * c;
         }
     }
 
     /**
-     * Initial State is Defined by N Modules.  All nodes in separate modules.
+     * Updates all Replicas, each at its own temperature.
+     *
+     * @return for each replica, true if its modularity remained unchanged.
      */
-    private NetCartoState initState() {
-        NetCartoState state = new NetCartoState();
-        ArrayList<String> moduleList = new ArrayList<String>();
-        HashMap<String, String> moduleMap = new HashMap<String, String>();
-        StringLabeller labeller = StringLabeller.getLabeller(graph);
-        Set<Vertex> vertexSet = graph.getVertices();
-        for (Vertex vertex : vertexSet) {
-            String label = labeller.getLabel(vertex);
-            if (!ignoreSet.contains(label)) {
-                String moduleId = getNextId();
-                moduleList.add(moduleId);
-                moduleMap.put(label, moduleId);
+    private boolean[] updateReplicas(final NetCartoReplica[] replicas,
+            final double[] temperatures, ExecutorService executor) {
+        boolean[] unchanged = new boolean[replicas.length];
+        if (executor == null) {
+            for (int k = 0; k < replicas.length; k++) {
+                unchanged[k] = replicas[k].update(temperatures[k]);
             }
+            return unchanged;
         }
-        double networkModularity = fastModularityUtil.calculateNetworkModularity(moduleList,
-                moduleMap, false, false);
-        state.setModuleList(moduleList);
-        state.setModuleMap(moduleMap);
-        state.setNetworkModularity(networkModularity);
-        return state;
-    }
-
-    private void outputState(double temperature, NetCartoState state) {
-        logger.warn("1/T:  " + (1 / temperature)
-                + "\tTemp:  " + temperature + "\tModularity:  "
-                + (state.getNetworkModularity() * -1) + "\t"
-                + "Num_Modules:  " + state.getModuleList().size());
-    }
-
-    private NetCartoState updateState(double temperature, NetCartoState state) {
-        ArrayList<String> moduleList = (ArrayList<String>) state.getModuleList().clone();
-
-        //  From original algorithm description:
-        //  "we propose n1 = fS^2 individual node movements from one module to another, where S is
-        //  the number of nodes in the network."
-        int s = graph.numVertices();
-        int n1 = (int) (f * Math.pow(s, 2));
-
-        fastModularityUtil.setBaseLine(moduleList, state.getModuleMap());
-        HashMap<String, String> moduleMap = state.getModuleMap();
-
-        ArrayList<String> nodeList = new ArrayList<String>();
-        nodeList.addAll(moduleMap.keySet());
-
-        if (moduleList.size() > 1) {
-            for (int i = 0; i < n1; i++) {
-                //  At each iteration, randomly pick a vertex from G
-                int randomIndex = randomGenerator.nextInt(nodeList.size());
-                String nodeLabel = nodeList.get(randomIndex);
-                //  and, assign it to a random module
-                String originalModuleId = moduleMap.get(nodeLabel);
-                int randomModuleIndex = randomGenerator.nextInt(moduleList.size());
-                String randomModuleId = moduleList.get(randomModuleIndex);
-                if (!originalModuleId.equals(randomModuleId)) {
-                    logger.info("Randomly re-assigning " + nodeLabel + " from module: "
-                            + originalModuleId + " to module:  " + randomModuleId + ".");
-
-                    //  Create updated State, and Decide to Accept / Reject it
-                    double updatedQ = fastModularityUtil.updateNetworkModularityOneNodeMove(
-                            state.getModuleList(), originalModuleId, randomModuleId,
-                            nodeLabel);
-                    double dE = updatedQ - state.getNetworkModularity();
-                    double p = randomGenerator.nextDouble();
-                    if (dE > 0.0 && Math.exp((-1 * dE) / temperature) < p) {
-                        logger.info("Rejecting updated state");
-                    } else {
-                        fastModularityUtil.accept();
-                        state.setNetworkModularity(updatedQ);
-                        moduleMap.put(nodeLabel, randomModuleId);
-                    }
+        ArrayList<Future<Boolean>> futureList = new ArrayList<Future<Boolean>>();
+        for (int k = 0; k < replicas.length; k++) {
+            final int replicaIndex = k;
+            futureList.add(executor.submit(new Callable<Boolean>() {
+                public Boolean call() {
+                    return replicas[replicaIndex].update(temperatures[replicaIndex]);
                 }
-            }
+            }));
         }
-
-        //  Before proceeding, prune the module list of empty modules.
-        pruneModuleList(state);
-
-        //  From original algorithm description:
-        //  "We also propose nc = fS collective movements, which involve either merging two modules
-        //  or splitting a module.
-        int nc = (int) (f * s);
-        for (int i = 0; i < nc; i++) {
-            moduleList = (ArrayList<String>) state.getModuleList().clone();
-            moduleMap = (HashMap<String, String>)
-                    state.getModuleMap().clone();
-
-            int action = randomGenerator.nextInt(2);
-            if (action == 0) {
-                //  Merge Two Modules
-                mergeTwoModules(moduleList, moduleMap);
-            } else {
-                //  Split a Module
-                splitModule(moduleList, moduleMap);
+        try {
+            for (int k = 0; k < replicas.length; k++) {
+                unchanged[k] = futureList.get(k).get();
             }
-            //  Create updated State, and Decide to Accept / Reject it
-            NetCartoState updatedState = createUpdatedState(moduleList, moduleMap);
-            if (acceptUpdatedState(state, updatedState, temperature)) {
-                state = updatedState;
-                //  Again, before proceeding, prune the module list of empty modules.
-                pruneModuleList(state);
+        } catch (InterruptedException e) {
+            for (Future<Boolean> future : futureList) {
+                future.cancel(true);
             }
-        }
-
-        return state;
-    }
-
-    private void pruneModuleList(NetCartoState state) {
-        ArrayList<String> moduleList;
-        moduleList = state.getModuleList();
-        HashMap<String, String> moduleMap = state.getModuleMap();
-
-        //  Before proceeding, prune the module list of any empty modules.
-        //  To do so, first, create an inverse look-up map
-        HashMap<String, ArrayList<String>> nodesInModule =
-                new HashMap<String, ArrayList<String>>();
-        for (String gene : moduleMap.keySet()) {
-            String moduleId = moduleMap.get(gene);
-            ArrayList<String> nodeList = nodesInModule.get(moduleId);
-            if (nodeList == null) {
-                nodeList = new ArrayList<String>();
-                nodeList.add(gene);
-                nodesInModule.put(moduleId, nodeList);
-            } else {
-                nodeList.add(gene);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while annealing.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
             }
+            throw (RuntimeException) cause;
         }
-        ArrayList<String> markedForRemoval = new ArrayList<String>();
-        for (String moduleId : moduleList) {
-            ArrayList nodeList = nodesInModule.get(moduleId);
-            if (nodeList == null || nodeList.size() == 0) {
-                markedForRemoval.add(moduleId);
-            }
-        }
-        for (String moduleId : markedForRemoval) {
-            moduleList.remove(moduleId);
-        }
+        return unchanged;
     }
 
-    private NetCartoState createUpdatedState(ArrayList<String> moduleList,
-                                             HashMap<String, String> moduleMap) {
-        NetCartoState updatedState = new NetCartoState(moduleList, moduleMap);
-        updatedState.setNetworkModularity(NetworkModularity.calculateNetworkModularity(graph,
-                moduleList, moduleMap, false));
-        return updatedState;
-    }
-
-    private boolean acceptUpdatedState(NetCartoState state, NetCartoState updatedState,
-                                       double temperature) {
-        double dE = updatedState.getNetworkModularity()
-                - state.getNetworkModularity();
-        double p = randomGenerator.nextDouble();
-        logger.info("dE = " + dE + ", random:  " + p);
-        if (dE > 0.0 && Math.exp((-1 * dE) / temperature) < p) {
-            //  Reject
-            logger.info("Rejecting updated state");
-            return false;
-        } else {
-            //  Accept
-            logger.info("Accepting updated state");
-            return true;
-        }
-    }
-
-    private void mergeTwoModules(ArrayList<String> moduleList,
-                                 HashMap<String, String> moduleMap) {
-        if (moduleList.size() <= 1) {
-            return;
-        }
-        //  Randomly pick two different modules
-        int moduleAIndex = randomGenerator.nextInt(moduleList.size());
-        int moduleBIndex = randomGenerator.nextInt(moduleList.size());
-        while (moduleAIndex == moduleBIndex) {
-            moduleBIndex = randomGenerator.nextInt(moduleList.size());
-        }
-
-        String moduleAId = moduleList.get(moduleAIndex);
-        String moduleBId = moduleList.get(moduleBIndex);
-        logger.info("Merging modules:  " + moduleAId + " and " + moduleBId + " together.");
-
-        //  Remove module B from list
-        moduleList.remove(moduleBIndex);
-
-        // Update all nodes that previously pointed to B, and now point them to A
-        for (String node : moduleMap.keySet()) {
-            String moduleId = moduleMap.get(node);
-            if (moduleId.equals(moduleBId)) {
-                moduleMap.put(node, moduleAId);
-            }
+    /**
+     * Exchanges the States of Two Replicas, with the Metropolis probability for replica
+     * exchange:  min(1, exp((1/T_a - 1/T_b) * (E_a - E_b))), where E is the energy (-Q).
+     */
+    private void exchangeStates(NetCartoReplica replicaA, NetCartoReplica replicaB,
+            double temperatureA, double temperatureB, Random exchangeRandom) {
+        NetCartoState stateA = replicaA.getState();
+        NetCartoState stateB = replicaB.getState();
+        double delta = (1 / temperatureA - 1 / temperatureB)
+                * (stateA.getNetworkModularity() - stateB.getNetworkModularity());
+        if (delta >= 0.0 || exchangeRandom.nextDouble() < Math.exp(delta)) {
+            logger.info("Exchanging states at temperatures:  " + temperatureA + " and "
+                    + temperatureB + ".");
+            replicaA.setState(stateB);
+            replicaB.setState(stateA);
         }
     }
 
-    private void splitModule(ArrayList<String> moduleList,
-                             HashMap<String, String> moduleMap) {
-
-        //  Return if we have reached the upper limit of modules
-        if (graph.numVertices() == moduleList.size()) {
-            return;
-        }
-
-        //  Randomly pick a module to split
-        int moduleIdIndex = randomGenerator.nextInt(moduleList.size());
-        String moduleId = moduleList.get(moduleIdIndex);
-
-        //  Get all nodes in that module
-        ArrayList<String> nodeList = new ArrayList<String>();
-        for (String node : moduleMap.keySet()) {
-            String currentModuleId = moduleMap.get(node);
-            if (moduleId.equals(currentModuleId)) {
-                nodeList.add(node);
-            }
-        }
-
-        //  Create a new module
-        String newModuleId = getNextId();
-        moduleList.add(newModuleId);
-        logger.info("Splitting module " + moduleId + " into two.");
-
-        //  Shuffle all the nodes
-        Collections.shuffle(nodeList, randomGenerator);
-
-        //  Pick a random split index
-        int splitIndex = randomGenerator.nextInt(nodeList.size());
-
-        //  Randomly assign genes between the modules
-        for (int i = 0; i < splitIndex; i++) {
-            String nodeLabel = nodeList.get(i);
-            moduleMap.put(nodeLabel, moduleId);
-        }
-        for (int i = splitIndex; i < nodeList.size(); i++) {
-            String nodeLabel = nodeList.get(i);
-            moduleMap.put(nodeLabel, newModuleId);
-        }
+    /**
+     * Copies the Specified State, as replicas keep on updating their own state in place.
+     */
+    private NetCartoState copyState(NetCartoState state) {
+        NetCartoState copy = new NetCartoState(new ArrayList<String>(state.getModuleList()),
+                new HashMap<String, String>(state.getModuleMap()));
+        //  The getter returns the energy (-Q), while the setter expects Q
+        copy.setNetworkModularity(-1 * state.getNetworkModularity());
+        return copy;
     }
 
-    private String getNextId() {
-        String id = "MODULE_" + currentId;
-        currentId++;
-        return id;
+    private void outputState(double temperature, NetCartoState state) {
+        logger.warn("1/T:  " + (1 / temperature)
+                + "\tTemp:  " + temperature + "\tModularity:  "
+                + (state.getNetworkModularity() * -1) + "\t"
+                + "Num_Modules:  " + state.getModuleList().size());
     }
 }
@@ -0,0 +1,361 @@
+package org.mskcc.netbox.netcarto;
+
+import org.apache.log4j.Logger;
+import org.mskcc.netbox.graph.IndexedGraph;
+import org.mskcc.netbox.graph.ModularityState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * A Single NetCarto Simulated Annealing Chain.
+ * <p/>
+ * Each replica owns its random generator, its partition state and its scratch space, so that
+ * several replicas can be updated concurrently, on separate threads.  The graph and vertex
+ * index are shared between replicas, and are only read.  Debug messages are only built if
+ * info logging is enabled, so that proposals do not allocate at the default log level.
+ */
+final class NetCartoReplica {
+    /**
+     * Modularity changes below this tolerance count as unchanged.
+     */
+    static final double MODULARITY_TOLERANCE = 1E-6;
+    private static Logger logger = Logger.getLogger(NetCartoReplica.class);
+    private double f = 1;
+    private Random randomGenerator;
+    private String idPrefix;
+    private int currentId = 0;
+    private IndexedGraph indexedGraph;
+    private HashMap<String, Integer> vertexIndex;
+    private NetCartoState state;
+
+    //  Module IDs and non-empty modules of the modularity state, during collective moves
+    private String[] moduleIds;
+    private int numModuleIds;
+    private int[] activeModules;
+    private int numActiveModules;
+
+    /**
+     * Constructor.  The initial state is defined by N modules, with all nodes in separate
+     * modules.
+     *
+     * @param g         IndexedGraph Object.
+     * @param labels    Node label of each vertex ID.
+     * @param vIndex    Vertex ID of each node label.
+     * @param ignoreSet Node labels to leave out of the annealing.
+     * @param seed      Random seed.
+     * @param prefix    Prefix of new module IDs;  replicas which exchange states must use
+     *                  distinct prefixes, so that module IDs remain unique.
+     */
+    NetCartoReplica(IndexedGraph g, String[] labels, HashMap<String, Integer> vIndex,
+            Set<String> ignoreSet, long seed, String prefix) {
+        this.indexedGraph = g;
+        this.idPrefix = prefix;
+        this.vertexIndex = vIndex;
+        this.randomGenerator = new Random(seed);
+        ArrayList<String> moduleList = new ArrayList<String>();
+        HashMap<String, String> moduleMap = new HashMap<String, String>();
+        for (String label : labels) {
+            if (!ignoreSet.contains(label)) {
+                String moduleId = getNextId();
+                moduleList.add(moduleId);
+                moduleMap.put(label, moduleId);
+            }
+        }
+        state = new NetCartoState(moduleList, moduleMap);
+        state.setNetworkModularity(createModularityState(moduleList, moduleMap, 0)
+                .getModularity());
+    }
+
+    /**
+     * Gets the Current State.
+     *
+     * @return NetCartoState Object.
+     */
+    NetCartoState getState() {
+        return state;
+    }
+
+    /**
+     * Sets the Current State, e.g. when exchanging states between replicas.
+     *
+     * @param s NetCartoState Object.
+     */
+    void setState(NetCartoState s) {
+        this.state = s;
+    }
+
+    /**
+     * Proposes and accepts / rejects all moves at the specified temperature.
+     *
+     * @param temperature Temperature.
+     * @return true if the modularity remained unchanged by the collective moves.
+     */
+    boolean update(double temperature) {
+        NetCartoState updatedState = updateState(temperature, state);
+        double currentModularity = state.getNetworkModularity();
+        double updatedModularity = updatedState.getNetworkModularity();
+        state = updatedState;
+        return Math.abs(currentModularity - updatedModularity) < MODULARITY_TOLERANCE;
+    }
+
+    private NetCartoState updateState(double temperature, NetCartoState state) {
+        ArrayList<String> moduleList = (ArrayList<String>) state.getModuleList().clone();
+
+        //  From original algorithm description:
+        //  "we propose n1 = fS^2 individual node movements from one module to another, where S is
+        //  the number of nodes in the network."
+        int s = indexedGraph.getNumVertices();
+        int n1 = (int) (f * Math.pow(s, 2));
+
+        HashMap<String, String> moduleMap = state.getModuleMap();
+        int nc = (int) (f * s);
+        ModularityState modularityState = createModularityState(moduleList, moduleMap, nc);
+
+        ArrayList<String> nodeList = new ArrayList<String>();
+        nodeList.addAll(moduleMap.keySet());
+
+        if (moduleList.size() > 1) {
+            for (int i = 0; i < n1; i++) {
+                //  At each iteration, randomly pick a vertex from G
+                int randomIndex = randomGenerator.nextInt(nodeList.size());
+                String nodeLabel = nodeList.get(randomIndex);
+                //  and, assign it to a random module
+                String originalModuleId = moduleMap.get(nodeLabel);
+                int randomModuleIndex = randomGenerator.nextInt(moduleList.size());
+                String randomModuleId = moduleList.get(randomModuleIndex);
+                if (!originalModuleId.equals(randomModuleId)) {
+                    if (logger.isInfoEnabled()) {
+                        logger.info("Randomly re-assigning " + nodeLabel + " from module: "
+                                + originalModuleId + " to module:  " + randomModuleId + ".");
+                    }
+
+                    //  Calculate the change in energy (-Q), and Decide to Accept / Reject it
+                    int vertex = vertexIndex.get(nodeLabel);
+                    double dE = -1 * modularityState.getDeltaOneNodeMove(vertex,
+                            randomModuleIndex);
+                    double p = randomGenerator.nextDouble();
+                    if (dE > 0.0 && Math.exp((-1 * dE) / temperature) < p) {
+                        logger.info("Rejecting updated state");
+                    } else {
+                        modularityState.moveNode(vertex, randomModuleIndex);
+                        state.setNetworkModularity(modularityState.getModularity());
+                        moduleMap.put(nodeLabel, randomModuleId);
+                    }
+                }
+            }
+        }
+
+        //  Before proceeding, prune the module list of empty modules.
+        pruneModuleList(state);
+
+        //  From original algorithm description:
+        //  "We also propose nc = fS collective movements, which involve either merging two modules
+        //  or splitting a module."
+        //  Each proposal is evaluated on the modularity state, from the module aggregates and the
+        //  nodes involved only.  The module list and module map are only rebuilt at the end, if
+        //  any proposal was accepted.
+        moduleIds = moduleList.toArray(new String[moduleList.size() + nc]);
+        numModuleIds = moduleList.size();
+        activeModules = new int[moduleList.size() + nc];
+        numActiveModules = 0;
+        for (int i = 0; i < moduleList.size(); i++) {
+            if (modularityState.getModuleSize(i) > 0) {
+                activeModules[numActiveModules++] = i;
+            }
+        }
+        int[] nodes = new int[indexedGraph.getNumVertices()];
+        boolean changed = false;
+        for (int i = 0; i < nc; i++) {
+            int action = randomGenerator.nextInt(2);
+            if (action == 0) {
+                //  Merge Two Modules
+                changed |= mergeTwoModules(modularityState, temperature);
+            } else {
+                //  Split a Module
+                changed |= splitModule(modularityState, nodes, temperature);
+            }
+        }
+
+        if (changed) {
+            ArrayList<String> updatedModuleList = new ArrayList<String>();
+            for (int i = 0; i < numActiveModules; i++) {
+                updatedModuleList.add(moduleIds[activeModules[i]]);
+            }
+            HashMap<String, String> updatedModuleMap = new HashMap<String, String>();
+            for (String node : moduleMap.keySet()) {
+                int module = modularityState.getModule(vertexIndex.get(node));
+                updatedModuleMap.put(node, moduleIds[module]);
+            }
+            state = new NetCartoState(updatedModuleList, updatedModuleMap);
+            state.setNetworkModularity(modularityState.getModularity());
+        }
+        return state;
+    }
+
+    /**
+     * Creates a ModularityState for the Specified Modules.  Module IDs are mapped to their
+     * index in the module list, and extraModules further module IDs are reserved for new
+     * modules.
+     */
+    private ModularityState createModularityState(ArrayList<String> moduleList,
+                                                  HashMap<String, String> moduleMap,
+                                                  int extraModules) {
+        HashMap<String, Integer> moduleIndex = new HashMap<String, Integer>();
+        for (int i = 0; i < moduleList.size(); i++) {
+            moduleIndex.put(moduleList.get(i), i);
+        }
+        int[] assignment = new int[indexedGraph.getNumVertices()];
+        Arrays.fill(assignment, -1);
+        for (String node : moduleMap.keySet()) {
+            Integer index = moduleIndex.get(moduleMap.get(node));
+            if (index != null) {
+                assignment[vertexIndex.get(node)] = index;
+            }
+        }
+        return new ModularityState(indexedGraph, assignment,
+                moduleList.size() + extraModules);
+    }
+
+    private void pruneModuleList(NetCartoState state) {
+        ArrayList<String> moduleList;
+        moduleList = state.getModuleList();
+        HashMap<String, String> moduleMap = state.getModuleMap();
+
+        //  Before proceeding, prune the module list of any empty modules.
+        //  To do so, first, create an inverse look-up map
+        HashMap<String, ArrayList<String>> nodesInModule =
+                new HashMap<String, ArrayList<String>>();
+        for (String gene : moduleMap.keySet()) {
+            String moduleId = moduleMap.get(gene);
+            ArrayList<String> nodeList = nodesInModule.get(moduleId);
+            if (nodeList == null) {
+                nodeList = new ArrayList<String>();
+                nodeList.add(gene);
+                nodesInModule.put(moduleId, nodeList);
+            } else {
+                nodeList.add(gene);
+            }
+        }
+        ArrayList<String> markedForRemoval = new ArrayList<String>();
+        for (String moduleId : moduleList) {
+            ArrayList nodeList = nodesInModule.get(moduleId);
+            if (nodeList == null || nodeList.size() == 0) {
+                markedForRemoval.add(moduleId);
+            }
+        }
+        for (String moduleId : markedForRemoval) {
+            moduleList.remove(moduleId);
+        }
+    }
+
+    private boolean acceptUpdatedState(double dE, double temperature) {
+        double p = randomGenerator.nextDouble();
+        if (logger.isInfoEnabled()) {
+            logger.info("dE = " + dE + ", random:  " + p);
+        }
+        if (dE > 0.0 && Math.exp((-1 * dE) / temperature) < p) {
+            //  Reject
+            logger.info("Rejecting updated state");
+            return false;
+        } else {
+            //  Accept
+            logger.info("Accepting updated state");
+            return true;
+        }
+    }
+
+    private boolean mergeTwoModules(ModularityState modularityState, double temperature) {
+        if (numActiveModules <= 1) {
+            return false;
+        }
+        //  Randomly pick two different modules
+        int moduleAIndex = randomGenerator.nextInt(numActiveModules);
+        int moduleBIndex = randomGenerator.nextInt(numActiveModules);
+        while (moduleAIndex == moduleBIndex) {
+            moduleBIndex = randomGenerator.nextInt(numActiveModules);
+        }
+
+        int moduleA = activeModules[moduleAIndex];
+        int moduleB = activeModules[moduleBIndex];
+        if (logger.isInfoEnabled()) {
+            logger.info("Merging modules:  " + moduleIds[moduleA] + " and "
+                    + moduleIds[moduleB] + " together.");
+        }
+
+        //  Calculate the change in energy (-Q), and Decide to Accept / Reject it
+        double dE = -1 * modularityState.getDeltaMerge(moduleA, moduleB);
+        if (!acceptUpdatedState(dE, temperature)) {
+            return false;
+        }
+
+        //  Point all nodes of B to A, and remove module B from list
+        modularityState.mergeModules(moduleA, moduleB);
+        removeActiveModule(moduleBIndex);
+        return true;
+    }
+
+    private boolean splitModule(ModularityState modularityState, int[] nodes,
+                                double temperature) {
+
+        //  Return if we have reached the upper limit of modules
+        if (indexedGraph.getNumVertices() == numActiveModules) {
+            return false;
+        }
+
+        //  Randomly pick a module to split
+        int moduleIndex = randomGenerator.nextInt(numActiveModules);
+        int module = activeModules[moduleIndex];
+
+        //  Get all nodes in that module
+        int numNodes = 0;
+        for (int v = modularityState.getFirstMember(module); v >= 0;
+             v = modularityState.getNextMember(v)) {
+            nodes[numNodes++] = v;
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info("Splitting module " + moduleIds[module] + " into two.");
+        }
+
+        //  Shuffle all the nodes
+        for (int i = numNodes; i > 1; i--) {
+            int j = randomGenerator.nextInt(i);
+            int tmp = nodes[i - 1];
+            nodes[i - 1] = nodes[j];
+            nodes[j] = tmp;
+        }
+
+        //  Pick a random split index;  nodes from the split index onwards go to a new module
+        int splitIndex = randomGenerator.nextInt(numNodes);
+        int newModule = numModuleIds;
+        double dE = -1 * modularityState.getDeltaMove(nodes, splitIndex, numNodes, newModule);
+        if (!acceptUpdatedState(dE, temperature)) {
+            return false;
+        }
+
+        //  Create the new module
+        modularityState.moveNodes(nodes, splitIndex, numNodes, newModule);
+        moduleIds[numModuleIds++] = getNextId();
+        activeModules[numActiveModules++] = newModule;
+        if (splitIndex == 0) {
+            //  All nodes were moved, so prune the now empty module
+            removeActiveModule(moduleIndex);
+        }
+        return true;
+    }
+
+    private void removeActiveModule(int index) {
+        System.arraycopy(activeModules, index + 1, activeModules, index,
+                numActiveModules - index - 1);
+        numActiveModules--;
+    }
+
+    private String getNextId() {
+        String id = idPrefix + currentId;
+        currentId++;
+        return id;
+    }
+}
@@ -0,0 +1,113 @@
+package org.mskcc.netbox.query;
+
+import org.mskcc.netbox.model.Gene;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable Dictionary of Gene Symbols, Indexed by Entrez Gene ID.
+ * <p/>
+ * Entries are stored in an open addressing hash table with linear probing, keyed directly by
+ * primitive long IDs, so lookups neither box IDs, nor touch the Hibernate session.  Once
+ * created, the dictionary may be shared by multiple threads.
+ */
+public final class EntrezGeneDictionary {
+    private static final long EMPTY = -1;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final int MAX_DIGITS = 18;
+    private static final int RADIX = 10;
+    private long[] keys;
+    private String[] symbols;
+    private int mask;
+    private int size;
+
+    /**
+     * Constructor.
+     *
+     * @param geneList Genes to Include;  genes without a gene symbol are ignored.
+     */
+    public EntrezGeneDictionary(Collection<Gene> geneList) {
+        int capacity = 2;
+        while (capacity < geneList.size() * 2) {
+            capacity *= 2;
+        }
+        keys = new long[capacity];
+        symbols = new String[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+        for (Gene gene : geneList) {
+            if (gene.getEntrezGeneId() >= 0 && gene.getGeneSymbol() != null) {
+                put(gene.getEntrezGeneId(), gene.getGeneSymbol());
+            }
+        }
+    }
+
+    /**
+     * Gets the Gene Symbol of the Specified Entrez Gene ID.
+     *
+     * @param entrezGeneId Entrez Gene ID.
+     * @return gene symbol, or null if not found.
+     */
+    public String getGeneSymbol(long entrezGeneId) {
+        if (entrezGeneId < 0) {
+            return null;
+        }
+        int slot = getSlot(entrezGeneId);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == entrezGeneId) {
+                return symbols[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the Number of Genes in the Dictionary.
+     *
+     * @return number of genes.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Parses an Entrez Gene ID, without throwing exceptions.
+     *
+     * @param entrezGeneId Entrez Gene ID, consisting of decimal digits only.
+     * @return Entrez Gene ID, or -1 if the string is not a valid Entrez Gene ID.
+     */
+    public static long parseEntrezGeneId(String entrezGeneId) {
+        int len = entrezGeneId.length();
+        if (len == 0 || len > MAX_DIGITS) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < len; i++) {
+            int digit = entrezGeneId.charAt(i) - '0';
+            if (digit < 0 || digit >= RADIX) {
+                return -1;
+            }
+            value = value * RADIX + digit;
+        }
+        return value;
+    }
+
+    private void put(long entrezGeneId, String geneSymbol) {
+        int slot = getSlot(entrezGeneId);
+        while (keys[slot] != EMPTY && keys[slot] != entrezGeneId) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == EMPTY) {
+            keys[slot] = entrezGeneId;
+            size++;
+        }
+        symbols[slot] = geneSymbol;
+    }
+
+    private int getSlot(long entrezGeneId) {
+        long z = entrezGeneId * GOLDEN_GAMMA;
+        return (int) (z ^ (z >>> 32)) & mask;
+    }
+}
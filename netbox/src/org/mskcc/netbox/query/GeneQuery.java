@@ -3,6 +3,7 @@ package org.mskcc.netbox.query;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -11,7 +12,6 @@ import java.util.Scanner;
 import org.apache.log4j.Logger;
 import org.hibernate.ObjectNotFoundException;
 import org.hibernate.Query;
-import org.hibernate.Session;
 import org.mskcc.netbox.model.Gene;
 import org.mskcc.netbox.util.GlobalSession;
 
@@ -27,6 +27,7 @@ public final class GeneQuery {
 	private static HashMap<String, String> gs2ensembl = new HashMap<String, String>();
 	private static HashMap<String, String> entrez2ensembl = new HashMap<String, String>();
 	private static HashMap<String, String> ensembl2entrez = new HashMap<String, String>();
+	private static EntrezGeneDictionary entrezGeneDictionary;
 
 	static {
 
@@ -78,14 +79,13 @@ public final class GeneQuery {
 	 * @return Gene Object or Null if Not Found.
 	 */
 	public static Gene getGeneBySymbol(String geneSymbol) {
-		Session session = GlobalSession.getInstance().getSession();
-		Query query = session.getNamedQuery("org.mskcc.netbox.getGeneBySymbol");
-		query.setString("symbol", geneSymbol);
-		Gene found = (Gene) query.uniqueResult();
-		if (found != null) {
-			return found;
+		GlobalSession globalSession = GlobalSession.getInstance();
+		synchronized (globalSession) {
+			Query query = globalSession.getSession().getNamedQuery(
+					"org.mskcc.netbox.getGeneBySymbol");
+			query.setString("symbol", geneSymbol);
+			return (Gene) query.uniqueResult();
 		}
-		return found;
 	}
 
 	/**
@@ -95,11 +95,13 @@ public final class GeneQuery {
 	 * @return Gene Object or Null if Not Found.
 	 */
 	public static Gene getGeneByEntrezGeneId(long entrezGeneId) {
-		Session session = GlobalSession.getInstance().getSession();
-		try {
-			return (Gene) session.load(Gene.class, entrezGeneId);
-		} catch (ObjectNotFoundException e) {
-			return null;
+		GlobalSession globalSession = GlobalSession.getInstance();
+		synchronized (globalSession) {
+			try {
+				return (Gene) globalSession.getSession().load(Gene.class, entrezGeneId);
+			} catch (ObjectNotFoundException e) {
+				return null;
+			}
 		}
 	}
 
@@ -110,12 +112,35 @@ public final class GeneQuery {
 	 * @return Gene Object or Null if Not Found.
 	 */
 	public static Gene getGeneByEnsemblGeneId(String ensemblGeneId) {
-		Session session = GlobalSession.getInstance().getSession();
-		try {
-			return (Gene) new Gene(ensembl2gs.get(ensemblGeneId), ensemblGeneId);
-		} catch (ObjectNotFoundException e) {
-			return null;
+		return new Gene(ensembl2gs.get(ensemblGeneId), ensemblGeneId);
+	}
+
+	/**
+	 * Gets the Dictionary of Gene Symbols, Indexed by Entrez Gene ID.  On the first call, the
+	 * IDs and symbols of all genes are loaded from the database, without adding Gene objects
+	 * to the session.
+	 *
+	 * @return EntrezGeneDictionary Object.
+	 */
+	public static synchronized EntrezGeneDictionary getEntrezGeneDictionary() {
+		if (entrezGeneDictionary == null) {
+			logger.info("Initialize Entrez Gene Dictionary");
+			GlobalSession globalSession = GlobalSession.getInstance();
+			List rowList;
+			synchronized (globalSession) {
+				Query query = globalSession.getSession().getNamedQuery(
+						"org.mskcc.netbox.getGeneSymbolsByEntrezGeneId");
+				rowList = query.list();
+			}
+			ArrayList<Gene> geneList = new ArrayList<Gene>();
+			for (Object row : rowList) {
+				Object[] fields = (Object[]) row;
+				geneList.add(new Gene((String) fields[1], ((Number) fields[0]).longValue()));
+			}
+			entrezGeneDictionary = new EntrezGeneDictionary(geneList);
+			logger.info("Entrez Gene Dictionary has a size of:  " + entrezGeneDictionary.size());
 		}
+		return entrezGeneDictionary;
 	}
 
 	/**
@@ -123,7 +148,7 @@ public final class GeneQuery {
 	 *
 	 * @return HashMap of Gene Objects indexed by Gene Symbol.
 	 */
-	public static HashMap<String, Gene> getGeneMapBySymbol() {
+	public static synchronized HashMap<String, Gene> getGeneMapBySymbol() {
 		lookUp();
 		return geneMapByGeneSymbol;
 	}
@@ -132,9 +157,12 @@ public final class GeneQuery {
 	 * Delete all Genes in the Database.
 	 */
 	public static void deleteAllGenes() {
-		Session session = GlobalSession.getInstance().getSession();
-		Query query = session.getNamedQuery("org.mskcc.netbox.deleteAllGenes");
-		query.executeUpdate();
+		GlobalSession globalSession = GlobalSession.getInstance();
+		synchronized (globalSession) {
+			Query query = globalSession.getSession().getNamedQuery(
+					"org.mskcc.netbox.deleteAllGenes");
+			query.executeUpdate();
+		}
 	}
 
 	/**
@@ -143,12 +171,15 @@ public final class GeneQuery {
 	private static void lookUp() {
 		if (geneMapByGeneSymbol.size() == 0) {
 			logger.info("Initialize Gene HashMaps");
-			Session session = GlobalSession.getInstance().getSession();
-			Query query = session.getNamedQuery("org.mskcc.netbox.getGeneMapBySymbol");
-			Iterator iterator = query.iterate();
-			while (iterator.hasNext()) {
-				Gene gene = (Gene) iterator.next();
-				geneMapByGeneSymbol.put(gene.getGeneSymbol(), gene);
+			GlobalSession globalSession = GlobalSession.getInstance();
+			synchronized (globalSession) {
+				Query query = globalSession.getSession().getNamedQuery(
+						"org.mskcc.netbox.getGeneMapBySymbol");
+				Iterator iterator = query.iterate();
+				while (iterator.hasNext()) {
+					Gene gene = (Gene) iterator.next();
+					geneMapByGeneSymbol.put(gene.getGeneSymbol(), gene);
+				}
 			}
 			logger.info("Gene HashMaps have a size of:  " + geneMapByGeneSymbol.size());
 		}
@@ -1,14 +1,15 @@
 package org.mskcc.netbox.query;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 
+import org.apache.log4j.Logger;
 import org.hibernate.Query;
-import org.hibernate.Session;
+import org.mskcc.netbox.graph.CompactNetwork;
+import org.mskcc.netbox.graph.CompactNetworkIO;
 import org.mskcc.netbox.graph.GraphCreationException;
 import org.mskcc.netbox.graph.InteractionToJung;
 import org.mskcc.netbox.model.Interaction;
@@ -24,38 +25,45 @@ import edu.uci.ics.jung.graph.Graph;
  */
 public final class InteractionQuery {
 
+	/**
+	 * Reference Network File, in SIF Format.  If a current snapshot of this file exists
+	 * (see CompileNetwork), the snapshot is memory-mapped instead of parsing the SIF file;
+	 * if the snapshot cannot be read, a warning is logged, and the SIF file is parsed.  If
+	 * the SIF file cannot be read either, loading this class fails.
+	 */
+	public static final String NETWORK_FILE = "/home/hag007/bnet/networks/dip.sif";
+
+	/**
+	 * Data Source of the Reference Network.
+	 */
+	public static final String NETWORK_SOURCE = "dip";
+
+	private static Logger logger = Logger.getLogger(InteractionQuery.class);
 	private static HashMap<String, ArrayList<Interaction>> interactionMap;
-	private static ArrayList<Interaction> globalInteractionList;
+	private static CompactNetwork referenceNetwork;
 	private static Graph globalGraph;
 
 
 
 	static {
-		globalInteractionList= new ArrayList<>();
-
-		try {
-		String fname = "/home/hag007/bnet/networks/dip.sif";
-		FileReader fr = new FileReader(fname);
-		BufferedReader br = new BufferedReader(fr);
-		String line;
-		while((line = br.readLine()) != null) {
-			String[] ls = line.trim().split("\t");
-			if (ls.length == 3) {
-				Interaction inter = new Interaction();
-				inter.setGeneA(ls[0]);
-				inter.setGeneB(ls[2]);
-				inter.setInteractionType(ls[1]);
-				inter.setSource("dip");
-				globalInteractionList.add(inter);
+		File sifFile = new File(NETWORK_FILE);
+		File snapshotFile = CompactNetworkIO.getSnapshotFile(sifFile);
+		if (CompactNetworkIO.isSnapshotCurrent(sifFile, snapshotFile)) {
+			try {
+				referenceNetwork = CompactNetworkIO.readSnapshot(snapshotFile);
+			} catch (IOException e) {
+				logger.warn("Could not read network snapshot:  " + e.getMessage()
+						+ "  Reading " + sifFile.getAbsolutePath() + " instead.");
 			}
 		}
+		if (referenceNetwork == null) {
+			try {
+				referenceNetwork = CompactNetworkIO.readSif(sifFile, NETWORK_SOURCE);
+			} catch (IOException e) {
+				throw new IllegalStateException("Could not read reference network:  "
+						+ sifFile.getAbsolutePath(), e);
+			}
 		}
-		catch(IOException e)
-		{
-			System.out.println("error reading edges file");
-		}
-
-
 	}
 
 
@@ -70,9 +78,12 @@ public final class InteractionQuery {
 	 * Deletes all Interactions in the Database.
 	 */
 	public static void deleteAllInteractions() {
-		Session session = GlobalSession.getInstance().getSession();
-		Query query = session.getNamedQuery("org.mskcc.netbox.deleteAllInteractions");
-		query.executeUpdate();
+		GlobalSession globalSession = GlobalSession.getInstance();
+		synchronized (globalSession) {
+			Query query = globalSession.getSession().getNamedQuery(
+					"org.mskcc.netbox.deleteAllInteractions");
+			query.executeUpdate();
+		}
 	}
 
 	/**
@@ -81,7 +92,7 @@ public final class InteractionQuery {
 	 * @return HashMap of All Interactions in the Database, indexed by Interaction Key.
 	 * @throws GraphCreationException Graph Creation Error.
 	 */
-	public static HashMap<String, ArrayList<Interaction>> getAllInteractions()
+	public static synchronized HashMap<String, ArrayList<Interaction>> getAllInteractions()
 			throws GraphCreationException {
 		if (interactionMap == null) {
 			init();
@@ -89,13 +100,25 @@ public final class InteractionQuery {
 		return interactionMap;
 	}
 
+	/**
+	 * Gets the Reference Network in Compact, Int-Indexed Form.
+	 * <p/>
+	 * This is the preferred way of traversing the reference network;  Interaction objects
+	 * are only created on demand.
+	 *
+	 * @return CompactNetwork Object.
+	 */
+	public static CompactNetwork getReferenceNetwork() {
+		return referenceNetwork;
+	}
+
 	/**
 	 * Gets the Global Graph of All Interactions in the Database.
 	 *
 	 * @return Global Graph of all Interactions in the Database.
 	 * @throws GraphCreationException Graph Creation Error.
 	 */
-	public static Graph getGlobalGraph() throws GraphCreationException {
+	public static synchronized Graph getGlobalGraph() throws GraphCreationException {
 		if (globalGraph == null) {
 			initGraph();
 		}
@@ -109,42 +132,33 @@ public final class InteractionQuery {
 	 * @return ArrayList of Interaction Objects.
 	 */
 	public static ArrayList<Interaction> getInteractions(String geneSymbol) {
-		Session session = GlobalSession.getInstance().getSession();
-		Query query = session.getNamedQuery("org.mskcc.netbox.getInteractionsByGeneSymbol");
-		query.setString("geneSymbol", geneSymbol);
-		Iterator<Interaction> iterator = query.iterate();
+		GlobalSession globalSession = GlobalSession.getInstance();
 		ArrayList<Interaction> interactionList = new ArrayList<Interaction>();
-		while (iterator.hasNext()) {
-			Interaction interaction = iterator.next();
-			interactionList.add(interaction);
+		synchronized (globalSession) {
+			Query query = globalSession.getSession().getNamedQuery(
+					"org.mskcc.netbox.getInteractionsByGeneSymbol");
+			query.setString("geneSymbol", geneSymbol);
+			Iterator<Interaction> iterator = query.iterate();
+			while (iterator.hasNext()) {
+				Interaction interaction = iterator.next();
+				interactionList.add(interaction);
+			}
 		}
 		return interactionList;
 	}
 
 	/**
-	 * Init method to populate the global interaction and global graph.
-	 *
-	 * @throws GraphCreationException Graph Creation Error.
+	 * Init method to populate the global interaction map from the reference network.
 	 */
-	private static void init() throws GraphCreationException {
+	private static void init() {
 		ProgressMonitor pMonitor = ProgressMonitor.getInstance();
 		pMonitor.setCurrentMessage("\nLoading network from database.  "
 				+ "This will take a few moments.");
-		//globalInteractionList = new ArrayList<Interaction>();
-		//Session session = GlobalSession.getInstance().getSession();
-		//Query query = session.getNamedQuery("org.mskcc.netbox.getAllInteractions");
-		//Iterator<Interaction> iterator = query.iterate();
-
-
-
-		Iterator<Interaction> iterator = globalInteractionList.iterator();
 		interactionMap = new HashMap<String, ArrayList<Interaction>>();
-		while (iterator.hasNext()) {
-			Interaction interaction = iterator.next();
+		for (Interaction interaction : referenceNetwork.createInteractionList()) {
 			appendToInteractionList(interaction, interaction.getGeneA());
 			appendToInteractionList(interaction, interaction.getGeneB());
 		}
-		globalGraph = InteractionToJung.createGraph(globalInteractionList);
 	}
 
 	/**
@@ -153,10 +167,7 @@ public final class InteractionQuery {
 	 * @throws GraphCreationException Graph Creation Error.
 	 */
 	private static void initGraph() throws GraphCreationException {
-		if (interactionMap == null) {
-			init();
-		}
-		globalGraph = InteractionToJung.createGraph(globalInteractionList);
+		globalGraph = InteractionToJung.createGraph(referenceNetwork.createInteractionList());
 	}
 
 	/**
@@ -1,7 +1,6 @@
 package org.mskcc.netbox.query;
 
 import org.hibernate.Query;
-import org.hibernate.Session;
 import org.mskcc.netbox.model.NetworkStats;
 import org.mskcc.netbox.util.GlobalSession;
 
@@ -24,17 +23,23 @@ public final class NetworkStatsQuery {
      * @return NetworkStats Object.
      */
     public static NetworkStats getNetworkStats() {
-        Session session = GlobalSession.getInstance().getSession();
-        Query query = session.getNamedQuery("org.mskcc.netbox.getNetworkStats");
-        return (NetworkStats) query.uniqueResult();
+        GlobalSession globalSession = GlobalSession.getInstance();
+        synchronized (globalSession) {
+            Query query = globalSession.getSession().getNamedQuery(
+                    "org.mskcc.netbox.getNetworkStats");
+            return (NetworkStats) query.uniqueResult();
+        }
     }
 
     /**
      * Deletes all Network Stats from the Database.
      */
     public static void deleteAllNetworkStats() {
-        Session session = GlobalSession.getInstance().getSession();
-        Query query = session.getNamedQuery("org.mskcc.netbox.deleteAllNetworkStats");
-        query.executeUpdate();
+        GlobalSession globalSession = GlobalSession.getInstance();
+        synchronized (globalSession) {
+            Query query = globalSession.getSession().getNamedQuery(
+                    "org.mskcc.netbox.deleteAllNetworkStats");
+            query.executeUpdate();
+        }
     }
 }
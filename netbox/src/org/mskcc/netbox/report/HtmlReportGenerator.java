@@ -14,6 +14,7 @@ import org.mskcc.netbox.graph.GraphUtil;
 import org.mskcc.netbox.graph.Module;
 import org.mskcc.netbox.graph.NetworkStatsUtil;
 import org.mskcc.netbox.graph.NewmanGirvanModuleDetector;
+import org.mskcc.netbox.louvain.LouvainModuleDetector;
 import org.mskcc.netbox.netcarto.NetCartoAnnealing;
 import org.mskcc.netbox.util.Formatter;
 import org.mskcc.netbox.util.GlobalConfig;
@@ -29,6 +30,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.WeakHashMap;
 
 /**
  * HTML Report Generator.
@@ -36,7 +38,8 @@ import java.util.Iterator;
  * @author Ethan Cerami
  */
 public final class HtmlReportGenerator {
-    private static HtmlReportGenerator reportGenerator = new HtmlReportGenerator();
+    private static WeakHashMap<GlobalConfig, HtmlReportGenerator> reportGeneratorMap
+            = new WeakHashMap<GlobalConfig, HtmlReportGenerator>();
     private StringBuffer html = new StringBuffer();
 
     private HtmlReportGenerator() {
@@ -136,13 +139,17 @@ public final class HtmlReportGenerator {
 
 
     /**
-     * Gets Singleton Instance.
+     * Gets Singleton Instance.  There is one report per GlobalConfig, so that independent
+     * configurations executing within the same JVM each get their own report.
      *
      * @return HTML Report Generator.
      */
-    public static HtmlReportGenerator getInstance() {
+    public static synchronized HtmlReportGenerator getInstance() {
+        GlobalConfig config = GlobalConfig.getInstance();
+        HtmlReportGenerator reportGenerator = reportGeneratorMap.get(config);
         if (reportGenerator == null) {
             reportGenerator = new HtmlReportGenerator();
+            reportGeneratorMap.put(config, reportGenerator);
         }
         return reportGenerator;
     }
@@ -308,7 +315,10 @@ public final class HtmlReportGenerator {
             a("</tr>");
 
             for (int i = 0; i < moduleSet.size(); i++) {
-                Graph gModule = moduleSet.getClusterAsNewSubGraph(i);
+                Graph gModule;
+                synchronized (GraphUtil.getJungLock()) {
+                    gModule = moduleSet.getClusterAsNewSubGraph(i);
+                }
                 a("<tr>");
                 a("<td>" + i + "</td>");
                 a("<td>" + gModule.getVertices().size() + "</td>");
@@ -345,13 +355,29 @@ public final class HtmlReportGenerator {
      */
     public void appendModuleDetection(NetCartoAnnealing detector,
                                       ArrayList<LinkerGene> linkerList) {
+        appendModuleDetection(detector.getFinalModuleList(), detector.getGlobalModuleMap(),
+                linkerList);
+    }
+
+    /**
+     * Append Module Detection Information.
+     *
+     * @param detector   LouvainModuleDetector detector.
+     * @param linkerList List of Linker Genes.
+     */
+    public void appendModuleDetection(LouvainModuleDetector detector,
+                                      ArrayList<LinkerGene> linkerList) {
+        appendModuleDetection(detector.getFinalModuleList(), detector.getGlobalModuleMap(),
+                linkerList);
+    }
+
+    private void appendModuleDetection(ArrayList<String> moduleList,
+            HashMap<String, ArrayList<String>> moduleMap, ArrayList<LinkerGene> linkerList) {
         HashSet<String> linkerSet = new HashSet<String>();
         for (LinkerGene linker : linkerList) {
             linkerSet.add(linker.getGene());
         }
 
-        ArrayList<String> moduleList = detector.getFinalModuleList();
-        HashMap<String, ArrayList<String>> moduleMap = detector.getGlobalModuleMap();
         if (moduleList.size() > 0) {
             a("<h3>Modules Detected:  </h3>");
             a("<table>");
@@ -453,7 +479,7 @@ public final class HtmlReportGenerator {
         a("</body>");
         a("</html>");
 
-        File file = new File("report.html");
+        File file = GlobalConfig.getInstance().getOutputFile("report.html");
         FileWriter writer = new FileWriter(file);
 
         ProgressMonitor.getInstance().setCurrentMessage("\nFinal HTML Report is available at:  "
@@ -2,6 +2,8 @@ package org.mskcc.netbox.script;
 
 import org.mskcc.netbox.genomic.ByteProfileData;
 import org.mskcc.netbox.genomic.ByteProfileMerger;
+import org.mskcc.netbox.genomic.DifferentialCoverageTest;
+import org.mskcc.netbox.genomic.GeneSetCoverageEngine;
 import org.mskcc.netbox.genomic.GeneWithScore;
 import org.mskcc.netbox.genomic.GeneticAlterationType;
 import org.mskcc.netbox.genomic.ProfileDataSummary;
@@ -11,9 +13,11 @@ import org.mskcc.netbox.genomic.util.TabDelimReader;
 import org.mskcc.netbox.model.Gene;
 import org.mskcc.netbox.model.GeneSet;
 import org.mskcc.netbox.util.CommandLineUtil;
+import org.mskcc.netbox.util.GlobalConfig;
 import org.mskcc.netbox.util.ProgressMonitor;
 import org.mskcc.netbox.util.ReadGeneSets;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -34,10 +38,15 @@ public final class AnalyzeGeneSets {
     /**
      * Command Line Tool to Analyze Gene Sets.
      *
-     * @param args Command Line Arguments.  None Expected.
+     * @param args Command Line Arguments.  Optional NetBox properties file, e.g. to set
+     *             num_coverage_permutations or random_seed.
      * @throws java.io.IOException IO Error.
      */
     public static void main(String[] args) throws IOException {
+        GlobalConfig config = GlobalConfig.getInstance();
+        if (args.length > 0) {
+            config.loadProperties(new File(args[0]));
+        }
         pMonitor = ProgressMonitor.getInstance();
         pMonitor.setConsoleMode(true);
         pMonitor.setCurrentMessage("Welcome to NetBox.  Initializing Database.  "
@@ -56,6 +65,17 @@ public final class AnalyzeGeneSets {
         CaseSetReader caseReader2 = new CaseSetReader(new File("../ova/cases_platres.txt"));
         HashSet<String> platResistSet = caseReader2.getCaseIdSet();
 
+        //  Cases in both groups cannot be assigned to either group, and are left out
+        HashSet<String> sharedCaseSet = new HashSet<String>(platSensSet);
+        sharedCaseSet.retainAll(platResistSet);
+        if (sharedCaseSet.size() > 0) {
+            pMonitor.logWarning(sharedCaseSet.size() + " case(s) are listed as both platinum "
+                    + "sensitive and platinum resistant, and are excluded from the analysis:  "
+                    + sharedCaseSet);
+            platSensSet.removeAll(sharedCaseSet);
+            platResistSet.removeAll(sharedCaseSet);
+        }
+
         HashSet<String> unionCaseSet = new HashSet<String>();
         unionCaseSet.addAll(platSensSet);
         unionCaseSet.addAll(platResistSet);
@@ -96,26 +116,42 @@ public final class AnalyzeGeneSets {
         ArrayList<String> platResistList = new ArrayList<String>();
         platResistList.addAll(platResistSet);
 
-        writer = new FileWriter("gene_sets_platinum.txt");
+        ArrayList<ArrayList<String>> caseGroupList = new ArrayList<ArrayList<String>>();
+        caseGroupList.add(platSensList);
+        caseGroupList.add(platResistList);
+        GeneSetCoverageEngine engine = new GeneSetCoverageEngine(pSummary, caseGroupList);
+
+        ArrayList<ArrayList<String>> symbolListList = new ArrayList<ArrayList<String>>();
         for (GeneSet geneSet : geneSetList) {
-            ArrayList<Gene> genesInSet = geneSet.getGeneList();
             ArrayList<String> gList = new ArrayList<String>();
-            StringBuffer geneBuf = new StringBuffer();
-            for (Gene gene : genesInSet) {
+            for (Gene gene : geneSet.getGeneList()) {
                 gList.add(gene.getGeneSymbol());
-                geneBuf.append(gene.getGeneSymbol() + " ");
             }
-            double sensitiveAffected = pSummary.getPercentCasesWhereGeneSetisAltered(gList,
-                    platSensList);
-            double resistantAffected = pSummary.getPercentCasesWhereGeneSetisAltered(gList,
-                    platResistList);
-            String str = geneSet.getName() + "\t" + geneBuf.toString() + "\t"
-                    + sensitiveAffected + "\t" + resistantAffected
-                    + "\n";
-            writer.write(str);
-            System.out.print(str);
+            symbolListList.add(gList);
         }
-        writer.close();
+        System.out.println("Analyzing Gene Sets");
+        double[][] percentAffected = engine.getPercentCasesAltered(symbolListList);
+        int numPermutations = config.getNumCoveragePermutations();
+        System.out.println("Testing Differential Coverage via " + numPermutations
+                + " Permutations, with random seed:  " + config.getRandomSeed());
+        DifferentialCoverageTest coverageTest = new DifferentialCoverageTest(engine,
+                symbolListList, 0, 1, numPermutations, config.getRandomSeed());
+        double[] pValues = coverageTest.getPValues();
+        double[] adjustedPValues = coverageTest.getAdjustedPValues();
+
+        BufferedWriter bufWriter = new BufferedWriter(new FileWriter("gene_sets_platinum.txt"));
+        for (int i = 0; i < geneSetList.size(); i++) {
+            bufWriter.write(geneSetList.get(i).getName());
+            bufWriter.write("\t");
+            for (String geneSymbol : symbolListList.get(i)) {
+                bufWriter.write(geneSymbol);
+                bufWriter.write(" ");
+            }
+            bufWriter.write("\t" + percentAffected[i][0] + "\t" + percentAffected[i][1]
+                    + "\t" + pValues[i] + "\t" + adjustedPValues[i] + "\n");
+        }
+        bufWriter.close();
+        System.out.println("Gene set results written to:  gene_sets_platinum.txt");
         CommandLineUtil.showWarnings(pMonitor);
     }
 
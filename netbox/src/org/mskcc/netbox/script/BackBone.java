@@ -16,6 +16,7 @@ import org.mskcc.netbox.genomic.ByteProfileData;
 import org.mskcc.netbox.genomic.ByteProfileMerger;
 import org.mskcc.netbox.genomic.GeneWithScore;
 import org.mskcc.netbox.genomic.GeneticAlterationType;
+import org.mskcc.netbox.genomic.MutualExclusivityScorer;
 import org.mskcc.netbox.genomic.ProfileDataSummary;
 import org.mskcc.netbox.genomic.util.CaseSetReader;
 import org.mskcc.netbox.genomic.util.MutationReader;
@@ -27,6 +28,7 @@ import org.mskcc.netbox.model.Gene;
 import org.mskcc.netbox.netcarto.NetCartoAnnealing;
 import org.mskcc.netbox.query.GeneQuery;
 import org.mskcc.netbox.report.HtmlReportGenerator;
+import org.mskcc.netbox.stats.BenjaminiHochbergFDR;
 import org.mskcc.netbox.util.Formatter;
 import org.mskcc.netbox.util.GlobalConfig;
 import org.mskcc.netbox.util.GlobalSession;
@@ -45,9 +47,6 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
 
-import jsc.correlation.KendallCorrelation;
-import jsc.datastructures.PairedData;
-
 /**
  * Main BackBone Command Line Program.
  *
@@ -195,69 +194,49 @@ public final class BackBone {
     }
 
     private void traceBackBone (Graph g, ProfileDataSummary pSummary) throws IOException {
-        HashSet<String> edgeSet = new HashSet<String>();
         FileWriter writer1 = new FileWriter ("network.sif");
         FileWriter writer2 = new FileWriter ("edges.txt");
         writer2.write("KENDALL\n");
         StringLabeller labeller = StringLabeller.getLabeller(g);
         Set<Vertex> vertexSet = g.getVertices();
+
+        //  Visit each undirected edge once, from the vertex which comes first
+        HashMap<Vertex, Integer> vertexIndex = new HashMap<Vertex, Integer>();
+        for (Vertex vertex:  vertexSet) {
+            vertexIndex.put(vertex, vertexIndex.size());
+        }
+        ArrayList<String> geneAList = new ArrayList<String>();
+        ArrayList<String> geneBList = new ArrayList<String>();
         for (Vertex vertex:  vertexSet) {
-            String geneA = labeller.getLabel(vertex);
+            int index = vertexIndex.get(vertex);
             Set<Vertex> neighborSet = vertex.getNeighbors();
             for (Vertex neighbor:  neighborSet) {
-                int n=0;
-                String geneB = labeller.getLabel(neighbor);
-                ArrayList<String> caseList = pSummary.getObservedCaseList();
-                ArrayList<Double> xList = new ArrayList<Double>();
-                ArrayList<Double> yList = new ArrayList<Double>();
-                for (String caseId:  caseList) {
-                    boolean geneAAltered = pSummary.isGeneAltered(geneA, caseId);
-                    boolean geneBAltered = pSummary.isGeneAltered(geneB, caseId);
-                    if (geneAAltered || geneBAltered) {
-                        if (geneAAltered) {
-                            xList.add(1.0);
-                        } else {
-                            xList.add(0.0);
-                        }
-                        if (geneBAltered) {
-                            yList.add(1.0);
-                        } else {
-                            yList.add(0.0);
-                        }
-                        n++;
-                    }
-                }
-
-                double x[] = new double[n];
-                double y[] = new double[n];
-                for (int i=0; i<xList.size(); i++) {
-                    x[i] = xList.get(i);
-                    y[i] = yList.get(i);
+                if (vertexIndex.get(neighbor) > index) {
+                    geneAList.add(labeller.getLabel(vertex));
+                    geneBList.add(labeller.getLabel(neighbor));
                 }
+            }
+        }
 
-                PairedData pairedData = new PairedData(x,y);
-                KendallCorrelation kendall = new KendallCorrelation(pairedData);
-                if (kendall.getR() < -.7) {
-                    String key = getKey(geneA, geneB);
-                    if (!edgeSet.contains(key)) {
-                        writer1.write (geneA + " pp " + geneB + "\n");
-                        writer2.write (geneA + " (pp) " + geneB + "= " + kendall.getR() + "\n");
-                        edgeSet.add(key);
-                    }
-                }
+        //  Keep edges which are significantly mutually exclusive
+        GlobalConfig globalConfig = GlobalConfig.getInstance();
+        pMonitor.setCurrentMessage("Testing mutual exclusivity of " + geneAList.size()
+                + " edges");
+        MutualExclusivityScorer scorer = new MutualExclusivityScorer(pSummary);
+        double[] tau = scorer.getKendallTau(geneAList, geneBList);
+        double[] adjustedPValues =
+                BenjaminiHochbergFDR.adjust(scorer.getPValues(geneAList, geneBList));
+        for (int i = 0; i < tau.length; i++) {
+            if (adjustedPValues[i] <= globalConfig.getPValueCutOff()) {
+                String geneA = geneAList.get(i);
+                String geneB = geneBList.get(i);
+                writer1.write (geneA + " pp " + geneB + "\n");
+                writer2.write (geneA + " (pp) " + geneB + "= " + tau[i] + "\n");
             }
         }
         writer1.close();
         writer2.close();
     }
-
-    private String getKey (String geneA, String geneB) {
-        if (geneA.compareTo(geneB) > 0) {
-            return geneA + ":" + geneB;
-        } else {
-            return geneB + ":" + geneA;
-        }
-    }
 }
 
 /**
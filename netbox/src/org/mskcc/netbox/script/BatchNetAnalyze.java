@@ -0,0 +1,282 @@
+package org.mskcc.netbox.script;
+
+import joptsimple.OptionException;
+import joptsimple.OptionParser;
+import joptsimple.OptionSet;
+import org.mskcc.netbox.graph.NetworkStatsUtil;
+import org.mskcc.netbox.query.GeneQuery;
+import org.mskcc.netbox.util.GlobalConfig;
+import org.mskcc.netbox.util.GlobalSession;
+import org.mskcc.netbox.util.ProgressMonitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Executes NetAnalyze for Many Properties Files within a Single JVM.
+ * <p/>
+ * The database, gene dictionaries and reference network are loaded once, and then shared by
+ * all configurations.  Configurations are executed concurrently on a bounded thread pool, and
+ * each configuration writes its output files to its own directory, named after the
+ * properties file, e.g. conf_0.05.props --> [output_dir]/conf_0.05/.
+ * <p/>
+ * Each configuration has its own GlobalConfig and ProgressMonitor, bound to the thread that
+ * executes it, and errors fail only that configuration.  The thread budget is split between
+ * concurrent configurations and the worker threads of each configuration, i.e. num_threads
+ * is capped at threads / concurrent configurations.
+ */
+public final class BatchNetAnalyze {
+    private static String cmdLineUsage = "command line usage:  batchNetAnalyze.py "
+            + "[-t num_threads] [-o output_dir] conf_1.props conf_2.props ... | 'conf_*.props'";
+    private static final String PROPS_SUFFIX = ".props";
+    private File outputRoot;
+    private int numThreads;
+    private boolean debugMode;
+    private int numThreadsPerConfig;
+
+    /**
+     * Constructor.
+     *
+     * @param root       Root output directory.
+     * @param threads    Total number of threads, shared by all configurations.
+     * @param debug      Debug mode.
+     */
+    public BatchNetAnalyze(File root, int threads, boolean debug) {
+        this.outputRoot = root;
+        this.numThreads = threads;
+        this.debugMode = debug;
+    }
+
+    /**
+     * Command Line Main.
+     *
+     * @param args Command Line Arguments.
+     */
+    public static void main(String[] args) {
+        OptionParser parser = new BatchNetAnalyzeOptions();
+        GlobalConfig globalConfig = GlobalConfig.getInstance();
+        GlobalSession globalSession = null;
+        int numFailures = 0;
+        try {
+            OptionSet options = parser.parse(args);
+            if (args.length == 0 || options.has("h")) {
+                System.out.println("\n" + cmdLineUsage + "\n");
+                parser.printHelpOn(System.out);
+                System.exit(1);
+            }
+            if (options.has("d")) {
+                globalConfig.setDebugMode(true);
+            }
+            int threads = Runtime.getRuntime().availableProcessors();
+            if (options.has("t")) {
+                threads = (Integer) options.valueOf("t");
+                if (threads < 1) {
+                    throw new IllegalArgumentException("Number of threads must be at least 1.");
+                }
+            }
+            File root = new File(".");
+            if (options.has("o")) {
+                root = new File((String) options.valueOf("o"));
+            }
+            ArrayList<File> propsFiles = expandPropsFiles(options.nonOptionArguments());
+            if (propsFiles.size() == 0) {
+                throw new IllegalArgumentException("No properties files found.");
+            }
+
+            //  Load all shared data once, before any of the configurations start
+            System.out.println("Loading database, gene dictionaries and reference network...");
+            globalSession = GlobalSession.getInstance();
+            GeneQuery.getGeneMapBySymbol();
+            NetworkStatsUtil.getInstance();
+
+            BatchNetAnalyze batch = new BatchNetAnalyze(root, threads,
+                    globalConfig.isDebugMode());
+            numFailures = batch.execute(propsFiles);
+        } catch (OptionException e) {
+            exitCommandLine(e);
+        } catch (IllegalArgumentException e) {
+            exitCommandLine(e);
+        } catch (IOException e) {
+            exitCommandLine(e);
+        } catch (Throwable t) {
+            exitCommandLine(t);
+        } finally {
+            if (globalSession != null) {
+                globalSession.closeAll();
+            }
+        }
+        if (numFailures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Executes all the Specified Configurations.
+     *
+     * @param propsFiles Properties Files.
+     * @return number of configurations which failed.
+     * @throws InterruptedException Thread Interrupted.
+     */
+    public int execute(ArrayList<File> propsFiles) throws InterruptedException {
+        int numConcurrent = Math.min(numThreads, propsFiles.size());
+        numThreadsPerConfig = Math.max(1, numThreads / numConcurrent);
+        System.out.println("Executing " + propsFiles.size() + " configuration(s), "
+                + numConcurrent + " at a time, using up to " + numThreadsPerConfig
+                + " thread(s) each.");
+        ExecutorService executor = Executors.newFixedThreadPool(numConcurrent);
+        ArrayList<Future<File>> futureList = new ArrayList<Future<File>>();
+        for (final File propsFile : propsFiles) {
+            futureList.add(executor.submit(new Callable<File>() {
+                public File call() throws Exception {
+                    return executeConfiguration(propsFile);
+                }
+            }));
+        }
+        executor.shutdown();
+
+        int numFailures = 0;
+        for (int i = 0; i < propsFiles.size(); i++) {
+            File propsFile = propsFiles.get(i);
+            try {
+                File outputDir = futureList.get(i).get();
+                System.out.println("Done:  " + propsFile.getName() + " --> "
+                        + outputDir.getPath());
+            } catch (ExecutionException e) {
+                numFailures++;
+                System.out.println("Failed:  " + propsFile.getName() + ":  "
+                        + e.getCause().getMessage());
+                if (debugMode) {
+                    e.getCause().printStackTrace();
+                }
+            }
+        }
+        System.out.println("Completed " + (propsFiles.size() - numFailures) + " of "
+                + propsFiles.size() + " configuration(s).");
+        return numFailures;
+    }
+
+    /**
+     * Executes a Single Configuration, within the Current Thread.
+     *
+     * @param propsFile Properties File.
+     * @return Output Directory.
+     * @throws Exception All Errors.
+     */
+    private File executeConfiguration(File propsFile) throws Exception {
+        String name = propsFile.getName();
+        if (name.endsWith(PROPS_SUFFIX)) {
+            name = name.substring(0, name.length() - PROPS_SUFFIX.length());
+        }
+        File outputDir = new File(outputRoot, name);
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IOException("Could not create output directory:  "
+                    + outputDir.getAbsolutePath());
+        }
+
+        GlobalConfig config = GlobalConfig.createThreadInstance();
+        ProgressMonitor pMonitor = ProgressMonitor.createThreadInstance();
+        try {
+            config.setDebugMode(debugMode);
+            config.loadProperties(propsFile);
+            config.setOutputDirectory(outputDir);
+            config.setNumThreads(Math.min(config.getNumThreads(), numThreadsPerConfig));
+            NetAnalyze netAnalyze = new NetAnalyze();
+            netAnalyze.execute();
+        } finally {
+            ProgressMonitor.setThreadInstance(null);
+            GlobalConfig.setThreadInstance(null);
+        }
+        ArrayList<String> warningList = pMonitor.getWarnings();
+        if (warningList.size() > 0) {
+            StringBuffer buf = new StringBuffer("Warnings for " + propsFile.getName() + ":\n");
+            for (String warning : warningList) {
+                buf.append("  " + warning + "\n");
+            }
+            System.out.print(buf.toString());
+        }
+        return outputDir;
+    }
+
+    /**
+     * Expands the Command Line Arguments into a List of Properties Files.  Arguments which
+     * contain a wild card are treated as file name globs, e.g. conf/conf_*.props.
+     *
+     * @param args Command Line Arguments.
+     * @return ArrayList of Properties Files.
+     * @throws IOException IO Error.
+     */
+    static ArrayList<File> expandPropsFiles(List<String> args) throws IOException {
+        ArrayList<File> propsFiles = new ArrayList<File>();
+        for (String arg : args) {
+            File file = new File(arg);
+            if (arg.indexOf('*') >= 0 || arg.indexOf('?') >= 0) {
+                File dir = file.getParentFile();
+                if (dir == null) {
+                    dir = new File(".");
+                }
+                ArrayList<File> matchList = new ArrayList<File>();
+                DirectoryStream<Path> stream = Files.newDirectoryStream(dir.toPath(),
+                        file.getName());
+                try {
+                    for (Path path : stream) {
+                        matchList.add(path.toFile());
+                    }
+                } finally {
+                    stream.close();
+                }
+                Collections.sort(matchList);
+                propsFiles.addAll(matchList);
+            } else if (file.isFile()) {
+                propsFiles.add(file);
+            } else {
+                throw new IllegalArgumentException("Properties file not found:  "
+                        + file.getAbsolutePath());
+            }
+        }
+        return propsFiles;
+    }
+
+    /**
+     * Exits the Command Line with the Specified Error Message.
+     *
+     * @param e Exception Object.
+     */
+    private static void exitCommandLine(Throwable e) {
+        System.out.println("Command Line Error:  " + e.getMessage() + "  Use -h to get help.");
+        if (GlobalConfig.getInstance().isDebugMode()) {
+            e.printStackTrace();
+        }
+        System.exit(1);
+    }
+}
+
+/**
+ * Batch NetBox Command Line Options.
+ */
+class BatchNetAnalyzeOptions extends OptionParser {
+
+    /**
+     * Constructor.
+     */
+    BatchNetAnalyzeOptions() {
+        accepts("d", "Prints diagnostics in the event of an error.  "
+                + "Will print error stack trace.");
+        accepts("t", "Total number of threads, split between concurrent configurations and "
+                + "the worker threads of each.  Defaults to the number of available processors.")
+                .withRequiredArg().ofType(Integer.class);
+        accepts("o", "Root output directory.  Defaults to the current directory.")
+                .withRequiredArg();
+        accepts("h", "Show help.");
+    }
+}
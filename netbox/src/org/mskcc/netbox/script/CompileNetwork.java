@@ -0,0 +1,43 @@
+package org.mskcc.netbox.script;
+
+import org.mskcc.netbox.graph.CompactNetwork;
+import org.mskcc.netbox.graph.CompactNetworkIO;
+import org.mskcc.netbox.query.InteractionQuery;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Command Line Tool to Compile a SIF Network into a Binary Snapshot.
+ * <p/>
+ * Once compiled, the reference network is memory-mapped at startup, instead of being
+ * re-parsed by every run.
+ */
+public final class CompileNetwork {
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private CompileNetwork() {
+    }
+
+    /**
+     * Command Line Tool to Compile a SIF Network into a Binary Snapshot.
+     *
+     * @param args Command Line Arguments:  [network.sif] [data_source] [snapshot_file].
+     * @throws IOException IO Error.
+     */
+    public static void main(String[] args) throws IOException {
+        File sifFile = new File(args.length > 0 ? args[0] : InteractionQuery.NETWORK_FILE);
+        String source = args.length > 1 ? args[1] : InteractionQuery.NETWORK_SOURCE;
+        File snapshotFile = args.length > 2 ? new File(args[2])
+                : CompactNetworkIO.getSnapshotFile(sifFile);
+
+        System.out.println("Reading in File:  " + sifFile.getAbsolutePath());
+        CompactNetwork network = CompactNetworkIO.readSif(sifFile, source);
+        System.out.println("Number of Genes:  " + network.getNumGenes());
+        System.out.println("Number of Interactions:  " + network.getNumEdges());
+        CompactNetworkIO.writeSnapshot(network, sifFile, snapshotFile);
+        System.out.println("Snapshot written to:  " + snapshotFile.getAbsolutePath());
+    }
+}
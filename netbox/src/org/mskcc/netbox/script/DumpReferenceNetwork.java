@@ -1,15 +1,11 @@
 package org.mskcc.netbox.script;
 
-import edu.uci.ics.jung.graph.Graph;
-import edu.uci.ics.jung.graph.Vertex;
-import edu.uci.ics.jung.graph.decorators.StringLabeller;
-
 import java.io.IOException;
-import java.util.Set;
 import java.util.HashMap;
 
 import org.mskcc.netbox.query.InteractionQuery;
 import org.mskcc.netbox.query.GeneQuery;
+import org.mskcc.netbox.graph.CompactNetwork;
 import org.mskcc.netbox.graph.GraphCreationException;
 import org.mskcc.netbox.model.Gene;
 
@@ -34,12 +30,9 @@ public class DumpReferenceNetwork {
      */
     public static void main(String[] args) throws IOException, GraphCreationException {
         HashMap<String, Gene> geneMap = GeneQuery.getGeneMapBySymbol();
-        Graph g = InteractionQuery.getGlobalGraph();
-        Set<Vertex> vertexSet = g.getVertices();
-        StringLabeller labeller = StringLabeller.getLabeller(g);
-        for (Vertex vertex: vertexSet) {
-            String geneSymbol = labeller.getLabel(vertex);
-            Gene gene = geneMap.get(geneSymbol);
+        CompactNetwork network = InteractionQuery.getReferenceNetwork();
+        for (int i = 0; i < network.getNumGenes(); i++) {
+            Gene gene = geneMap.get(network.getGeneSymbol(i));
             System.out.println(gene.getEntrezGeneId());
         }
     }
@@ -21,6 +21,7 @@ import org.mskcc.netbox.genomic.util.TabDelimReader;
 import org.mskcc.netbox.graph.GraphCreationException;
 import org.mskcc.netbox.graph.NetworkPartitionState;
 import org.mskcc.netbox.graph.NewmanGirvanModuleDetector;
+import org.mskcc.netbox.louvain.LouvainModuleDetector;
 import org.mskcc.netbox.model.Gene;
 import org.mskcc.netbox.netcarto.NetCartoAnnealing;
 import org.mskcc.netbox.query.GeneQuery;
@@ -48,7 +49,7 @@ import java.util.HashSet;
  * @author Ethan Cerami.
  */
 public final class NetAnalyze {
-    private static NumberFormat formatter = Formatter.getDecimalFormat();
+    private NumberFormat formatter = Formatter.getDecimalFormat();
     private static String cmdLineUsage = "command line usage:  netAnalyze.py netbox.props";
     private ArrayList<String> geneList;
     private ProgressMonitor pMonitor;
@@ -84,6 +85,7 @@ public final class NetAnalyze {
                 globalConfig.setInteractiveMode(true);
             }
             globalConfig.loadProperties(new File(args[0]));
+            ProgressMonitor.getInstance().setConsoleMode(true);
 
             NetAnalyze netAnalyze = new NetAnalyze();
             netAnalyze.execute();
@@ -122,7 +124,6 @@ public final class NetAnalyze {
      */
     public void execute() throws GraphCreationException, IOException {
         pMonitor = ProgressMonitor.getInstance();
-        pMonitor.setConsoleMode(true);
         pMonitor.setCurrentMessage("Welcome to NetBox.  Initializing Database.  "
                 + "Please wait a few moments...");
         GlobalSession globalSession = GlobalSession.getInstance();
@@ -132,6 +133,7 @@ public final class NetAnalyze {
         File geneFile = globalConfig.getGeneFile();
         int shortestPathThreshold = globalConfig.getShortestPathThreshold();
         double pValueCutOff = globalConfig.getPValueCutOff();
+        NetworkWriter.outputRandomSeed();
 
         //  Get Maps of Genes
         HashMap<String, Gene> geneSymbolMap = GeneQuery.getGeneMapBySymbol();
@@ -168,7 +170,7 @@ public final class NetAnalyze {
 
             //  Get Final Gene List
             ArrayList<GeneWithScore> geneWithScoreList = pSummary.getGeneFrequencyList();
-            alteredGenesFile = new File("altered_genes.txt");
+            alteredGenesFile = globalConfig.getOutputFile("altered_genes.txt");
             FileWriter writer = new FileWriter(alteredGenesFile);
             writer.write("FREQUENCY\n");
             geneList = new ArrayList<String>();
@@ -211,6 +213,8 @@ public final class NetAnalyze {
         if (globalConfig.identifyModules()) {
             if (algo.equals(GlobalConfig.NG)) {
                 observedNetworkModularity = executeNewmanGirvan(geneConnector);
+            } else if (algo.equals(GlobalConfig.LOUVAIN)) {
+                observedNetworkModularity = executeLouvain(geneConnector);
             } else {
                 observedNetworkModularity = executeSA(geneConnector);
             }
@@ -280,13 +284,40 @@ public final class NetAnalyze {
     private double executeSA(GeneConnector geneConnector) throws GraphCreationException,
             IOException {
         HtmlReportGenerator html = HtmlReportGenerator.getInstance();
-        NetCartoAnnealing sa = new NetCartoAnnealing(geneConnector.getGraph());
+        GlobalConfig config = GlobalConfig.getInstance();
+        NetCartoAnnealing sa = new NetCartoAnnealing(geneConnector.getGraph(),
+                config.getNumAnnealingReplicas(), config.getNumThreads());
         sa.execute();
         NetworkWriter.outputModules(sa);
         html.appendModuleDetection(sa, geneConnector.getLinkerList());
         return sa.getFinalModularity();
     }
 
+    /**
+     * Partition the Graph into Modules via the Louvain Algorithm.
+     *
+     * @param geneConnector GeneConnector Object.
+     * @throws IOException IO Error.
+     */
+    private double executeLouvain(GeneConnector geneConnector) throws IOException {
+        Graph g = geneConnector.getGraph();
+
+        pMonitor.setCurrentMessage("\nBegin Module Detection (" + "Number of nodes:  "
+                + g.getVertices().size()
+                + ", Number of edges:  " + g.getEdges().size() + ")");
+
+        LouvainModuleDetector louvain = new LouvainModuleDetector(g);
+        louvain.execute();
+        pMonitor.setCurrentMessage("Results in:  " + louvain.getFinalModuleList().size()
+                + " modules, with modularity of:  "
+                + formatter.format(louvain.getFinalModularity()));
+
+        NetworkWriter.outputModules(louvain);
+        HtmlReportGenerator html = HtmlReportGenerator.getInstance();
+        html.appendModuleDetection(louvain, geneConnector.getLinkerList());
+        return louvain.getFinalModularity();
+    }
+
     /**
      * Parition the Graph into Modules via Newman Girvan Algorithm.
      *
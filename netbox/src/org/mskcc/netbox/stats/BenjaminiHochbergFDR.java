@@ -1,6 +1,7 @@
 package org.mskcc.netbox.stats;
 
 import java.util.Arrays;
+import java.util.Comparator;
 
 /**
  * Bejamini Hochberg FDR Correction Code.
@@ -37,6 +38,39 @@ public final class BenjaminiHochbergFDR {
         this.adjustedPvalues = new double[m];
     }
 
+    /**
+     * Calculates Adjusted P-Values, in the Order of the Specified P-Values, rather than in
+     * Ascending Order.  The specified array is not modified, so, unlike calculate(), callers
+     * need not pass p-values in ascending order, or keep track of how they were re-ordered.
+     *
+     * @param p P-Values.
+     * @return adjusted p-values, one per specified p-value.
+     */
+    public static double[] adjust(final double[] p) {
+        Integer[] order = new Integer[p.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer i0, Integer i1) {
+                return Double.compare(p[i0], p[i1]);
+            }
+        });
+
+        //  Iterate through all p-values:  largest to smallest
+        int m = p.length;
+        double[] adjusted = new double[m];
+        for (int i = m - 1; i >= 0; i--) {
+            double right = (m / (double) (i + 1)) * p[order[i]];
+            if (i == m - 1) {
+                adjusted[order[i]] = right;
+            } else {
+                adjusted[order[i]] = Math.min(adjusted[order[i + 1]], right);
+            }
+        }
+        return adjusted;
+    }
+
     /**
      * method that calculates the Benjamini and Hochberg correction of
      * the false discovery rate.
@@ -0,0 +1,89 @@
+package org.mskcc.netbox.test.algorithm;
+
+import edu.uci.ics.jung.graph.Graph;
+import junit.framework.TestCase;
+import org.mskcc.netbox.algorithm.LinkerGene;
+import org.mskcc.netbox.algorithm.LinkerSweep;
+import org.mskcc.netbox.algorithm.LinkerSweepResult;
+import org.mskcc.netbox.graph.CompactNetwork;
+import org.mskcc.netbox.graph.CompactNetworkBuilder;
+import org.mskcc.netbox.graph.GraphCreationException;
+
+import java.util.ArrayList;
+
+/**
+ * Tests the LinkerSweep Class.
+ */
+public class TestLinkerSweep extends TestCase {
+
+    /**
+     * Tests a Sweep over several P-Value Cut-Offs.
+     *
+     * @throws GraphCreationException Graph Creation Error.
+     */
+    public final void testLinkerSweep() throws GraphCreationException {
+        CompactNetworkBuilder builder = new CompactNetworkBuilder("test");
+        builder.addInteraction("A", "pp", "B");
+        builder.addInteraction("L1", "pp", "A");
+        builder.addInteraction("L1", "pp", "B");
+        builder.addInteraction("L1", "pp", "C");
+        builder.addInteraction("L2", "pp", "C");
+        builder.addInteraction("L2", "pp", "D");
+        builder.addInteraction("L1", "pp", "L2");
+        builder.addInteraction("L3", "pp", "D");
+        for (int i = 0; i < 20; i++) {
+            builder.addInteraction("X" + i, "pp", "X" + (i + 1));
+            builder.addInteraction("X" + i, "pp", "L2");
+        }
+        CompactNetwork network = builder.build();
+
+        ArrayList<String> geneList = new ArrayList<String>();
+        geneList.add("A");
+        geneList.add("B");
+        geneList.add("C");
+        geneList.add("D");
+        geneList.add("UNKNOWN");
+        LinkerSweep sweep = new LinkerSweep(network, geneList);
+        assertEquals(4, sweep.getAlteredGeneList().size());
+
+        //  L3 is only connected to one altered gene, so it is not a candidate linker
+        ArrayList<LinkerGene> linkerList = sweep.getLinkerList();
+        assertEquals(2, linkerList.size());
+        assertEquals("L1", linkerList.get(0).getGene());
+        assertEquals(3, linkerList.get(0).getLocalDegree());
+        assertTrue(linkerList.get(0).getFdrAdjustedPValue()
+                < linkerList.get(1).getFdrAdjustedPValue());
+
+        double[] cutOffs = new double[] {1.0, 0.0, linkerList.get(0).getFdrAdjustedPValue()};
+        ArrayList<LinkerSweepResult> results = sweep.sweep(cutOffs);
+        assertEquals(3, results.size());
+
+        //  All linkers
+        LinkerSweepResult result = results.get(0);
+        assertEquals(1.0, result.getPValueCutOff(), 0.0);
+        assertEquals(4, result.getNumAlteredGenes());
+        assertEquals(2, result.getNumLinkerGenes());
+        assertEquals(7, result.getNumEdges());
+        assertEquals(6, result.getLargestComponent().getNumVertices());
+        assertEquals(7, result.getLargestComponent().getNumEdges());
+        Graph g = result.createGraph();
+        assertEquals(6, g.numVertices());
+        assertEquals(7, g.numEdges());
+
+        //  No linkers:  only A-B remains
+        result = results.get(1);
+        assertEquals(2, result.getNumAlteredGenes());
+        assertEquals(0, result.getNumLinkerGenes());
+        assertEquals(1, result.getNumEdges());
+        assertEquals(2, result.getLargestComponent().getNumVertices());
+        assertEquals(1, result.getLargestComponent().getNumEdges());
+
+        //  Only L1
+        result = results.get(2);
+        assertEquals(3, result.getNumAlteredGenes());
+        assertEquals(1, result.getNumLinkerGenes());
+        assertEquals(4, result.getNumEdges());
+        assertEquals(4, result.getLargestComponent().getNumVertices());
+        assertEquals(4, result.getInteractionList().size());
+    }
+}
@@ -0,0 +1,123 @@
+package org.mskcc.netbox.test.algorithm;
+
+import edu.uci.ics.jung.algorithms.shortestpath.DijkstraShortestPath;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.Vertex;
+import edu.uci.ics.jung.graph.decorators.StringLabeller;
+import junit.framework.TestCase;
+import org.mskcc.netbox.algorithm.SeedDistanceMap;
+import org.mskcc.netbox.graph.GraphCreationException;
+import org.mskcc.netbox.graph.InteractionToJung;
+import org.mskcc.netbox.model.Interaction;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Tests the SeedDistanceMap Class.
+ */
+public class TestSeedDistanceMap extends TestCase {
+    private static final int NUM_GRAPHS = 10;
+    private static final int NUM_GENES = 30;
+    private static final int NUM_EDGES = 30;
+    private static final int MAX_D = 4;
+    private static final String UNKNOWN = "GENE_UNKNOWN";
+
+    /**
+     * Tests Distances against the Hop Counts of Dijkstra Shortest Paths, on Random Graphs
+     * with several Components, as used by the module detectors:  genes within maxD distance
+     * of a seed are at most maxD - 1 hops away.
+     *
+     * @throws GraphCreationException Graph Creation Error.
+     */
+    public final void testSeedDistanceMap() throws GraphCreationException {
+        Random random = new Random(3);
+        int numWithin = 0;
+        for (int i = 0; i < NUM_GRAPHS; i++) {
+            Graph g = createGraph(random);
+            StringLabeller labeller = StringLabeller.getLabeller(g);
+            DijkstraShortestPath sp = new DijkstraShortestPath(g);
+            for (int maxD = 0; maxD <= MAX_D; maxD++) {
+                SeedDistanceMap map = new SeedDistanceMap(g, maxD - 1);
+                for (Object seed : g.getVertices()) {
+                    map.setSeed(labeller.getLabel((Vertex) seed));
+                    for (Object target : g.getVertices()) {
+                        Number hops = sp.getDistance((Vertex) seed, (Vertex) target);
+                        boolean expected = hops != null && hops.intValue() <= maxD - 1;
+                        assertEquals(expected,
+                                map.isWithinMaxDepth(labeller.getLabel((Vertex) target)));
+                        if (expected) {
+                            numWithin++;
+                        }
+                    }
+                    assertFalse(map.isWithinMaxDepth(UNKNOWN));
+                }
+
+                //  A seed which is not in the graph has no genes within the maximum depth
+                map.setSeed(UNKNOWN);
+                for (Object target : g.getVertices()) {
+                    assertFalse(map.isWithinMaxDepth(labeller.getLabel((Vertex) target)));
+                }
+            }
+        }
+        assertTrue(numWithin > 0);
+    }
+
+    /**
+     * Tests the Boundary Depths.
+     *
+     * @throws GraphCreationException Graph Creation Error.
+     */
+    public final void testDepths() throws GraphCreationException {
+        ArrayList<Interaction> interactionList = new ArrayList<Interaction>();
+        interactionList.add(createInteraction("A", "B"));
+        interactionList.add(createInteraction("B", "C"));
+        Graph g = InteractionToJung.createGraph(interactionList);
+
+        //  maxD = 0:  not even the seed
+        SeedDistanceMap map = new SeedDistanceMap(g, -1);
+        map.setSeed("A");
+        assertFalse(map.isWithinMaxDepth("A"));
+
+        //  maxD = 1:  only the seed
+        map = new SeedDistanceMap(g, 0);
+        map.setSeed("A");
+        assertTrue(map.isWithinMaxDepth("A"));
+        assertFalse(map.isWithinMaxDepth("B"));
+
+        //  maxD = 2:  the seed and its neighbors;  the previous seed is reset
+        map = new SeedDistanceMap(g, 1);
+        map.setSeed("A");
+        assertTrue(map.isWithinMaxDepth("B"));
+        assertFalse(map.isWithinMaxDepth("C"));
+        map.setSeed("C");
+        assertFalse(map.isWithinMaxDepth("A"));
+        assertTrue(map.isWithinMaxDepth("B"));
+        assertTrue(map.isWithinMaxDepth("C"));
+    }
+
+    /**
+     * Creates a Random Graph of NUM_GENES Genes, plus a Separate Component of Two Genes.
+     */
+    private Graph createGraph(Random random) throws GraphCreationException {
+        ArrayList<Interaction> interactionList = new ArrayList<Interaction>();
+        for (int i = 0; i < NUM_EDGES; i++) {
+            int a = random.nextInt(NUM_GENES);
+            int b = random.nextInt(NUM_GENES);
+            if (a != b) {
+                interactionList.add(createInteraction("GENE_" + a, "GENE_" + b));
+            }
+        }
+        interactionList.add(createInteraction("Y0", "Y1"));
+        return InteractionToJung.createGraph(interactionList);
+    }
+
+    private Interaction createInteraction(String geneA, String geneB) {
+        Interaction interaction = new Interaction();
+        interaction.setGeneA(geneA);
+        interaction.setGeneB(geneB);
+        interaction.setInteractionType("pp");
+        interaction.setSource("test");
+        return interaction;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * All JUnit Tests for Algorithm Package.
+ */
+package org.mskcc.netbox.test.algorithm;
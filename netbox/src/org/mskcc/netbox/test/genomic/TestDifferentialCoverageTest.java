@@ -0,0 +1,167 @@
+package org.mskcc.netbox.test.genomic;
+
+import junit.framework.TestCase;
+import org.apache.commons.math.distribution.HypergeometricDistributionImpl;
+import org.mskcc.netbox.genomic.ByteProfileData;
+import org.mskcc.netbox.genomic.DifferentialCoverageTest;
+import org.mskcc.netbox.genomic.GeneSetCoverageEngine;
+import org.mskcc.netbox.genomic.GeneticAlterationType;
+import org.mskcc.netbox.genomic.ProfileDataSummary;
+import org.mskcc.netbox.util.GlobalConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * JUnit Tests for the Differential Coverage Test.
+ */
+public class TestDifferentialCoverageTest extends TestCase {
+    private static final int NUM_GENES = 10;
+    private static final int NUM_CASES = 120;
+    private static final int NUM_SETS = 30;
+    private static final int NUM_PERMUTATIONS = 5000;
+    private static final long SEED = 11;
+    private static final int THREE = 3;
+    private static final double PRECISION = 1.0E-12;
+    private static final double P_PRECISION = 0.03;
+
+    /**
+     * Tests P-Values against the Hypergeometric Distribution of the Cases in Group A.
+     *
+     * @throws Exception All Errors.
+     */
+    public final void testDifferentialCoverage() throws Exception {
+        Random random = new Random(3);
+        ArrayList<String> geneList = new ArrayList<String>();
+        ArrayList<String> caseList = new ArrayList<String>();
+        for (int i = 0; i < NUM_GENES; i++) {
+            geneList.add("GENE_" + i);
+        }
+        for (int i = 0; i < NUM_CASES; i++) {
+            caseList.add("CASE_" + i);
+        }
+        ByteProfileData data = new ByteProfileData(GeneticAlterationType.MUTATION,
+                geneList, caseList);
+        for (int i = 0; i < NUM_GENES; i++) {
+            for (int j = 0; j < NUM_CASES; j++) {
+                //  GENE_0 is mostly altered in the first half of the cases, i.e. in group A
+                int odds = i == 0 && j < NUM_CASES / 2 ? THREE : NUM_GENES * 2;
+                if (random.nextInt(odds) == 0) {
+                    data.setValue(geneList.get(i), caseList.get(j), (byte) 1);
+                }
+            }
+        }
+        ProfileDataSummary summary = new ProfileDataSummary(data);
+
+        //  Group A includes a case which was not observed
+        ArrayList<ArrayList<String>> caseGroupList = new ArrayList<ArrayList<String>>();
+        caseGroupList.add(new ArrayList<String>(caseList.subList(0, NUM_CASES / 2)));
+        caseGroupList.add(new ArrayList<String>(caseList.subList(NUM_CASES / 2, NUM_CASES)));
+        caseGroupList.get(0).add("CASE_UNKNOWN");
+        int numA = caseGroupList.get(0).size();
+        int numPooled = numA + caseGroupList.get(1).size();
+
+        ArrayList<ArrayList<String>> geneSetList = new ArrayList<ArrayList<String>>();
+        for (int i = 0; i < NUM_SETS; i++) {
+            ArrayList<String> gList = new ArrayList<String>();
+            gList.add(geneList.get(i % NUM_GENES));
+            for (int j = 0; j < i % THREE; j++) {
+                gList.add(geneList.get(1 + random.nextInt(NUM_GENES - 1)));
+            }
+            geneSetList.add(gList);
+        }
+        ArrayList<String> unknownSet = new ArrayList<String>();
+        unknownSet.add("GENE_UNKNOWN");
+        geneSetList.add(unknownSet);
+
+        GlobalConfig config = GlobalConfig.getInstance();
+        int numThreads = config.getNumThreads();
+        GeneSetCoverageEngine engine = new GeneSetCoverageEngine(summary, caseGroupList);
+        DifferentialCoverageTest test;
+        DifferentialCoverageTest test2;
+        try {
+            config.setNumThreads(1);
+            test = new DifferentialCoverageTest(engine, geneSetList, 0, 1, NUM_PERMUTATIONS,
+                    SEED);
+            config.setNumThreads(THREE);
+            test2 = new DifferentialCoverageTest(engine, geneSetList, 0, 1, NUM_PERMUTATIONS,
+                    SEED);
+        } finally {
+            config.setNumThreads(numThreads);
+        }
+        double[][] percentCases = engine.getPercentCasesAltered(geneSetList);
+        double[] differences = test.getDifferences();
+        double[] pValues = test.getPValues();
+        double[] adjustedPValues = test.getAdjustedPValues();
+
+        for (int i = 0; i < NUM_SETS; i++) {
+            assertEquals(percentCases[i][0] - percentCases[i][1], differences[i], PRECISION);
+
+            //  Under permutation, the altered cases in group A follow a hypergeometric law
+            int altered = countCases(data, geneSetList.get(i), caseList);
+            int alteredA = countCases(data, geneSetList.get(i),
+                    caseList.subList(0, NUM_CASES / 2));
+            long observed = Math.abs((long) alteredA * numPooled - (long) altered * numA);
+            HypergeometricDistributionImpl hyper =
+                    new HypergeometricDistributionImpl(numPooled, altered, numA);
+            double expected = 0;
+            for (int c = 0; c <= altered; c++) {
+                if (Math.abs((long) c * numPooled - (long) altered * numA) >= observed) {
+                    expected += hyper.probability(c);
+                }
+            }
+            assertEquals(expected, pValues[i], P_PRECISION);
+            assertTrue(adjustedPValues[i] >= pValues[i]);
+        }
+        assertEquals(1.0, pValues[NUM_SETS], PRECISION);
+
+        //  GENE_0 is the most significant set
+        assertTrue(adjustedPValues[0] < 0.01);
+
+        //  Results do not depend on the number of threads
+        assertTrue(Arrays.equals(pValues, test2.getPValues()));
+    }
+
+    /**
+     * Tests that Overlapping Case Groups are Rejected.
+     */
+    public final void testOverlappingGroups() {
+        ArrayList<String> geneList = new ArrayList<String>();
+        geneList.add("GENE_0");
+        ArrayList<String> caseList = new ArrayList<String>();
+        caseList.add("CASE_0");
+        caseList.add("CASE_1");
+        ByteProfileData data = new ByteProfileData(GeneticAlterationType.MUTATION,
+                geneList, caseList);
+        data.setValue("GENE_0", "CASE_0", (byte) 1);
+        ProfileDataSummary summary = new ProfileDataSummary(data);
+        ArrayList<ArrayList<String>> caseGroupList = new ArrayList<ArrayList<String>>();
+        caseGroupList.add(caseList);
+        caseGroupList.add(caseList);
+        GeneSetCoverageEngine engine = new GeneSetCoverageEngine(summary, caseGroupList);
+        ArrayList<ArrayList<String>> geneSetList = new ArrayList<ArrayList<String>>();
+        geneSetList.add(geneList);
+        try {
+            new DifferentialCoverageTest(engine, geneSetList, 0, 1, NUM_PERMUTATIONS, SEED);
+            fail("IllegalArgumentException should have been thrown.");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("overlap"));
+        }
+    }
+
+    private int countCases(ByteProfileData data, ArrayList<String> gList,
+            List<String> caseSet) {
+        int num = 0;
+        for (String caseId : caseSet) {
+            for (String gene : gList) {
+                if (data.getValue(gene, caseId) != 0) {
+                    num++;
+                    break;
+                }
+            }
+        }
+        return num;
+    }
+}
@@ -0,0 +1,130 @@
+package org.mskcc.netbox.test.genomic;
+
+import junit.framework.TestCase;
+import org.mskcc.netbox.algorithm.LazyGreedyFrontier;
+import org.mskcc.netbox.genomic.ByteProfileData;
+import org.mskcc.netbox.genomic.GeneWithScore;
+import org.mskcc.netbox.genomic.GeneticAlterationType;
+import org.mskcc.netbox.genomic.ProfileDataSummary;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * JUnit Tests for the Lazy Greedy Frontier.
+ */
+public class TestLazyGreedyFrontier extends TestCase {
+    private static final int NUM_PROFILES = 300;
+    private static final int NUM_GENES = 40;
+    private static final int NUM_CASES = 30;
+    private static final int NUM_NEIGHBORS = 3;
+    private static final int EIGHT = 8;
+    private static final double PRECISION = 1.0E-12;
+
+    /**
+     * Tests that Growing a SubNet via the Lazy Greedy Frontier makes the same Choices as an
+     * Exhaustive Scan of all Neighbors, including Ties, on Random Profiles.  Few cases and
+     * sparse alterations make ties frequent.
+     */
+    public final void testBestAddition() {
+        Random random = new Random(1);
+        ArrayList<String> geneList = new ArrayList<String>();
+        ArrayList<String> caseList = new ArrayList<String>();
+        for (int i = 0; i < NUM_GENES; i++) {
+            geneList.add("GENE_" + i);
+        }
+        for (int i = 0; i < NUM_CASES; i++) {
+            caseList.add("CASE_" + i);
+        }
+        int numTies = 0;
+        for (int profile = 0; profile < NUM_PROFILES; profile++) {
+            ByteProfileData data = new ByteProfileData(GeneticAlterationType.MUTATION,
+                    geneList, caseList);
+            for (String gene : geneList) {
+                for (String caseId : caseList) {
+                    if (random.nextInt(EIGHT) == 0) {
+                        data.setValue(gene, caseId, (byte) 1);
+                    }
+                }
+            }
+            ProfileDataSummary summary = new ProfileDataSummary(data);
+
+            //  Grow a subnet from a random seed gene;  each added gene brings new neighbors
+            LazyGreedyFrontier frontier = new LazyGreedyFrontier(summary);
+            HashSet<String> subNet = new HashSet<String>();
+            HashSet<String> neighborSet = new HashSet<String>();
+            String gene = geneList.get(random.nextInt(NUM_GENES));
+            neighborSet.add("GENE_UNKNOWN");
+            while (gene != null) {
+                subNet.add(gene);
+                frontier.addToSubNet(gene);
+                for (int i = 0; i < NUM_NEIGHBORS; i++) {
+                    neighborSet.add(geneList.get(random.nextInt(NUM_GENES)));
+                }
+                assertEquals(summary.getPercentCasesWhereGeneSetisAltered(
+                        new ArrayList<String>(subNet)), frontier.getScore(), PRECISION);
+
+                GeneWithScore expected = getBestAddition(summary, subNet, neighborSet);
+                GeneWithScore actual = frontier.getBestAddition(neighborSet);
+                if (expected == null) {
+                    assertNull(actual);
+                    gene = null;
+                } else {
+                    assertEquals(expected.getGene(), actual.getGene());
+                    assertEquals(expected.getScore(), actual.getScore(), PRECISION);
+                    gene = actual.getGene();
+                    numTies += countTies(summary, subNet, neighborSet, expected.getScore());
+                }
+            }
+        }
+
+        //  Tie-breaking was exercised
+        assertTrue(numTies > 0);
+    }
+
+    /**
+     * Exhaustive Scan of all Neighbors:  the first neighbor, in the iteration order of the
+     * neighbor set, with the highest improvement of the frequency of alteration.
+     */
+    private GeneWithScore getBestAddition(ProfileDataSummary summary, HashSet<String> subNet,
+            HashSet<String> neighborSet) {
+        double maxScore = summary.getPercentCasesWhereGeneSetisAltered(
+                new ArrayList<String>(subNet));
+        String maxCandidate = null;
+        for (String candidate : neighborSet) {
+            ArrayList<String> neighborList = new ArrayList<String>(subNet);
+            neighborList.add(candidate);
+            double candidateFrequency =
+                    summary.getPercentCasesWhereGeneSetisAltered(neighborList);
+            if (candidateFrequency > maxScore) {
+                maxScore = candidateFrequency;
+                maxCandidate = candidate;
+            }
+        }
+        if (maxCandidate == null) {
+            return null;
+        }
+        GeneWithScore geneWithScore = new GeneWithScore();
+        geneWithScore.setGene(maxCandidate);
+        geneWithScore.setScore(maxScore);
+        return geneWithScore;
+    }
+
+    /**
+     * Counts the Neighbors, other than the First, which Result in the Best Frequency.
+     */
+    private int countTies(ProfileDataSummary summary, HashSet<String> subNet,
+            HashSet<String> neighborSet, double bestScore) {
+        int numBest = 0;
+        for (String candidate : neighborSet) {
+            ArrayList<String> neighborList = new ArrayList<String>(subNet);
+            neighborList.add(candidate);
+            if (Math.abs(summary.getPercentCasesWhereGeneSetisAltered(neighborList)
+                    - bestScore) < PRECISION) {
+                numBest++;
+            }
+        }
+        return numBest - 1;
+    }
+}
@@ -0,0 +1,168 @@
+package org.mskcc.netbox.test.genomic;
+
+import jsc.correlation.KendallCorrelation;
+import jsc.datastructures.PairedData;
+import junit.framework.TestCase;
+import org.mskcc.netbox.genomic.ByteProfileData;
+import org.mskcc.netbox.genomic.GeneticAlterationType;
+import org.mskcc.netbox.genomic.MutualExclusivityScorer;
+import org.mskcc.netbox.genomic.ProfileDataSummary;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * JUnit Tests for the Mutual Exclusivity Scorer.
+ */
+public class TestMutualExclusivityScorer extends TestCase {
+    private static final int NUM_GENES = 12;
+    private static final int NUM_CASES = 90;
+    private static final double PRECISION = 1.0E-12;
+
+    /**
+     * Tests Kendall's Tau against the jsc Kendall Correlation.
+     */
+    public final void testKendallTau() {
+        Random random = new Random(1);
+        ArrayList<String> geneList = new ArrayList<String>();
+        ArrayList<String> caseList = new ArrayList<String>();
+        for (int i = 0; i < NUM_GENES; i++) {
+            geneList.add("GENE_" + i);
+        }
+        for (int i = 0; i < NUM_CASES; i++) {
+            caseList.add("CASE_" + i);
+        }
+        ByteProfileData data = new ByteProfileData(GeneticAlterationType.MUTATION,
+                geneList, caseList);
+        for (int i = 0; i < NUM_GENES; i++) {
+            for (String caseId : caseList) {
+                //  Genes are altered with increasing frequency
+                if (random.nextInt(NUM_GENES + 1) <= i) {
+                    data.setValue(geneList.get(i), caseId, (byte) 1);
+                }
+            }
+        }
+        ProfileDataSummary summary = new ProfileDataSummary(data);
+        MutualExclusivityScorer scorer = new MutualExclusivityScorer(summary);
+
+        ArrayList<String> geneAList = new ArrayList<String>();
+        ArrayList<String> geneBList = new ArrayList<String>();
+        for (String geneA : geneList) {
+            for (String geneB : geneList) {
+                geneAList.add(geneA);
+                geneBList.add(geneB);
+            }
+        }
+        double[] tau = scorer.getKendallTau(geneAList, geneBList);
+        for (int i = 0; i < tau.length; i++) {
+            double expected = getKendallTau(summary, geneAList.get(i), geneBList.get(i));
+            assertTau(expected, tau[i]);
+            assertTau(expected, scorer.getKendallTau(geneAList.get(i), geneBList.get(i)));
+        }
+        assertTrue(Double.isNaN(scorer.getKendallTau("GENE_UNKNOWN", "GENE_0")));
+    }
+
+    /**
+     * Tests Exact P-Values against the Hypergeometric Probabilities of all Overlaps.
+     */
+    public final void testPValues() {
+        ArrayList<String> geneList = new ArrayList<String>();
+        ArrayList<String> caseList = new ArrayList<String>();
+        for (String gene : new String[]{"A", "B", "C", "D"}) {
+            geneList.add(gene);
+        }
+        for (int i = 0; i < NUM_CASES * 2; i++) {
+            caseList.add("CASE_" + i);
+        }
+        ByteProfileData data = new ByteProfileData(GeneticAlterationType.MUTATION,
+                geneList, caseList);
+        for (int i = 0; i < caseList.size(); i++) {
+            String caseId = caseList.get(i);
+
+            //  A and B are mutually exclusive, C overlaps A, D is altered in a few cases
+            data.setValue("A", caseId, (byte) (i % 10 < 3 ? 1 : 0));
+            data.setValue("B", caseId, (byte) (i % 10 >= 6 ? 1 : 0));
+            data.setValue("C", caseId, (byte) (i % 10 < 5 ? 1 : 0));
+            data.setValue("D", caseId, (byte) (i % 20 == 5 ? 1 : 0));
+        }
+        ProfileDataSummary summary = new ProfileDataSummary(data);
+        MutualExclusivityScorer scorer = new MutualExclusivityScorer(summary);
+
+        ArrayList<String> geneAList = new ArrayList<String>();
+        ArrayList<String> geneBList = new ArrayList<String>();
+        for (int i = 0; i < geneList.size(); i++) {
+            for (int j = i + 1; j < geneList.size(); j++) {
+                geneAList.add(geneList.get(i));
+                geneBList.add(geneList.get(j));
+            }
+        }
+        double[] pValues = scorer.getPValues(geneAList, geneBList);
+        int numCases = caseList.size();
+        for (int i = 0; i < pValues.length; i++) {
+            int numA = countCases(summary, geneAList.get(i), null);
+            int numB = countCases(summary, geneBList.get(i), null);
+            int overlap = countCases(summary, geneAList.get(i), geneBList.get(i));
+            double expected = 0.0;
+            for (int c = 0; c <= overlap; c++) {
+                expected += Math.exp(logChoose(numA, c) + logChoose(numCases - numA, numB - c)
+                        - logChoose(numCases, numB));
+            }
+            assertEquals(expected, pValues[i], Math.max(PRECISION, expected * 1.0E-9));
+        }
+
+        //  A vs. B is far more significant than any permutation test could show
+        assertTrue(pValues[0] < 1.0E-12);
+        assertTrue(pValues[1] > 0.5);
+        assertEquals(1.0, scorer.getPValue("GENE_UNKNOWN", "A"), PRECISION);
+    }
+
+    private int countCases(ProfileDataSummary summary, String geneA, String geneB) {
+        int num = 0;
+        for (String caseId : summary.getObservedCaseList()) {
+            if (summary.isGeneAltered(geneA, caseId)
+                    && (geneB == null || summary.isGeneAltered(geneB, caseId))) {
+                num++;
+            }
+        }
+        return num;
+    }
+
+    private double logChoose(int n, int k) {
+        double result = 0.0;
+        for (int i = 0; i < k; i++) {
+            result += Math.log(n - i) - Math.log(i + 1);
+        }
+        return result;
+    }
+
+    private void assertTau(double expected, double actual) {
+        if (Double.isNaN(expected)) {
+            assertTrue(Double.isNaN(actual));
+        } else {
+            assertEquals(expected, actual, PRECISION);
+        }
+    }
+
+    private double getKendallTau(ProfileDataSummary summary, String geneA, String geneB) {
+        ArrayList<Double> xList = new ArrayList<Double>();
+        ArrayList<Double> yList = new ArrayList<Double>();
+        for (String caseId : summary.getObservedCaseList()) {
+            boolean geneAAltered = summary.isGeneAltered(geneA, caseId);
+            boolean geneBAltered = summary.isGeneAltered(geneB, caseId);
+            if (geneAAltered || geneBAltered) {
+                xList.add(geneAAltered ? 1.0 : 0.0);
+                yList.add(geneBAltered ? 1.0 : 0.0);
+            }
+        }
+        if (xList.isEmpty()) {
+            return Double.NaN;
+        }
+        double[] x = new double[xList.size()];
+        double[] y = new double[yList.size()];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = xList.get(i);
+            y[i] = yList.get(i);
+        }
+        return new KendallCorrelation(new PairedData(x, y)).getR();
+    }
+}
@@ -0,0 +1,159 @@
+package org.mskcc.netbox.test.genomic;
+
+import junit.framework.TestCase;
+import org.mskcc.netbox.genomic.ByteProfileData;
+import org.mskcc.netbox.genomic.GeneSetCoverage;
+import org.mskcc.netbox.genomic.GeneSetCoverageEngine;
+import org.mskcc.netbox.genomic.GeneticAlterationType;
+import org.mskcc.netbox.genomic.ProfileDataSummary;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * JUnit Tests for Profile Data Summary.
+ */
+public class TestProfileDataSummary extends TestCase {
+    private static final int NUM_GENES = 20;
+    private static final int NUM_CASES = 150;
+    private static final int NUM_SETS = 50;
+    private static final int SET_SIZE = 4;
+    private static final int FIVE = 5;
+    private static final double PRECISION = 1.0E-12;
+
+    /**
+     * Tests Gene Set Coverage against a Case by Case Count.
+     */
+    public final void testGeneSetCoverage() {
+        Random random = new Random(1);
+        ArrayList<String> geneList = new ArrayList<String>();
+        ArrayList<String> caseList = new ArrayList<String>();
+        for (int i = 0; i < NUM_GENES; i++) {
+            geneList.add("GENE_" + i);
+        }
+        for (int i = 0; i < NUM_CASES; i++) {
+            caseList.add("CASE_" + i);
+        }
+        ByteProfileData data = new ByteProfileData(GeneticAlterationType.MUTATION,
+                geneList, caseList);
+        for (String gene : geneList) {
+            for (String caseId : caseList) {
+                if (random.nextInt(FIVE) == 0) {
+                    data.setValue(gene, caseId, (byte) 1);
+                }
+            }
+        }
+        ProfileDataSummary summary = new ProfileDataSummary(data);
+
+        //  Every other case, plus a case which was not observed
+        ArrayList<String> caseSubset = new ArrayList<String>();
+        for (int i = 0; i < NUM_CASES; i += 2) {
+            caseSubset.add(caseList.get(i));
+        }
+        caseSubset.add("CASE_UNKNOWN");
+
+        for (int i = 0; i < NUM_SETS; i++) {
+            ArrayList<String> gList = new ArrayList<String>();
+            for (int j = 0; j < SET_SIZE; j++) {
+                gList.add(geneList.get(random.nextInt(NUM_GENES)));
+            }
+            gList.add("GENE_UNKNOWN");
+            assertEquals(getCoverage(data, gList, caseList),
+                    summary.getPercentCasesWhereGeneSetisAltered(gList), PRECISION);
+            assertEquals(getCoverage(data, gList, caseSubset),
+                    summary.getPercentCasesWhereGeneSetisAltered(gList, caseSubset), PRECISION);
+
+            //  Running coverage, gene by gene
+            GeneSetCoverage coverage = new GeneSetCoverage(summary);
+            ArrayList<String> subList = new ArrayList<String>();
+            for (String gene : gList) {
+                int numCasesCovered = coverage.getNumCasesCovered();
+                int numNewCases = coverage.getNumNewCases(gene);
+                coverage.addGene(gene);
+                subList.add(gene);
+                assertEquals(numCasesCovered + numNewCases, coverage.getNumCasesCovered());
+                assertEquals(getCoverage(data, subList, caseList),
+                        coverage.getPercentCases(coverage.getNumCasesCovered()), PRECISION);
+            }
+        }
+
+        for (String gene : geneList) {
+            for (String caseId : caseList) {
+                assertEquals(data.getValue(gene, caseId) != 0,
+                        summary.isGeneAltered(gene, caseId));
+            }
+        }
+        assertFalse(summary.isGeneAltered("GENE_UNKNOWN", "CASE_0"));
+    }
+
+    /**
+     * Tests the Gene Set Coverage Engine against the Profile Data Summary.
+     */
+    public final void testGeneSetCoverageEngine() {
+        Random random = new Random(2);
+        ArrayList<String> geneList = new ArrayList<String>();
+        ArrayList<String> caseList = new ArrayList<String>();
+        for (int i = 0; i < NUM_GENES; i++) {
+            geneList.add("GENE_" + i);
+        }
+        for (int i = 0; i < NUM_CASES; i++) {
+            caseList.add("CASE_" + i);
+        }
+        ByteProfileData data = new ByteProfileData(GeneticAlterationType.MUTATION,
+                geneList, caseList);
+        for (String gene : geneList) {
+            for (String caseId : caseList) {
+                if (random.nextInt(FIVE * FIVE) == 0) {
+                    data.setValue(gene, caseId, (byte) 1);
+                }
+            }
+        }
+        ProfileDataSummary summary = new ProfileDataSummary(data);
+
+        //  Odd cases, even cases plus a case which was not observed, and all cases
+        ArrayList<ArrayList<String>> caseGroupList = new ArrayList<ArrayList<String>>();
+        for (int g = 0; g < 2; g++) {
+            ArrayList<String> caseGroup = new ArrayList<String>();
+            for (int i = g; i < NUM_CASES; i += 2) {
+                caseGroup.add(caseList.get(i));
+            }
+            caseGroupList.add(caseGroup);
+        }
+        caseGroupList.get(0).add("CASE_UNKNOWN");
+        caseGroupList.add(caseList);
+
+        ArrayList<ArrayList<String>> geneSetList = new ArrayList<ArrayList<String>>();
+        for (int i = 0; i < NUM_SETS; i++) {
+            ArrayList<String> gList = new ArrayList<String>();
+            for (int j = 0; j < i % FIVE; j++) {
+                gList.add(geneList.get(random.nextInt(NUM_GENES)));
+            }
+            gList.add("GENE_UNKNOWN");
+            geneSetList.add(gList);
+        }
+
+        GeneSetCoverageEngine engine = new GeneSetCoverageEngine(summary, caseGroupList);
+        double[][] percentCases = engine.getPercentCasesAltered(geneSetList);
+        assertEquals(NUM_SETS, percentCases.length);
+        for (int i = 0; i < NUM_SETS; i++) {
+            for (int g = 0; g < caseGroupList.size(); g++) {
+                assertEquals(summary.getPercentCasesWhereGeneSetisAltered(geneSetList.get(i),
+                        caseGroupList.get(g)), percentCases[i][g], PRECISION);
+            }
+        }
+    }
+
+    private double getCoverage(ByteProfileData data, ArrayList<String> gList,
+            ArrayList<String> caseSet) {
+        int numCasesAffected = 0;
+        for (String caseId : caseSet) {
+            for (String gene : gList) {
+                if (data.getValue(gene, caseId) != 0) {
+                    numCasesAffected++;
+                    break;
+                }
+            }
+        }
+        return numCasesAffected / (double) caseSet.size();
+    }
+}
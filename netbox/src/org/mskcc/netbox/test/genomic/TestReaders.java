@@ -8,6 +8,7 @@ import org.mskcc.netbox.genomic.util.MutationReader;
 import org.mskcc.netbox.genomic.util.TabDelimReader;
 
 import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.util.HashSet;
 
@@ -43,4 +44,31 @@ public class TestReaders extends TestCase {
         assertEquals(95, byteProfileData.getGeneList().size());
         assertEquals(85, byteProfileData.getCaseIdList().size());
     }
+
+    /**
+     * Tests that Mutation Lines with fewer than three Fields are Rejected.
+     *
+     * @throws IOException IO Error.
+     */
+    public final void testShortMutationLine() throws IOException {
+        File file = File.createTempFile("mutation", ".txt");
+        try {
+            FileWriter writer = new FileWriter(file);
+            writer.write("ENTREZ_GENE_ID\tCASE_ID\tMUTATION\n");
+            writer.write("7490\tTCGA-02-0089\tR787*\n");
+            writer.write("\n");
+            writer.write("3371\tTCGA-06-0129\n");
+            writer.close();
+            HashSet<String> caseIdSet = new HashSet<String>();
+            caseIdSet.add("TCGA-02-0089");
+            try {
+                new MutationReader(file, caseIdSet, false);
+                fail("IllegalArgumentException should have been thrown.");
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().contains("3371"));
+            }
+        } finally {
+            file.delete();
+        }
+    }
 }
@@ -0,0 +1,161 @@
+package org.mskcc.netbox.test.graph;
+
+import junit.framework.TestCase;
+import org.mskcc.netbox.graph.CompactNetwork;
+import org.mskcc.netbox.graph.CompactNetworkBuilder;
+import org.mskcc.netbox.graph.CompactNetworkIO;
+import org.mskcc.netbox.graph.InteractionUtil;
+import org.mskcc.netbox.model.Interaction;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Tests the CompactNetwork, CompactNetworkBuilder and CompactNetworkIO Classes.
+ */
+public class TestCompactNetwork extends TestCase {
+
+    /**
+     * Tests the Compact Adjacency Representation.
+     */
+    public final void testCompactNetwork() {
+        CompactNetwork network = createNetwork();
+        assertEquals(6, network.getNumGenes());
+        assertEquals(5, network.getNumEdges());
+        assertEquals("dip", network.getSource());
+
+        int a = network.getGeneIndex("A");
+        int b = network.getGeneIndex("B");
+        int c = network.getGeneIndex("C");
+        assertEquals("A", network.getGeneSymbol(a));
+        assertEquals(-1, network.getGeneIndex("Z"));
+        assertEquals(3, network.getDegree(a));
+        assertEquals(3, network.getDegree("A"));
+        assertEquals(0, network.getDegree("Z"));
+
+        assertTrue(network.isNeighbor(a, b));
+        assertTrue(network.isNeighbor(b, a));
+        assertFalse(network.isNeighbor(b, c));
+
+        //  Neighbors are sorted by gene ID
+        int last = -1;
+        for (int i = network.getNeighborStart(a); i < network.getNeighborEnd(a); i++) {
+            assertTrue(network.getNeighbor(i) > last);
+            last = network.getNeighbor(i);
+        }
+        assertEquals(5, network.createInteractionList().size());
+    }
+
+    /**
+     * Tests the InteractionUtil methods on top of the Compact Representation.
+     */
+    public final void testInteractionUtil() {
+        CompactNetwork network = createNetwork();
+        ArrayList<String> geneList = new ArrayList<String>();
+        geneList.add("A");
+        geneList.add("B");
+        geneList.add("A");
+
+        //  A-B, A-C, A-D, B-E;  A-B must be reported only once
+        ArrayList<Interaction> interactionList
+                = InteractionUtil.getAllInteractions(network, geneList);
+        assertEquals(4, interactionList.size());
+
+        interactionList = InteractionUtil.connectGenesNoLinkers(network, geneList);
+        assertEquals(1, interactionList.size());
+        assertEquals("pp", interactionList.get(0).getInteractionType());
+
+        //  Adds the linker-linker interaction D-E
+        interactionList = InteractionUtil.connectsGenesWithLinkers(network, geneList);
+        assertEquals(5, interactionList.size());
+    }
+
+    /**
+     * Tests that a Network survives a Round Trip through a Binary Snapshot.
+     *
+     * @throws IOException IO Error.
+     */
+    public final void testSnapshot() throws IOException {
+        CompactNetwork network = createNetwork();
+        File sifFile = createSifFile("A\tpp\tB\n");
+        File snapshotFile = CompactNetworkIO.getSnapshotFile(sifFile);
+        snapshotFile.deleteOnExit();
+        CompactNetworkIO.writeSnapshot(network, sifFile, snapshotFile);
+
+        CompactNetwork mapped = CompactNetworkIO.readSnapshot(snapshotFile);
+        assertEquals(network.getNumGenes(), mapped.getNumGenes());
+        assertEquals(network.getNumEdges(), mapped.getNumEdges());
+        assertEquals("dip", mapped.getSource());
+        for (int i = 0; i < network.getNumGenes(); i++) {
+            assertEquals(network.getGeneSymbol(i), mapped.getGeneSymbol(i));
+            assertEquals(network.getNeighborStart(i), mapped.getNeighborStart(i));
+            assertEquals(network.getNeighborEnd(i), mapped.getNeighborEnd(i));
+        }
+        for (int i = 0; i < network.getNumEdges() * 2; i++) {
+            assertEquals(network.getNeighbor(i), mapped.getNeighbor(i));
+            assertEquals(network.getInteractionType(i), mapped.getInteractionType(i));
+        }
+        assertTrue(mapped.isNeighbor(mapped.getGeneIndex("D"), mapped.getGeneIndex("E")));
+    }
+
+    /**
+     * Tests that Snapshots are only Current for a SIF File of the same Length and
+     * Modification Time.
+     *
+     * @throws IOException IO Error.
+     */
+    public final void testSnapshotCurrent() throws IOException {
+        File sifFile = createSifFile("A\tpp\tB\nB\tpp\tC\n");
+        File snapshotFile = CompactNetworkIO.getSnapshotFile(sifFile);
+        snapshotFile.deleteOnExit();
+        assertFalse(CompactNetworkIO.isSnapshotCurrent(sifFile, snapshotFile));
+
+        CompactNetwork network = CompactNetworkIO.readSif(sifFile, "dip");
+        assertEquals(2, network.getNumEdges());
+        CompactNetworkIO.writeSnapshot(network, sifFile, snapshotFile);
+        assertTrue(CompactNetworkIO.isSnapshotCurrent(sifFile, snapshotFile));
+
+        //  A SIF file replaced by an older copy, e.g. via cp -p, is detected
+        assertTrue(sifFile.setLastModified(sifFile.lastModified() - 60000));
+        assertFalse(CompactNetworkIO.isSnapshotCurrent(sifFile, snapshotFile));
+        CompactNetworkIO.writeSnapshot(network, sifFile, snapshotFile);
+        assertTrue(CompactNetworkIO.isSnapshotCurrent(sifFile, snapshotFile));
+
+        //  So is a SIF file of a different length, with the same modification time
+        long lastModified = sifFile.lastModified();
+        FileWriter writer = new FileWriter(sifFile, true);
+        writer.write("C\tpp\tD\n");
+        writer.close();
+        assertTrue(sifFile.setLastModified(lastModified));
+        assertFalse(CompactNetworkIO.isSnapshotCurrent(sifFile, snapshotFile));
+
+        //  Files which are not snapshots are never current
+        FileWriter snapshotWriter = new FileWriter(snapshotFile);
+        snapshotWriter.write("not a snapshot");
+        snapshotWriter.close();
+        assertFalse(CompactNetworkIO.isSnapshotCurrent(sifFile, snapshotFile));
+    }
+
+    private File createSifFile(String content) throws IOException {
+        File sifFile = File.createTempFile("network", ".sif");
+        sifFile.deleteOnExit();
+        FileWriter writer = new FileWriter(sifFile);
+        writer.write(content);
+        writer.close();
+        return sifFile;
+    }
+
+    private CompactNetwork createNetwork() {
+        CompactNetworkBuilder builder = new CompactNetworkBuilder("dip");
+        builder.addInteraction("A", "pp", "B");
+        builder.addInteraction("B", "pp", "A");
+        builder.addInteraction("A", "pp", "C");
+        builder.addInteraction("D", "pp", "A");
+        builder.addInteraction("B", "pp", "E");
+        builder.addInteraction("D", "pp", "E");
+        builder.addInteraction("F", "pp", "F");
+        return builder.build();
+    }
+}
@@ -9,6 +9,7 @@ import edu.uci.ics.jung.graph.impl.UndirectedSparseGraph;
 import junit.framework.TestCase;
 import org.mskcc.netbox.graph.GraphCreationException;
 import org.mskcc.netbox.graph.GraphPermute;
+import org.mskcc.netbox.graph.IndexedGraph;
 
 /**
  * JUnit Tests for the Graph Permute Class.
@@ -47,6 +48,47 @@ public class TestGraphPermute extends TestCase {
         assertEquals(6, randomGraph.getEdges().size());
     }
 
+    /**
+     * Tests that Random Graphs only depend on the Wiring of the Graph and on the Seed, and not
+     * on the order in which vertices and edges were created.
+     *
+     * @throws GraphCreationException Graph Creation Error.
+     */
+    public final void testReproducibility() throws GraphCreationException {
+        String[] labels = {"A", "B", "C", "D", "E", "F", "G", "H"};
+        String[][] edges = {{"A", "B"}, {"A", "C"}, {"B", "C"}, {"C", "D"}, {"D", "E"},
+                {"E", "F"}, {"F", "G"}, {"G", "H"}, {"H", "E"}, {"B", "G"}};
+        Graph g1 = new UndirectedSparseGraph();
+        Graph g2 = new UndirectedSparseGraph();
+        Vertex[] vertices1 = new Vertex[labels.length];
+        Vertex[] vertices2 = new Vertex[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            vertices1[i] = createVertex(g1, labels[i]);
+            vertices2[labels.length - 1 - i] = createVertex(g2, labels[labels.length - 1 - i]);
+        }
+        for (int i = 0; i < edges.length; i++) {
+            String[] edge1 = edges[i];
+            String[] edge2 = edges[edges.length - 1 - i];
+            g1.addEdge(new UndirectedSparseEdge(vertices1[edge1[0].charAt(0) - 'A'],
+                    vertices1[edge1[1].charAt(0) - 'A']));
+            g2.addEdge(new UndirectedSparseEdge(vertices2[edge2[1].charAt(0) - 'A'],
+                    vertices2[edge2[0].charAt(0) - 'A']));
+        }
+
+        IndexedGraph random1 = new GraphPermute(g1, 3).nextIndexedGraph();
+        IndexedGraph random2 = new GraphPermute(new GraphPermute(g2), 3).nextIndexedGraph();
+        assertEquals(edges.length, random1.getNumEdges());
+        for (int e = 0; e < edges.length; e++) {
+            assertEquals(random1.getEdgeSource(e), random2.getEdgeSource(e));
+            assertEquals(random1.getEdgeTarget(e), random2.getEdgeTarget(e));
+        }
+
+        //  Vertex degrees are preserved;  vertex IDs follow the order of the labels
+        for (int v = 0; v < labels.length; v++) {
+            assertEquals(vertices1[v].degree(), random1.getDegree(v));
+        }
+    }
+
     private Vertex createVertex(Graph g, String label) throws GraphCreationException {
         try {
             StringLabeller labeller = StringLabeller.getLabeller(g);
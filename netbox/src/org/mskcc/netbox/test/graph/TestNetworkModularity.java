@@ -10,7 +10,9 @@ import edu.uci.ics.jung.graph.impl.UndirectedSparseEdge;
 import edu.uci.ics.jung.graph.impl.UndirectedSparseGraph;
 import junit.framework.TestCase;
 import org.mskcc.netbox.graph.GraphCreationException;
+import org.mskcc.netbox.graph.IndexedGraph;
 import org.mskcc.netbox.graph.MiniEdge;
+import org.mskcc.netbox.graph.ModularityState;
 import org.mskcc.netbox.graph.NetworkModularity;
 import org.mskcc.netbox.graph.NetworkModularityFast;
 
@@ -32,6 +34,7 @@ public final class TestNetworkModularity extends TestCase {
     private static final double ZERO = 0.0;
     private static final int ONE = 1;
     private static final int TWO = 2;
+    private static final int THREE = 3;
     private static final int FIVE = 5;
     private static final int SIX = 6;
     private static final int EIGHT = 8;
@@ -333,6 +336,78 @@ public final class TestNetworkModularity extends TestCase {
         assertEquals(0.13194, q, PRECISION);
     }
 
+    /**
+     * Tests the Array Based ModularityState, with the same Graph as Test 2.
+     *
+     * @throws GraphCreationException Graph Creation Error.
+     */
+    public void testModularityState() throws GraphCreationException {
+        Graph g = new UndirectedSparseGraph();
+        Vertex vertexA = createVertex(g, "A");
+        Vertex vertexB = createVertex(g, "B");
+        Vertex vertexC = createVertex(g, "C");
+        Vertex vertexD = createVertex(g, "D");
+        Vertex vertexE = createVertex(g, "E");
+        Vertex vertexF = createVertex(g, "F");
+        g.addEdge(new UndirectedSparseEdge(vertexA, vertexB));
+        g.addEdge(new UndirectedSparseEdge(vertexA, vertexC));
+        g.addEdge(new UndirectedSparseEdge(vertexB, vertexC));
+        g.addEdge(new UndirectedSparseEdge(vertexD, vertexE));
+        g.addEdge(new UndirectedSparseEdge(vertexD, vertexF));
+        g.addEdge(new UndirectedSparseEdge(vertexE, vertexF));
+
+        IndexedGraph indexedGraph = new IndexedGraph(g);
+        StringLabeller labeller = StringLabeller.getLabeller(g);
+        HashMap<String, Integer> index = new HashMap<String, Integer>();
+        int[] assignment = new int[SIX];
+        for (int v = 0; v < SIX; v++) {
+            String label = labeller.getLabel(indexedGraph.getVertex(v));
+            index.put(label, v);
+            assignment[v] = label.compareTo("D") < 0 ? 0 : 1;
+        }
+        ModularityState state = new ModularityState(indexedGraph, assignment, THREE);
+        assertEquals(EXPECTED_2, state.getModularity(), PRECISION);
+        assertEquals(THREE, state.getInternalEdges(0));
+        assertEquals(SIX, state.getDegreeSum(0));
+
+        //  Same moves as in Test 2
+        int b = index.get("B");
+        int c = index.get("C");
+        assertEquals(0.11111111 - EXPECTED_2, state.getDeltaOneNodeMove(b, 1), PRECISION);
+        assertEquals(EXPECTED_2, state.getModularity(), PRECISION);
+        state.moveNode(b, 1);
+        assertEquals(0.11111111, state.getModularity(), PRECISION);
+        state.moveNode(c, 1);
+        assertEquals(-0.0555555, state.getModularity(), PRECISION);
+        assertEquals(ONE, state.getModuleSize(0));
+        state.moveNode(c, 0);
+        state.moveNode(b, 0);
+        assertEquals(EXPECTED_2, state.getModularity(), PRECISION);
+        assertEquals(TWO, state.getNumModules());
+
+        //  Split B and C off into a new module, and compare against a fresh state
+        int[] nodes = new int[] {b, c};
+        double delta = state.getDeltaMove(nodes, 0, TWO, TWO);
+        state.moveNodes(nodes, 0, TWO, TWO);
+        assertEquals(EXPECTED_2 + delta, state.getModularity(), PRECISION);
+        for (int v = 0; v < SIX; v++) {
+            assignment[v] = state.getModule(v);
+        }
+        ModularityState fresh = new ModularityState(indexedGraph, assignment, THREE);
+        assertEquals(fresh.getModularity(), state.getModularity(), PRECISION);
+        assertEquals(THREE, state.getNumModules());
+        assertEquals(ONE, state.getInternalEdges(TWO));
+
+        //  Merge them back, and then merge everything into a single module
+        state.mergeModules(0, TWO);
+        assertEquals(EXPECTED_2, state.getModularity(), PRECISION);
+        assertEquals(0.0 - EXPECTED_2, state.getDeltaMerge(0, 1), PRECISION);
+        state.mergeModules(1, 0);
+        assertEquals(0.0, state.getModularity(), PRECISION);
+        assertEquals(SIX, state.getModuleSize(1));
+        assertEquals(-1, state.getFirstMember(0));
+    }
+
     /**
      * Tests the Mini Edge Equals / Hashcode Functionality.
      */
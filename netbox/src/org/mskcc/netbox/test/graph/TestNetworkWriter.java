@@ -0,0 +1,97 @@
+package org.mskcc.netbox.test.graph;
+
+import edu.uci.ics.jung.graph.Graph;
+import junit.framework.TestCase;
+import org.mskcc.netbox.graph.InteractionToJung;
+import org.mskcc.netbox.graph.JungToSif;
+import org.mskcc.netbox.model.Interaction;
+import org.mskcc.netbox.util.GlobalConfig;
+import org.mskcc.netbox.util.NetworkWriter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Tests the NetworkWriter Class.
+ */
+public class TestNetworkWriter extends TestCase {
+
+    /**
+     * Tests that Networks are Streamed to Plain and Gzip Compressed Files, and that the
+     * Random Seed is Recorded.
+     *
+     * @throws Exception All Errors.
+     */
+    public final void testNetworkWriter() throws Exception {
+        ArrayList<Interaction> interactionList = new ArrayList<Interaction>();
+        String[][] edges = {{"A", "B"}, {"A", "C"}, {"C", "D"}};
+        for (String[] edge : edges) {
+            Interaction interaction = new Interaction();
+            interaction.setGeneA(edge[0]);
+            interaction.setGeneB(edge[1]);
+            interaction.setInteractionType("pp");
+            interaction.setSource("dip");
+            interactionList.add(interaction);
+        }
+        Graph g = InteractionToJung.createGraph(interactionList);
+        String sif = JungToSif.convertToSif(g);
+        assertEquals(edges.length, sif.split("\n").length);
+        assertTrue(sif.contains("C INTERACTS D\n") || sif.contains("D INTERACTS C\n"));
+
+        File dir = File.createTempFile("network_writer", "");
+        dir.delete();
+        dir.mkdir();
+        GlobalConfig config = GlobalConfig.getInstance();
+        File outputDirectory = config.getOutputDirectory();
+        boolean gzipOutput = config.isGzipOutput();
+        try {
+            config.setOutputDirectory(dir);
+            config.setGzipOutput(false);
+            NetworkWriter.outputNetwork(g);
+            assertEquals(sif, readFile(new File(dir, "network.sif"), false));
+
+            //  The random seed is recorded in properties format, and never compressed
+            NetworkWriter.outputRandomSeed();
+            assertEquals("random_seed=" + config.getRandomSeed() + "\n",
+                    readFile(new File(dir, "random_seed.txt"), false));
+
+            config.setGzipOutput(true);
+            NetworkWriter.outputNetwork(g);
+            NetworkWriter.outputNetwork(interactionList);
+            assertEquals(sif, readFile(new File(dir, "network.sif.gz"), true));
+            assertEquals("A\tpp\tB\nA\tpp\tC\nC\tpp\tD\n",
+                    readFile(new File(dir, "network_full.sif.gz"), true));
+            assertEquals("Data_Source\nA (pp) B = dip\nA (pp) C = dip\nC (pp) D = dip\n",
+                    readFile(new File(dir, "edge_data_source.txt.gz"), true));
+        } finally {
+            config.setOutputDirectory(outputDirectory);
+            config.setGzipOutput(gzipOutput);
+            for (File file : dir.listFiles()) {
+                file.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    private String readFile(File file, boolean gzip) throws IOException {
+        InputStream in = new FileInputStream(file);
+        if (gzip) {
+            in = new GZIPInputStream(in);
+        }
+        Reader reader = new InputStreamReader(in);
+        StringBuffer buf = new StringBuffer();
+        char[] chars = new char[1024];
+        int n;
+        while ((n = reader.read(chars)) >= 0) {
+            buf.append(chars, 0, n);
+        }
+        reader.close();
+        return buf.toString();
+    }
+}
@@ -0,0 +1,133 @@
+package org.mskcc.netbox.test.graph;
+
+import edu.uci.ics.jung.graph.Edge;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.Vertex;
+import edu.uci.ics.jung.graph.impl.SparseVertex;
+import edu.uci.ics.jung.graph.impl.UndirectedSparseEdge;
+import edu.uci.ics.jung.graph.impl.UndirectedSparseGraph;
+import junit.framework.TestCase;
+import org.mskcc.netbox.graph.EdgeBetweenness;
+import org.mskcc.netbox.graph.IndexedGraph;
+import org.mskcc.netbox.graph.NetworkModularity;
+import org.mskcc.netbox.graph.NetworkPartitionState;
+import org.mskcc.netbox.graph.NewmanGirvanEngine;
+import org.mskcc.netbox.graph.NewmanGirvanModuleDetector;
+
+import java.util.Random;
+
+/**
+ * Tests the NewmanGirvanModuleDetector, NewmanGirvanEngine and EdgeBetweenness Classes.
+ */
+public class TestNewmanGirvanModuleDetector extends TestCase {
+    private static final double PRECISION = 0.00001;
+    private static final int NUM_RANDOM_VERTICES = 500;
+    private Edge bridge;
+
+    /**
+     * Tests that the Bridge between two Triangles is removed First.
+     */
+    public final void testNewmanGirvanEngine() {
+        Graph g = createGraph();
+        IndexedGraph indexedGraph = new IndexedGraph(g);
+        assertEquals(6, indexedGraph.getNumVertices());
+        assertEquals(7, indexedGraph.getNumEdges());
+
+        NewmanGirvanEngine engine = new NewmanGirvanEngine(indexedGraph);
+        assertEquals(1, engine.getNumComponents());
+
+        //  9 pairs of vertices are connected via the bridge, in both directions
+        int edge = engine.removeNextEdge();
+        assertSame(bridge, indexedGraph.getEdge(edge));
+        assertEquals(2, engine.getNumComponents());
+
+        //  Within each triangle, each edge is the only shortest path between its endpoints
+        for (int e = 0; e < indexedGraph.getNumEdges(); e++) {
+            if (!engine.isRemoved(e)) {
+                assertEquals(2.0, engine.getBetweenness(e), PRECISION);
+            }
+        }
+        while (engine.hasNextEdge()) {
+            engine.removeNextEdge();
+        }
+        assertEquals(6, engine.getNumComponents());
+    }
+
+    /**
+     * Tests the Optimal Partition of the Module Detector.
+     */
+    public final void testModuleDetector() {
+        Graph g = createGraph();
+        NewmanGirvanModuleDetector detector = new NewmanGirvanModuleDetector(g, 2);
+        NetworkPartitionState state = detector.getOptimalPartitionState();
+        assertEquals(2, state.getNumModules());
+        assertEquals(1, state.getNumEdgesRemoved());
+
+        //  2 * (3/7 - (7/14)^2)
+        double expected = 2 * (3 / 7.0 - 0.25);
+        assertEquals(expected, state.getNetworkModularity(), PRECISION);
+        assertEquals(2, detector.getOptimalClusterSet().size());
+        assertEquals(6, detector.getOptimalGraph().numEdges());
+        assertEquals(expected, NetworkModularity.calculateNetworkModularity(g,
+                detector.getOptimalClusterSet(), false), PRECISION);
+        assertTrue(detector.isInitialStateRepresentedBySingleConnectedComponent());
+
+        //  The same score, without JUNG objects
+        int[] source = new int[g.numEdges()];
+        int[] target = new int[g.numEdges()];
+        IndexedGraph indexedGraph = new IndexedGraph(g);
+        for (int e = 0; e < source.length; e++) {
+            source[e] = indexedGraph.getEdgeSource(e);
+            target[e] = indexedGraph.getEdgeTarget(e);
+        }
+        assertEquals(expected, NewmanGirvanModuleDetector.getMaxNetworkModularity(
+                new IndexedGraph(g.numVertices(), source, target)), PRECISION);
+    }
+
+    /**
+     * Tests that Multi-Threaded Edge Betweenness matches Single-Threaded Edge Betweenness.
+     */
+    public final void testEdgeBetweenness() {
+        Graph g = new UndirectedSparseGraph();
+        Vertex[] v = new Vertex[NUM_RANDOM_VERTICES];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = new SparseVertex();
+            g.addVertex(v[i]);
+        }
+        Random random = new Random(1);
+        for (int i = 1; i < v.length; i++) {
+            g.addEdge(new UndirectedSparseEdge(v[i], v[random.nextInt(i)]));
+        }
+        for (int i = 0; i < v.length; i++) {
+            int other = random.nextInt(v.length);
+            if (other != i && !v[i].isNeighborOf(v[other])) {
+                g.addEdge(new UndirectedSparseEdge(v[i], v[other]));
+            }
+        }
+        IndexedGraph indexedGraph = new IndexedGraph(g);
+        double[] expected = EdgeBetweenness.calculate(indexedGraph, 1);
+        double[] actual = EdgeBetweenness.calculate(indexedGraph, 4);
+        assertEquals(indexedGraph.getNumEdges(), actual.length);
+        for (int e = 0; e < expected.length; e++) {
+            assertEquals(expected[e], actual[e], PRECISION * expected[e]);
+        }
+    }
+
+    private Graph createGraph() {
+        Graph g = new UndirectedSparseGraph();
+        Vertex[] v = new Vertex[6];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = new SparseVertex();
+            g.addVertex(v[i]);
+        }
+        g.addEdge(new UndirectedSparseEdge(v[0], v[1]));
+        g.addEdge(new UndirectedSparseEdge(v[1], v[2]));
+        g.addEdge(new UndirectedSparseEdge(v[2], v[0]));
+        g.addEdge(new UndirectedSparseEdge(v[3], v[4]));
+        g.addEdge(new UndirectedSparseEdge(v[4], v[5]));
+        g.addEdge(new UndirectedSparseEdge(v[5], v[3]));
+        bridge = new UndirectedSparseEdge(v[2], v[3]);
+        g.addEdge(bridge);
+        return g;
+    }
+}
@@ -0,0 +1,94 @@
+package org.mskcc.netbox.test.louvain;
+
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.Vertex;
+import edu.uci.ics.jung.graph.decorators.StringLabeller;
+import edu.uci.ics.jung.graph.impl.SparseVertex;
+import edu.uci.ics.jung.graph.impl.UndirectedSparseEdge;
+import edu.uci.ics.jung.graph.impl.UndirectedSparseGraph;
+import junit.framework.TestCase;
+import org.mskcc.netbox.graph.GraphCreationException;
+import org.mskcc.netbox.graph.NetworkModularity;
+import org.mskcc.netbox.louvain.LouvainModuleDetector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Tests the LouvainModuleDetector Class.
+ */
+public class TestLouvainModuleDetector extends TestCase {
+    private static final double PRECISION = 0.00001;
+
+    /**
+     * Tests Louvain on Two Cliques, connected by a Single Edge, plus an Isolated Vertex.
+     *
+     * @throws GraphCreationException Graph Creation Error.
+     */
+    public final void testLouvain() throws GraphCreationException {
+        Graph g = new UndirectedSparseGraph();
+        String[] labels = {"A", "B", "C", "D", "E", "F", "G", "H", "I"};
+        Vertex[] v = new Vertex[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            v[i] = createVertex(g, labels[i]);
+        }
+        for (int i = 0; i < 4; i++) {
+            for (int j = i + 1; j < 4; j++) {
+                g.addEdge(new UndirectedSparseEdge(v[i], v[j]));
+                g.addEdge(new UndirectedSparseEdge(v[i + 4], v[j + 4]));
+            }
+        }
+        g.addEdge(new UndirectedSparseEdge(v[3], v[4]));
+
+        LouvainModuleDetector louvain = new LouvainModuleDetector(g);
+        louvain.execute();
+        ArrayList<String> moduleList = louvain.getFinalModuleList();
+        HashMap<String, ArrayList<String>> moduleMap = louvain.getGlobalModuleMap();
+        assertEquals(3, moduleList.size());
+        assertEquals(4, moduleMap.get(moduleList.get(0)).size());
+        assertTrue(moduleMap.get(moduleList.get(0)).contains("A"));
+        assertTrue(moduleMap.get(moduleList.get(1)).contains("H"));
+        assertEquals(1, moduleMap.get(moduleList.get(2)).size());
+
+        //  Must match the modularity of the String based implementation
+        HashMap<String, String> nodeMap = new HashMap<String, String>();
+        for (String moduleId : moduleList) {
+            for (String node : moduleMap.get(moduleId)) {
+                nodeMap.put(node, moduleId);
+            }
+        }
+        double expected = NetworkModularity.calculateNetworkModularity(g, moduleList, nodeMap,
+                false);
+        assertEquals(expected, louvain.getFinalModularity(), PRECISION);
+
+        //  2 * (6/13 - (13/26)^2)
+        assertEquals(2 * (6 / 13.0 - 0.25), louvain.getFinalModularity(), PRECISION);
+    }
+
+    /**
+     * Tests Louvain on a Graph without Edges.
+     *
+     * @throws GraphCreationException Graph Creation Error.
+     */
+    public final void testNoEdges() throws GraphCreationException {
+        Graph g = new UndirectedSparseGraph();
+        createVertex(g, "A");
+        createVertex(g, "B");
+        LouvainModuleDetector louvain = new LouvainModuleDetector(g);
+        louvain.execute();
+        assertEquals(2, louvain.getFinalModuleList().size());
+        assertEquals(0.0, louvain.getFinalModularity(), PRECISION);
+    }
+
+    private Vertex createVertex(Graph g, String label) throws GraphCreationException {
+        try {
+            StringLabeller labeller = StringLabeller.getLabeller(g);
+            Vertex vertex = new SparseVertex();
+            g.addVertex(vertex);
+            labeller.setLabel(vertex, label);
+            return vertex;
+        } catch (StringLabeller.UniqueLabelException e) {
+            throw new GraphCreationException(e);
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * All JUnit Tests for the louvain package.
+ */
+package org.mskcc.netbox.test.louvain;
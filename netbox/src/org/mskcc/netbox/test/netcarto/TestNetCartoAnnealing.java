@@ -0,0 +1,137 @@
+package org.mskcc.netbox.test.netcarto;
+
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.Vertex;
+import edu.uci.ics.jung.graph.decorators.StringLabeller;
+import edu.uci.ics.jung.graph.impl.SparseVertex;
+import edu.uci.ics.jung.graph.impl.UndirectedSparseEdge;
+import edu.uci.ics.jung.graph.impl.UndirectedSparseGraph;
+import junit.framework.TestCase;
+import org.mskcc.netbox.graph.GraphCreationException;
+import org.mskcc.netbox.netcarto.NetCartoAnnealing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * Tests the NetCartoAnnealing Class, in single chain and replica exchange mode.
+ */
+public class TestNetCartoAnnealing extends TestCase {
+    private static final int NUM_GROUPS = 4;
+    private static final int GROUP_SIZE = 6;
+    private static final int NUM_CROSS_EDGES = 24;
+    private static final int NUM_REPLICAS = 4;
+    private static final int NUM_THREADS = 4;
+    private static final double INTRA_GROUP_P = 0.6;
+    private static final double PRECISION = 1.0E-12;
+
+    /**
+     * Modularity found by the single chain implementation, before replica exchange was
+     * added, for the test graph and the fixed seed.
+     */
+    private static final double SINGLE_CHAIN_MODULARITY = 0.3679768203577727;
+
+    /**
+     * Tests that a Single Replica gives the Result of the Original Single Chain.
+     *
+     * @throws GraphCreationException Graph Creation Error.
+     */
+    public final void testSingleReplica() throws GraphCreationException {
+        NetCartoAnnealing annealing = new NetCartoAnnealing(createGraph());
+        annealing.execute();
+        assertEquals(SINGLE_CHAIN_MODULARITY, annealing.getFinalModularity(), PRECISION);
+        assertEquals(getSingleChainPartition(), getPartition(annealing));
+
+        //  The number of threads is irrelevant for a single replica
+        NetCartoAnnealing annealing2 = new NetCartoAnnealing(createGraph(), 1, NUM_THREADS);
+        annealing2.execute();
+        assertEquals(annealing.getFinalModularity(), annealing2.getFinalModularity());
+        assertEquals(getPartition(annealing), getPartition(annealing2));
+    }
+
+    /**
+     * Tests that Replica Exchange Results do not depend on the Number of Threads, and are at
+     * least as good as Replica 0 alone.
+     *
+     * @throws GraphCreationException Graph Creation Error.
+     */
+    public final void testReplicaExchange() throws GraphCreationException {
+        NetCartoAnnealing annealing = new NetCartoAnnealing(createGraph(), NUM_REPLICAS, 1);
+        annealing.execute();
+        NetCartoAnnealing annealing2 = new NetCartoAnnealing(createGraph(), NUM_REPLICAS,
+                NUM_THREADS);
+        annealing2.execute();
+        assertEquals(annealing.getFinalModularity(), annealing2.getFinalModularity());
+        assertEquals(getPartition(annealing), getPartition(annealing2));
+
+        //  Replica 0 alone is the single chain, with the same seed
+        NetCartoAnnealing singleChain = new NetCartoAnnealing(createGraph());
+        singleChain.execute();
+        assertTrue(annealing.getFinalModularity()
+                >= singleChain.getFinalModularity() - PRECISION);
+    }
+
+    /**
+     * Creates NUM_GROUPS Dense Groups of GROUP_SIZE Nodes, connected by a few Random Edges.
+     */
+    private Graph createGraph() throws GraphCreationException {
+        Random random = new Random(5);
+        Graph g = new UndirectedSparseGraph();
+        int n = NUM_GROUPS * GROUP_SIZE;
+        Vertex[] v = new Vertex[n];
+        for (int i = 0; i < n; i++) {
+            v[i] = g.addVertex(new SparseVertex());
+            try {
+                StringLabeller.getLabeller(g).setLabel(v[i], "N" + i);
+            } catch (StringLabeller.UniqueLabelException e) {
+                throw new GraphCreationException(e);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (i / GROUP_SIZE == j / GROUP_SIZE && random.nextDouble() < INTRA_GROUP_P) {
+                    g.addEdge(new UndirectedSparseEdge(v[i], v[j]));
+                }
+            }
+        }
+        int numCrossEdges = 0;
+        while (numCrossEdges < NUM_CROSS_EDGES) {
+            int i = random.nextInt(n);
+            int j = random.nextInt(n);
+            if (i / GROUP_SIZE != j / GROUP_SIZE && !v[i].isNeighborOf(v[j])) {
+                g.addEdge(new UndirectedSparseEdge(v[i], v[j]));
+                numCrossEdges++;
+            }
+        }
+        return g;
+    }
+
+    /**
+     * Gets the Partition found by the Single Chain Implementation:  one module per group.
+     */
+    private HashSet<HashSet<String>> getSingleChainPartition() {
+        HashSet<HashSet<String>> partition = new HashSet<HashSet<String>>();
+        for (int group = 0; group < NUM_GROUPS; group++) {
+            HashSet<String> nodeSet = new HashSet<String>();
+            for (int i = group * GROUP_SIZE; i < (group + 1) * GROUP_SIZE; i++) {
+                nodeSet.add("N" + i);
+            }
+            partition.add(nodeSet);
+        }
+        return partition;
+    }
+
+    /**
+     * Gets the Final Partition, as a Set of Node Sets, independent of Module IDs.
+     */
+    private HashSet<HashSet<String>> getPartition(NetCartoAnnealing annealing) {
+        HashMap<String, ArrayList<String>> moduleMap = annealing.getGlobalModuleMap();
+        HashSet<HashSet<String>> partition = new HashSet<HashSet<String>>();
+        for (String moduleId : annealing.getFinalModuleList()) {
+            partition.add(new HashSet<String>(moduleMap.get(moduleId)));
+        }
+        return partition;
+    }
+}
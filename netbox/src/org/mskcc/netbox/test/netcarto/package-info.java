@@ -0,0 +1,4 @@
+/**
+ * All JUnit Tests for the netcarto package.
+ */
+package org.mskcc.netbox.test.netcarto;
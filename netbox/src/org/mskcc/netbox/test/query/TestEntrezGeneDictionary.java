@@ -0,0 +1,54 @@
+package org.mskcc.netbox.test.query;
+
+import junit.framework.TestCase;
+import org.mskcc.netbox.model.Gene;
+import org.mskcc.netbox.query.EntrezGeneDictionary;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Tests the Entrez Gene Dictionary.
+ */
+public class TestEntrezGeneDictionary extends TestCase {
+    private static final int NUM_GENES = 5000;
+    private static final int MAX_ID = 100000;
+    private static final long AGAP2_ID = 116986;
+
+    /**
+     * Tests Look ups against a HashMap.
+     */
+    public final void testEntrezGeneDictionary() {
+        Random random = new Random(1);
+        HashMap<Long, String> geneMap = new HashMap<Long, String>();
+        ArrayList<Gene> geneList = new ArrayList<Gene>();
+        for (int i = 0; i < NUM_GENES; i++) {
+            long id = random.nextInt(MAX_ID);
+            geneMap.put(id, "GENE_" + i);
+            geneList.add(new Gene("GENE_" + i, id));
+        }
+        geneList.add(new Gene(null, AGAP2_ID));
+        EntrezGeneDictionary dictionary = new EntrezGeneDictionary(geneList);
+
+        assertEquals(geneMap.size(), dictionary.size());
+        for (long id = 0; id < MAX_ID; id++) {
+            assertEquals(geneMap.get(id), dictionary.getGeneSymbol(id));
+        }
+        assertNull(dictionary.getGeneSymbol(AGAP2_ID));
+        assertNull(dictionary.getGeneSymbol(-1));
+        assertEquals(0, new EntrezGeneDictionary(new ArrayList<Gene>()).size());
+    }
+
+    /**
+     * Tests Parsing of Entrez Gene IDs.
+     */
+    public final void testParseEntrezGeneId() {
+        assertEquals(AGAP2_ID, EntrezGeneDictionary.parseEntrezGeneId("116986"));
+        assertEquals(0, EntrezGeneDictionary.parseEntrezGeneId("0"));
+        assertEquals(-1, EntrezGeneDictionary.parseEntrezGeneId(""));
+        assertEquals(-1, EntrezGeneDictionary.parseEntrezGeneId("-5"));
+        assertEquals(-1, EntrezGeneDictionary.parseEntrezGeneId("AGAP2"));
+        assertEquals(-1, EntrezGeneDictionary.parseEntrezGeneId("1234567890123456789"));
+    }
+}
@@ -5,6 +5,8 @@ import org.apache.commons.math.distribution.HypergeometricDistribution;
 import org.apache.commons.math.distribution.HypergeometricDistributionImpl;
 import org.mskcc.netbox.stats.BenjaminiHochbergFDR;
 
+import java.util.Arrays;
+
 /**
  * Tests the Benjamin Hochberg FDR Correction.
  *
@@ -70,4 +72,24 @@ public final class TestBenjaminiHochbergFDR extends TestCase {
         // System.out.println (pValue);
 
     }
+
+    /**
+     * Tests that Adjusted P-Values are returned in the Order of the P-Values.
+     */
+    public void testAdjust() {
+        double[] pValues = {0.01, 0.002, 0.004, 0.04, 0.001, 0.9, 0.1};
+        double[] copy = pValues.clone();
+        double[] adjustedPValues = BenjaminiHochbergFDR.adjust(pValues);
+        assertTrue(Arrays.equals(copy, pValues));
+
+        BenjaminiHochbergFDR fdrCorrector = new BenjaminiHochbergFDR(copy);
+        fdrCorrector.calculate();
+        double[] sortedPValues = fdrCorrector.getOrdenedPvalues();
+        for (int i = 0; i < pValues.length; i++) {
+            int rank = Arrays.binarySearch(sortedPValues, pValues[i]);
+            assertEquals(fdrCorrector.getAdjustedPvalues()[rank], adjustedPValues[i], 1.0E-12);
+        }
+        assertEquals(0.9, adjustedPValues[5], 1.0E-12);
+        assertEquals(0.007, adjustedPValues[4], 1.0E-12);
+    }
 }
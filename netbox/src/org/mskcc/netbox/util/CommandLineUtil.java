@@ -18,13 +18,15 @@ public final class CommandLineUtil {
     }
 
     /**
-     * Aborts the Command Line Program with the User Error Message.
+     * Aborts the Current Run with the User Error Message.  The error is thrown, rather than
+     * exiting the JVM, so that the command line main reports it and exits, while a batch run
+     * only fails the current configuration.
      *
      * @param userMsg User Message.
+     * @throws IllegalArgumentException always.
      */
     public static void abort(String userMsg) {
-        System.out.println(userMsg);
-        System.exit(1);
+        throw new IllegalArgumentException(userMsg);
     }
 
     /**
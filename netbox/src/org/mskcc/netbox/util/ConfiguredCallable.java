@@ -0,0 +1,63 @@
+package org.mskcc.netbox.util;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Callable which executes with the GlobalConfig and ProgressMonitor of the thread that
+ * created it.
+ * <p/>
+ * Worker threads do not otherwise see a GlobalConfig or ProgressMonitor bound to the
+ * submitting thread, e.g. by a batch run;  this class binds both for the duration of the
+ * task.
+ *
+ * @param <T> Result Type.
+ */
+public abstract class ConfiguredCallable<T> implements Callable<T> {
+    private GlobalConfig config = GlobalConfig.getInstance();
+    private ProgressMonitor pMonitor = ProgressMonitor.getInstance();
+    private boolean quiet;
+
+    /**
+     * Constructor.
+     */
+    public ConfiguredCallable() {
+        this(false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param q If true, progress messages of the task are suppressed, without affecting
+     *          other threads.
+     */
+    public ConfiguredCallable(boolean q) {
+        this.quiet = q;
+    }
+
+    /**
+     * Executes the Task, with the GlobalConfig and ProgressMonitor of the creating thread.
+     *
+     * @return task result.
+     * @throws Exception All Errors.
+     */
+    public final T call() throws Exception {
+        GlobalConfig.setThreadInstance(config);
+        ProgressMonitor.setThreadInstance(pMonitor);
+        GlobalConfig.setThreadQuiet(quiet);
+        try {
+            return execute();
+        } finally {
+            GlobalConfig.setThreadQuiet(false);
+            ProgressMonitor.setThreadInstance(null);
+            GlobalConfig.setThreadInstance(null);
+        }
+    }
+
+    /**
+     * Executes the Task.
+     *
+     * @return task result.
+     * @throws Exception All Errors.
+     */
+    protected abstract T execute() throws Exception;
+}
@@ -58,7 +58,7 @@ public final class FileUtil {
     }
 
     /**
-     * Tests if the Specified File Exists.  Aborts command line if file does not exist.
+     * Tests if the Specified File Exists.  Aborts the current run if file does not exist.
      *
      * @param file Target File.
      */
@@ -72,10 +72,12 @@ public final class FileUtil {
             CommandLineUtil.abort("Error Occurred while trying to read file:  "
                     + file.getAbsolutePath());
         } finally {
-            try {
-                reader.close();
-            } catch (IOException e) {
-                reader = null;
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    reader = null;
+                }
             }
         }
     }
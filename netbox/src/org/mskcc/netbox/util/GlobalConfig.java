@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.Properties;
+import java.util.Random;
 
 /**
  * Global Configuration Object.
@@ -16,6 +17,16 @@ public final class GlobalConfig {
      */
     private static GlobalConfig globalConfig;
 
+    /**
+     * Thread-Specific Global Config, e.g. for each run of a batch.
+     */
+    private static ThreadLocal<GlobalConfig> threadConfig = new ThreadLocal<GlobalConfig>();
+
+    /**
+     * Thread-Specific Very Quiet Flag, e.g. for worker threads executing random trials.
+     */
+    private static ThreadLocal<Boolean> threadQuiet = new ThreadLocal<Boolean>();
+
     private static final int DEFAULT_SHORTEST_PATH_THRESHOLD = 1;
     private static final double DEFAULT_PVALUE_CUT_OFF = 0.05;
     private static final double DEFAULT_MODULE_FREQUENCY_THRESHOLD = 0.1;
@@ -46,6 +57,12 @@ public final class GlobalConfig {
     private boolean includeLowLevelCnaChanges = false;
     private String networkPartitionAlgorithm;
     private boolean identifyModules = true;
+    private File outputDirectory;
+    private int numThreads;
+    private long randomSeed;
+    private int numAnnealingReplicas = 1;
+    private int numCoveragePermutations = DEFAULT_NUM_RANDOM_TRIALS;
+    private boolean gzipOutput = false;
 
     private static final String GENE_FILE = "gene_file";
     private static final String MUTATION_FILE = "mutation_file";
@@ -64,6 +81,11 @@ public final class GlobalConfig {
     private static final String NETWORK_PARTITION_ALGORITHM = "network_partition_algorithm";
     private static final String P_VALUE_THRESHOLD = "p_value_threshold";
     private static final String IDENTIFY_MODULES = "identify_modules";
+    private static final String NUM_THREADS = "num_threads";
+    private static final String RANDOM_SEED = "random_seed";
+    private static final String NUM_ANNEALING_REPLICAS = "num_annealing_replicas";
+    private static final String NUM_COVERAGE_PERMUTATIONS = "num_coverage_permutations";
+    private static final String GZIP_OUTPUT = "gzip_output";
     private static final String INCLUDE_LOW_LEVEL_CNA_CHANGES
             = "include_low_level_cna_changes";
 
@@ -77,6 +99,11 @@ public final class GlobalConfig {
      */
     public static final String SA = "sa";
 
+    /**
+     * Louvain Algorithm.
+     */
+    public static final String LOUVAIN = "louvain";
+
     /**
      * Private Constructor.  Enforces Singleton Pattern.
      */
@@ -91,20 +118,53 @@ public final class GlobalConfig {
         this.networkPartitionAlgorithm = NG;
         this.numLocalTrials = 0;
         this.numGlobalTrials = 0;
+        this.numThreads = Runtime.getRuntime().availableProcessors();
+        this.randomSeed = new Random().nextLong();
     }
 
     /**
-     * Gets Singleton Instance.
+     * Gets Singleton Instance.  If a config has been bound to the current thread, that config
+     * is returned instead.
      *
      * @return Singleton GlobalConfig Instance.
      */
-    public static GlobalConfig getInstance() {
+    public static synchronized GlobalConfig getInstance() {
+        GlobalConfig config = threadConfig.get();
+        if (config != null) {
+            return config;
+        }
         if (globalConfig == null) {
             globalConfig = new GlobalConfig();
         }
         return globalConfig;
     }
 
+    /**
+     * Creates a new GlobalConfig, and binds it to the current thread.  Used to execute
+     * several independent configurations within the same JVM.
+     *
+     * @return new GlobalConfig Instance.
+     */
+    public static GlobalConfig createThreadInstance() {
+        GlobalConfig config = new GlobalConfig();
+        threadConfig.set(config);
+        return config;
+    }
+
+    /**
+     * Binds an existing GlobalConfig to the current thread, e.g. a worker thread which
+     * executes part of a run on behalf of another thread.
+     *
+     * @param config GlobalConfig Instance, or null to revert to the Singleton Instance.
+     */
+    public static void setThreadInstance(GlobalConfig config) {
+        if (config == null) {
+            threadConfig.remove();
+        } else {
+            threadConfig.set(config);
+        }
+    }
+
     /**
      * Loads Properties from the Specified File.
      *
@@ -113,7 +173,12 @@ public final class GlobalConfig {
      */
     public void loadProperties(File file) throws IOException {
         Properties properties = new Properties();
-        properties.load(new FileInputStream(file));
+        FileInputStream in = new FileInputStream(file);
+        try {
+            properties.load(in);
+        } finally {
+            in.close();
+        }
 
         String value = properties.getProperty(GENE_FILE);
         if (value != null) {
@@ -245,7 +310,7 @@ public final class GlobalConfig {
 
         value = properties.getProperty(NETWORK_PARTITION_ALGORITHM);
         if (value != null) {
-            if (value.equals(NG) || value.equals(SA)) {
+            if (value.equals(NG) || value.equals(SA) || value.equals(LOUVAIN)) {
                 this.networkPartitionAlgorithm = value;
             } else {
                 throw new IllegalArgumentException("Unsupported option:  " + value + " for "
@@ -253,6 +318,63 @@ public final class GlobalConfig {
             }
         }
 
+        value = properties.getProperty(NUM_THREADS);
+        if (value != null) {
+            try {
+                this.numThreads = Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Property:  " + NUM_THREADS
+                        + " must be an interger.");
+            }
+            if (numThreads < 1) {
+                throw new IllegalArgumentException("Property:  " + NUM_THREADS
+                        + " must be at least 1.");
+            }
+        }
+
+        value = properties.getProperty(RANDOM_SEED);
+        if (value != null) {
+            try {
+                this.randomSeed = Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Property:  " + RANDOM_SEED
+                        + " must be an interger.");
+            }
+        }
+
+        value = properties.getProperty(NUM_ANNEALING_REPLICAS);
+        if (value != null) {
+            try {
+                this.numAnnealingReplicas = Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Property:  " + NUM_ANNEALING_REPLICAS
+                        + " must be an interger.");
+            }
+            if (numAnnealingReplicas < 1) {
+                throw new IllegalArgumentException("Property:  " + NUM_ANNEALING_REPLICAS
+                        + " must be at least 1.");
+            }
+        }
+
+        value = properties.getProperty(NUM_COVERAGE_PERMUTATIONS);
+        if (value != null) {
+            try {
+                this.numCoveragePermutations = Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Property:  " + NUM_COVERAGE_PERMUTATIONS
+                        + " must be an interger.");
+            }
+            if (numCoveragePermutations < 1) {
+                throw new IllegalArgumentException("Property:  " + NUM_COVERAGE_PERMUTATIONS
+                        + " must be at least 1.");
+            }
+        }
+
+        value = properties.getProperty(GZIP_OUTPUT);
+        if (value != null) {
+            this.gzipOutput = Boolean.parseBoolean(value);
+        }
+
         value = properties.getProperty(IDENTIFY_MODULES);
         if (value != null) {
             if (value.equals("F") || value.equals ("FALSE")) {
@@ -269,12 +391,27 @@ public final class GlobalConfig {
     }
 
     /**
-     * Gets the Very Quiet Flag.
+     * Gets the Very Quiet Flag.  Also returns true if the current thread has been set to
+     * quiet, via setThreadQuiet().
      *
      * @return very quiet flag.
      */
     public boolean isVeryQuiet() {
-        return veryQuiet;
+        return veryQuiet || threadQuiet.get() != null;
+    }
+
+    /**
+     * Sets the Very Quiet Flag for the Current Thread Only.  Unlike setBeVeryQuiet(), this does
+     * not affect other threads sharing the same GlobalConfig.
+     *
+     * @param q Very Quiet Flag.
+     */
+    public static void setThreadQuiet(boolean q) {
+        if (q) {
+            threadQuiet.set(Boolean.TRUE);
+        } else {
+            threadQuiet.remove();
+        }
     }
 
     /**
@@ -565,6 +702,130 @@ public final class GlobalConfig {
         this.numGlobalTrials = n;
     }
 
+    /**
+     * Gets the number of threads used to execute random trials.
+     *
+     * @return number of threads.
+     */
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    /**
+     * Sets the number of threads used to execute random trials.
+     *
+     * @param n number of threads.
+     */
+    public void setNumThreads(int n) {
+        this.numThreads = n;
+    }
+
+    /**
+     * Gets the Random Seed.  All random trials derive their random streams from this seed, so
+     * that results can be reproduced.  If not specified, a random seed is chosen;  NetAnalyze
+     * records the seed of each run in random_seed.txt, within the output directory.
+     *
+     * @return random seed.
+     */
+    public long getRandomSeed() {
+        return randomSeed;
+    }
+
+    /**
+     * Sets the Random Seed.
+     *
+     * @param seed random seed.
+     */
+    public void setRandomSeed(long seed) {
+        this.randomSeed = seed;
+    }
+
+    /**
+     * Gets the number of simulated annealing replicas.  If more than 1, simulated annealing
+     * runs in replica exchange (parallel tempering) mode.
+     *
+     * @return number of replicas.
+     */
+    public int getNumAnnealingReplicas() {
+        return numAnnealingReplicas;
+    }
+
+    /**
+     * Sets the number of simulated annealing replicas.
+     *
+     * @param n number of replicas.
+     */
+    public void setNumAnnealingReplicas(int n) {
+        this.numAnnealingReplicas = n;
+    }
+
+    /**
+     * Gets the number of permutations used to test the differential coverage of gene sets.
+     *
+     * @return number of permutations.
+     */
+    public int getNumCoveragePermutations() {
+        return numCoveragePermutations;
+    }
+
+    /**
+     * Sets the number of permutations used to test the differential coverage of gene sets.
+     *
+     * @param n number of permutations.
+     */
+    public void setNumCoveragePermutations(int n) {
+        this.numCoveragePermutations = n;
+    }
+
+    /**
+     * Gets whether network and attribute files are written gzip compressed.
+     *
+     * @return true or false.
+     */
+    public boolean isGzipOutput() {
+        return gzipOutput;
+    }
+
+    /**
+     * Sets whether network and attribute files are written gzip compressed.
+     *
+     * @param g true or false.
+     */
+    public void setGzipOutput(boolean g) {
+        this.gzipOutput = g;
+    }
+
+    /**
+     * Gets the Output Directory.
+     *
+     * @return output directory, or null for the current working directory.
+     */
+    public File getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    /**
+     * Sets the Output Directory.
+     *
+     * @param dir output directory, or null for the current working directory.
+     */
+    public void setOutputDirectory(File dir) {
+        this.outputDirectory = dir;
+    }
+
+    /**
+     * Gets the Specified Output File, within the Output Directory.
+     *
+     * @param name File Name.
+     * @return File Object.
+     */
+    public File getOutputFile(String name) {
+        if (outputDirectory == null) {
+            return new File(name);
+        }
+        return new File(outputDirectory, name);
+    }
+
     /**
      * Gets whether to identify modules.
      * @return
@@ -9,6 +9,10 @@ import java.io.File;
 
 /**
  * Global Session Class.
+ * <p/>
+ * Hibernate sessions are not thread-safe.  Code which uses the session must therefore hold
+ * the lock of the GlobalSession instance, i.e. synchronized (GlobalSession.getInstance()),
+ * so that concurrent configurations of a batch run never access the session at once.
  *
  * @author Ethan Cerami
  */
@@ -34,7 +38,7 @@ public final class GlobalSession {
      *
      * @return Global Session Object.
      */
-    public static GlobalSession getInstance() {
+    public static synchronized GlobalSession getInstance() {
         if (globalSession == null) {
             globalSession = new GlobalSession();
         }
@@ -12,23 +12,36 @@ import org.mskcc.netbox.graph.GraphUtil;
 import org.mskcc.netbox.graph.JungToSif;
 import org.mskcc.netbox.graph.Module;
 import org.mskcc.netbox.graph.NewmanGirvanModuleDetector;
+import org.mskcc.netbox.louvain.LouvainModuleDetector;
 import org.mskcc.netbox.model.Interaction;
 import org.mskcc.netbox.netcarto.NetCartoAnnealing;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Utility Class for Outputting Networks to various simple text formats, including the
  * Cytoscape SIF format.
+ * <p/>
+ * All files are streamed through a buffered character encoder straight to the file channel,
+ * so memory use does not depend on the size of the output;  writers are always closed, even
+ * if writing fails.  If GlobalConfig.isGzipOutput()
+ * is set, files are gzip compressed, and their names end in ".gz".
  *
  * @author Ethan Cerami.
  */
 public final class NetworkWriter {
+    private static final int BUFFER_SIZE = 1 << 16;
 
     /**
      * Private Constructor to Prevent Instantitation.
@@ -43,14 +56,16 @@ public final class NetworkWriter {
      * @throws IOException IO Error.
      */
     public static void outputNetwork(Graph g) throws IOException {
-        File out = new File("network.sif");
+        File out = getOutputFile("network.sif");
         ProgressMonitor.getInstance().setCurrentMessage("Network file suitable for loading "
                 + "into Cytoscape is available at:  " + out.getAbsolutePath());
 
-        FileWriter writer = new FileWriter(out);
-        String sif = JungToSif.convertToSif(g);
-        writer.write(sif);
-        writer.close();
+        Writer writer = createWriter(out);
+        try {
+            JungToSif.writeSif(g, writer);
+        } finally {
+            writer.close();
+        }
     }
 
     /**
@@ -60,21 +75,54 @@ public final class NetworkWriter {
      * @throws IOException IO Error.
      */
     public static void outputNetwork(ArrayList<Interaction> interactionList) throws IOException {
-        File out = new File("network_full.sif");
-        FileWriter writer = new FileWriter(out);
-        for (Interaction interaction : interactionList) {
-            writer.write(interaction.getGeneA() + "\t" + interaction.getInteractionType()
-                    + "\t" + interaction.getGeneB() + "\n");
+        File out = getOutputFile("network_full.sif");
+        Writer writer = createWriter(out);
+        try {
+            for (Interaction interaction : interactionList) {
+                writer.write(interaction.getGeneA());
+                writer.write('\t');
+                writer.write(interaction.getInteractionType());
+                writer.write('\t');
+                writer.write(interaction.getGeneB());
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
+        }
+        out = getOutputFile("edge_data_source.txt");
+        writer = createWriter(out);
+        try {
+            writer.write("Data_Source\n");
+            for (Interaction interaction : interactionList) {
+                writer.write(interaction.getGeneA());
+                writer.write(" (");
+                writer.write(interaction.getInteractionType());
+                writer.write(") ");
+                writeAttribute(writer, interaction.getGeneB(), interaction.getSource());
+            }
+        } finally {
+            writer.close();
         }
-        writer.close();
-        out = new File("edge_data_source.txt");
-        writer = new FileWriter(out);
-        writer.write("Data_Source\n");
-        for (Interaction interaction : interactionList) {
-            writer.write(interaction.getGeneA() + " (" + interaction.getInteractionType()
-                    + ") " + interaction.getGeneB() + " = " + interaction.getSource() + "\n");
+    }
+
+    /**
+     * Outputs the Random Seed of the current run to a File called "random_seed.txt", in the
+     * properties file format, so that the run can be reproduced by adding the line to its
+     * properties file.  The file is never compressed.
+     *
+     * @throws IOException IO Error.
+     */
+    public static void outputRandomSeed() throws IOException {
+        GlobalConfig config = GlobalConfig.getInstance();
+        File out = config.getOutputFile("random_seed.txt");
+        ProgressMonitor.getInstance().setCurrentMessage("Random seed:  "
+                + config.getRandomSeed() + ", recorded in:  " + out.getAbsolutePath());
+        Writer writer = new FileWriter(out);
+        try {
+            writer.write("random_seed=" + config.getRandomSeed() + "\n");
+        } finally {
+            writer.close();
         }
-        writer.close();
     }
 
     /**
@@ -87,21 +135,24 @@ public final class NetworkWriter {
     public static void outputNodeAttributes(ArrayList<String> geneList,
                                             ArrayList<LinkerGene> linkerList)
             throws IOException {
-        File out = new File("node_type.txt");
-        FileWriter writer = new FileWriter(out);
+        File out = getOutputFile("node_type.txt");
+        Writer writer = createWriter(out);
 
         ProgressMonitor.getInstance().setCurrentMessage("Attribute file containing "
                 + "gene ALTERED / LINKER attributes, suitable for loading into Cytoscape is "
                 + "available at:  " + out.getAbsolutePath());
 
-        writer.write("NODE_TYPE\n");
-        for (String gene : geneList) {
-            writer.write(gene + " = ALTERED\n");
-        }
-        for (LinkerGene gene : linkerList) {
-            writer.write(gene.getGene() + " = LINKER\n");
+        try {
+            writer.write("NODE_TYPE\n");
+            for (String gene : geneList) {
+                writeAttribute(writer, gene, "ALTERED");
+            }
+            for (LinkerGene gene : linkerList) {
+                writeAttribute(writer, gene.getGene(), "LINKER");
+            }
+        } finally {
+            writer.close();
         }
-        writer.close();
     }
 
     /**
@@ -117,73 +168,100 @@ public final class NetworkWriter {
         WeakComponentClusterer wcSearch = new WeakComponentClusterer();
         ClusterSet moduleSet = wcSearch.extract(g);
 
-        File attrOut = new File("modules.txt");
-        FileWriter attrWriter = new FileWriter(attrOut);
-        attrWriter.write("MODULE\n");
+        File attrOut = getOutputFile("modules.txt");
 
         ProgressMonitor.getInstance().setCurrentMessage("Attribute file containing "
                 + "gene to module assignments, suitable for loading into Cytoscape is "
                 + "available at:  " + attrOut.getAbsolutePath());
 
-        //  Iterate through each module
-        for (int i = 0; i < moduleSet.size(); i++) {
-            Graph gModule = moduleSet.getClusterAsNewSubGraph(i);
-            Iterator iterator = gModule.getVertices().iterator();
-            while (iterator.hasNext()) {
-                Vertex vertex = (Vertex) iterator.next();
-                String label = GraphUtil.getVertexLabel(labeller, vertex);
-                if (gModule.numVertices() == 1) {
-                    attrWriter.write(label + " = -1\n");
-                } else {
-                    attrWriter.write(label + " = " + i + "\n");
+        Writer attrWriter = createWriter(attrOut);
+        try {
+            attrWriter.write("MODULE\n");
+
+            //  Iterate through each module
+            for (int i = 0; i < moduleSet.size(); i++) {
+                Graph gModule;
+                synchronized (GraphUtil.getJungLock()) {
+                    gModule = moduleSet.getClusterAsNewSubGraph(i);
+                }
+                Iterator iterator = gModule.getVertices().iterator();
+                while (iterator.hasNext()) {
+                    Vertex vertex = (Vertex) iterator.next();
+                    String label = GraphUtil.getVertexLabel(labeller, vertex);
+                    if (gModule.numVertices() == 1) {
+                        writeAttribute(attrWriter, label, "-1");
+                    } else {
+                        writeAttribute(attrWriter, label, i);
+                    }
                 }
             }
+        } finally {
+            attrWriter.close();
         }
-        attrWriter.close();
     }
 
     /**
-     * Outputs the Modules to a set of Files, including modules.dat, modules.txt, and
-     * module_x.sif.
+     * Outputs the Modules to a set of Files, including modules_sa.dat and modules_sa.txt.
      *
      * @param detector NetCartoAnnealing Object.
      * @throws IOException IO Error.
      */
     public static void outputModules(NetCartoAnnealing detector) throws IOException {
-        File modOut = new File("modules_sa.dat");
-        FileWriter modWriter = new FileWriter(modOut);
+        outputModules(detector.getFinalModuleList(), detector.getGlobalModuleMap(),
+                "modules_sa.dat", "modules_sa.txt", "MODULE_NG");
+    }
 
+    /**
+     * Outputs the Modules to a set of Files, including modules_louvain.dat and
+     * modules_louvain.txt.
+     *
+     * @param detector LouvainModuleDetector Object.
+     * @throws IOException IO Error.
+     */
+    public static void outputModules(LouvainModuleDetector detector) throws IOException {
+        outputModules(detector.getFinalModuleList(), detector.getGlobalModuleMap(),
+                "modules_louvain.dat", "modules_louvain.txt", "MODULE_LOUVAIN");
+    }
+
+    private static void outputModules(ArrayList<String> moduleList,
+            HashMap<String, ArrayList<String>> moduleMap, String modFileName,
+            String attrFileName, String attrName) throws IOException {
+        File modOut = getOutputFile(modFileName);
         ProgressMonitor.getInstance().setCurrentMessage("Text file summarizing "
                 + "all genes in each modules is available at: " + modOut.getAbsolutePath());
 
-        File attrOut = new File("modules_sa.txt");
-        FileWriter attrWriter = new FileWriter(attrOut);
-        attrWriter.write("MODULE_NG\n");
-
+        File attrOut = getOutputFile(attrFileName);
         ProgressMonitor.getInstance().setCurrentMessage("Attribute file containing "
                 + "gene to module assignments, suitable for loading into Cytoscape is "
                 + "available at:  " + attrOut.getAbsolutePath());
 
-        ArrayList<String> moduleList = detector.getFinalModuleList();
-        HashMap<String, ArrayList<String>> moduleMap = detector.getGlobalModuleMap();
-
-        //  Iterate through each module
-        for (String moduleId : moduleList) {
-            ArrayList<String> nodeList = moduleMap.get(moduleId);
-            modWriter.write("Module_" + moduleId + "\t" + nodeList.size() + "\t");
-
-            for (String node : nodeList) {
-                modWriter.write(node + " ");
-                if (nodeList.size() == 1) {
-                    attrWriter.write(node + " = -1\n");
-                } else {
-                    attrWriter.write(node + " = " + moduleId + "\n");
+        Writer modWriter = createWriter(modOut);
+        try {
+            Writer attrWriter = createWriter(attrOut);
+            try {
+                attrWriter.write(attrName + "\n");
+
+                //  Iterate through each module
+                for (String moduleId : moduleList) {
+                    ArrayList<String> nodeList = moduleMap.get(moduleId);
+                    modWriter.write("Module_" + moduleId + "\t" + nodeList.size() + "\t");
+
+                    for (String node : nodeList) {
+                        modWriter.write(node + " ");
+                        if (nodeList.size() == 1) {
+                            writeAttribute(attrWriter, node, "-1");
+                        } else {
+                            writeAttribute(attrWriter, node, moduleId);
+                        }
+                    }
+                    modWriter.write("\n");
                 }
+            } finally {
+                attrWriter.close();
             }
-            modWriter.write("\n");
+        } finally {
+            modWriter.close();
         }
-        modWriter.close();
-        attrWriter.close();
     }
 
     /**
@@ -195,39 +273,45 @@ public final class NetworkWriter {
      */
     public static void outputModulesByPercentage(ModuleDetector detector)
             throws IOException {
-        File modOut = new File("modules.dat");
+        File modOut = getOutputFile("modules.dat");
 
         ProgressMonitor.getInstance().setCurrentMessage("Text file summarizing "
                 + "all genes in each modules is available at: " + modOut.getAbsolutePath());
 
-        FileWriter modWriter = new FileWriter(modOut);
-
-        File attrOut = new File("modules.txt");
+        File attrOut = getOutputFile("modules.txt");
 
         ProgressMonitor.getInstance().setCurrentMessage("Attribute file containing "
                 + "gene to module assignments, suitable for loading into Cytoscape is "
                 + "available at:  " + attrOut.getAbsolutePath());
 
-        FileWriter attrWriter = new FileWriter(attrOut);
-        attrWriter.write("MODULE\n");
-
-        //  Iterate through each module
-        ArrayList<Module> moduleList = detector.getModules();
-        for (Module module : moduleList) {
-            ArrayList<GeneWithScore> geneList = module.getGeneList();
-            modWriter.write("Module_" + module.getModuleId() + "\t" + geneList.size() + "\t");
-            for (GeneWithScore gene : geneList) {
-                modWriter.write(gene.getGene() + " ");
-                if (moduleList.size() == 1) {
-                    attrWriter.write(gene.getGene() + " = -1\n");
-                } else {
-                    attrWriter.write(gene.getGene() + " = " + module.getModuleId() + "\n");
+        Writer modWriter = createWriter(modOut);
+        try {
+            Writer attrWriter = createWriter(attrOut);
+            try {
+                attrWriter.write("MODULE\n");
+
+                //  Iterate through each module
+                ArrayList<Module> moduleList = detector.getModules();
+                for (Module module : moduleList) {
+                    ArrayList<GeneWithScore> geneList = module.getGeneList();
+                    modWriter.write("Module_" + module.getModuleId() + "\t" + geneList.size()
+                            + "\t");
+                    for (GeneWithScore gene : geneList) {
+                        modWriter.write(gene.getGene() + " ");
+                        if (moduleList.size() == 1) {
+                            writeAttribute(attrWriter, gene.getGene(), "-1");
+                        } else {
+                            writeAttribute(attrWriter, gene.getGene(), module.getModuleId());
+                        }
+                    }
+                    modWriter.write("\n");
                 }
+            } finally {
+                attrWriter.close();
             }
-            modWriter.write("\n");
+        } finally {
+            modWriter.close();
         }
-        modWriter.close();
-        attrWriter.close();
     }
 
     /**
@@ -238,21 +322,61 @@ public final class NetworkWriter {
      */
     public static void outputGeneAttributes(ArrayList<GeneWithScore> geneList)
             throws IOException {
-        File modOut = new File("genes.txt");
+        File modOut = getOutputFile("genes.txt");
         ProgressMonitor.getInstance().setCurrentMessage("Attribute file containing "
                 + "gene alteration frequency values, suitable for loading into Cytoscape is "
                 + "available at:  " + modOut.getAbsolutePath());
-        FileWriter attrWriter = new FileWriter(modOut);
+        Writer attrWriter = createWriter(modOut);
+        try {
+            attrWriter.write("ALTERATION_FREQUENCY\n");
+
+            //  Iterate through each gene
+            for (GeneWithScore gene : geneList) {
+                if (gene.getScore() > 0.0001) {
+                    writeAttribute(attrWriter, gene.getGene(), gene.getScore());
+                }
+            }
+        } finally {
+            attrWriter.close();
+        }
+    }
 
-        attrWriter.write("ALTERATION_FREQUENCY\n");
+    /**
+     * Gets the Specified Output File, with a ".gz" suffix if output is gzip compressed.
+     */
+    private static File getOutputFile(String name) {
+        GlobalConfig config = GlobalConfig.getInstance();
+        return config.getOutputFile(config.isGzipOutput() ? name + ".gz" : name);
+    }
 
-        //  Iterate through each gene
-        for (GeneWithScore gene : geneList) {
-            if (gene.getScore() > 0.0001) {
-                attrWriter.write(gene.getGene() + " = " + gene.getScore() + "\n");
+    /**
+     * Creates a Buffered Writer for the Specified File, which encodes characters straight to
+     * the file channel, or to a gzip stream if output is gzip compressed.
+     */
+    private static Writer createWriter(File out) throws IOException {
+        FileOutputStream fileOut = new FileOutputStream(out);
+        WritableByteChannel channel;
+        if (GlobalConfig.getInstance().isGzipOutput()) {
+            try {
+                channel = Channels.newChannel(new GZIPOutputStream(fileOut, BUFFER_SIZE));
+            } catch (IOException e) {
+                fileOut.close();
+                throw e;
             }
+        } else {
+            channel = fileOut.getChannel();
         }
-        attrWriter.close();
+        return Channels.newWriter(channel, Charset.defaultCharset().newEncoder(), BUFFER_SIZE);
     }
 
+    /**
+     * Writes a Single Cytoscape Attribute Line, of the form:  node = value.
+     */
+    private static void writeAttribute(Writer writer, String node, Object value)
+            throws IOException {
+        writer.write(node);
+        writer.write(" = ");
+        writer.write(String.valueOf(value));
+        writer.write('\n');
+    }
 }
@@ -0,0 +1,213 @@
+package org.mskcc.netbox.util;
+
+import org.mskcc.netbox.graph.GraphCreationException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Utilities for Executing Random Trials, and other Independent Tasks, in Parallel.
+ */
+public final class ParallelUtil {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static AtomicInteger threadCounter = new AtomicInteger();
+
+    /**
+     * Private Constructor to prevent instantiation.
+     */
+    private ParallelUtil() {
+    }
+
+    /**
+     * Creates a Fixed Size Thread Pool, consisting of daemon threads.
+     *
+     * @param numThreads Number of threads.
+     * @return ExecutorService Object.  Callers must shut down the executor when done.
+     */
+    public static ExecutorService createExecutor(int numThreads) {
+        return Executors.newFixedThreadPool(Math.max(1, numThreads), new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "netbox-worker-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Executes the Task for all Indices in [0, n), in Chunks of chunkSize Consecutive
+     * Indices.  Chunks are executed in parallel, using GlobalConfig.getNumThreads() threads,
+     * each with the GlobalConfig and ProgressMonitor of the calling thread.  Chunk boundaries
+     * only depend on n and chunkSize;  so if the task only writes results for the indices of
+     * its own chunk, and derives any random stream from the index, e.g. via deriveSeed(),
+     * results do not depend on the number of threads.
+     *
+     * @param n         Number of Indices.
+     * @param chunkSize Number of Indices per Chunk.
+     * @param task      Task to execute for each chunk.
+     */
+    public static void forEachChunk(int n, int chunkSize, ChunkTask task) {
+        forEachChunk(n, chunkSize, task, null);
+    }
+
+    /**
+     * Executes the Task for all Indices in [0, n), in Chunks of chunkSize Consecutive
+     * Indices, as forEachChunk(n, chunkSize, task), and reports progress as chunks complete.
+     *
+     * @param n         Number of Indices.
+     * @param chunkSize Number of Indices per Chunk.
+     * @param task      Task to execute for each chunk.
+     * @param pMonitor  ProgressMonitor, incremented once per index, or null.
+     */
+    public static void forEachChunk(int n, int chunkSize, final ChunkTask task,
+            ProgressMonitor pMonitor) {
+        ExecutorService executor = createExecutor(GlobalConfig.getInstance().getNumThreads());
+        try {
+            ArrayList<Future<Integer>> futureList = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < n; i += chunkSize) {
+                final int from = i;
+                final int to = Math.min(n, i + chunkSize);
+                futureList.add(executor.submit(new ConfiguredCallable<Integer>() {
+                    protected Integer execute() {
+                        task.execute(from, to);
+                        return to - from;
+                    }
+                }));
+            }
+            for (Future<Integer> future : futureList) {
+                int numDone = getUncheckedResult(future);
+                if (pMonitor != null) {
+                    for (int i = 0; i < numDone; i++) {
+                        pMonitor.incrementCurValue();
+                    }
+                    CommandLineUtil.showProgress(pMonitor);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Derives an Independent Seed for the Specified Random Stream, e.g. one stream per trial.
+     * Because each stream depends only on the seed and the stream index, results do not
+     * depend on how streams are distributed among threads.
+     *
+     * @param seed   Base random seed.
+     * @param stream Stream index.
+     * @return derived seed.
+     */
+    public static long deriveSeed(long seed, long stream) {
+        //  SplitMix64 finalizer
+        long z = seed + (stream + 1) * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Waits for the Result of the Specified Task, and re-throws its exception, if any.
+     *
+     * @param future Future Object.
+     * @param <T>    Result Type.
+     * @return task result.
+     * @throws GraphCreationException Graph Creation Error.
+     * @throws IOException            IO Error, or interrupted.
+     */
+    public static <T> T getResult(Future<T> future) throws GraphCreationException, IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for random trials.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof GraphCreationException) {
+                throw (GraphCreationException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Waits for the Result of the Specified Task, which may only throw IOExceptions, and
+     * re-throws its exception, if any.
+     *
+     * @param future Future Object.
+     * @param <T>    Result Type.
+     * @return task result.
+     * @throws IOException IO Error, or interrupted.
+     */
+    public static <T> T getIOResult(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for parallel tasks.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Waits for the Result of the Specified Task, which does not throw checked exceptions.
+     *
+     * @param future Future Object.
+     * @param <T>    Result Type.
+     * @return task result.
+     * @throws CancellationException if interrupted while waiting.
+     */
+    public static <T> T getUncheckedResult(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for parallel tasks.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * A Task over a Range of Indices, executed by forEachChunk().
+     */
+    public interface ChunkTask {
+
+        /**
+         * Executes the Task for all Indices in [from, to).  Called concurrently for
+         * different chunks.
+         *
+         * @param from First Index.
+         * @param to   Index after the Last Index.
+         */
+        void execute(int from, int to);
+    }
+}
@@ -15,29 +15,62 @@ public final class ProgressMonitor {
     private boolean consoleMode;
     private ArrayList<String> warningList = new ArrayList<String>();
     private static ProgressMonitor pMonitor;
+    private static ThreadLocal<ProgressMonitor> threadMonitor =
+            new ThreadLocal<ProgressMonitor>();
 
     private ProgressMonitor() {
     }
 
     /**
-     * Gets the Progress Monitor Singleton.
+     * Gets the Progress Monitor Singleton.  If a monitor has been bound to the current thread,
+     * that monitor is returned instead.
      *
      * @return Progress Monitor Singleton.
      */
-    public static ProgressMonitor getInstance() {
+    public static synchronized ProgressMonitor getInstance() {
+        ProgressMonitor monitor = threadMonitor.get();
+        if (monitor != null) {
+            return monitor;
+        }
         if (pMonitor == null) {
             pMonitor = new ProgressMonitor();
         }
         return pMonitor;
     }
 
+    /**
+     * Creates a new ProgressMonitor, and binds it to the current thread.  Used to execute
+     * several independent configurations within the same JVM.
+     *
+     * @return new ProgressMonitor Instance.
+     */
+    public static ProgressMonitor createThreadInstance() {
+        ProgressMonitor monitor = new ProgressMonitor();
+        threadMonitor.set(monitor);
+        return monitor;
+    }
+
+    /**
+     * Binds an existing ProgressMonitor to the current thread, e.g. a worker thread which
+     * executes part of a run on behalf of another thread.
+     *
+     * @param monitor ProgressMonitor Instance, or null to revert to the Singleton Instance.
+     */
+    public static void setThreadInstance(ProgressMonitor monitor) {
+        if (monitor == null) {
+            threadMonitor.remove();
+        } else {
+            threadMonitor.set(monitor);
+        }
+    }
+
     /**
      * Sets Console Flag.
      * When set to true Progress Monitor Messages are displayed to System.out.
      *
      * @param consoleFlag Console Mode Flag.
      */
-    public void setConsoleMode(boolean consoleFlag) {
+    public synchronized void setConsoleMode(boolean consoleFlag) {
         this.consoleMode = consoleFlag;
     }
 
@@ -46,7 +79,7 @@ public final class ProgressMonitor {
      *
      * @return Boolean Flag.
      */
-    public boolean isConsoleMode() {
+    public synchronized boolean isConsoleMode() {
         return this.consoleMode;
     }
 
@@ -55,7 +88,7 @@ public final class ProgressMonitor {
      *
      * @return double value.
      */
-    public double getPercentComplete() {
+    public synchronized double getPercentComplete() {
         if (curValue == 0) {
             return 0.0;
         } else {
@@ -68,7 +101,7 @@ public final class ProgressMonitor {
      *
      * @return max value.
      */
-    public int getMaxValue() {
+    public synchronized int getMaxValue() {
         return maxValue;
     }
 
@@ -77,7 +110,7 @@ public final class ProgressMonitor {
      *
      * @param m Max Value.
      */
-    public void setMaxValue(int m) {
+    public synchronized void setMaxValue(int m) {
         this.maxValue = m;
         this.curValue = 0;
     }
@@ -87,14 +120,14 @@ public final class ProgressMonitor {
      *
      * @return Current Value.
      */
-    public int getCurValue() {
+    public synchronized int getCurValue() {
         return curValue;
     }
 
     /**
      * Incremenets the Current Value.
      */
-    public void incrementCurValue() {
+    public synchronized void incrementCurValue() {
         curValue++;
     }
 
@@ -103,7 +136,7 @@ public final class ProgressMonitor {
      *
      * @param value Current Value.
      */
-    public void setCurValue(int value) {
+    public synchronized void setCurValue(int value) {
         this.curValue = value;
     }
 
@@ -112,7 +145,7 @@ public final class ProgressMonitor {
      *
      * @return Currest Task Message.
      */
-    public String getCurrentMessage() {
+    public synchronized String getCurrentMessage() {
         return currentMessage;
     }
 
@@ -121,7 +154,7 @@ public final class ProgressMonitor {
      *
      * @return String Object.
      */
-    public String getLog() {
+    public synchronized String getLog() {
         return log.toString();
     }
 
@@ -130,7 +163,7 @@ public final class ProgressMonitor {
      *
      * @param s Current Task Message.
      */
-    public void setCurrentMessage(String s) {
+    public synchronized void setCurrentMessage(String s) {
         this.currentMessage = s;
         this.log.append(currentMessage + "\n");
         if (consoleMode && !GlobalConfig.getInstance().isVeryQuiet()) {
@@ -143,16 +176,16 @@ public final class ProgressMonitor {
      *
      * @param warning warning message.
      */
-    public void logWarning(String warning) {
+    public synchronized void logWarning(String warning) {
         warningList.add(warning);
     }
 
     /**
      * Gets a list of warning messages.
      *
-     * @return ArrayList of warning messages.
+     * @return copy of the ArrayList of warning messages.
      */
-    public ArrayList<String> getWarnings() {
-        return warningList;
+    public synchronized ArrayList<String> getWarnings() {
+        return new ArrayList<String>(warningList);
     }
 }